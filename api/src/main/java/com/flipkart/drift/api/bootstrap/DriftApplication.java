@@ -14,6 +14,7 @@ import com.flipkart.drift.api.resources.WorkflowResource;
 import com.flipkart.drift.api.resources.NodeDefinitionResource;
 import com.flipkart.drift.api.resources.WorkflowDefinitionResource;
 import com.flipkart.drift.api.module.WorkflowClientModule;
+import com.flipkart.drift.api.service.RedisPubSubService;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.netflix.config.*;
@@ -62,6 +63,7 @@ public class DriftApplication extends Application<DriftConfiguration> {
         DynamicPropertyFactory.initWithConfigurationSource(compositeConfiguration);
         // Create Guice injector after properties are loaded
         Injector injector = Guice.createInjector(new WorkflowClientModule(configuration, environment, metricRegistry));
+        environment.lifecycle().manage(injector.getInstance(RedisPubSubService.class));
         environment.jersey().register(injector.getInstance(WorkflowResource.class));
         environment.jersey().register(injector.getInstance(NodeDefinitionResource.class));
         environment.jersey().register(injector.getInstance(WorkflowDefinitionResource.class));
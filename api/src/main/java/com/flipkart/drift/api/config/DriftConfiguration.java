@@ -18,6 +18,8 @@ public class DriftConfiguration extends Configuration {
     @NotNull
     private ExecutorServiceConfig cacheRefreshExecutorServiceConfig;
     @NotNull
+    private WorkflowAwaitConfig workflowAwaitConfig;
+    @NotNull
     private StaticCacheRefreshConfig staticCacheRefreshConfig;
     @NotNull
     private CacheMaxEntriesConfig cacheMaxEntriesConfig;
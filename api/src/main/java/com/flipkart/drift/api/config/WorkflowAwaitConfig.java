@@ -0,0 +1,16 @@
+package com.flipkart.drift.api.config;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+public class WorkflowAwaitConfig {
+    // Default deadline for start/resume to hand control back to the caller
+    private long timeoutMillis = 5000;
+    // Upper bound for a caller supplied deadline
+    private long maxTimeoutMillis = 30000;
+    // Pool running the short Temporal RPCs of the async start/resume variants
+    @NotNull
+    private ExecutorServiceConfig executorServiceConfig;
+}
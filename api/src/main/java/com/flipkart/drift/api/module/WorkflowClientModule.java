@@ -17,6 +17,7 @@ import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.AsyncConnection;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.ConnectionFactory;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -92,6 +93,11 @@ public class WorkflowClientModule extends AbstractModule {
         public boolean isDegraded() {
             return false;
         }
+
+        @Override
+        public Optional<AsyncConnection> getAsyncConnection(ConnectionType connectionType) {
+            return Optional.empty();
+        }
     }
 
     public static class ConnectionProviderWorker implements Provider<Connection> {
@@ -2,6 +2,7 @@ package com.flipkart.drift.api.resources;
 
 import com.codahale.metrics.annotation.ExceptionMetered;
 import com.codahale.metrics.annotation.Timed;
+import com.flipkart.drift.api.exception.ApiException;
 import com.flipkart.drift.api.service.TemporalService;
 import com.flipkart.drift.sdk.model.request.WorkflowResumeRequest;
 import com.flipkart.drift.sdk.model.request.WorkflowStartRequest;
@@ -11,12 +12,19 @@ import com.flipkart.drift.sdk.model.response.WorkflowResponse;
 import com.flipkart.drift.sdk.model.response.WorkflowUtilityResponse;
 import com.flipkart.drift.commons.model.temporal.WorkflowState;
 import com.google.inject.Inject;
+import org.slf4j.MDC;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotEmpty;
 import javax.ws.rs.*;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 
 @Path("/v3")
 @Produces(MediaType.APPLICATION_JSON)
@@ -46,6 +54,49 @@ public class WorkflowResource {
         return temporalService.resumeWorkflow(workflowResumeRequest);
     }
 
+    /**
+     * Same contract as {@link #startWorkflow} but does not hold a request thread while the workflow runs.
+     * An optional timeoutMs overrides the configured deadline.
+     */
+    @POST
+    @Path("/workflow/async/start")
+    @ExceptionMetered
+    public void startWorkflowAsync(@Valid WorkflowStartRequest workflowStartRequest,
+                                   @QueryParam("timeoutMs") Long timeoutMs,
+                                   @Suspended AsyncResponse asyncResponse) {
+        suspend(asyncResponse, timeoutMs, temporalService.startWorkflowAsync(workflowStartRequest, timeoutMs));
+    }
+
+    @PUT
+    @Path("/workflow/async/resume/{workflowId}")
+    @ExceptionMetered
+    public void resumeWorkflowAsync(@Valid WorkflowResumeRequest workflowResumeRequest,
+                                    @NotEmpty @PathParam("workflowId") String workflowId,
+                                    @QueryParam("timeoutMs") Long timeoutMs,
+                                    @Suspended AsyncResponse asyncResponse) {
+        workflowResumeRequest.setWorkflowId(workflowId);
+        suspend(asyncResponse, timeoutMs, temporalService.resumeWorkflowAsync(workflowResumeRequest, timeoutMs));
+    }
+
+    private void suspend(AsyncResponse asyncResponse, Long timeoutMs, CompletableFuture<WorkflowResponse> workflowResponse) {
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        // Safety net in case a Temporal RPC hangs past the deadline
+        asyncResponse.setTimeout(2 * temporalService.resolveAwaitTimeout(timeoutMs), TimeUnit.MILLISECONDS);
+        asyncResponse.setTimeoutHandler(response ->
+                response.resume(new ApiException(Response.Status.REQUEST_TIMEOUT, "Timeout waiting for workflow response")));
+        workflowResponse.whenComplete((response, throwable) -> {
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            if (throwable == null) {
+                asyncResponse.resume(response);
+            } else {
+                asyncResponse.resume(throwable instanceof CompletionException && throwable.getCause() != null ?
+                        throwable.getCause() : throwable);
+            }
+        });
+    }
+
     @DELETE
     @Timed
     @Path("/workflow/terminate/{workflowId}")
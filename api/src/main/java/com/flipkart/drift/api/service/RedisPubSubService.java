@@ -3,37 +3,63 @@ package com.flipkart.drift.api.service;
 import com.codahale.metrics.Gauge;
 import com.codahale.metrics.Timer;
 import com.flipkart.drift.api.exception.ApiException;
+import com.flipkart.drift.commons.model.temporal.ReturnControlEvent;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import com.google.inject.Singleton;
 import io.dropwizard.lifecycle.Managed;
-import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPubSub;
 import redis.clients.jedis.JedisSentinelPool;
 
 import javax.ws.rs.core.Response;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 
 import static com.flipkart.drift.commons.utils.Constants.Workflow.ASYNC_AWAIT_CHANNEL;
 import static com.flipkart.drift.commons.utils.MetricsRegistry.*;
 
+/**
+ * Waits for the worker's return-control event on {@code +async-await:<workflowId>}.
+ * A single long-lived PSUBSCRIBE connection per API instance receives every await event and dispatches it to
+ * the waiter registered for that workflowId and awaitId, so in-flight requests are bounded by memory and not by
+ * threads or redis connections.
+ */
 @Slf4j
 @Singleton
 public class RedisPubSubService implements Managed {
-    private final JedisSentinelPool jedisSentinelPool;
+    private static final String ASYNC_AWAIT_PATTERN = ASYNC_AWAIT_CHANNEL + "*";
+    private static final long RESUBSCRIBE_BACKOFF_MILLIS = 1000;
+    // Await ids of waiters that timed out recently; a message for one of these is counted as late instead of orphaned
+    private static final long TIMED_OUT_WAITERS_MAX_ENTRIES = 10000;
+    private static final long TIMED_OUT_WAITERS_TTL_SECONDS = 60;
 
-    @Getter
-    private final ExecutorService redisThreadPool;
+    private final JedisSentinelPool jedisSentinelPool;
+    private final ExecutorService subscriberExecutor;
+    // Waiters by workflowId and awaitId. A workflow's waiters are only touched within map operations on its entry
+    private final Map<String, Map<String, CompletableFuture<String>>> pendingWaiters = new ConcurrentHashMap<>();
+    private final Cache<String, Boolean> timedOutWaiters = CacheBuilder.newBuilder()
+            .maximumSize(TIMED_OUT_WAITERS_MAX_ENTRIES)
+            .expireAfterWrite(TIMED_OUT_WAITERS_TTL_SECONDS, TimeUnit.SECONDS)
+            .build();
+    private final JedisPubSub awaitListener = createAwaitListener();
+    private volatile boolean running = false;
+    private volatile boolean subscribed = false;
 
     @Inject
     public RedisPubSubService(JedisSentinelPool jedisSentinelPool) {
         this.jedisSentinelPool = jedisSentinelPool;
-        this.redisThreadPool = new ThreadPoolExecutor(
-                10, 50,
-                60L, TimeUnit.SECONDS,
-                new SynchronousQueue<>(), // strong back-pressure
-                new ThreadPoolExecutor.AbortPolicy() // Will throw RejectedExecutionException
+        this.subscriberExecutor = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("redis-await-subscriber-%d")
+                        .setDaemon(true)
+                        .build()
         );
         publishGaugeMetrics();
     }
@@ -56,134 +82,178 @@ public class RedisPubSubService implements Managed {
                 "jedis", "numWaiters"
         );
 
-        // Monitor thread pool metrics
-        if (redisThreadPool instanceof ThreadPoolExecutor) {
-            ThreadPoolExecutor threadPoolExecutor = (ThreadPoolExecutor) redisThreadPool;
-
-            registerGauge(
-                    this.getClass(),
-                    (Gauge<Integer>) threadPoolExecutor::getActiveCount,
-                    "threadpool", "activeThreads"
-            );
-            registerGauge(
-                    this.getClass(),
-                    (Gauge<Integer>) threadPoolExecutor::getPoolSize,
-                    "threadpool", "poolSize"
-            );
-            registerGauge(
-                    this.getClass(),
-                    (Gauge<Long>) threadPoolExecutor::getCompletedTaskCount,
-                    "threadpool", "completedTasks"
-            );
-            registerGauge(
-                    this.getClass(),
-                    (Gauge<Long>) threadPoolExecutor::getTaskCount,
-                    "threadpool", "totalTasks"
-            );
-            registerGauge(
-                    this.getClass(),
-                    (Gauge<Integer>) threadPoolExecutor::getLargestPoolSize,
-                    "threadpool", "largestPoolSize"
-            );
+        // Monitor await channel metrics
+        registerGauge(
+                this.getClass(),
+                (Gauge<Integer>) pendingWaiters::size,
+                "await", "pendingWaiters"
+        );
+        registerGauge(
+                this.getClass(),
+                (Gauge<Integer>) () -> subscribed ? 1 : 0,
+                "await", "subscribed"
+        );
+    }
+
+    /**
+     * @return the await event message published by the worker
+     */
+    public String subscribeAndExecute(String workflowId, String awaitId, Callable<Void> onSubscribeAction, String action,
+                                      long timeoutMillis) {
+        CompletableFuture<String> waiter = registerWaiter(workflowId, awaitId, timeoutMillis);
+        try (Timer.Context ignored = timerContext(this.getClass(), action, "latency")) {
+            onSubscribeAction.call();
+        } catch (io.temporal.client.WorkflowNotFoundException e) {
+            waiter.cancel(false);
+            throw e;
+        } catch (Exception e) {
+            waiter.cancel(false);
+            markMeter(this.getClass(), "onSubscribeAction", "exception");
+            log.error("Exception during {} action for workflowId: {}", action, workflowId, e);
+            throw new ApiException(Response.Status.INTERNAL_SERVER_ERROR, "Error waiting for workflow response");
         }
+        return waitForRedisResponse(waiter, workflowId);
     }
 
-    public void subscribeAndExecute(String workflowId, Callable<Void> onSubscribeAction, String action) {
-        CompletableFuture<Void> redisFuture = new CompletableFuture<>();
-        String channelName = ASYNC_AWAIT_CHANNEL + workflowId;
-        JedisPubSub pubSub = createPubSubListener(redisFuture, onSubscribeAction, action);
-        Future<?> redisTask = null;
-        try {
-            redisTask = submitRedisSubscriptionTask(channelName, pubSub, redisFuture);
-            waitForRedisResponse(pubSub, redisFuture, channelName);
-        } finally {
-            if (redisTask != null) {
-                redisTask.cancel(true);
+    /**
+     * Registers a waiter for the await event of the request {@code awaitId} of the workflow. Register before
+     * triggering the workflow so that a fast worker response can't be missed. The returned future completes with the
+     * event message, or exceptionally with {@link TimeoutException} once {@code timeoutMillis} elapses. Cancel it to
+     * release the waiter early.
+     */
+    public CompletableFuture<String> registerWaiter(String workflowId, String awaitId, long timeoutMillis) {
+        if (!subscribed) {
+            markMeter(this.getClass(), "await", "notSubscribed");
+            log.error("Redis await channel is not subscribed, rejecting waiter for workflowId: {}", workflowId);
+            throw new ApiException(Response.Status.SERVICE_UNAVAILABLE, "Redis await channel is not subscribed");
+        }
+        CompletableFuture<String> waiter = new CompletableFuture<>();
+        pendingWaiters.compute(workflowId, (key, waiters) -> {
+            Map<String, CompletableFuture<String>> registered = waiters != null ? waiters : new HashMap<>();
+            registered.put(awaitId, waiter);
+            return registered;
+        });
+        waiter.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        waiter.whenComplete((ignored, throwable) -> {
+            boolean timedOut = throwable instanceof TimeoutException;
+            if (timedOut) {
+                // Before the waiter leaves, so that its event is counted as late and not as stale
+                timedOutWaiters.put(awaitId, Boolean.TRUE);
+            }
+            pendingWaiters.computeIfPresent(workflowId, (key, waiters) -> {
+                waiters.remove(awaitId, waiter);
+                return waiters.isEmpty() ? null : waiters;
+            });
+            if (timedOut) {
+                markMeter(this.getClass(), "subscribe", "timeout");
+                log.warn("Timeout waiting for Redis event on channel: {}", ASYNC_AWAIT_CHANNEL + workflowId);
             }
+        });
+        return waiter;
+    }
+
+    private String waitForRedisResponse(CompletableFuture<String> waiter, String workflowId) {
+        try {
+            return waiter.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            waiter.cancel(false);
+            throw toApiException(workflowId, e);
+        } catch (ExecutionException e) {
+            throw toApiException(workflowId, e.getCause());
         }
     }
 
-    private JedisPubSub createPubSubListener(CompletableFuture<Void> redisFuture, Callable<Void> onSubscribeAction, 
-                                             String action) {
+    public ApiException toApiException(String workflowId, Throwable throwable) {
+        if (throwable instanceof TimeoutException) {
+            return new ApiException(Response.Status.REQUEST_TIMEOUT, "Timeout waiting for workflow response");
+        }
+        markMeter(this.getClass(), "subscribe", throwable.getClass().getName());
+        log.error("Error waiting for Redis event on channel: {}: {}", ASYNC_AWAIT_CHANNEL + workflowId, throwable.getMessage(), throwable);
+        return new ApiException(Response.Status.INTERNAL_SERVER_ERROR, "Error waiting for workflow response");
+    }
+
+    private JedisPubSub createAwaitListener() {
         return new JedisPubSub() {
             @Override
-            public void onMessage(String channel, String message) {
-                log.info("Message received on channel {}:{}", channel, message);
-                redisFuture.complete(null);
-                safeUnsubscribe(this, "receiving message", channel);
+            public void onPMessage(String pattern, String channel, String message) {
+                dispatch(channel.substring(ASYNC_AWAIT_CHANNEL.length()), message);
             }
 
             @Override
-            public void onSubscribe(String channel, int subscribedChannels) {
-                log.info("Subscribed to channel: {}", channel);
-                try (Timer.Context ignored = timerContext(this.getClass(), action, "latency")) {
-                    onSubscribeAction.call();
-                } catch (Exception e) {
-                    markMeter(this.getClass(), "onSubscribeAction", "exception");
-                    log.error("Exception during onSubscribe action for channel: {}", channel, e);
-                    safeUnsubscribe(this, "onSubscribeAction error", channel);
-                    redisFuture.completeExceptionally(e);
-                }
+            public void onPSubscribe(String pattern, int subscribedChannels) {
+                log.info("Subscribed to pattern: {}", pattern);
+                subscribed = true;
             }
-        };
-    }
 
-    private Future<?> submitRedisSubscriptionTask(String channelName, JedisPubSub pubSub, 
-                                                 CompletableFuture<Void> redisFuture) {
-        try {
-            return redisThreadPool.submit(() -> {
-                try (Jedis jedis = jedisSentinelPool.getResource()) {
-                    jedis.subscribe(pubSub, channelName);
-                } catch (Exception e) {
-                    markMeter(this.getClass(), "redis", "exception");
-                    log.error("Error subscribing to Redis channel: {}: {}", channelName, e.getMessage(), e);
-                    safeUnsubscribe(pubSub, "Redis exception", channelName);
-                    redisFuture.completeExceptionally(e);
-                }
-            });
-        } catch (RejectedExecutionException e) {
-            markMeter(this.getClass(), "threadPool", "rejected", "exception");
-            log.error("Redis subscription task was rejected for channel: {}: {}", channelName, e.getMessage(), e);
-            throw new ApiException(Response.Status.INTERNAL_SERVER_ERROR, "Redis subscription task was rejected");
-        }
+            @Override
+            public void onPUnsubscribe(String pattern, int subscribedChannels) {
+                log.info("Unsubscribed from pattern: {}", pattern);
+                subscribed = false;
+            }
+        };
     }
 
-    private void waitForRedisResponse(JedisPubSub pubSub, CompletableFuture<Void> redisFuture, String channelName) {
-        try {
-            redisFuture.get(5, TimeUnit.SECONDS);
-        } catch (TimeoutException e) {
-            markMeter(this.getClass(), "subscribe", "timeout");
-            log.warn("Timeout waiting for Redis event on channel: {}. Unsubscribing and cancelling task.", channelName);
-            safeUnsubscribe(pubSub, "timeout", channelName);
-            throw new ApiException(Response.Status.REQUEST_TIMEOUT, "Timeout waiting for workflow response");
-        } catch (InterruptedException e) {
-            logAndMarkMeter(channelName, e);
-        } catch (ExecutionException e) {
-            Throwable cause = e.getCause();
-            if (cause instanceof io.temporal.client.WorkflowNotFoundException) {
-                throw (io.temporal.client.WorkflowNotFoundException) cause;
+    private void dispatch(String workflowId, String message) {
+        String awaitId = ReturnControlEvent.awaitIdOf(message);
+        List<CompletableFuture<String>> answered = new ArrayList<>(1);
+        Map<String, CompletableFuture<String>> remaining = pendingWaiters.computeIfPresent(workflowId, (key, waiters) -> {
+            if (awaitId == null) {
+                // Older workers don't echo the await id, every waiter takes the event and queries the workflow
+                answered.addAll(waiters.values());
+                return null;
             }
-            logAndMarkMeter(channelName, e);
+            CompletableFuture<String> waiter = waiters.remove(awaitId);
+            if (waiter != null) {
+                answered.add(waiter);
+            }
+            return waiters.isEmpty() ? null : waiters;
+        });
+        // Completed outside of the map operation, completion removes the waiter from the map
+        if (!answered.isEmpty()) {
+            markMeter(this.getClass(), "message", "delivered");
+            answered.forEach(waiter -> waiter.complete(message));
+        } else if (awaitId != null && timedOutWaiters.getIfPresent(awaitId) != null) {
+            timedOutWaiters.invalidate(awaitId);
+            markMeter(this.getClass(), "message", "late");
+            log.warn("Late Redis event for workflowId: {}, waiter of awaitId: {} already timed out", workflowId, awaitId);
+        } else if (remaining != null) {
+            // The event of an earlier request whose waiter is gone, never hand it to the waiters of later requests
+            markMeter(this.getClass(), "message", "stale");
+            log.warn("Stale Redis event for workflowId: {}, no waiter for awaitId: {}", workflowId, awaitId);
+        } else {
+            // Expected when the request was served by another API instance
+            markMeter(this.getClass(), "message", "orphaned");
+            log.debug("No waiter for Redis event of workflowId: {}", workflowId);
         }
     }
 
-    private void logAndMarkMeter(String channelName, Exception e) {
-        markMeter(this.getClass(), "subscribe", e.getClass().getName());
-        log.error("Error waiting for Redis event on channel: {}: {}", channelName, e.getMessage(), e);
-        throw new ApiException(Response.Status.INTERNAL_SERVER_ERROR, "Error waiting for workflow response");
-    }
-
-    private void safeUnsubscribe(JedisPubSub pubSub, String context, String channel) {
-        try {
-            if (pubSub.isSubscribed())
-                pubSub.unsubscribe();
-        } catch (Exception ex) {
-            log.warn("Unsubscribe failed after {} for channel: {}", context, channel, ex);
+    private void runSubscriptionLoop() {
+        while (running) {
+            try (Jedis jedis = jedisSentinelPool.getResource()) {
+                log.info("Subscribing to async await pattern: {}", ASYNC_AWAIT_PATTERN);
+                jedis.psubscribe(awaitListener, ASYNC_AWAIT_PATTERN);
+            } catch (Exception e) {
+                subscribed = false;
+                if (running) {  // Only log if we're still supposed to be running
+                    markMeter(this.getClass(), "redis", "exception");
+                    log.error("Redis await subscription error, will retry in {} ms", RESUBSCRIBE_BACKOFF_MILLIS, e);
+                    try {
+                        Thread.sleep(RESUBSCRIBE_BACKOFF_MILLIS);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
         }
+        log.info("Redis await subscription loop terminated");
     }
 
     @Override
     public void start() {
+        running = true;
+        subscriberExecutor.submit(this::runSubscriptionLoop);
         log.info("RedisPubSubService started");
     }
 
@@ -194,10 +264,20 @@ public class RedisPubSubService implements Managed {
     }
 
     public void shutdown() {
-        redisThreadPool.shutdownNow();
+        running = false;
+        try {
+            if (awaitListener.isSubscribed()) {
+                awaitListener.punsubscribe();
+            }
+        } catch (Exception e) {
+            log.warn("Punsubscribe failed during shutdown", e);
+        }
+        subscriberExecutor.shutdownNow();
+        for (String workflowId : pendingWaiters.keySet()) {
+            Map<String, CompletableFuture<String>> waiters = pendingWaiters.remove(workflowId);
+            if (waiters != null) {
+                waiters.values().forEach(waiter -> waiter.cancel(true));
+            }
+        }
     }
 }
-
-
-
-
@@ -1,8 +1,13 @@
 package com.flipkart.drift.api.service;
 
+import com.codahale.metrics.InstrumentedExecutorService;
+import com.codahale.metrics.Timer;
 import com.flipkart.drift.api.config.DriftConfiguration;
+import com.flipkart.drift.api.config.ExecutorServiceConfig;
+import com.flipkart.drift.api.config.WorkflowAwaitConfig;
 import com.flipkart.drift.api.filters.RequestThreadContext;
 import com.flipkart.drift.api.exception.ApiException;
+import com.flipkart.drift.sdk.model.request.WorkflowRequest;
 import com.flipkart.drift.sdk.model.request.WorkflowResumeRequest;
 import com.flipkart.drift.sdk.model.request.WorkflowStartRequest;
 import com.flipkart.drift.sdk.model.request.WorkflowTerminateRequest;
@@ -10,8 +15,10 @@ import com.flipkart.drift.sdk.model.request.WorkflowUtilityRequest;
 import com.flipkart.drift.sdk.model.response.View;
 import com.flipkart.drift.sdk.model.response.WorkflowResponse;
 import com.flipkart.drift.sdk.model.response.WorkflowUtilityResponse;
+import com.flipkart.drift.commons.model.temporal.ReturnControlEvent;
 import com.flipkart.drift.commons.model.temporal.WorkflowState;
 import com.flipkart.drift.api.service.utils.Utility;
+import com.flipkart.drift.commons.utils.MetricsRegistry;
 import com.flipkart.drift.workflows.GenericWorkflow;
 import com.google.inject.Inject;
 import io.temporal.api.enums.v1.WorkflowIdReusePolicy;
@@ -19,11 +26,18 @@ import io.temporal.client.*;
 import io.temporal.serviceclient.WorkflowServiceStubs;
 import io.temporal.serviceclient.WorkflowServiceStubsOptions;
 import lombok.extern.slf4j.Slf4j;
+import org.slf4j.MDC;
 
 import javax.ws.rs.core.Response;
 import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.*;
 
 import static com.flipkart.drift.commons.utils.Constants.Workflow.WORKFLOW_EXCEPTION;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.markMeter;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.timerContext;
 
 
 @Slf4j
@@ -37,6 +51,9 @@ public class TemporalService {
     public static final String RESUME = "resume";
     private final Utility utility;
     private final DriftConfiguration driftConfiguration;
+    private final WorkflowAwaitConfig workflowAwaitConfig;
+    // Runs the short Temporal RPCs of the async variants; the wait for the worker holds no thread
+    private final ExecutorService temporalExecutor;
 
     @Inject
     public TemporalService(RedisPubSubService redisPubSubService,
@@ -51,6 +68,19 @@ public class TemporalService {
         this.client = WorkflowClient.newInstance(serviceStub);
         this.utility = utility;
         this.driftConfiguration = driftConfiguration;
+        this.workflowAwaitConfig = driftConfiguration.getWorkflowAwaitConfig();
+        this.temporalExecutor = provideTemporalExecutor(workflowAwaitConfig.getExecutorServiceConfig());
+    }
+
+    private static ExecutorService provideTemporalExecutor(ExecutorServiceConfig executorServiceConfig) {
+        ExecutorService executorService = new ThreadPoolExecutor(executorServiceConfig.getMinThreads(),
+                executorServiceConfig.getMaxThreads(),
+                60L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(executorServiceConfig.getQueueSize()),
+                new ThreadPoolExecutor.AbortPolicy()
+        );
+        return new InstrumentedExecutorService(executorService, MetricsRegistry.INSTANCE.getRegistry(), "TemporalAsyncThreadPool");
     }
 
     public WorkflowResponse startWorkflow(WorkflowStartRequest workflowStartRequest) {
@@ -63,6 +93,7 @@ public class TemporalService {
 
     public WorkflowResponse executeWorkflow(WorkflowStartRequest workflowStartRequest) {
         String workflowId = workflowStartRequest.getWorkflowId();
+        String awaitId = newAwaitId(workflowStartRequest);
         GenericWorkflow workflow;
         try {
             workflow = client.newWorkflowStub(
@@ -74,11 +105,11 @@ public class TemporalService {
                             .setWorkflowIdReusePolicy(WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_TERMINATE_IF_RUNNING)
                             .build()
             );
-            redisPubSubService.subscribeAndExecute(workflowId, () -> {
+            String message = redisPubSubService.subscribeAndExecute(workflowId, awaitId, () -> {
                 WorkflowClient.start(workflow::startWorkflow, workflowStartRequest);
                 return null;
-            }, START);
-            return buildResponseAndReturn(workflow);
+            }, START, workflowAwaitConfig.getTimeoutMillis());
+            return buildResponseAndReturn(workflow, message, awaitId);
         } catch (WorkflowNotFoundException e) {
             throw new ApiException(Response.Status.NOT_FOUND, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
         } catch (WorkflowException e) {
@@ -94,11 +125,12 @@ public class TemporalService {
         try {
             workflowResumeRequest.setThreadContext(RequestThreadContext.get().getLegacyThreadContext());
             GenericWorkflow workflow = client.newWorkflowStub(GenericWorkflow.class, workflowResumeRequest.getWorkflowId());
-            redisPubSubService.subscribeAndExecute(workflowResumeRequest.getWorkflowId(), () -> {
+            String awaitId = newAwaitId(workflowResumeRequest);
+            String message = redisPubSubService.subscribeAndExecute(workflowResumeRequest.getWorkflowId(), awaitId, () -> {
                 workflow.resumeWorkflow(workflowResumeRequest);
                 return null;
-            }, RESUME);
-            return buildResponseAndReturn(workflow);
+            }, RESUME, workflowAwaitConfig.getTimeoutMillis());
+            return buildResponseAndReturn(workflow, message, awaitId);
         } catch (WorkflowNotFoundException e) {
             throw new ApiException(Response.Status.NOT_FOUND, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
         } catch (WorkflowException e) {
@@ -110,6 +142,145 @@ public class TemporalService {
         }
     }
 
+    /**
+     * Non-blocking variant of {@link #startWorkflow}: Temporal start -> return-control event -> state fetch.
+     * The deadline covers the whole chain and no thread is held while waiting for the worker.
+     *
+     * @param timeoutMillis caller supplied deadline, null for the configured default
+     */
+    public CompletableFuture<WorkflowResponse> startWorkflowAsync(WorkflowStartRequest workflowStartRequest, Long timeoutMillis) {
+        if (workflowStartRequest.getWorkflowId() == null || workflowStartRequest.getWorkflowId().isBlank()) {
+            workflowStartRequest.setWorkflowId(utility.generateWorkflowId(null, false));
+        }
+        workflowStartRequest.setThreadContext(RequestThreadContext.get().getLegacyThreadContext());
+        String workflowId = workflowStartRequest.getWorkflowId();
+        GenericWorkflow workflow = client.newWorkflowStub(
+                GenericWorkflow.class,
+                WorkflowOptions.newBuilder()
+                        .setWorkflowId(workflowId)
+                        .setWorkflowExecutionTimeout(Duration.ofMinutes(1440))
+                        .setTaskQueue(driftConfiguration.getTemporalTaskQueue())
+                        .setWorkflowIdReusePolicy(WorkflowIdReusePolicy.WORKFLOW_ID_REUSE_POLICY_TERMINATE_IF_RUNNING)
+                        .build()
+        );
+        String awaitId = newAwaitId(workflowStartRequest);
+        return executeAsync(workflowId, awaitId, workflow, () -> WorkflowClient.start(workflow::startWorkflow, workflowStartRequest),
+                START, timeoutMillis);
+    }
+
+    /**
+     * Non-blocking variant of {@link #resumeWorkflow}, see {@link #startWorkflowAsync}.
+     */
+    public CompletableFuture<WorkflowResponse> resumeWorkflowAsync(WorkflowResumeRequest workflowResumeRequest, Long timeoutMillis) {
+        workflowResumeRequest.setThreadContext(RequestThreadContext.get().getLegacyThreadContext());
+        String workflowId = workflowResumeRequest.getWorkflowId();
+        GenericWorkflow workflow = client.newWorkflowStub(GenericWorkflow.class, workflowId);
+        String awaitId = newAwaitId(workflowResumeRequest);
+        return executeAsync(workflowId, awaitId, workflow, () -> workflow.resumeWorkflow(workflowResumeRequest),
+                RESUME, timeoutMillis);
+    }
+
+    public long resolveAwaitTimeout(Long timeoutMillis) {
+        if (timeoutMillis == null || timeoutMillis <= 0) {
+            return workflowAwaitConfig.getTimeoutMillis();
+        }
+        return Math.min(timeoutMillis, workflowAwaitConfig.getMaxTimeoutMillis());
+    }
+
+    private CompletableFuture<WorkflowResponse> executeAsync(String workflowId, String awaitId, GenericWorkflow workflow,
+                                                             Runnable action, String actionName, Long timeoutMillis) {
+        long timeout = resolveAwaitTimeout(timeoutMillis);
+        long deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+        Map<String, String> mdcContext = MDC.getCopyOfContextMap();
+        Timer.Context totalTimer = timerContext(this.getClass(), actionName, "async", "total");
+        CompletableFuture<String> waiter;
+        try {
+            waiter = redisPubSubService.registerWaiter(workflowId, awaitId, timeout);
+        } catch (Exception e) {
+            totalTimer.stop();
+            return CompletableFuture.failedFuture(toApiException(e, actionName));
+        }
+        CompletableFuture<WorkflowResponse> response;
+        try {
+            response = supplyTimed(() -> {
+                action.run();
+                return null;
+            }, mdcContext, actionName, "trigger")
+                    .thenCompose(ignored -> {
+                        Timer.Context awaitTimer = timerContext(this.getClass(), actionName, "async", "await");
+                        return waiter.whenComplete((result, throwable) -> awaitTimer.stop());
+                    })
+                    .thenCompose(message -> {
+                        Optional<WorkflowState> piggybackedState = decodeWorkflowState(message, awaitId);
+                        if (piggybackedState.isPresent()) {
+                            return CompletableFuture.completedFuture(buildResponse(piggybackedState.get()));
+                        }
+                        if (System.nanoTime() - deadlineNanos >= 0) {
+                            throw new CompletionException(new ApiException(Response.Status.REQUEST_TIMEOUT, "Deadline exceeded before fetching workflow state"));
+                        }
+                        return supplyTimed(() -> buildResponse(workflow.getWorkflowState()), mdcContext, actionName, "state");
+                    });
+        } catch (RejectedExecutionException e) {
+            waiter.cancel(false);
+            totalTimer.stop();
+            return CompletableFuture.failedFuture(toApiException(e, actionName));
+        }
+        return response.handle((workflowResponse, throwable) -> {
+            totalTimer.stop();
+            if (throwable == null) {
+                return workflowResponse;
+            }
+            waiter.cancel(false);
+            throw new CompletionException(toApiException(unwrap(throwable), actionName));
+        });
+    }
+
+    private <T> CompletableFuture<T> supplyTimed(Callable<T> stage, Map<String, String> mdcContext, String actionName, String stageName) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (mdcContext != null) {
+                MDC.setContextMap(mdcContext);
+            }
+            try (Timer.Context ignored = timerContext(this.getClass(), actionName, "async", stageName)) {
+                return stage.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            } finally {
+                MDC.clear();
+            }
+        }, temporalExecutor);
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        while ((throwable instanceof CompletionException || throwable instanceof ExecutionException) && throwable.getCause() != null) {
+            throwable = throwable.getCause();
+        }
+        return throwable;
+    }
+
+    private ApiException toApiException(Throwable e, String actionName) {
+        if (e instanceof ApiException) {
+            return (ApiException) e;
+        }
+        if (e instanceof TimeoutException) {
+            return new ApiException(Response.Status.REQUEST_TIMEOUT, "Timeout waiting for workflow response");
+        }
+        if (e instanceof RejectedExecutionException) {
+            log.error("Async {} rejected: {}", actionName, e.getMessage());
+            return new ApiException(Response.Status.SERVICE_UNAVAILABLE, "Too many pending workflow requests");
+        }
+        if (e instanceof WorkflowNotFoundException) {
+            return new ApiException(Response.Status.NOT_FOUND, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+        if (e instanceof WorkflowException) {
+            log.error(WORKFLOW_EXCEPTION, e.getMessage(), e);
+            return new ApiException(Response.Status.EXPECTATION_FAILED, e.getCause() != null ? e.getCause().getMessage() : e.getMessage());
+        }
+        log.error("Unexpected error during async workflow {}: {}", actionName, e.getMessage(), e);
+        return new ApiException(Response.Status.INTERNAL_SERVER_ERROR, "Failed to " + actionName + " workflow: " + e.getMessage());
+    }
+
     public void terminateWorkflow(WorkflowTerminateRequest workflowTerminateRequest) {
         try {
             GenericWorkflow workflow = client.newWorkflowStub(GenericWorkflow.class, workflowTerminateRequest.getWorkflowId());
@@ -148,8 +319,26 @@ public class TemporalService {
         }
     }
 
-    private WorkflowResponse buildResponseAndReturn(GenericWorkflow workflow) {
-        WorkflowState workflowState = workflow.getWorkflowState();
+    // A new id per start or resume, the waiter only takes the return-control event that echoes it
+    private static String newAwaitId(WorkflowRequest workflowRequest) {
+        String awaitId = UUID.randomUUID().toString();
+        workflowRequest.setAwaitId(awaitId);
+        return awaitId;
+    }
+
+    private WorkflowResponse buildResponseAndReturn(GenericWorkflow workflow, String message, String awaitId) {
+        // Query the workflow when the worker could not piggy-back its state, or the event doesn't answer this request
+        WorkflowState workflowState = decodeWorkflowState(message, awaitId).orElseGet(workflow::getWorkflowState);
+        return buildResponse(workflowState);
+    }
+
+    private Optional<WorkflowState> decodeWorkflowState(String message, String awaitId) {
+        Optional<WorkflowState> workflowState = ReturnControlEvent.decode(message, awaitId);
+        markMeter(this.getClass(), "returnControl", workflowState.isPresent() ? "piggybacked" : "queried");
+        return workflowState;
+    }
+
+    private WorkflowResponse buildResponse(WorkflowState workflowState) {
         View view = workflowState.getView();
         return WorkflowResponse.builder()
                 .disposition(workflowState.getDisposition())
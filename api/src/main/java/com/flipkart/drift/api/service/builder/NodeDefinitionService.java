@@ -7,31 +7,37 @@ import com.flipkart.drift.persistence.entity.NodeHB;
 import com.flipkart.drift.commons.exception.ApiException;
 import com.flipkart.drift.commons.model.enums.Version;
 import com.flipkart.drift.commons.model.node.NodeDefinition;
+import com.flipkart.drift.commons.utils.ContextReadSet;
 import com.google.inject.Inject;
 import redis.clients.jedis.JedisSentinelPool;
 
 import javax.ws.rs.core.Response;
 import java.io.IOException;
+import java.util.Set;
 
 import static com.flipkart.drift.commons.utils.Utility.*;
 
 import static com.flipkart.drift.api.service.utils.Utility.publishRedisEvent;
 import static com.flipkart.drift.commons.utils.Constants.Workflow.DSL_UPDATE_CHANNEL;
+import static com.flipkart.drift.commons.utils.Constants.Workflow.GLOBAL;
 
 public class NodeDefinitionService {
     public static final String NODE_EVENT_ID = "NODE";
     private final NodeDefinitionDao nodeDefinitionDao;
+    private final ObjectMapper objectMapper;
     private final JedisSentinelPool jedisSentinelPool;
 
     @Inject
     public NodeDefinitionService(NodeDefinitionDao nodeDefinitionDao, ObjectMapper objectMapper,
                                  JedisSentinelPool jedisSentinelPool) {
         this.nodeDefinitionDao = nodeDefinitionDao;
+        this.objectMapper = objectMapper;
         this.jedisSentinelPool = jedisSentinelPool;
     }
 
     public NodeDefinition addNode(NodeDefinition wfNodeData) {
         wfNodeData.validateWFNodeFields();
+        validateReadSet(wfNodeData);
         String nodeKey = generateRowKey(wfNodeData.getId(), Version.SNAPSHOT);
         checkNodeExistence(nodeKey);
         createNode(nodeKey, wfNodeData);
@@ -42,6 +48,7 @@ public class NodeDefinitionService {
         String nodeKey = generateRowKey(wfNodeData.getId(), Version.SNAPSHOT);
         NodeHB existingNodeHB = getNodeHB(nodeKey);
         NodeDefinition existingNode = updateExistingNode(existingNodeHB, wfNodeData);
+        validateReadSet(existingNode);
 
         updateNodeInHBase(nodeKey, existingNode);
         return wfNodeData;
@@ -103,6 +110,32 @@ public class NodeDefinitionService {
             throw new ApiException("Error while publishing node in HBase", Response.Status.INTERNAL_SERVER_ERROR, e);
         }
     }
+
+    /**
+     * A read set on the node definition must cover what its scripts read. Workflows check their states when they are
+     * published, but a node updated and published later changes under the states that use its latest version.
+     */
+    private void validateReadSet(NodeDefinition nodeDefinition) {
+        if (nodeDefinition.getReadSet() == null) {
+            return;
+        }
+        if (!ContextReadSet.SUPPORTED_NODE_TYPES.contains(nodeDefinition.getType())) {
+            throw new ApiException(Response.Status.BAD_REQUEST, "Node declares a readSet, which only "
+                    + ContextReadSet.SUPPORTED_NODE_TYPES + " nodes support");
+        }
+        Set<String> readKeys = ContextReadSet.topLevelKeys(nodeDefinition.getReadSet());
+        if (readKeys == null) {
+            throw new ApiException(Response.Status.BAD_REQUEST, "Node readSet entries must start with a context key");
+        }
+        Set<String> undeclared = ContextReadSet.undeclaredReads(objectMapper.valueToTree(nodeDefinition), readKeys);
+        if (undeclared == null) {
+            throw new ApiException(Response.Status.BAD_REQUEST, "Node reads " + GLOBAL + " with computed keys, so it can't declare a readSet");
+        }
+        if (!undeclared.isEmpty()) {
+            throw new ApiException(Response.Status.BAD_REQUEST, "Node reads context keys missing from its readSet: " + undeclared);
+        }
+    }
+
     private void checkNodeExistence(String nodeKey) {
         try {
             if (nodeDefinitionDao.get(nodeKey, ConnectionType.HOT) != null) {
@@ -144,6 +177,9 @@ public class NodeDefinitionService {
         if (wfNodeData.getParameters() != null) {
             existingNode.setParameters(wfNodeData.getParameters());
         }
+        if (wfNodeData.getReadSet() != null) {
+            existingNode.setReadSet(wfNodeData.getReadSet());
+        }
         existingNode.mergeRequestToEntity(wfNodeData);
         return existingNode;
     }
@@ -7,8 +7,10 @@ import com.flipkart.drift.commons.exception.ApiException;
 import com.flipkart.drift.commons.model.enums.NodeType;
 import com.flipkart.drift.commons.model.enums.Version;
 import com.flipkart.drift.commons.model.node.BranchNode;
+import com.flipkart.drift.commons.model.node.ParallelNode;
 import com.flipkart.drift.commons.model.node.NodeDefinition;
 import com.flipkart.drift.commons.model.node.Workflow;
+import com.flipkart.drift.commons.utils.ContextReadSet;
 import com.flipkart.drift.persistence.dao.ConnectionType;
 import com.flipkart.drift.persistence.dao.WorkflowDefinitionDao;
 import com.flipkart.drift.persistence.entity.WorkflowHB;
@@ -37,6 +39,7 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.flipkart.drift.commons.utils.Constants.Workflow.DSL_UPDATE_CHANNEL;
+import static com.flipkart.drift.commons.utils.Constants.Workflow.GLOBAL;
 import static com.flipkart.drift.commons.utils.Utility.*;
 
 @Slf4j
@@ -46,6 +49,7 @@ public class WorkflowDefinitionService {
     private final WorkflowDefinitionDao workflowDefinitionDao;
     private final JedisSentinelPool jedisSentinelPool;
     private final NodeDefinitionService nodeDefinitionService;
+    private final ObjectMapper objectMapper;
 
 
     @Inject
@@ -55,6 +59,7 @@ public class WorkflowDefinitionService {
         this.workflowDefinitionDao = workflowDefinitionDao;
         this.jedisSentinelPool = jedisSentinelPool;
         this.nodeDefinitionService = nodeDefinitionService;
+        this.objectMapper = objectMapper;
     }
 
     public Workflow addWorkflow(Workflow workflowData) {
@@ -180,7 +185,19 @@ public class WorkflowDefinitionService {
         workflowGraph.forEach((stateId, nodeData) -> {
             Node current = graphNodes.get(nodeData.getName());
 
-            if (nodeData.getType() == NodeType.BRANCH && nodeData.getChoices() != null) {
+            if (nodeData.getType() == NodeType.PARALLEL) {
+                // Fork into every branch, then join into the next node
+                Node linkedNode = current;
+                for (String branchStart : nodeData.getChoices()) {
+                    if (graphNodes.containsKey(branchStart)) {
+                        linkedNode = linkedNode.link(to(graphNodes.get(branchStart)).with(Style.DASHED));
+                    }
+                }
+                if (nodeData.getNextNode() != null && graphNodes.containsKey(nodeData.getNextNode())) {
+                    linkedNode = linkedNode.link(to(graphNodes.get(nodeData.getNextNode())));
+                }
+                graphRef.set(graphRef.get().with(linkedNode));
+            } else if (nodeData.getType() == NodeType.BRANCH && nodeData.getChoices() != null) {
                 Node[] choiceNodes = nodeData.getChoices().stream()
                         .filter(graphNodes::containsKey)
                         .map(graphNodes::get)
@@ -218,16 +235,21 @@ public class WorkflowDefinitionService {
                 branchChoices.add(choice.getNextNode());
             });
         }
+        if (nodeDefinition != null && nodeDefinition.getType() == NodeType.PARALLEL) {
+            ((ParallelNode) nodeDefinition).getBranches().forEach(branch -> {
+                branchChoices.add(branch.getStartNode());
+            });
+        }
         return branchChoices;
     }
 
 
     public void publishWorkflow(String id) {
+        String snapshotKey = generateRowKey(id, Version.SNAPSHOT);
+        WorkflowHB snapshotWorkflowHB = getWorkflowHB(snapshotKey);
+        Workflow workflow = snapshotWorkflowHB.getWorkflowData();
+        validateReadSets(workflow);
         try {
-            String snapshotKey = generateRowKey(id, Version.SNAPSHOT);
-            WorkflowHB snapshotWorkflowHB = getWorkflowHB(snapshotKey);
-            Workflow workflow = snapshotWorkflowHB.getWorkflowData();
-
             String latestKey = generateRowKey(id, Version.LATEST);
             WorkflowHB latestWorkflowHB = workflowDefinitionDao.get(latestKey, ConnectionType.HOT);
             Integer version;
@@ -262,6 +284,38 @@ public class WorkflowDefinitionService {
         }
     }
 
+    /**
+     * Nodes that declare a read set are handed only those context keys, so their scripts must not read others.
+     */
+    private void validateReadSets(Workflow workflow) {
+        if (workflow.getStates() == null) {
+            return;
+        }
+        workflow.getStates().forEach((stateId, state) -> {
+            NodeDefinition nodeDefinition = nodeDefinitionService.getNodeById(state.getResourceId(), state.getResourceVersion());
+            if (nodeDefinition.getReadSet() == null && state.getReadSet() == null) {
+                return;
+            }
+            if (!ContextReadSet.SUPPORTED_NODE_TYPES.contains(nodeDefinition.getType())) {
+                throw new ApiException(Response.Status.BAD_REQUEST, "State " + stateId + " declares a readSet, which only "
+                        + ContextReadSet.SUPPORTED_NODE_TYPES + " nodes support");
+            }
+            Set<String> readKeys = ContextReadSet.readKeys(state, nodeDefinition);
+            if (readKeys == null) {
+                throw new ApiException(Response.Status.BAD_REQUEST, "State " + stateId
+                        + " declares a readSet, so its readSet entries and JSONPath parameters must start with a context key");
+            }
+            Set<String> undeclared = ContextReadSet.undeclaredReads(objectMapper.valueToTree(nodeDefinition), readKeys);
+            if (undeclared == null) {
+                throw new ApiException(Response.Status.BAD_REQUEST, "State " + stateId + " reads " + GLOBAL
+                        + " with computed keys, so it can't declare a readSet");
+            }
+            if (!undeclared.isEmpty()) {
+                throw new ApiException(Response.Status.BAD_REQUEST, "State " + stateId + " reads context keys missing from its readSet: " + undeclared);
+            }
+        });
+    }
+
     private void checkWorkflowExistence(String workflowKey) {
         try {
             if (workflowDefinitionDao.get(workflowKey, ConnectionType.HOT) != null) {
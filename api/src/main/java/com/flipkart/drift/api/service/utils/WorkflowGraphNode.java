@@ -32,6 +32,8 @@ public class WorkflowGraphNode {
                 return Shape.DIAMOND;
             case PROCESSOR:
                 return Shape.RECTANGLE;
+            case PARALLEL:
+                return Shape.PARALLELOGRAM;
             default:
                 return Shape.ELLIPSE;
         }
@@ -51,6 +53,8 @@ public class WorkflowGraphNode {
                 return Color.MEDIUMSPRINGGREEN;
             case PROCESSOR:
                 return Color.GREY;
+            case PARALLEL:
+                return Color.ORCHID;
             default:
                 return Color.LIGHTPINK;
         }
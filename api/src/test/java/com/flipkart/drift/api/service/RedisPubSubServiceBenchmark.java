@@ -0,0 +1,139 @@
+package com.flipkart.drift.api.service;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.JedisSentinelPool;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static com.flipkart.drift.commons.utils.Constants.Workflow.ASYNC_AWAIT_CHANNEL;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Completed start/resume calls per second with more requests in flight than the old subscriber pool had threads.
+ * The worker is a scheduler publishing the await event after {@code workerMillis}, redis is left out.
+ * {@code perRequestSubscription} is the previous model: every call holds a thread of a 50 thread pool handing off
+ * through a {@link SynchronousQueue} until its event arrives, and is rejected when none is free.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.flipkart.drift.api.service.RedisPubSubServiceBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(200)
+public class RedisPubSubServiceBenchmark {
+    private static final int SUBSCRIBER_POOL_THREADS = 50;
+
+    @State(Scope.Benchmark)
+    public static class Await {
+        @Param({"5"})
+        public long workerMillis;
+
+        private ScheduledExecutorService worker;
+        private ExecutorService subscriberPool;
+        private RedisPubSubService redisPubSubService;
+        private volatile JedisPubSub listener;
+
+        @Setup(Level.Trial)
+        public void setUp() throws InterruptedException {
+            worker = Executors.newScheduledThreadPool(4);
+            subscriberPool = new ThreadPoolExecutor(SUBSCRIBER_POOL_THREADS, SUBSCRIBER_POOL_THREADS, 60L, TimeUnit.SECONDS,
+                    new SynchronousQueue<>(), new ThreadFactoryBuilder().setDaemon(true).build(), new ThreadPoolExecutor.AbortPolicy());
+
+            CountDownLatch subscribed = new CountDownLatch(1);
+            JedisSentinelPool jedisSentinelPool = mock(JedisSentinelPool.class);
+            Jedis jedis = mock(Jedis.class);
+            when(jedisSentinelPool.getResource()).thenReturn(jedis);
+            doAnswer(invocation -> {
+                listener = invocation.getArgument(0);
+                listener.onPSubscribe(invocation.getArgument(1), 1);
+                subscribed.countDown();
+                new CountDownLatch(1).await();
+                return null;
+            }).when(jedis).psubscribe(any(JedisPubSub.class), anyString());
+            redisPubSubService = new RedisPubSubService(jedisSentinelPool);
+            redisPubSubService.start();
+            subscribed.await();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            redisPubSubService.shutdown();
+            subscriberPool.shutdownNow();
+            worker.shutdownNow();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Calls {
+        public long completed;
+        public long rejected;
+    }
+
+    @Benchmark
+    public void multiplexedSubscription(Await await, Calls calls) throws Exception {
+        String workflowId = UUID.randomUUID().toString();
+        String awaitId = UUID.randomUUID().toString();
+        String message = RedisPubSubServiceTest.event(workflowId, awaitId);
+        String received = await.redisPubSubService.subscribeAndExecute(workflowId, awaitId, () -> {
+            await.worker.schedule(() -> await.listener.onPMessage(ASYNC_AWAIT_CHANNEL + "*",
+                    ASYNC_AWAIT_CHANNEL + workflowId, message), await.workerMillis, TimeUnit.MILLISECONDS);
+            return null;
+        }, "benchmark", TimeUnit.SECONDS.toMillis(30));
+        if (received != null) {
+            calls.completed++;
+        }
+    }
+
+    @Benchmark
+    public void perRequestSubscription(Await await, Calls calls) throws Exception {
+        CountDownLatch event = new CountDownLatch(1);
+        try {
+            // The pool thread stands for the subscription held until the event arrives
+            await.subscriberPool.submit(() -> {
+                await.worker.schedule(event::countDown, await.workerMillis, TimeUnit.MILLISECONDS);
+                event.await();
+                return null;
+            }).get();
+            calls.completed++;
+        } catch (RejectedExecutionException e) {
+            calls.rejected++;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(RedisPubSubServiceBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,178 @@
+package com.flipkart.drift.api.service;
+
+import com.codahale.metrics.MetricRegistry;
+import com.flipkart.drift.commons.model.temporal.ReturnControlEvent;
+import com.flipkart.drift.commons.model.temporal.WorkflowState;
+import com.flipkart.drift.commons.utils.MetricsRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPubSub;
+import redis.clients.jedis.JedisSentinelPool;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static com.flipkart.drift.commons.utils.Constants.Workflow.ASYNC_AWAIT_CHANNEL;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Await events are dispatched from the shared subscription to the waiter of the request they answer.
+ */
+class RedisPubSubServiceTest {
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    private final CountDownLatch subscribedLatch = new CountDownLatch(1);
+    private volatile JedisPubSub listener;
+    private RedisPubSubService redisPubSubService;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        JedisSentinelPool jedisSentinelPool = mock(JedisSentinelPool.class);
+        Jedis jedis = mock(Jedis.class);
+        when(jedisSentinelPool.getResource()).thenReturn(jedis);
+        doAnswer(invocation -> {
+            listener = invocation.getArgument(0);
+            listener.onPSubscribe(invocation.getArgument(1), 1);
+            subscribedLatch.countDown();
+            // Blocks like a subscription until shutdown interrupts the subscriber
+            new CountDownLatch(1).await();
+            return null;
+        }).when(jedis).psubscribe(any(JedisPubSub.class), anyString());
+        redisPubSubService = new RedisPubSubService(jedisSentinelPool);
+        redisPubSubService.start();
+        assertTrue(subscribedLatch.await(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @AfterEach
+    void tearDown() {
+        redisPubSubService.shutdown();
+    }
+
+    @Test
+    void eventCompletesTheWaiterOfItsRequest() throws Exception {
+        CompletableFuture<String> waiter = redisPubSubService.registerWaiter("wf-1", "a", TIMEOUT_MILLIS);
+        CompletableFuture<String> other = redisPubSubService.registerWaiter("wf-2", "b", TIMEOUT_MILLIS);
+
+        String event = event("wf-1", "a");
+        publish("wf-1", event);
+
+        assertEquals(event, waiter.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertFalse(other.isDone());
+    }
+
+    @Test
+    void lateEventOfTimedOutRequestIsNotTakenByTheRetry() throws Exception {
+        long late = meterCount("late");
+        long timeouts = meterCount("subscribe", "timeout");
+        CompletableFuture<String> timedOut = redisPubSubService.registerWaiter("wf-1", "a", 10);
+        assertTimedOut(timedOut, timeouts);
+        // The client retries the resume
+        CompletableFuture<String> retry = redisPubSubService.registerWaiter("wf-1", "b", TIMEOUT_MILLIS);
+
+        publish("wf-1", event("wf-1", "a"));
+
+        assertFalse(retry.isDone());
+        assertEquals(late + 1, meterCount("late"));
+        String event = event("wf-1", "b");
+        publish("wf-1", event);
+        assertEquals(event, retry.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void staleEventIsNotTakenByTheWaiterOfALaterRequest() {
+        long stale = meterCount("stale");
+        redisPubSubService.registerWaiter("wf-1", "a", TIMEOUT_MILLIS).cancel(false);
+        CompletableFuture<String> waiter = redisPubSubService.registerWaiter("wf-1", "b", TIMEOUT_MILLIS);
+
+        publish("wf-1", event("wf-1", "a"));
+
+        assertFalse(waiter.isDone());
+        assertEquals(stale + 1, meterCount("stale"));
+    }
+
+    @Test
+    void waitersOfOneWorkflowTimeOutOnTheirOwn() throws Exception {
+        long timeouts = meterCount("subscribe", "timeout");
+        CompletableFuture<String> shortWaiter = redisPubSubService.registerWaiter("wf-1", "a", 10);
+        CompletableFuture<String> longWaiter = redisPubSubService.registerWaiter("wf-1", "b", TIMEOUT_MILLIS);
+
+        assertTimedOut(shortWaiter, timeouts);
+        assertFalse(longWaiter.isDone());
+
+        String event = event("wf-1", "b");
+        publish("wf-1", event);
+        assertEquals(event, longWaiter.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void eventOfOlderWorkerCompletesEveryWaiter() throws Exception {
+        CompletableFuture<String> first = redisPubSubService.registerWaiter("wf-1", "a", TIMEOUT_MILLIS);
+        CompletableFuture<String> second = redisPubSubService.registerWaiter("wf-1", "b", TIMEOUT_MILLIS);
+
+        publish("wf-1", ReturnControlEvent.LEGACY_MESSAGE);
+
+        assertEquals(ReturnControlEvent.LEGACY_MESSAGE, first.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertEquals(ReturnControlEvent.LEGACY_MESSAGE, second.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void eventWithoutWaiterIsOrphaned() {
+        long orphaned = meterCount("orphaned");
+
+        publish("wf-1", event("wf-1", "a"));
+
+        assertEquals(orphaned + 1, meterCount("orphaned"));
+    }
+
+    @Test
+    void shutdownCancelsPendingWaiters() {
+        CompletableFuture<String> waiter = redisPubSubService.registerWaiter("wf-1", "a", TIMEOUT_MILLIS);
+
+        redisPubSubService.shutdown();
+
+        assertTrue(waiter.isCancelled());
+    }
+
+    private void publish(String workflowId, String message) {
+        listener.onPMessage(ASYNC_AWAIT_CHANNEL + "*", ASYNC_AWAIT_CHANNEL + workflowId, message);
+    }
+
+    static String event(String workflowId, String awaitId) {
+        WorkflowState workflowState = new WorkflowState();
+        workflowState.setWorkflowId(workflowId);
+        workflowState.setAwaitId(awaitId);
+        return ReturnControlEvent.encode(workflowState, Integer.MAX_VALUE);
+    }
+
+    // Returns once the timed out waiter has left
+    private static void assertTimedOut(CompletableFuture<String> waiter, long timeouts) throws InterruptedException {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> waiter.get(TIMEOUT_MILLIS, TimeUnit.MILLISECONDS));
+        assertInstanceOf(TimeoutException.class, e.getCause());
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (meterCount("subscribe", "timeout") <= timeouts && System.currentTimeMillis() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    private static long meterCount(String name) {
+        return meterCount("message", name);
+    }
+
+    private static long meterCount(String... names) {
+        return MetricsRegistry.getMetricRegistry().meter(MetricRegistry.name(RedisPubSubService.class, names)).getCount();
+    }
+}
@@ -0,0 +1,85 @@
+package com.flipkart.drift.api.service.builder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.drift.commons.exception.ApiException;
+import com.flipkart.drift.commons.model.componentDetail.ScriptedComponentDetail;
+import com.flipkart.drift.commons.model.node.GroovyNode;
+import com.flipkart.drift.commons.model.value.StringValue;
+import com.flipkart.drift.persistence.dao.ConnectionType;
+import com.flipkart.drift.persistence.dao.NodeDefinitionDao;
+import com.flipkart.drift.persistence.entity.NodeHB;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.JedisSentinelPool;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Read sets declared on node definitions are checked against the node's scripts on every add and update.
+ */
+class NodeDefinitionServiceTest {
+    private NodeDefinitionDao nodeDefinitionDao;
+    private NodeDefinitionService nodeDefinitionService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        nodeDefinitionDao = mock(NodeDefinitionDao.class);
+        NodeHB snapshot = new NodeHB();
+        snapshot.setNodeData(groovyNode(List.of("order"), "_global.order?.id"));
+        when(nodeDefinitionDao.get(anyString(), eq(ConnectionType.HOT))).thenReturn(snapshot);
+        nodeDefinitionService = new NodeDefinitionService(nodeDefinitionDao, new ObjectMapper(), mock(JedisSentinelPool.class));
+    }
+
+    @Test
+    void updatedScriptsMustStayWithinTheReadSet() throws IOException {
+        ApiException e = assertThrows(ApiException.class, () ->
+                nodeDefinitionService.updateNode(groovyNode(null, "_global.order?.id + _global.customer?.id")));
+
+        assertEquals(Response.Status.BAD_REQUEST, e.getStatus());
+        assertEquals("Node reads context keys missing from its readSet: [customer]", e.getMessage());
+        verify(nodeDefinitionDao, never()).update(any(), anyString(), any());
+    }
+
+    @Test
+    void updatedReadSetMustCoverTheScripts() throws IOException {
+        assertThrows(ApiException.class, () -> nodeDefinitionService.updateNode(groovyNode(List.of("customer"), null)));
+
+        nodeDefinitionService.updateNode(groovyNode(List.of("order", "$.customer.id"), "_global.order?.id + _global.customer?.id"));
+        verify(nodeDefinitionDao).update(any(), anyString(), eq(ConnectionType.HOT));
+    }
+
+    @Test
+    void addedNodesCantReadComputedKeysWithAReadSet() throws IOException {
+        when(nodeDefinitionDao.get(anyString(), eq(ConnectionType.HOT))).thenReturn(null);
+
+        ApiException e = assertThrows(ApiException.class, () ->
+                nodeDefinitionService.addNode(groovyNode(List.of("order"), "def key = 'order'; _global[key]")));
+
+        assertEquals(Response.Status.BAD_REQUEST, e.getStatus());
+        verify(nodeDefinitionDao, never()).create(any(), any());
+    }
+
+    // Null leaves the field out of an update
+    private static GroovyNode groovyNode(List<String> readSet, String script) {
+        GroovyNode groovyNode = new GroovyNode();
+        groovyNode.setId("node");
+        groovyNode.setName("node");
+        groovyNode.setReadSet(readSet);
+        if (script != null) {
+            groovyNode.setTransformer(new ScriptedComponentDetail(new StringValue(script)));
+        }
+        return groovyNode;
+    }
+}
@@ -0,0 +1,22 @@
+package com.flipkart.drift.commons.exception;
+
+import lombok.Getter;
+
+import javax.ws.rs.core.Response;
+
+/**
+ * A write expected another version of the row than the stored one, i.e. the row was written since it was read.
+ */
+@Getter
+public class VersionConflictException extends ApiException {
+    private final String rowKey;
+    private final Long expectedVersion;
+    private final Long actualVersion;
+
+    public VersionConflictException(String rowKey, Long expectedVersion, Long actualVersion) {
+        super(Response.Status.CONFLICT, "Version conflict on row " + rowKey + ": expected " + expectedVersion + ", found " + actualVersion);
+        this.rowKey = rowKey;
+        this.expectedVersion = expectedVersion;
+        this.actualVersion = actualVersion;
+    }
+}
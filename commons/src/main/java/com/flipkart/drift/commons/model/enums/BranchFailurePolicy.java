@@ -0,0 +1,6 @@
+package com.flipkart.drift.commons.model.enums;
+
+public enum BranchFailurePolicy {
+    FAIL,
+    IGNORE
+}
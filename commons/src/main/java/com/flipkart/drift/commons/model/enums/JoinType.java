@@ -0,0 +1,7 @@
+package com.flipkart.drift.commons.model.enums;
+
+public enum JoinType {
+    ALL,
+    ANY,
+    QUORUM
+}
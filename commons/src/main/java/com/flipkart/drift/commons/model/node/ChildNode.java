@@ -1,11 +1,15 @@
 package com.flipkart.drift.commons.model.node;
 
+import com.fasterxml.jackson.core.JsonPointer;
+import com.flipkart.drift.commons.exception.ApiException;
 import com.flipkart.drift.commons.model.enums.ExecutionMode;
 import com.flipkart.drift.commons.model.enums.NodeType;
 import lombok.Data;
 
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.ws.rs.core.Response;
+import java.util.Map;
 
 @Data
 public class ChildNode extends NodeDefinition {
@@ -16,6 +20,8 @@ public class ChildNode extends NodeDefinition {
     private String childWorkflowId;
     @NotBlank(message = "childWorkflowVersion can't be empty")
     private String childWorkflowVersion;
+    // SYNC only: field -> JSON pointer into the child's context, merged into the parent context under the instance name
+    private Map<String, String> resultProjection;
 
     @Override
     public NodeType getType() {
@@ -26,7 +32,15 @@ public class ChildNode extends NodeDefinition {
     @Override
     public void validateWFNodeFields() {
         super.validateWFNodeFields();
-        //additional validation can be added here
+        if (resultProjection != null) {
+            resultProjection.forEach((field, pointer) -> {
+                try {
+                    JsonPointer.compile(pointer);
+                } catch (IllegalArgumentException e) {
+                    throw new ApiException(Response.Status.BAD_REQUEST, "invalid resultProjection pointer for " + field + ": " + pointer);
+                }
+            });
+        }
     }
 
     @Override
@@ -41,6 +55,9 @@ public class ChildNode extends NodeDefinition {
         if (sourceChildNode.getChildWorkflowVersion() != null) {
             this.setChildWorkflowVersion(sourceChildNode.getChildWorkflowVersion());
         }
+        if (sourceChildNode.getResultProjection() != null) {
+            this.setResultProjection(sourceChildNode.getResultProjection());
+        }
     }
 
 }
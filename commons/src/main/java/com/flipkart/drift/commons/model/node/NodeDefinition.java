@@ -27,6 +27,7 @@ import java.util.Objects;
         @JsonSubTypes.Type(value = DelegateNode.class, name = "DELEGATE"),
         @JsonSubTypes.Type(value = ChildNode.class, name = "CHILD"),
         @JsonSubTypes.Type(value = WaitNode.class, name = "WAIT"),
+        @JsonSubTypes.Type(value = ParallelNode.class, name = "PARALLEL"),
 })
 @JsonIgnoreProperties(ignoreUnknown = true)
 public abstract class NodeDefinition {
@@ -35,6 +36,8 @@ public abstract class NodeDefinition {
     private NodeType type;
     private List<String> parameters;
     private String version;
+    // Context keys or JSONPaths the node reads, see ContextReadSet. Null reads the whole context
+    private List<String> readSet;
 
     public void validateWFNodeFields() {
         if (StringUtils.isEmpty(id)) {
@@ -0,0 +1,19 @@
+package com.flipkart.drift.commons.model.node;
+
+import com.flipkart.drift.commons.model.enums.BranchFailurePolicy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A chain of workflow states run by a {@link ParallelNode}, starting at {@code startNode} and following
+ * {@code nextNode} until a state without one. States of a branch must not point back into the main path.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ParallelBranch {
+    private String name;
+    private String startNode;
+    private BranchFailurePolicy failurePolicy = BranchFailurePolicy.FAIL;
+}
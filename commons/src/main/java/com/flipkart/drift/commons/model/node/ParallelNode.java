@@ -0,0 +1,88 @@
+package com.flipkart.drift.commons.model.node;
+
+import com.flipkart.drift.commons.exception.ApiException;
+import com.flipkart.drift.commons.model.enums.JoinType;
+import com.flipkart.drift.commons.model.enums.NodeType;
+import lombok.Data;
+import org.apache.commons.lang3.StringUtils;
+
+import javax.ws.rs.core.Response;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Fans out to {@code branches} concurrently and joins them as per {@code joinType}. Responses of the branch states
+ * are merged into the context under their instance names once the join is satisfied.
+ */
+@Data
+public class ParallelNode extends NodeDefinition {
+    private List<ParallelBranch> branches;
+    private JoinType joinType = JoinType.ALL;
+    // Number of branches that must succeed, only used with JoinType.QUORUM
+    private Integer quorum;
+
+    @Override
+    public NodeType getType() {
+        return NodeType.PARALLEL;
+    }
+
+    /**
+     * @return number of successful branches needed to satisfy the join
+     * @throws IllegalStateException if the node skipped validation and the join can't be satisfied as defined
+     */
+    public int requiredBranches() {
+        if (branches == null || branches.isEmpty() || joinType == null) {
+            throw new IllegalStateException("Parallel node " + getId() + " needs branches and a joinType");
+        }
+        switch (joinType) {
+            case ANY:
+                return 1;
+            case QUORUM:
+                if (quorum == null || quorum < 1 || quorum > branches.size()) {
+                    throw new IllegalStateException("Parallel node " + getId() + " has quorum " + quorum
+                            + ", it should be between 1 and the number of branches " + branches.size());
+                }
+                return quorum;
+            default:
+                return branches.size();
+        }
+    }
+
+    @Override
+    public void validateWFNodeFields() {
+        super.validateWFNodeFields();
+        if (branches == null || branches.isEmpty()) {
+            throw new ApiException(Response.Status.BAD_REQUEST, "branches can't be empty");
+        }
+        Set<String> branchNames = new HashSet<>();
+        for (ParallelBranch branch : branches) {
+            if (StringUtils.isEmpty(branch.getName()) || StringUtils.isEmpty(branch.getStartNode())) {
+                throw new ApiException(Response.Status.BAD_REQUEST, "branch name and startNode can't be empty");
+            }
+            if (!branchNames.add(branch.getName())) {
+                throw new ApiException(Response.Status.BAD_REQUEST, "duplicate branch name: " + branch.getName());
+            }
+        }
+        if (joinType == null) {
+            throw new ApiException(Response.Status.BAD_REQUEST, "joinType shouldn't be null");
+        }
+        if (joinType == JoinType.QUORUM && (quorum == null || quorum < 1 || quorum > branches.size())) {
+            throw new ApiException(Response.Status.BAD_REQUEST, "quorum should be between 1 and the number of branches");
+        }
+    }
+
+    @Override
+    public void mergeRequestToEntity(NodeDefinition sourceNode) {
+        ParallelNode sourceParallelNode = (ParallelNode) sourceNode;
+        if (sourceParallelNode.getBranches() != null) {
+            this.setBranches(sourceParallelNode.getBranches());
+        }
+        if (sourceParallelNode.getJoinType() != null) {
+            this.setJoinType(sourceParallelNode.getJoinType());
+        }
+        if (sourceParallelNode.getQuorum() != null) {
+            this.setQuorum(sourceParallelNode.getQuorum());
+        }
+    }
+}
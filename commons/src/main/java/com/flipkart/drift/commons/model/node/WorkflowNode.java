@@ -6,6 +6,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.List;
 import java.util.Map;
 
 @Data
@@ -18,6 +19,8 @@ public class WorkflowNode {
     private String resourceVersion;
     private WorkflowNodeType type;
     private Map<String, String> parameters;
+    // Added to the read set of the node definition, see ContextReadSet
+    private List<String> readSet;
     private String contextOverrideKey;
     private String nextNode;
     private boolean end;
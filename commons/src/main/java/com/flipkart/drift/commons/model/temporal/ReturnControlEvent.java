@@ -0,0 +1,117 @@
+package com.flipkart.drift.commons.model.temporal;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.flipkart.drift.commons.utils.ObjectMapperUtil;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Message published on the async await channel when a workflow hands control back to the caller.
+ * Carries a compact {@link WorkflowState} so the API can answer without querying the workflow.
+ * The {@code awaitId} of the start or resume request the workflow served lets the API tell the event of its own
+ * request from a late event of an earlier one. Workers publish the event without state when the state is larger
+ * than the size cap, and the API falls back to a workflow query for those.
+ */
+@Slf4j
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@JsonIgnoreProperties(ignoreUnknown = true)
+// awaitId goes first, so that dispatching reads it without parsing the state
+@JsonPropertyOrder({"awaitId", "v", "state"})
+public class ReturnControlEvent {
+    public static final int CURRENT_VERSION = 1;
+    public static final String LEGACY_MESSAGE = "return";
+    private static final String PAYLOAD_PREFIX = "{";
+    private static final String AWAIT_ID_FIELD = "awaitId";
+
+    private String awaitId;
+    private int v;
+    private WorkflowState state;
+
+    public static String encode(WorkflowState workflowState, int maxBytes) {
+        if (workflowState == null) {
+            return LEGACY_MESSAGE;
+        }
+        WorkflowState compactState = new WorkflowState();
+        compactState.setWorkflowId(workflowState.getWorkflowId());
+        compactState.setIncidentId(workflowState.getIncidentId());
+        compactState.setStatus(workflowState.getStatus());
+        compactState.setDisposition(workflowState.getDisposition());
+        compactState.setErrorMessage(workflowState.getErrorMessage());
+        compactState.setView(workflowState.getView());
+        String awaitId = workflowState.getAwaitId();
+        String payload = ObjectMapperUtil.INSTANCE.toJson(new ReturnControlEvent(awaitId, CURRENT_VERSION, compactState));
+        if (payload != null && payload.getBytes(StandardCharsets.UTF_8).length > maxBytes) {
+            log.warn("Return control payload for workflowId: {} exceeds {} bytes, publishing without state",
+                    workflowState.getWorkflowId(), maxBytes);
+            payload = awaitId != null ? ObjectMapperUtil.INSTANCE.toJson(new ReturnControlEvent(awaitId, CURRENT_VERSION, null)) : null;
+        }
+        return payload != null ? payload : LEGACY_MESSAGE;
+    }
+
+    /**
+     * @return the piggy-backed state if the event answers the request of {@code awaitId}, empty for legacy messages,
+     * events of other requests, unknown versions or unreadable payloads
+     */
+    public static Optional<WorkflowState> decode(String message, String awaitId) {
+        if (message == null || !message.startsWith(PAYLOAD_PREFIX)) {
+            return Optional.empty();
+        }
+        try {
+            ReturnControlEvent event = ObjectMapperUtil.INSTANCE.getObj(message, ReturnControlEvent.class);
+            if (event.getV() != CURRENT_VERSION) {
+                log.warn("Unsupported return control payload version: {}", event.getV());
+                return Optional.empty();
+            }
+            if (!Objects.equals(event.getAwaitId(), awaitId)) {
+                log.warn("Return control event of awaitId: {} doesn't answer awaitId: {}", event.getAwaitId(), awaitId);
+                return Optional.empty();
+            }
+            return Optional.ofNullable(event.getState());
+        } catch (Exception e) {
+            log.error("Unable to decode return control payload: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Reads only the await id, without binding the state.
+     *
+     * @return the await id, null for legacy messages, events of older workers or unreadable payloads
+     */
+    public static String awaitIdOf(String message) {
+        if (message == null || !message.startsWith(PAYLOAD_PREFIX)) {
+            return null;
+        }
+        try (JsonParser parser = ObjectMapperUtil.INSTANCE.getMapper().getFactory().createParser(message)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                JsonToken value = parser.nextToken();
+                if (AWAIT_ID_FIELD.equals(field)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText() : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            log.error("Unable to read await id of return control payload: {}", e.getMessage());
+            return null;
+        }
+    }
+}
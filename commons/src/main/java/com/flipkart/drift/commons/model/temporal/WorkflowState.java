@@ -25,4 +25,6 @@ public class WorkflowState implements Serializable {
     private View view;
     private String currentNodeRef;
     private IssueDetail issueDetail;
+    // Await id of the start or resume request the workflow is currently serving
+    private String awaitId;
 }
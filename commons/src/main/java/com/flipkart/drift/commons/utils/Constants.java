@@ -22,6 +22,7 @@ public class Constants {
     public static final class GroovyBuilder {
         public static final String GROOVY_BUILDER_IMPORT = "import groovy.json.*\n import com.flipkart.drift.commons.Utility.*\n";
         public static final String GROOVY_BUILDER_METHOD_PREFIX = "def ";
+        public static final String GROOVY_BUILDER_VARIABLE_PREFIX = "def ";
         public static final String GROOVY_BUILDER_METHOD_SIGNATURE = "()";
         public static final String GROOVY_BUILDER_SCRIPTED_FIELDS_INFO = "scriptedFieldsInfo";
         public static final String GROOVY_BUILDER_METHOD_START_BRACES = "{\n";
@@ -0,0 +1,155 @@
+package com.flipkart.drift.commons.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.flipkart.drift.commons.model.enums.NodeType;
+import com.flipkart.drift.commons.model.node.NodeDefinition;
+import com.flipkart.drift.commons.model.node.WorkflowNode;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.flipkart.drift.commons.utils.Constants.Workflow.GLOBAL;
+
+/**
+ * The context keys a node reads, as declared by the {@code readSet} of its node definition and workflow node. An
+ * entry is either a top level key, e.g. {@code oms_order_details}, or a JSONPath starting at one, e.g.
+ * {@code $.oms_order_details.items}. Nodes that declare one are handed only those keys, along with the keys their
+ * parameters read.
+ */
+public class ContextReadSet {
+    // Nodes that only read the context from scripts and parameters, which publishing checks against the read set
+    public static final Set<NodeType> SUPPORTED_NODE_TYPES = EnumSet.of(NodeType.HTTP, NodeType.GROOVY, NodeType.BRANCH);
+    // Set on the context before every node runs, so readable without being declared
+    public static final String NODE_PARAMETERS = "nodeParameters";
+    private static final String JSON_PATH_PREFIX = "$.";
+    private static final Pattern GLOBAL_REFERENCE = Pattern.compile(
+            "\\b" + GLOBAL + "(?:\\??\\.([A-Za-z_$][\\w$]*)|\\[\\s*['\"]([^'\"]+)['\"]\\s*])");
+    private static final Pattern GLOBAL_USE = Pattern.compile("\\b" + GLOBAL + "\\b");
+
+    /**
+     * @return the top level keys the node reads, or null when it reads the whole context, i.e. declares no read set,
+     * isn't of a supported type or has entries that don't start with a key
+     */
+    public static Set<String> readKeys(WorkflowNode workflowNode, NodeDefinition nodeDefinition) {
+        if (nodeDefinition == null || !SUPPORTED_NODE_TYPES.contains(nodeDefinition.getType())
+                || (nodeDefinition.getReadSet() == null && workflowNode.getReadSet() == null)) {
+            return null;
+        }
+        Set<String> keys = new HashSet<>();
+        if (!addTopLevelKeys(nodeDefinition.getReadSet(), keys) || !addTopLevelKeys(workflowNode.getReadSet(), keys)) {
+            return null;
+        }
+        if (workflowNode.getParameters() != null) {
+            for (String valueOrJsonPath : workflowNode.getParameters().values()) {
+                if (valueOrJsonPath.startsWith(JSON_PATH_PREFIX) && !addTopLevelKey(valueOrJsonPath, keys)) {
+                    return null;
+                }
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * @return "key" of "key", "$.key.rest" or "$.key[0]", null for deep scans, wildcards and bracket notation
+     */
+    public static String topLevelKey(String entry) {
+        if (!entry.startsWith(JSON_PATH_PREFIX)) {
+            return entry.isEmpty() ? null : entry;
+        }
+        int end = JSON_PATH_PREFIX.length();
+        while (end < entry.length() && entry.charAt(end) != '.' && entry.charAt(end) != '[') {
+            end++;
+        }
+        String key = entry.substring(JSON_PATH_PREFIX.length(), end);
+        return key.isEmpty() || key.equals("*") ? null : key;
+    }
+
+    /**
+     * Finds the context keys a script reads, as {@code _global.key}, {@code _global?.key} or {@code _global['key']}.
+     *
+     * @return the keys, or null when the script also uses {@code _global} otherwise, e.g. with a computed key
+     */
+    public static Set<String> globalReferences(String script) {
+        Set<String> keys = new HashSet<>();
+        Matcher reference = GLOBAL_REFERENCE.matcher(script);
+        int references = 0;
+        while (reference.find()) {
+            keys.add(reference.group(1) != null ? reference.group(1) : reference.group(2));
+            references++;
+        }
+        Matcher use = GLOBAL_USE.matcher(script);
+        int uses = 0;
+        while (use.find()) {
+            uses++;
+        }
+        return uses == references ? keys : null;
+    }
+
+    /**
+     * @return the top level keys of the read set entries, or null when one doesn't start with a key
+     */
+    public static Set<String> topLevelKeys(Collection<String> entries) {
+        Set<String> keys = new HashSet<>();
+        return addTopLevelKeys(entries, keys) ? keys : null;
+    }
+
+    /**
+     * Finds the context keys the scripts of a node definition read, see {@link #globalReferences}, that aren't
+     * readable with the given read keys.
+     *
+     * @return the keys, or null when a script reads {@code _global} with computed keys
+     */
+    public static Set<String> undeclaredReads(JsonNode nodeDefinition, Set<String> readKeys) {
+        List<String> scripts = new ArrayList<>();
+        collectScripts(nodeDefinition, scripts);
+        Set<String> undeclared = new TreeSet<>();
+        for (String script : scripts) {
+            Set<String> references = globalReferences(script);
+            if (references == null) {
+                return null;
+            }
+            undeclared.addAll(references);
+        }
+        undeclared.removeAll(readKeys);
+        undeclared.remove(NODE_PARAMETERS);
+        return undeclared;
+    }
+
+    private static void collectScripts(JsonNode node, List<String> scripts) {
+        if (node.isTextual()) {
+            if (node.textValue().contains(GLOBAL)) {
+                scripts.add(node.textValue());
+            }
+            return;
+        }
+        node.forEach(child -> collectScripts(child, scripts));
+    }
+
+    private static boolean addTopLevelKeys(Collection<String> entries, Set<String> keys) {
+        if (entries == null) {
+            return true;
+        }
+        for (String entry : entries) {
+            if (!addTopLevelKey(entry, keys)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean addTopLevelKey(String entry, Set<String> keys) {
+        String key = topLevelKey(entry);
+        if (key == null) {
+            return false;
+        }
+        keys.add(key);
+        return true;
+    }
+}
@@ -0,0 +1,22 @@
+package com.flipkart.drift.persistence.bootstrap;
+
+import com.flipkart.drift.persistence.codec.ContextCompression;
+import com.flipkart.drift.persistence.codec.ContextFormat;
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+public class ContextCodecConfig {
+    // Format of new writes, reads handle every format. Keep JSON until all readers understand the others
+    @NotNull
+    private ContextFormat format;
+    @NotNull
+    private ContextCompression compression;
+    // Smaller encoded contexts are written uncompressed
+    @NotNull
+    private Integer compressionThresholdBytes;
+    // Only used by ZSTD
+    @NotNull
+    private Integer zstdLevel;
+}
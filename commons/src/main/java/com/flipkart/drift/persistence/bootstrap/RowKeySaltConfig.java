@@ -0,0 +1,15 @@
+package com.flipkart.drift.persistence.bootstrap;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+public class RowKeySaltConfig {
+    // 0 disables salting. Salted rows are located by this count, so it can't change once rows were written salted
+    @NotNull
+    private Integer buckets;
+    // Readers look up both layouts as soon as buckets is set, only salt writes once every reader has it
+    @NotNull
+    private Boolean saltWrites;
+}
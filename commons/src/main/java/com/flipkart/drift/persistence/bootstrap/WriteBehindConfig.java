@@ -0,0 +1,20 @@
+package com.flipkart.drift.persistence.bootstrap;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+public class WriteBehindConfig {
+    @NotNull
+    private Boolean enabled;
+    // A batch is flushed once it has this many mutations, ...
+    @NotNull
+    private Integer maxBatchSize;
+    // ... this many bytes of mutations, ...
+    @NotNull
+    private Long writeBufferSizeBytes;
+    // ... or this long after its first mutation was queued
+    @NotNull
+    private Integer lingerMillis;
+}
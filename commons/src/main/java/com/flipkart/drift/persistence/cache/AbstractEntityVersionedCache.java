@@ -4,15 +4,19 @@ import com.codahale.metrics.InstrumentedExecutorService;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalListener;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListenableFutureTask;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
 
 @Slf4j
 public abstract class AbstractEntityVersionedCache<APP_ENTITY, DB_ENTITY> implements EntityVersionedCache<APP_ENTITY> {
@@ -21,6 +25,7 @@ public abstract class AbstractEntityVersionedCache<APP_ENTITY, DB_ENTITY> implem
     private final Long refreshTime;
     private final Long maxEntries;
     private final InstrumentedExecutorService instrumentedExecutorService;
+    private final List<BiConsumer<String, APP_ENTITY>> removalListeners = new CopyOnWriteArrayList<>();
 
     public AbstractEntityVersionedCache(Long refreshTime,
                                         Long maxEntries, InstrumentedExecutorService instrumentedExecutorService) {
@@ -53,14 +58,27 @@ public abstract class AbstractEntityVersionedCache<APP_ENTITY, DB_ENTITY> implem
             }
         };
 
-        CacheBuilder builder = CacheBuilder.newBuilder()
-            .refreshAfterWrite(refreshTime, TimeUnit.MINUTES);
+        CacheBuilder<String, APP_ENTITY> builder = CacheBuilder.newBuilder()
+            .refreshAfterWrite(refreshTime, TimeUnit.MINUTES)
+            .removalListener((RemovalListener<String, APP_ENTITY>) notification -> {
+                if (notification.getValue() != null) {
+                    removalListeners.forEach(listener -> listener.accept(notification.getKey(), notification.getValue()));
+                }
+            });
         if (maxEntries != null) {
             builder.maximumSize(maxEntries);
         }
         cache = builder.build(loader);
     }
 
+    /**
+     * Registers a listener called with the row key and entity of every entry evicted, invalidated or replaced, e.g. by
+     * a refresh. Aliases such as LATEST may be replaced by another version of the entity.
+     */
+    public void addRemovalListener(BiConsumer<String, APP_ENTITY> removalListener) {
+        removalListeners.add(removalListener);
+    }
+
     @Override
     public Optional<APP_ENTITY> get(String entityId, String version, String tenant) {
         String rowKey = getRowKey(entityId, version, tenant);
@@ -0,0 +1,155 @@
+package com.flipkart.drift.persistence.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import com.flipkart.drift.persistence.bootstrap.ContextCodecConfig;
+import com.flipkart.hbaseobjectmapper.codec.BestSuitCodec;
+import com.flipkart.hbaseobjectmapper.codec.exceptions.DeserializationException;
+import com.flipkart.hbaseobjectmapper.codec.exceptions.SerializationException;
+import com.github.luben.zstd.Zstd;
+import net.jpountz.lz4.LZ4Factory;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.Map;
+
+import static com.flipkart.drift.commons.utils.MetricsRegistry.histogram;
+
+/**
+ * Encodes JSON tree fields, i.e. workflow contexts, as per {@link ContextCodecConfig}; every other field is left to
+ * {@link BestSuitCodec}. An encoded value starts with a header:
+ * <pre>
+ *   magic (2 bytes) | version (1) | format (1) | compression (1) | [uncompressed length (4), when compressed] | payload
+ * </pre>
+ * Values without the magic are plain JSON as written by {@link BestSuitCodec}, so rows written before this codec
+ * are read as is. Writing plain JSON uncompressed keeps that legacy layout too.
+ */
+public class ContextCodec extends BestSuitCodec {
+    // Plain JSON never starts with a zero byte
+    private static final byte[] MAGIC = {0x00, (byte) 0xDC};
+    private static final byte VERSION = 1;
+    private static final int HEADER_LENGTH = MAGIC.length + 3;
+    private static final int LENGTH_FIELD_BYTES = Integer.BYTES;
+
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper smileMapper = new SmileMapper();
+    private final ObjectMapper cborMapper = new CBORMapper();
+    private final LZ4Factory lz4Factory = LZ4Factory.fastestInstance();
+    private final ContextCodecConfig config;
+
+    public ContextCodec(ObjectMapper objectMapper, ContextCodecConfig config) {
+        super(objectMapper);
+        this.jsonMapper = objectMapper;
+        this.config = config;
+    }
+
+    @Override
+    public byte[] serialize(Serializable object, Map<String, String> flags) throws SerializationException {
+        if (!(object instanceof JsonNode)) {
+            return super.serialize(object, flags);
+        }
+        try {
+            return encode((JsonNode) object);
+        } catch (IOException e) {
+            throw new SerializationException("Could not encode context", e);
+        }
+    }
+
+    @Override
+    public Serializable deserialize(byte[] bytes, Type type, Map<String, String> flags) throws DeserializationException {
+        if (!isEncoded(bytes) || !(type instanceof Class) || !JsonNode.class.isAssignableFrom((Class<?>) type)) {
+            return super.deserialize(bytes, type, flags);
+        }
+        try {
+            return (Serializable) decode(bytes);
+        } catch (IOException | RuntimeException e) {
+            throw new DeserializationException("Could not decode context", e);
+        }
+    }
+
+    public byte[] encode(JsonNode node) throws IOException {
+        ContextFormat format = config.getFormat();
+        byte[] payload = mapperFor(format).writeValueAsBytes(node);
+        ContextCompression compression = payload.length >= config.getCompressionThresholdBytes()
+                ? config.getCompression() : ContextCompression.NONE;
+        if (format == ContextFormat.JSON && compression == ContextCompression.NONE) {
+            histogram(this.getClass(), payload.length, "encodedBytes");
+            return payload;
+        }
+
+        byte[] compressed = compress(payload, compression);
+        int headerLength = compression == ContextCompression.NONE ? HEADER_LENGTH : HEADER_LENGTH + LENGTH_FIELD_BYTES;
+        byte[] encoded = new byte[headerLength + compressed.length];
+        System.arraycopy(MAGIC, 0, encoded, 0, MAGIC.length);
+        encoded[MAGIC.length] = VERSION;
+        encoded[MAGIC.length + 1] = format.getId();
+        encoded[MAGIC.length + 2] = compression.getId();
+        if (compression != ContextCompression.NONE) {
+            Bytes.putInt(encoded, HEADER_LENGTH, payload.length);
+        }
+        System.arraycopy(compressed, 0, encoded, headerLength, compressed.length);
+        histogram(this.getClass(), encoded.length, "encodedBytes");
+        return encoded;
+    }
+
+    public JsonNode decode(byte[] bytes) throws IOException {
+        if (!isEncoded(bytes)) {
+            return jsonMapper.readTree(bytes);
+        }
+        if (bytes[MAGIC.length] != VERSION) {
+            throw new IOException("Unsupported context encoding version: " + bytes[MAGIC.length]);
+        }
+        ContextFormat format = ContextFormat.fromId(bytes[MAGIC.length + 1]);
+        ContextCompression compression = ContextCompression.fromId(bytes[MAGIC.length + 2]);
+        byte[] payload;
+        if (compression == ContextCompression.NONE) {
+            payload = Arrays.copyOfRange(bytes, HEADER_LENGTH, bytes.length);
+        } else {
+            int length = Bytes.toInt(bytes, HEADER_LENGTH);
+            payload = decompress(bytes, HEADER_LENGTH + LENGTH_FIELD_BYTES, length, compression);
+        }
+        return mapperFor(format).readTree(payload);
+    }
+
+    private static boolean isEncoded(byte[] bytes) {
+        return bytes != null && bytes.length >= HEADER_LENGTH && bytes[0] == MAGIC[0] && bytes[1] == MAGIC[1];
+    }
+
+    private ObjectMapper mapperFor(ContextFormat format) {
+        switch (format) {
+            case SMILE:
+                return smileMapper;
+            case CBOR:
+                return cborMapper;
+            default:
+                return jsonMapper;
+        }
+    }
+
+    private byte[] compress(byte[] payload, ContextCompression compression) {
+        switch (compression) {
+            case LZ4:
+                return lz4Factory.fastCompressor().compress(payload);
+            case ZSTD:
+                return Zstd.compress(payload, config.getZstdLevel());
+            default:
+                return payload;
+        }
+    }
+
+    private byte[] decompress(byte[] bytes, int offset, int length, ContextCompression compression) throws IOException {
+        switch (compression) {
+            case LZ4:
+                return lz4Factory.fastDecompressor().decompress(bytes, offset, length);
+            case ZSTD:
+                return Zstd.decompress(Arrays.copyOfRange(bytes, offset, bytes.length), length);
+            default:
+                throw new IOException("Unsupported context compression: " + compression);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.flipkart.drift.persistence.codec;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ContextCompression {
+    NONE((byte) 0),
+    LZ4((byte) 1),
+    ZSTD((byte) 2);
+
+    // Written to the header, so existing ids must never change
+    private final byte id;
+
+    public static ContextCompression fromId(byte id) {
+        for (ContextCompression compression : values()) {
+            if (compression.id == id) {
+                return compression;
+            }
+        }
+        throw new IllegalArgumentException("Unknown context compression: " + id);
+    }
+}
@@ -0,0 +1,24 @@
+package com.flipkart.drift.persistence.codec;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public enum ContextFormat {
+    JSON((byte) 0),
+    SMILE((byte) 1),
+    CBOR((byte) 2);
+
+    // Written to the header, so existing ids must never change
+    private final byte id;
+
+    public static ContextFormat fromId(byte id) {
+        for (ContextFormat format : values()) {
+            if (format.id == id) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("Unknown context format: " + id);
+    }
+}
@@ -8,21 +8,30 @@ import com.flipkart.hbaseobjectmapper.HBColumn;
 import com.flipkart.hbaseobjectmapper.HBObjectMapper;
 import com.flipkart.hbaseobjectmapper.HBRecord;
 import com.flipkart.hbaseobjectmapper.codec.BestSuitCodec;
+import com.flipkart.hbaseobjectmapper.codec.Codec;
 import com.flipkart.drift.persistence.annotations.PrimaryKey;
 import com.flipkart.drift.persistence.annotations.Version;
+import com.flipkart.drift.persistence.bootstrap.WriteBehindConfig;
 import com.flipkart.drift.commons.exception.ApiException;
+import com.flipkart.drift.commons.exception.VersionConflictException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hadoop.hbase.TableName;
 import org.apache.hadoop.hbase.client.*;
-import org.apache.hadoop.hbase.filter.PrefixFilter;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.Pair;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.function.BiConsumer;
 
 @Slf4j
 public abstract class AbstractEntityDao<ROWKEY extends Serializable & Comparable<ROWKEY>, ENTITY extends HBRecord<ROWKEY>, KEY extends Serializable & Comparable<KEY>>
@@ -30,13 +39,36 @@ public abstract class AbstractEntityDao<ROWKEY extends Serializable & Comparable
 
     protected final Optional<Pair<String, String>> versionFamilyAndColumn;
     protected final Optional<Pair<String, String>> primaryKeyFamilyAndColumn;
+    private final Field versionField;
     private final IConnectionProvider connectionProvider;
+    private final Map<ConnectionType, WriteBehindBuffer> writeBehindBuffers = new ConcurrentHashMap<>();
+    private final List<BiConsumer<Mutation, Throwable>> writeBehindFailureListeners = new CopyOnWriteArrayList<>();
+    private volatile WriteBehindConfig writeBehindConfig;
+    private volatile ExecutorService asyncExecutor;
 
     protected AbstractEntityDao(IConnectionProvider connectionProvider, Connection defaultConnection, ObjectMapper objectMapper) {
-        super(defaultConnection, new BestSuitCodec(objectMapper));
+        this(connectionProvider, defaultConnection, new BestSuitCodec(objectMapper));
+    }
+
+    /**
+     * @param codec converts field values to and from cell values, for entities that don't store plain JSON
+     */
+    protected AbstractEntityDao(IConnectionProvider connectionProvider, Connection defaultConnection, Codec codec) {
+        super(defaultConnection, codec);
         this.connectionProvider = connectionProvider;
         versionFamilyAndColumn = getFamilyAndColumn(Version.class);
         primaryKeyFamilyAndColumn = getFamilyAndColumn(PrimaryKey.class);
+        versionField = getField(Version.class);
+    }
+
+    private Field getField(Class<? extends Annotation> annotation) {
+        for (Field field : super.hbRecordClass.getDeclaredFields()) {
+            if (field.isAnnotationPresent(annotation)) {
+                field.setAccessible(true);
+                return field;
+            }
+        }
+        return null;
     }
 
     private Optional<Pair<String, String>> getFamilyAndColumn(Class<? extends Annotation> annotation) {
@@ -57,24 +89,78 @@ public abstract class AbstractEntityDao<ROWKEY extends Serializable & Comparable
     @Timed
     @ExceptionMetered
     public List<ENTITY> findAll(String columnFamily, Optional<String> rowKeyPrefix, ConnectionType connectionType) throws IOException {
-        Scan scan = (new Scan())
-                .addFamily(this.hbObjectMapper.toIbw(columnFamily).get())
+        ScanOptions scanOptions = ScanOptions.builder()
+                .family(columnFamily)
+                .rowKeyPrefix(rowKeyPrefix.orElse(null))
+                .cacheBlocks(true)
+                .skipUnreadable(true)
+                .build();
+        List<ENTITY> entities = new ArrayList<>();
+        try (EntityScanner<ENTITY> scanner = scan(scanOptions, connectionType)) {
+            scanner.forEachRemaining(entities::add);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        return entities;
+    }
+
+    /**
+     * Streams the scanned entities instead of loading them all, for tables too large to hold on heap. Close the
+     * returned scanner, e.g. with try-with-resources.
+     */
+    public EntityScanner<ENTITY> scan(ScanOptions scanOptions, ConnectionType connectionType) throws IOException {
+        Scan scan = toScan(scanOptions);
+        log.debug("scan --> {}", scan);
+        Table table = getHBTable(connectionType);
+        try {
+            return new EntityScanner<>(getTableName(), table, table.getScanner(scan), this::toEntity, scanOptions.isSkipUnreadable());
+        } catch (IOException | RuntimeException e) {
+            table.close();
+            throw e;
+        }
+    }
+
+    protected Scan toScan(ScanOptions scanOptions) throws IOException {
+        Scan scan = new Scan()
+                .setCaching(scanOptions.getCaching())
+                .setMaxResultSize(scanOptions.getMaxResultSizeBytes())
+                .setCacheBlocks(scanOptions.isCacheBlocks())
                 .setScanMetricsEnabled(true);
-        if (rowKeyPrefix.isPresent() && !rowKeyPrefix.get().isEmpty()) {
-            scan.setFilter(new PrefixFilter(Bytes.toBytes(rowKeyPrefix.get())));
+        for (String family : scanOptions.getFamilies()) {
+            scan.addFamily(Bytes.toBytes(family));
         }
-        List<ENTITY> entities = new ArrayList<>();
-        log.info("scan --> " + scan.toJSON());
-        try (Table table = getHBTable(connectionType); ResultScanner scanner = table.getScanner(scan)) {
-            for (Result result : scanner) {
-                try {
-                    entities.add(hbObjectMapper.readValue(result, hbRecordClass));
-                } catch(Exception e) {
-                    log.error("Unable to deserialize entity " + e);
-                }
+        scanOptions.getColumns().forEach((family, qualifiers) -> {
+            for (String qualifier : qualifiers) {
+                scan.addColumn(Bytes.toBytes(family), Bytes.toBytes(qualifier));
             }
+        });
+        if (scanOptions.getRowKeyPrefix() != null && !scanOptions.getRowKeyPrefix().isEmpty()) {
+            scan.setRowPrefixFilter(Bytes.toBytes(scanOptions.getRowKeyPrefix()));
         }
-        return entities;
+        if (scanOptions.getStartRow() != null) {
+            scan.withStartRow(Bytes.toBytes(scanOptions.getStartRow()));
+        }
+        if (scanOptions.getStopRow() != null) {
+            scan.withStopRow(Bytes.toBytes(scanOptions.getStopRow()));
+        }
+        if (scanOptions.getMinTimestamp() != null || scanOptions.getMaxTimestamp() != null) {
+            scan.setTimeRange(scanOptions.getMinTimestamp() != null ? scanOptions.getMinTimestamp() : 0L,
+                    scanOptions.getMaxTimestamp() != null ? scanOptions.getMaxTimestamp() : Long.MAX_VALUE);
+        }
+        if (scanOptions.getFilter() != null) {
+            scan.setFilter(scanOptions.getFilter());
+        }
+        if (scanOptions.getLimit() > 0) {
+            scan.setLimit(scanOptions.getLimit());
+        }
+        return scan;
+    }
+
+    /**
+     * Maps a scanned row, null to leave it out.
+     */
+    protected ENTITY toEntity(Result result) throws IOException {
+        return mapResult(result);
     }
 
     @Timed
@@ -86,6 +172,9 @@ public abstract class AbstractEntityDao<ROWKEY extends Serializable & Comparable
         if (!primaryKeyFamilyAndColumn.isPresent()) {
             return persist(entity, connectionType) != null ? Boolean.TRUE : Boolean.FALSE;
         }
+        if (versionField != null && getVersion(entity) == null) {
+            setVersion(entity, nextVersion(null));
+        }
         Put put = getHBasePutRequest(entity);
         try (Table table = getHBTable(connectionType)) {
             return table.checkAndMutate(hbObjectMapper.toIbw(entity.composeRowKey()).get(), hbObjectMapper.toIbw(primaryKeyFamilyAndColumn.get().getFirst()).get())
@@ -119,6 +208,13 @@ public abstract class AbstractEntityDao<ROWKEY extends Serializable & Comparable
         }
     }
 
+    /**
+     * Entities with a {@link Version} field are only written if the stored version is the one they were read with,
+     * and get the next version. Those read before they had a version are checked against the primary key alone.
+     *
+     * @return false if the row doesn't exist
+     * @throws VersionConflictException if the row was written since the entity was read
+     */
     @Timed
     @ExceptionMetered
     public boolean update(ENTITY entity, KEY primaryKey, ConnectionType connectionType) throws IOException {
@@ -128,12 +224,61 @@ public abstract class AbstractEntityDao<ROWKEY extends Serializable & Comparable
         if (!primaryKeyFamilyAndColumn.isPresent()) {
             return persist(entity, connectionType) != null ? Boolean.TRUE : Boolean.FALSE;
         }
-        Put put = getHBasePutRequest(entity);
+        Long expectedVersion = versionField == null ? null : getVersion(entity);
+        if (versionField != null) {
+            setVersion(entity, nextVersion(expectedVersion));
+        }
+        boolean written = false;
         try (Table table = getHBTable(connectionType)) {
-            return table.checkAndMutate(hbObjectMapper.toIbw(entity.composeRowKey()).get(), hbObjectMapper.toIbw(primaryKeyFamilyAndColumn.get().getFirst()).get())
-                    .qualifier(hbObjectMapper.toIbw(primaryKeyFamilyAndColumn.get().getSecond()).get())
-                    .ifEquals(hbObjectMapper.toIbw(primaryKey).get())
+            Put put = getHBasePutRequest(entity);
+            byte[] rowKey = hbObjectMapper.toIbw(entity.composeRowKey()).get();
+            if (expectedVersion == null) {
+                written = table.checkAndMutate(rowKey, hbObjectMapper.toIbw(primaryKeyFamilyAndColumn.get().getFirst()).get())
+                        .qualifier(hbObjectMapper.toIbw(primaryKeyFamilyAndColumn.get().getSecond()).get())
+                        .ifEquals(hbObjectMapper.toIbw(primaryKey).get())
+                        .thenPut(put);
+                return written;
+            }
+            byte[] family = hbObjectMapper.toIbw(versionFamilyAndColumn.get().getFirst()).get();
+            byte[] qualifier = hbObjectMapper.toIbw(versionFamilyAndColumn.get().getSecond()).get();
+            written = table.checkAndMutate(rowKey, family)
+                    .qualifier(qualifier)
+                    .ifEquals(hbObjectMapper.toIbw(expectedVersion).get())
                     .thenPut(put);
+            if (written) {
+                return true;
+            }
+            Result current = table.get(new Get(rowKey).addColumn(family, qualifier));
+            if (current.isEmpty()) {
+                return false;
+            }
+            byte[] actualVersion = current.getValue(family, qualifier);
+            throw new VersionConflictException(String.valueOf(entity.composeRowKey()), expectedVersion,
+                    actualVersion == null ? null : Bytes.toLong(actualVersion));
+        } finally {
+            if (!written && versionField != null) {
+                setVersion(entity, expectedVersion);
+            }
+        }
+    }
+
+    public static Long nextVersion(Long version) {
+        return version == null ? 1L : version + 1;
+    }
+
+    protected Long getVersion(ENTITY entity) {
+        try {
+            return (Long) versionField.get(entity);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to read version of " + hbRecordClass.getSimpleName(), e);
+        }
+    }
+
+    protected void setVersion(ENTITY entity, Long version) {
+        try {
+            versionField.set(entity, version);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Unable to set version of " + hbRecordClass.getSimpleName(), e);
         }
     }
 
@@ -144,6 +289,56 @@ public abstract class AbstractEntityDao<ROWKEY extends Serializable & Comparable
         }
     }
 
+    /**
+     * Gets all rows in one batch. Rows whose lookup fails are reported as failed instead of failing the batch.
+     */
+    public BatchGetResult<ROWKEY, ENTITY> batchGet(List<ROWKEY> rowKeys, ConnectionType connectionType) throws IOException {
+        List<Get> gets = new ArrayList<>(rowKeys.size());
+        for (ROWKEY rowKey : rowKeys) {
+            gets.add(super.getGet(rowKey));
+        }
+        Object[] results = batch(gets, connectionType);
+        BatchGetResult<ROWKEY, ENTITY> batchGetResult = new BatchGetResult<>();
+        for (int i = 0; i < rowKeys.size(); i++) {
+            ROWKEY rowKey = rowKeys.get(i);
+            if (!(results[i] instanceof Result)) {
+                batchGetResult.getFailed().put(rowKey, failureMessage(results[i]));
+            } else if (((Result) results[i]).isEmpty()) {
+                batchGetResult.getMissing().add(rowKey);
+            } else {
+                try {
+                    batchGetResult.getFound().put(rowKey, hbObjectMapper.readValue((Result) results[i], hbRecordClass));
+                } catch (Exception e) {
+                    batchGetResult.getFailed().put(rowKey, e.getMessage());
+                }
+            }
+        }
+        return batchGetResult;
+    }
+
+    /**
+     * Runs the actions in one batch.
+     *
+     * @return per action, its result, or the {@link Throwable} it failed with, or null if it wasn't attempted
+     */
+    protected Object[] batch(List<? extends Row> actions, ConnectionType connectionType) throws IOException {
+        Object[] results = new Object[actions.size()];
+        try (Table table = getHBTable(connectionType)) {
+            table.batch(actions, results);
+        } catch (RetriesExhaustedWithDetailsException e) {
+            // The results of the actions that succeeded are still filled in
+            log.warn("{} of {} batched actions on {} failed", e.getNumExceptions(), actions.size(), getTableName(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted during batch on " + getTableName());
+        }
+        return results;
+    }
+
+    protected static String failureMessage(Object result) {
+        return result instanceof Throwable ? ((Throwable) result).getMessage() : "Not attempted";
+    }
+
     public ENTITY getOnGet(Get get, ConnectionType connectionType) throws IOException {
         try (Table table = getHBTable(connectionType)) {
             Result result = table.get(get);
@@ -216,8 +411,144 @@ public abstract class AbstractEntityDao<ROWKEY extends Serializable & Comparable
         }
     }
 
+    /**
+     * Opts the DAO into buffered writes, see {@link WriteBehindBuffer}.
+     */
+    protected void enableWriteBehind(WriteBehindConfig writeBehindConfig) {
+        this.writeBehindConfig = writeBehindConfig;
+    }
+
+    public boolean isWriteBehindEnabled() {
+        return writeBehindConfig != null;
+    }
+
+    /**
+     * Called with every buffered mutation that failed, including ones nobody waits for.
+     */
+    public void addWriteBehindFailureListener(BiConsumer<Mutation, Throwable> failureListener) {
+        writeBehindFailureListeners.add(failureListener);
+    }
+
+    /**
+     * Queues the put of the record to be written with others. Wait for the returned future before handing control
+     * back to whoever relies on the write.
+     */
+    public CompletableFuture<ROWKEY> persistBuffered(HBRecord<ROWKEY> record, ConnectionType connectionType) {
+        return mutateBuffered(getHBasePutRequest(record), connectionType).thenApply(ignored -> record.composeRowKey());
+    }
+
+    protected CompletableFuture<Void> mutateBuffered(Mutation mutation, ConnectionType connectionType) {
+        if (writeBehindConfig == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("Write-behind isn't enabled for " + getTableName()));
+        }
+        try {
+            return writeBehindBuffers.computeIfAbsent(connectionType, this::createWriteBehindBuffer).mutate(mutation);
+        } catch (UncheckedIOException e) {
+            return CompletableFuture.failedFuture(e.getCause());
+        }
+    }
+
+    /**
+     * Blocks until every buffered mutation queued so far is written.
+     */
+    public void flushBuffered() {
+        writeBehindBuffers.values().forEach(WriteBehindBuffer::flush);
+    }
+
+    public void closeBuffered() {
+        for (WriteBehindBuffer writeBehindBuffer : writeBehindBuffers.values()) {
+            try {
+                writeBehindBuffer.close();
+            } catch (IOException e) {
+                log.warn("Unable to close write-behind buffer of {}", getTableName(), e);
+            }
+        }
+        writeBehindBuffers.clear();
+    }
+
+    private WriteBehindBuffer createWriteBehindBuffer(ConnectionType connectionType) {
+        try {
+            return new WriteBehindBuffer(getConnection(connectionType), getHBTableName(connectionType), writeBehindConfig,
+                    writeBehindFailureListeners);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Opts the DAO into reading and writing over the async connection of its {@link IConnectionProvider}. Callbacks,
+     * including mapping results, run on the executor, as they are too heavy for the RPC threads.
+     */
+    protected void enableAsync(ExecutorService asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+    }
+
+    /**
+     * Non-blocking variant of {@link #get(Serializable, ConnectionType)}, completes with null when the row doesn't exist.
+     */
+    public CompletableFuture<ENTITY> getAsync(ROWKEY rowKey, ConnectionType connectionType) {
+        return getOnGetAsync(super.getGet(rowKey), connectionType);
+    }
+
+    public CompletableFuture<ENTITY> getOnGetAsync(Get get, ConnectionType connectionType) {
+        return getAsyncHBTable(connectionType)
+                .map(table -> table.get(get).thenApply(this::mapResult))
+                .orElseGet(() -> blocking(() -> {
+                    try (Table table = getHBTable(connectionType)) {
+                        return mapResult(table.get(get));
+                    }
+                }));
+    }
+
+    public CompletableFuture<ROWKEY> persistAsync(HBRecord<ROWKEY> record, ConnectionType connectionType) {
+        return getAsyncHBTable(connectionType)
+                .map(table -> table.put(getHBasePutRequest(record)).thenApply(ignored -> record.composeRowKey()))
+                .orElseGet(() -> blocking(() -> persist(record, connectionType)));
+    }
+
+    /**
+     * @return the async table, empty if async access isn't enabled or the provider has no async connection, async
+     * methods then run their blocking variants on the calling thread, see {@link #blocking}
+     */
+    public Optional<AsyncTable<ScanResultConsumer>> getAsyncHBTable(ConnectionType connectionType) {
+        ExecutorService executor = asyncExecutor;
+        if (executor == null) {
+            return Optional.empty();
+        }
+        return connectionProvider.getAsyncConnection(connectionType)
+                .map(asyncConnection -> asyncConnection.getTable(getHBTableName(connectionType), executor));
+    }
+
+    protected static <T> CompletableFuture<T> blocking(BlockingCall<T> call) {
+        try {
+            return CompletableFuture.completedFuture(call.call());
+        } catch (IOException | RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    @FunctionalInterface
+    protected interface BlockingCall<T> {
+        T call() throws IOException;
+    }
+
+    private ENTITY mapResult(Result result) {
+        if (result == null || result.isEmpty()) {
+            return null;
+        }
+        return hbObjectMapper.readValue(result, hbRecordClass);
+    }
+
     public Table getHBTable(ConnectionType connectionType) throws IOException {
-        return connectionProvider.getConnection(connectionType).getTable(TableName.valueOf(connectionType.getNamespace() + ":" + getTableName()));
+        return getConnection(connectionType).getTable(getHBTableName(connectionType));
+    }
+
+    protected TableName getHBTableName(ConnectionType connectionType) {
+        return TableName.valueOf(connectionType.getNamespace() + ":" + getTableName());
+    }
+
+    protected Connection getConnection(ConnectionType connectionType) {
+        return connectionProvider.getConnection(connectionType);
     }
 
     @Override
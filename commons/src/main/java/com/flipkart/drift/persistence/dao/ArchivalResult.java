@@ -0,0 +1,13 @@
+package com.flipkart.drift.persistence.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ArchivalResult {
+    private int archived;
+    // Rows written or archived by someone else meanwhile
+    private int skipped;
+    private int failed;
+}
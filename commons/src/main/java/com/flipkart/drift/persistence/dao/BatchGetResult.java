@@ -0,0 +1,18 @@
+package com.flipkart.drift.persistence.dao;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of a batch get, per key: the entity, not found, or the error of a failed lookup.
+ */
+@Getter
+public class BatchGetResult<KEY, ENTITY> {
+    private final Map<KEY, ENTITY> found = new LinkedHashMap<>();
+    private final List<KEY> missing = new ArrayList<>();
+    private final Map<KEY, String> failed = new LinkedHashMap<>();
+}
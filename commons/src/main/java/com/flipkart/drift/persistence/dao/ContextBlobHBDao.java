@@ -0,0 +1,19 @@
+package com.flipkart.drift.persistence.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.drift.persistence.bootstrap.ContextCodecConfig;
+import com.flipkart.drift.persistence.codec.ContextCodec;
+import com.flipkart.drift.persistence.entity.ContextBlobHB;
+import com.google.inject.Inject;
+
+import java.io.IOException;
+
+/**
+ * Blobs offloaded from workflow contexts, encoded like the contexts themselves.
+ */
+public class ContextBlobHBDao extends AbstractEntityDao<String, ContextBlobHB, String> {
+    @Inject
+    public ContextBlobHBDao(IConnectionProvider connectionProvider, ObjectMapper objectMapper, ContextCodecConfig contextCodecConfig) throws IOException {
+        super(connectionProvider, connectionProvider.getConnection(ConnectionType.HOT), new ContextCodec(objectMapper, contextCodecConfig));
+    }
+}
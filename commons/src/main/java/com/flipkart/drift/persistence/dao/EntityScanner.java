@@ -0,0 +1,141 @@
+package com.flipkart.drift.persistence.dao;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.metrics.ScanMetrics;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static com.flipkart.drift.commons.utils.MetricsRegistry.histogram;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.markMeter;
+
+/**
+ * Maps the rows of a scan to entities as they are consumed. Rows are fetched from the region servers only when the
+ * rows fetched before are used up, so a slow consumer holds at most one RPC worth of rows.
+ * <p>
+ * Must be closed, which {@link #stream()} does when the stream is closed or the scan reaches its end. Scan errors are
+ * thrown as {@link UncheckedIOException}.
+ */
+@Slf4j
+public class EntityScanner<ENTITY> implements Iterator<ENTITY>, Closeable {
+    private final String tableName;
+    private final Table table;
+    private final ResultScanner resultScanner;
+    private final ResultMapper<ENTITY> resultMapper;
+    private final boolean skipUnreadable;
+    private ENTITY next;
+    private long scannedRows;
+    private long skippedRows;
+    private boolean closed;
+
+    EntityScanner(String tableName, Table table, ResultScanner resultScanner, ResultMapper<ENTITY> resultMapper, boolean skipUnreadable) {
+        this.tableName = tableName;
+        this.table = table;
+        this.resultScanner = resultScanner;
+        this.resultMapper = resultMapper;
+        this.skipUnreadable = skipUnreadable;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null && !closed) {
+            Result result;
+            try {
+                result = resultScanner.next();
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            if (result == null) {
+                close();
+                return false;
+            }
+            scannedRows++;
+            try {
+                next = resultMapper.map(result);
+            } catch (Exception e) {
+                if (!skipUnreadable) {
+                    close();
+                    throw new UncheckedIOException(new IOException("Unable to read row " + Bytes.toStringBinary(result.getRow()) + " of " + tableName, e));
+                }
+                skippedRows++;
+                log.warn("Skipping unreadable row {} of {}", Bytes.toStringBinary(result.getRow()), tableName, e);
+            }
+        }
+        return next != null;
+    }
+
+    @Override
+    public ENTITY next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        ENTITY entity = next;
+        next = null;
+        return entity;
+    }
+
+    /**
+     * Sequential stream of the remaining entities, closing the scanner when it is closed.
+     */
+    public Stream<ENTITY> stream() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(this, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(this::close);
+    }
+
+    /**
+     * RPC, region and byte counts of the scan so far.
+     */
+    public ScanMetrics getScanMetrics() {
+        return resultScanner.getScanMetrics();
+    }
+
+    public long getScannedRows() {
+        return scannedRows;
+    }
+
+    public long getSkippedRows() {
+        return skippedRows;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        resultScanner.close();
+        try {
+            table.close();
+        } catch (IOException e) {
+            log.warn("Unable to close table {} after scan", tableName, e);
+        }
+        histogram(this.getClass(), scannedRows, tableName, "scannedRows");
+        if (skippedRows > 0) {
+            markMeter(this.getClass(), skippedRows, tableName, "skippedRows");
+        }
+        ScanMetrics scanMetrics = resultScanner.getScanMetrics();
+        if (scanMetrics != null) {
+            histogram(this.getClass(), scanMetrics.countOfRPCcalls.get(), tableName, "rpcCalls");
+            histogram(this.getClass(), scanMetrics.countOfBytesInResults.get(), tableName, "resultBytes");
+            log.debug("Scan of {} done, {} rows, metrics: {}", tableName, scannedRows, scanMetrics.getMetricsMap());
+        }
+    }
+
+    @FunctionalInterface
+    interface ResultMapper<ENTITY> {
+        // Null to leave the row out
+        ENTITY map(Result result) throws IOException;
+    }
+}
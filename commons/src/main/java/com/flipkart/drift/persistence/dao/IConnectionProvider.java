@@ -1,9 +1,17 @@
 package com.flipkart.drift.persistence.dao;
 
+import org.apache.hadoop.hbase.client.AsyncConnection;
 import org.apache.hadoop.hbase.client.Connection;
 
+import java.util.Optional;
+
 public interface IConnectionProvider {
     Connection getConnection(ConnectionType connectionType);
     boolean isDegraded();
-}
 
+    /**
+     * @return the async connection, empty if the provider has none, the async methods of the DAOs then block on
+     * {@link #getConnection}
+     */
+    Optional<AsyncConnection> getAsyncConnection(ConnectionType connectionType);
+}
@@ -0,0 +1,13 @@
+package com.flipkart.drift.persistence.dao;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class RowKeyMigrationResult {
+    private int migrated;
+    private int skipped;
+    // Row to continue the migration after, null once the table has been scanned to the end
+    private String nextStartRow;
+}
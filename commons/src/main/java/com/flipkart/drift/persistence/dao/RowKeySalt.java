@@ -0,0 +1,67 @@
+package com.flipkart.drift.persistence.dao;
+
+import com.google.common.hash.Hashing;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Pattern;
+
+/**
+ * Prefixes row keys with one of {@code buckets} salts derived from the key itself, e.g. {@code 017_WF-...}, so that
+ * keys which grow monotonically are spread over as many regions instead of always landing on the last one. The salt
+ * of a key is stable, so point lookups still work, while scans over a key range have to visit every bucket.
+ */
+public class RowKeySalt {
+    public static final int MAX_BUCKETS = 1000;
+    // Unsalted keys start with a letter, so the two layouts never collide
+    private static final Pattern SALTED_ROW_KEY = Pattern.compile("^\\d{3}_");
+    private static final int SALT_LENGTH = 4;
+
+    private final int buckets;
+
+    public RowKeySalt(int buckets) {
+        if (buckets < 0 || buckets > MAX_BUCKETS) {
+            throw new IllegalArgumentException("buckets should be between 0 and " + MAX_BUCKETS);
+        }
+        this.buckets = buckets;
+    }
+
+    public boolean isEnabled() {
+        return buckets > 0;
+    }
+
+    public byte[] salt(String rowKey) {
+        return Bytes.toBytes(prefix(bucket(rowKey)) + rowKey);
+    }
+
+    /**
+     * @return the first row key of every bucket but the first, i.e. the split points of a table pre-split by bucket
+     */
+    public byte[][] splitKeys() {
+        byte[][] splitKeys = new byte[Math.max(buckets - 1, 0)][];
+        for (int bucket = 1; bucket < buckets; bucket++) {
+            splitKeys[bucket - 1] = Bytes.toBytes(prefix(bucket));
+        }
+        return splitKeys;
+    }
+
+    public static boolean isSalted(String rowKey) {
+        return rowKey != null && SALTED_ROW_KEY.matcher(rowKey).lookingAt();
+    }
+
+    public static String unsalt(String rowKey) {
+        return isSalted(rowKey) ? rowKey.substring(SALT_LENGTH) : rowKey;
+    }
+
+    public static String saltedRowKeyRegex() {
+        return SALTED_ROW_KEY.pattern();
+    }
+
+    private int bucket(String rowKey) {
+        return Math.floorMod(Hashing.murmur3_32_fixed().hashString(rowKey, StandardCharsets.UTF_8).asInt(), buckets);
+    }
+
+    private static String prefix(int bucket) {
+        return String.format("%03d_", bucket);
+    }
+}
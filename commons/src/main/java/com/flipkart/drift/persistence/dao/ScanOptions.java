@@ -0,0 +1,48 @@
+package com.flipkart.drift.persistence.dao;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Singular;
+import org.apache.hadoop.hbase.filter.Filter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What a streaming scan reads and how much it fetches per RPC, see {@link AbstractEntityDao#scan(ScanOptions, ConnectionType)}.
+ * <p>
+ * There is no cell batch size: it splits wide rows into partial results, and an entity can only be mapped from a
+ * whole row. {@code caching} and {@code maxResultSizeBytes} bound what is fetched, and held, per RPC instead.
+ */
+@Getter
+@Builder
+public class ScanOptions {
+    // Families read in full
+    @Singular
+    private final Set<String> families;
+    // Single columns read on top of the families, by family
+    @Singular
+    private final Map<String, List<String>> columns;
+    private final String rowKeyPrefix;
+    // Inclusive
+    private final String startRow;
+    // Exclusive
+    private final String stopRow;
+    // Only cells written in [minTimestamp, maxTimestamp) are read
+    private final Long minTimestamp;
+    private final Long maxTimestamp;
+    // Rows fetched per RPC
+    @Builder.Default
+    private final int caching = 100;
+    @Builder.Default
+    private final long maxResultSizeBytes = 2L * 1024 * 1024;
+    // Evaluated on the region servers, projected columns it tests must be read
+    private final Filter filter;
+    // Most rows returned, 0 for all
+    private final int limit;
+    // Bulk scans would otherwise evict the hot rows from the block cache
+    private final boolean cacheBlocks;
+    // Skip rows that can't be mapped to an entity instead of failing the scan
+    private final boolean skipUnreadable;
+}
@@ -1,16 +1,678 @@
 package com.flipkart.drift.persistence.dao;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.commons.exception.ApiException;
+import com.flipkart.drift.commons.exception.VersionConflictException;
+import com.flipkart.drift.persistence.bootstrap.ContextCodecConfig;
+import com.flipkart.drift.persistence.bootstrap.RowKeySaltConfig;
+import com.flipkart.drift.persistence.bootstrap.WriteBehindConfig;
+import com.flipkart.drift.persistence.codec.ContextCodec;
 import com.flipkart.drift.persistence.entity.WorkflowContextHB;
 import com.google.inject.Inject;
+import com.google.inject.name.Named;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.CompareOperator;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Admin;
+import org.apache.hadoop.hbase.client.AsyncTable;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.RegionLocator;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.RowMutations;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.filter.RegexStringComparator;
+import org.apache.hadoop.hbase.filter.RowFilter;
+import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
+import org.apache.hadoop.hbase.util.Bytes;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
 
+/**
+ * The context of a workflow is stored either as one {@code context} column, or with every top level key in its own
+ * {@code n:<key>} column of the same family, so that a node only writes its own response. Reads always assemble
+ * both: node columns written at a later version than the {@code context} column override its keys, and remove the
+ * ones they hold empty. Versions are kept in the {@code contextVersion} and {@code nv:<key>} columns, columns written
+ * before them are ordered by cell timestamp. Values are encoded by {@link ContextCodec}.
+ * <p>
+ * Rows are keyed by the workflow id, salted as per {@link RowKeySaltConfig}. Rows written before salting was enabled
+ * stay under the bare workflow id until migrated, so every lookup falls back to the other layout.
+ * <p>
+ * Updates are checked against the version the entity was read with, and increment it, see {@link AbstractEntityDao#update}.
+ */
+@Slf4j
 public class WorkflowContextHBDao extends AbstractEntityDao<String, WorkflowContextHB, String> {
+    public static final String NODE_COLUMN_PREFIX = "n:";
+    // Names the executor async reads decode contexts on, see AbstractEntityDao#enableAsync
+    public static final String ASYNC_EXECUTOR = "contextAsyncExecutor";
+    private static final byte[] MAIN_FAMILY = Bytes.toBytes("main");
+    private static final byte[] CONTEXT_COLUMN = Bytes.toBytes("context");
+    private static final byte[] STAMP_COLUMN = Bytes.toBytes("stamp");
+    private static final byte[] WORKFLOW_ID_COLUMN = Bytes.toBytes("workflowId");
+    private static final byte[] COMPLETED_AT_COLUMN = Bytes.toBytes("completedAt");
+    private static final byte[] VERSION_COLUMN = Bytes.toBytes("version");
+    private static final byte[] NODE_COLUMN_PREFIX_BYTES = Bytes.toBytes(NODE_COLUMN_PREFIX);
+    private static final byte[] CONTEXT_VERSION_COLUMN = Bytes.toBytes("contextVersion");
+    private static final String NODE_VERSION_COLUMN_PREFIX = "nv:";
+
+    private final ContextCodec contextCodec;
+    private final RowKeySalt rowKeySalt;
+    private final boolean saltWrites;
+
     @Inject
-    public WorkflowContextHBDao(IConnectionProvider connectionProvider, ObjectMapper objectMapper) throws IOException {
-        super(connectionProvider, connectionProvider.getConnection(ConnectionType.HOT), objectMapper);
+    public WorkflowContextHBDao(IConnectionProvider connectionProvider, ObjectMapper objectMapper, ContextCodecConfig contextCodecConfig,
+                                RowKeySaltConfig rowKeySaltConfig, WriteBehindConfig writeBehindConfig,
+                                @Named(ASYNC_EXECUTOR) ExecutorService asyncExecutor) throws IOException {
+        this(connectionProvider, new ContextCodec(objectMapper, contextCodecConfig), rowKeySaltConfig);
+        if (writeBehindConfig.getEnabled()) {
+            enableWriteBehind(writeBehindConfig);
+        }
+        enableAsync(asyncExecutor);
+    }
+
+    private WorkflowContextHBDao(IConnectionProvider connectionProvider, ContextCodec contextCodec, RowKeySaltConfig rowKeySaltConfig) throws IOException {
+        super(connectionProvider, connectionProvider.getConnection(ConnectionType.HOT), contextCodec);
+        this.contextCodec = contextCodec;
+        this.rowKeySalt = new RowKeySalt(rowKeySaltConfig.getBuckets());
+        this.saltWrites = rowKeySalt.isEnabled() && rowKeySaltConfig.getSaltWrites();
+    }
+
+    /**
+     * Reads only the stamp column of the context row.
+     *
+     * @return the stamp of the last write, null when the row doesn't exist or predates stamps
+     */
+    public Long getStamp(String workflowId, ConnectionType connectionType) throws IOException {
+        Result result = getRow(workflowId, rowKey -> new Get(rowKey).addColumn(MAIN_FAMILY, STAMP_COLUMN), connectionType);
+        if (result == null) {
+            return null;
+        }
+        byte[] stamp = result.getValue(MAIN_FAMILY, STAMP_COLUMN);
+        return stamp == null ? null : Bytes.toLong(stamp);
+    }
+
+    /**
+     * Reads the row and assembles the context from the {@code context} column and the node columns.
+     */
+    public WorkflowContextHB getAssembled(String workflowId, ConnectionType connectionType) throws IOException {
+        Result result = getRow(workflowId, rowKey -> new Get(rowKey).addFamily(MAIN_FAMILY), connectionType);
+        return result == null ? null : assemble(result);
+    }
+
+    /**
+     * Non-blocking variant of {@link #getStamp}.
+     */
+    public CompletableFuture<Long> getStampAsync(String workflowId, ConnectionType connectionType) {
+        return getRowAsync(workflowId, rowKey -> new Get(rowKey).addColumn(MAIN_FAMILY, STAMP_COLUMN), connectionType)
+                .thenApply(result -> {
+                    byte[] stamp = result == null ? null : result.getValue(MAIN_FAMILY, STAMP_COLUMN);
+                    return stamp == null ? null : Bytes.toLong(stamp);
+                });
+    }
+
+    /**
+     * Non-blocking variant of {@link #getAssembled}.
+     */
+    public CompletableFuture<WorkflowContextHB> getAssembledAsync(String workflowId, ConnectionType connectionType) {
+        return assembleAsync(getRowAsync(workflowId, rowKey -> new Get(rowKey).addFamily(MAIN_FAMILY), connectionType));
+    }
+
+    /**
+     * Like {@link #getAssembledAsync}, but reads only the node columns of the given keys. Rows that still have the
+     * {@code context} column return it in full, so the context may hold more keys than asked for.
+     */
+    public CompletableFuture<WorkflowContextHB> getProjectedAsync(String workflowId, Collection<String> keys, ConnectionType connectionType) {
+        return assembleAsync(getRowAsync(workflowId, rowKey -> {
+            Get get = new Get(rowKey)
+                    .addColumn(MAIN_FAMILY, WORKFLOW_ID_COLUMN)
+                    .addColumn(MAIN_FAMILY, STAMP_COLUMN)
+                    .addColumn(MAIN_FAMILY, COMPLETED_AT_COLUMN)
+                    .addColumn(MAIN_FAMILY, VERSION_COLUMN)
+                    .addColumn(MAIN_FAMILY, CONTEXT_COLUMN)
+                    .addColumn(MAIN_FAMILY, CONTEXT_VERSION_COLUMN);
+            keys.forEach(key -> get.addColumn(MAIN_FAMILY, nodeColumn(key)).addColumn(MAIN_FAMILY, nodeVersionColumn(key)));
+            return get;
+        }, connectionType));
+    }
+
+    private CompletableFuture<WorkflowContextHB> assembleAsync(CompletableFuture<Result> row) {
+        return row.thenApply(result -> {
+            try {
+                return result == null ? null : assemble(result);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /**
+     * Batch variant of {@link #getAssembled}: one batch per row key layout, the second only for rows the first missed.
+     */
+    public BatchGetResult<String, WorkflowContextHB> batchGetAssembled(List<String> workflowIds, ConnectionType connectionType) throws IOException {
+        BatchGetResult<String, WorkflowContextHB> batchGetResult = new BatchGetResult<>();
+        List<String> pending = new ArrayList<>(new LinkedHashSet<>(workflowIds));
+        int layouts = rowKeySalt.isEnabled() ? 2 : 1;
+        for (int layout = 0; layout < layouts && !pending.isEmpty(); layout++) {
+            List<Get> gets = new ArrayList<>(pending.size());
+            for (String workflowId : pending) {
+                gets.add(new Get(candidateRowKeys(workflowId).get(layout)).addFamily(MAIN_FAMILY));
+            }
+            Object[] results = batch(gets, connectionType);
+            List<String> notFound = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i++) {
+                String workflowId = pending.get(i);
+                if (!(results[i] instanceof Result)) {
+                    batchGetResult.getFailed().put(workflowId, failureMessage(results[i]));
+                } else if (((Result) results[i]).isEmpty()) {
+                    notFound.add(workflowId);
+                } else {
+                    try {
+                        batchGetResult.getFound().put(workflowId, assemble((Result) results[i]));
+                    } catch (Exception e) {
+                        batchGetResult.getFailed().put(workflowId, e.getMessage());
+                    }
+                }
+            }
+            pending = notFound;
+        }
+        batchGetResult.getMissing().addAll(pending);
+        return batchGetResult;
+    }
+
+    @Override
+    public boolean upsert(WorkflowContextHB entity, ConnectionType connectionType) throws IOException {
+        if (entity == null) {
+            throw new ApiException("Entity cannot be null");
+        }
+        try (Table table = getHBTable(connectionType)) {
+            table.put(toPut(entity, writeRowKey(entity.getWorkflowId())));
+            return true;
+        }
+    }
+
+    /**
+     * @throws VersionConflictException if the row was written since the entity was read
+     */
+    @Override
+    public boolean update(WorkflowContextHB entity, String primaryKey, ConnectionType connectionType) throws IOException {
+        if (entity == null) {
+            throw new ApiException("Entity cannot be null");
+        }
+        return putIfVersion(entity, rowKey -> toPut(entity, rowKey), connectionType);
+    }
+
+    /**
+     * Writes the given keys of the context to their node columns, along with the stamp and version. Unless
+     * {@code create} is set, the row must already exist and still be at the entity's version, as with {@link #update}.
+     */
+    public boolean putNodeColumns(WorkflowContextHB entity, Collection<String> keys, boolean create, ConnectionType connectionType) throws IOException {
+        PutFactory putFactory = rowKey -> toNodeColumnsPut(entity, keys, rowKey);
+        if (create) {
+            if (entity.getVersion() == null) {
+                entity.setVersion(nextVersion(null));
+            }
+            try (Table table = getHBTable(connectionType)) {
+                table.put(putFactory.create(writeRowKey(entity.getWorkflowId())));
+                return true;
+            }
+        }
+        return putIfVersion(entity, putFactory, connectionType);
+    }
+
+    /**
+     * Reads only the version column of the context row.
+     *
+     * @return the version of the last write, null when the row doesn't exist or predates versions
+     */
+    public Long getVersion(String workflowId, ConnectionType connectionType) throws IOException {
+        Result result = getRow(workflowId, rowKey -> new Get(rowKey).addColumn(MAIN_FAMILY, VERSION_COLUMN), connectionType);
+        byte[] version = result == null ? null : result.getValue(MAIN_FAMILY, VERSION_COLUMN);
+        return version == null ? null : Bytes.toLong(version);
+    }
+
+    /**
+     * Buffered variant of {@link #upsert}, see {@link #persistBuffered}.
+     */
+    public CompletableFuture<Void> upsertBuffered(WorkflowContextHB entity, ConnectionType connectionType) {
+        return mutateBuffered(toPut(entity, writeRowKey(entity.getWorkflowId())), connectionType);
+    }
+
+    /**
+     * Buffered variant of {@link #putNodeColumns} creating the row, see {@link #persistBuffered}.
+     */
+    public CompletableFuture<Void> createNodeColumnsBuffered(WorkflowContextHB entity, Collection<String> keys, ConnectionType connectionType) {
+        try {
+            return mutateBuffered(toNodeColumnsPut(entity, keys, writeRowKey(entity.getWorkflowId())), connectionType);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Moves a row written with the {@code context} column to node columns. The row is only rewritten if no other
+     * write happened since it was read.
+     *
+     * @return false if the row doesn't exist, has no {@code context} column or was written concurrently
+     */
+    public boolean migrateToNodeColumns(String workflowId, ConnectionType connectionType) throws IOException {
+        Result result = getRow(workflowId, rowKey -> new Get(rowKey).addFamily(MAIN_FAMILY), connectionType);
+        if (result == null || result.getValue(MAIN_FAMILY, CONTEXT_COLUMN) == null) {
+            return false;
+        }
+        WorkflowContextHB workflowContextHB = assemble(result);
+        byte[] rowKey = result.getRow();
+        Put put = new Put(rowKey);
+        Iterator<Map.Entry<String, JsonNode>> fields = workflowContextHB.getContext().fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            put.addColumn(MAIN_FAMILY, nodeColumn(field.getKey()), contextCodec.encode(field.getValue()));
+            if (workflowContextHB.getVersion() != null) {
+                put.addColumn(MAIN_FAMILY, nodeVersionColumn(field.getKey()), Bytes.toBytes(workflowContextHB.getVersion()));
+            }
+        }
+        Delete delete = new Delete(rowKey).addColumns(MAIN_FAMILY, CONTEXT_COLUMN).addColumns(MAIN_FAMILY, CONTEXT_VERSION_COLUMN);
+        // Node columns folded into the context column, they would no longer be overridden
+        for (byte[] qualifier : result.getFamilyMap(MAIN_FAMILY).keySet()) {
+            String key = nodeKey(qualifier);
+            if (key != null && !workflowContextHB.getContext().has(key)) {
+                delete.addColumns(MAIN_FAMILY, qualifier).addColumns(MAIN_FAMILY, nodeVersionColumn(key));
+            }
+        }
+        RowMutations rowMutations = new RowMutations(rowKey);
+        rowMutations.add(put);
+        rowMutations.add(delete);
+        try (Table table = getHBTable(connectionType)) {
+            return ifStamp(table.checkAndMutate(rowKey, MAIN_FAMILY).qualifier(STAMP_COLUMN), result.getValue(MAIN_FAMILY, STAMP_COLUMN))
+                    .thenMutate(rowMutations);
+        }
+    }
+
+    /**
+     * Moves a row keyed by the bare workflow id to its salted row key, keeping cell timestamps. If the row is written
+     * while being copied, the copy is dropped again and the row stays where it was.
+     *
+     * @return false if salting is disabled, the row doesn't exist unsalted, already exists salted or was written concurrently
+     */
+    public boolean migrateToSaltedRowKey(String workflowId, ConnectionType connectionType) throws IOException {
+        if (!rowKeySalt.isEnabled()) {
+            return false;
+        }
+        byte[] legacyRowKey = Bytes.toBytes(workflowId);
+        byte[] saltedRowKey = rowKeySalt.salt(workflowId);
+        try (Table table = getHBTable(connectionType)) {
+            Result legacy = table.get(new Get(legacyRowKey).addFamily(MAIN_FAMILY));
+            if (legacy == null || legacy.isEmpty()) {
+                return false;
+            }
+            Put put = new Put(saltedRowKey);
+            for (Cell cell : legacy.rawCells()) {
+                put.addColumn(CellUtil.cloneFamily(cell), CellUtil.cloneQualifier(cell), cell.getTimestamp(), CellUtil.cloneValue(cell));
+            }
+            if (!table.checkAndMutate(saltedRowKey, MAIN_FAMILY).qualifier(WORKFLOW_ID_COLUMN).ifNotExists().thenPut(put)) {
+                return false;
+            }
+            byte[] stamp = legacy.getValue(MAIN_FAMILY, STAMP_COLUMN);
+            if (ifStamp(table.checkAndMutate(legacyRowKey, MAIN_FAMILY).qualifier(STAMP_COLUMN), stamp).thenDelete(new Delete(legacyRowKey))) {
+                return true;
+            }
+            // Lookups would prefer the now stale copy over the row that was just written
+            ifStamp(table.checkAndMutate(saltedRowKey, MAIN_FAMILY).qualifier(STAMP_COLUMN), stamp).thenDelete(new Delete(saltedRowKey));
+            return false;
+        }
+    }
+
+    /**
+     * Migrates up to {@code limit} unsalted rows, in row key order after {@code startRow}, to their salted row keys.
+     * Call again with the returned {@code nextStartRow} until it is null.
+     */
+    public RowKeyMigrationResult migrateToSaltedRowKeys(String startRow, int limit, ConnectionType connectionType) throws IOException {
+        if (!rowKeySalt.isEnabled()) {
+            throw new ApiException("Row key salting is disabled");
+        }
+        Scan scan = new Scan()
+                .addColumn(MAIN_FAMILY, WORKFLOW_ID_COLUMN)
+                .setFilter(new RowFilter(CompareOperator.NOT_EQUAL, new RegexStringComparator(RowKeySalt.saltedRowKeyRegex())))
+                .setLimit(limit);
+        if (startRow != null && !startRow.isEmpty()) {
+            scan.withStartRow(Bytes.toBytes(startRow), false);
+        }
+        List<String> workflowIds = new ArrayList<>(limit);
+        try (Table table = getHBTable(connectionType); ResultScanner scanner = table.getScanner(scan)) {
+            for (Result result : scanner) {
+                workflowIds.add(Bytes.toString(result.getRow()));
+            }
+        }
+        int migrated = 0;
+        for (String workflowId : workflowIds) {
+            if (migrateToSaltedRowKey(workflowId, connectionType)) {
+                migrated++;
+            }
+        }
+        String nextStartRow = workflowIds.size() < limit ? null : workflowIds.get(workflowIds.size() - 1);
+        log.info("Migrated {} of {} context rows to salted row keys, next start row: {}", migrated, workflowIds.size(), nextStartRow);
+        return new RowKeyMigrationResult(migrated, workflowIds.size() - migrated, nextStartRow);
+    }
+
+    /**
+     * Requests a split at the first row key of every bucket that doesn't start a region yet. Splits run
+     * asynchronously and a region can only be split once at a time, so repeat until nothing is requested.
+     *
+     * @return number of splits requested
+     */
+    public int preSplit(ConnectionType connectionType) throws IOException {
+        if (!rowKeySalt.isEnabled()) {
+            throw new ApiException("Row key salting is disabled");
+        }
+        TableName tableName = getHBTableName(connectionType);
+        int requested = 0;
+        try (Admin admin = getConnection(connectionType).getAdmin();
+             RegionLocator regionLocator = getConnection(connectionType).getRegionLocator(tableName)) {
+            Set<byte[]> regionStartKeys = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+            regionStartKeys.addAll(Arrays.asList(regionLocator.getStartKeys()));
+            for (byte[] splitKey : rowKeySalt.splitKeys()) {
+                if (regionStartKeys.contains(splitKey)) {
+                    continue;
+                }
+                try {
+                    admin.split(tableName, splitKey);
+                    requested++;
+                } catch (IOException e) {
+                    log.warn("Unable to split {} at {}", tableName, Bytes.toString(splitKey), e);
+                }
+            }
+        }
+        return requested;
+    }
+
+    /**
+     * @return the first row key of every bucket but the first, to create the table pre-split with
+     */
+    public byte[][] getSplitKeys() {
+        return rowKeySalt.splitKeys();
     }
-}
 
+    public boolean exists(String workflowId, ConnectionType connectionType) throws IOException {
+        return getRow(workflowId, rowKey -> new Get(rowKey).addColumn(MAIN_FAMILY, WORKFLOW_ID_COLUMN), connectionType) != null;
+    }
+
+    /**
+     * Moves up to {@code limit} rows of workflows that completed before {@code completedBefore} (epoch millis) from one
+     * tier to another, see {@link #moveToTier}.
+     */
+    public ArchivalResult archiveCompletedBefore(long completedBefore, int limit, ConnectionType from, ConnectionType to) throws IOException {
+        SingleColumnValueFilter completedBeforeFilter = new SingleColumnValueFilter(MAIN_FAMILY, COMPLETED_AT_COLUMN,
+                CompareOperator.LESS, hbObjectMapper.toIbw(completedBefore).get());
+        completedBeforeFilter.setFilterIfMissing(true);
+        ScanOptions scanOptions = ScanOptions.builder()
+                .column(Bytes.toString(MAIN_FAMILY), List.of(Bytes.toString(WORKFLOW_ID_COLUMN), Bytes.toString(COMPLETED_AT_COLUMN)))
+                .filter(completedBeforeFilter)
+                .limit(limit)
+                .build();
+        List<String> workflowIds = new ArrayList<>(limit);
+        try (EntityScanner<WorkflowContextHB> scanner = scan(scanOptions, from)) {
+            scanner.forEachRemaining(workflowContextHB -> workflowIds.add(workflowContextHB.getWorkflowId()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        int archived = 0;
+        int failed = 0;
+        for (String workflowId : workflowIds) {
+            try {
+                if (moveToTier(workflowId, from, to)) {
+                    archived++;
+                }
+            } catch (IOException e) {
+                failed++;
+                log.warn("Unable to move context of workflowId: {} from {} to {}", workflowId, from, to, e);
+            }
+        }
+        log.info("Moved {} of {} completed contexts from {} to {}, {} failed", archived, workflowIds.size(), from, to, failed);
+        return new ArchivalResult(archived, workflowIds.size() - archived - failed, failed);
+    }
+
+    /**
+     * Copies the assembled context to the other tier, compacted into the {@code context} column, then deletes it from
+     * this one unless it was written meanwhile. Reads check {@code from} first, so a copy left behind by a concurrent
+     * write is never read and is overwritten by the next move.
+     *
+     * @return false if the row doesn't exist in {@code from} or was written concurrently
+     */
+    public boolean moveToTier(String workflowId, ConnectionType from, ConnectionType to) throws IOException {
+        Result result = getRow(workflowId, rowKey -> new Get(rowKey).addFamily(MAIN_FAMILY), from);
+        if (result == null) {
+            return false;
+        }
+        WorkflowContextHB workflowContextHB = assemble(result);
+        try (Table table = getHBTable(to)) {
+            table.put(toPut(workflowContextHB, writeRowKey(workflowId)));
+        }
+        try (Table table = getHBTable(from)) {
+            return ifStamp(table.checkAndMutate(result.getRow(), MAIN_FAMILY).qualifier(STAMP_COLUMN), result.getValue(MAIN_FAMILY, STAMP_COLUMN))
+                    .thenDelete(new Delete(result.getRow()));
+        }
+    }
+
+    // Row keys a workflow's row may be under, the layout new rows are written with first
+    private List<byte[]> candidateRowKeys(String workflowId) {
+        byte[] legacyRowKey = Bytes.toBytes(workflowId);
+        if (!rowKeySalt.isEnabled()) {
+            return List.of(legacyRowKey);
+        }
+        byte[] saltedRowKey = rowKeySalt.salt(workflowId);
+        return saltWrites ? List.of(saltedRowKey, legacyRowKey) : List.of(legacyRowKey, saltedRowKey);
+    }
+
+    private byte[] writeRowKey(String workflowId) {
+        return saltWrites ? rowKeySalt.salt(workflowId) : Bytes.toBytes(workflowId);
+    }
+
+    private Result getRow(String workflowId, Function<byte[], Get> getFactory, ConnectionType connectionType) throws IOException {
+        try (Table table = getHBTable(connectionType)) {
+            for (byte[] rowKey : candidateRowKeys(workflowId)) {
+                Result result = table.get(getFactory.apply(rowKey));
+                if (result != null && !result.isEmpty()) {
+                    return result;
+                }
+            }
+        }
+        return null;
+    }
+
+    private CompletableFuture<Result> getRowAsync(String workflowId, Function<byte[], Get> getFactory, ConnectionType connectionType) {
+        return getAsyncHBTable(connectionType)
+                .map(table -> getRowAsync(table, candidateRowKeys(workflowId).iterator(), getFactory))
+                .orElseGet(() -> blocking(() -> getRow(workflowId, getFactory, connectionType)));
+    }
+
+    private static CompletableFuture<Result> getRowAsync(AsyncTable<?> table, Iterator<byte[]> rowKeys, Function<byte[], Get> getFactory) {
+        if (!rowKeys.hasNext()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return table.get(getFactory.apply(rowKeys.next()))
+                .thenCompose(result -> result != null && !result.isEmpty()
+                        ? CompletableFuture.completedFuture(result)
+                        : getRowAsync(table, rowKeys, getFactory));
+    }
+
+    // Moves the entity to the next version if written. Entities read before rows had a version are written unchecked
+    private boolean putIfVersion(WorkflowContextHB entity, PutFactory putFactory, ConnectionType connectionType) throws IOException {
+        String workflowId = entity.getWorkflowId();
+        Long expectedVersion = entity.getVersion();
+        entity.setVersion(nextVersion(expectedVersion));
+        boolean written = false;
+        try {
+            if (expectedVersion == null) {
+                written = putIfExists(workflowId, putFactory, connectionType);
+                return written;
+            }
+            byte[] expectedVersionValue = hbObjectMapper.toIbw(expectedVersion).get();
+            try (Table table = getHBTable(connectionType)) {
+                for (byte[] rowKey : candidateRowKeys(workflowId)) {
+                    if (table.checkAndMutate(rowKey, MAIN_FAMILY)
+                            .qualifier(VERSION_COLUMN)
+                            .ifEquals(expectedVersionValue)
+                            .thenPut(putFactory.create(rowKey))) {
+                        written = true;
+                        return true;
+                    }
+                }
+            }
+            Result current = getRow(workflowId, rowKey -> new Get(rowKey)
+                    .addColumn(MAIN_FAMILY, WORKFLOW_ID_COLUMN)
+                    .addColumn(MAIN_FAMILY, VERSION_COLUMN), connectionType);
+            if (current == null) {
+                return false;
+            }
+            byte[] actualVersion = current.getValue(MAIN_FAMILY, VERSION_COLUMN);
+            throw new VersionConflictException(workflowId, expectedVersion, actualVersion == null ? null : Bytes.toLong(actualVersion));
+        } finally {
+            if (!written) {
+                entity.setVersion(expectedVersion);
+            }
+        }
+    }
+
+    private boolean putIfExists(String workflowId, PutFactory putFactory, ConnectionType connectionType) throws IOException {
+        byte[] workflowIdValue = hbObjectMapper.toIbw(workflowId).get();
+        try (Table table = getHBTable(connectionType)) {
+            for (byte[] rowKey : candidateRowKeys(workflowId)) {
+                if (table.checkAndMutate(rowKey, MAIN_FAMILY)
+                        .qualifier(WORKFLOW_ID_COLUMN)
+                        .ifEquals(workflowIdValue)
+                        .thenPut(putFactory.create(rowKey))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Scanned rows are assembled like single reads. Projections that leave out the node columns read the
+     * {@code context} column alone.
+     */
+    @Override
+    protected WorkflowContextHB toEntity(Result result) throws IOException {
+        return result.isEmpty() ? null : assemble(result);
+    }
+
+    private WorkflowContextHB assemble(Result result) throws IOException {
+        WorkflowContextHB workflowContextHB = hbObjectMapper.readValue(result, hbRecordClass);
+        Cell contextCell = result.getColumnLatestCell(MAIN_FAMILY, CONTEXT_COLUMN);
+        byte[] contextVersion = result.getValue(MAIN_FAMILY, CONTEXT_VERSION_COLUMN);
+        ObjectNode context = workflowContextHB.getContext() != null ? workflowContextHB.getContext() : JsonNodeFactory.instance.objectNode();
+
+        NavigableMap<byte[], byte[]> family = result.getFamilyMap(MAIN_FAMILY);
+        for (byte[] qualifier : family.keySet()) {
+            String key = nodeKey(qualifier);
+            if (key == null) {
+                continue;
+            }
+            Cell nodeCell = result.getColumnLatestCell(MAIN_FAMILY, qualifier);
+            // Already folded into a context column written after it
+            if (!writtenAfter(nodeCell, result.getValue(MAIN_FAMILY, nodeVersionColumn(key)), contextCell, contextVersion)) {
+                continue;
+            }
+            if (nodeCell.getValueLength() == 0) {
+                context.remove(key);
+            } else {
+                context.set(key, contextCodec.decode(CellUtil.cloneValue(nodeCell)));
+            }
+        }
+        workflowContextHB.setContext(context);
+        return workflowContextHB;
+    }
+
+    // Writes in the same millisecond share a cell timestamp, so cells are ordered by the version they were written at
+    private static boolean writtenAfter(Cell nodeCell, byte[] nodeVersion, Cell contextCell, byte[] contextVersion) {
+        if (contextCell == null) {
+            return true;
+        }
+        if (nodeVersion != null && contextVersion != null) {
+            return Bytes.toLong(nodeVersion) > Bytes.toLong(contextVersion);
+        }
+        return nodeCell.getTimestamp() > contextCell.getTimestamp();
+    }
+
+    // The key of a node column, null for other columns
+    private static String nodeKey(byte[] qualifier) {
+        if (!Bytes.startsWith(qualifier, NODE_COLUMN_PREFIX_BYTES)) {
+            return null;
+        }
+        return Bytes.toString(qualifier, NODE_COLUMN_PREFIX_BYTES.length, qualifier.length - NODE_COLUMN_PREFIX_BYTES.length);
+    }
+
+    private static byte[] nodeColumn(String key) {
+        return Bytes.toBytes(NODE_COLUMN_PREFIX + key);
+    }
+
+    private static byte[] nodeVersionColumn(String key) {
+        return Bytes.toBytes(NODE_VERSION_COLUMN_PREFIX + key);
+    }
+
+    // The object mapper keys puts by composeRowKey(), i.e. the bare workflow id
+    private Put toPut(WorkflowContextHB entity, byte[] rowKey) {
+        Put source = hbObjectMapper.writeValueAsPut(entity);
+        Put put = new Put(rowKey);
+        for (List<Cell> cells : source.getFamilyCellMap().values()) {
+            for (Cell cell : cells) {
+                put.addColumn(CellUtil.cloneFamily(cell), CellUtil.cloneQualifier(cell), cell.getTimestamp(), CellUtil.cloneValue(cell));
+            }
+        }
+        if (entity.getContext() != null && entity.getVersion() != null) {
+            put.addColumn(MAIN_FAMILY, CONTEXT_VERSION_COLUMN, Bytes.toBytes(entity.getVersion()));
+        }
+        return put;
+    }
+
+    private Put toNodeColumnsPut(WorkflowContextHB entity, Collection<String> keys, byte[] rowKey) throws IOException {
+        WorkflowContextHB header = new WorkflowContextHB();
+        header.setWorkflowId(entity.getWorkflowId());
+        header.setStamp(entity.getStamp());
+        header.setCompletedAt(entity.getCompletedAt());
+        header.setVersion(entity.getVersion());
+        Put put = toPut(header, rowKey);
+        for (String key : keys) {
+            JsonNode value = entity.getContext().get(key);
+            // Empty for a removed key, which the context column may still hold
+            put.addColumn(MAIN_FAMILY, nodeColumn(key), value == null ? HConstants.EMPTY_BYTE_ARRAY : contextCodec.encode(value));
+            if (entity.getVersion() != null) {
+                put.addColumn(MAIN_FAMILY, nodeVersionColumn(key), Bytes.toBytes(entity.getVersion()));
+            }
+        }
+        return put;
+    }
+
+    private static Table.CheckAndMutateBuilder ifStamp(Table.CheckAndMutateBuilder checkAndMutate, byte[] stamp) {
+        return stamp == null ? checkAndMutate.ifNotExists() : checkAndMutate.ifEquals(stamp);
+    }
+
+    @FunctionalInterface
+    private interface PutFactory {
+        Put create(byte[] rowKey) throws IOException;
+    }
+}
@@ -0,0 +1,195 @@
+package com.flipkart.drift.persistence.dao;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.flipkart.drift.persistence.bootstrap.WriteBehindConfig;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.BufferedMutator;
+import org.apache.hadoop.hbase.client.BufferedMutatorParams;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
+import org.apache.hadoop.hbase.client.Row;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+import static com.flipkart.drift.commons.utils.MetricsRegistry.histogram;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.markMeter;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.registerGauge;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.timerContext;
+
+/**
+ * Queues mutations of one table and writes them through a {@link BufferedMutator} in batches, so that concurrent
+ * writers share RPCs. A batch is flushed once it reaches {@code maxBatchSize} mutations or
+ * {@code writeBufferSizeBytes}, or {@code lingerMillis} after its first mutation was queued.
+ * <p>
+ * Every mutation gets a future that completes once its batch is flushed. Callers that must not return before the
+ * write is durable wait on it, others can leave it to the failure listeners.
+ */
+@Slf4j
+public class WriteBehindBuffer implements Closeable {
+    private static final long POLL_TIMEOUT_MILLIS = 100;
+
+    private final TableName tableName;
+    private final BufferedMutator bufferedMutator;
+    private final WriteBehindConfig config;
+    private final List<BiConsumer<Mutation, Throwable>> failureListeners;
+    private final BlockingQueue<PendingMutation> queue = new LinkedBlockingQueue<>();
+    // Queued and in-flight mutations
+    private final Set<CompletableFuture<Void>> unflushed = ConcurrentHashMap.newKeySet();
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public WriteBehindBuffer(Connection connection, TableName tableName, WriteBehindConfig config,
+                             List<BiConsumer<Mutation, Throwable>> failureListeners) throws IOException {
+        this.tableName = tableName;
+        this.config = config;
+        this.failureListeners = failureListeners;
+        this.bufferedMutator = connection.getBufferedMutator(new BufferedMutatorParams(tableName)
+                .writeBufferSize(config.getWriteBufferSizeBytes()));
+        this.flusher = new Thread(this::runFlushLoop, "write-behind-" + tableName.getNameAsString());
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+        registerGauge(this.getClass(), (Gauge<Integer>) queue::size, tableName.getNameAsString(), "queueDepth");
+    }
+
+    public CompletableFuture<Void> mutate(Mutation mutation) {
+        if (!running) {
+            return CompletableFuture.failedFuture(new IOException("Write-behind buffer of " + tableName + " is closed"));
+        }
+        PendingMutation pendingMutation = new PendingMutation(mutation, new CompletableFuture<>());
+        unflushed.add(pendingMutation.getFuture());
+        pendingMutation.getFuture().whenComplete((ignored, throwable) -> unflushed.remove(pendingMutation.getFuture()));
+        queue.add(pendingMutation);
+        // Closed while queueing, after the flusher drained the queue
+        if (!running && !flusher.isAlive()) {
+            failQueued();
+        }
+        return pendingMutation.getFuture();
+    }
+
+    /**
+     * Blocks until every mutation queued before the call is flushed, successfully or not.
+     */
+    public void flush() {
+        CompletableFuture.allOf(unflushed.toArray(new CompletableFuture[0]))
+                .exceptionally(ignored -> null)
+                .join();
+    }
+
+    /**
+     * Flushes what is queued and releases the mutator. Mutations queued afterwards fail.
+     */
+    @Override
+    public void close() throws IOException {
+        running = false;
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        bufferedMutator.close();
+    }
+
+    private void runFlushLoop() {
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMutation first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    writeBatch(collectBatch(first));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Unexpected error in write-behind loop of {}", tableName, e);
+            }
+        }
+        failQueued();
+    }
+
+    private List<PendingMutation> collectBatch(PendingMutation first) throws InterruptedException {
+        List<PendingMutation> batch = new ArrayList<>();
+        batch.add(first);
+        long batchBytes = first.getMutation().heapSize();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getLingerMillis());
+        while (batch.size() < config.getMaxBatchSize() && batchBytes < config.getWriteBufferSizeBytes()) {
+            long remaining = deadline - System.nanoTime();
+            PendingMutation next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : queue.poll();
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            batchBytes += next.getMutation().heapSize();
+        }
+        return batch;
+    }
+
+    private void writeBatch(List<PendingMutation> batch) {
+        List<Mutation> mutations = new ArrayList<>(batch.size());
+        batch.forEach(pendingMutation -> mutations.add(pendingMutation.getMutation()));
+        histogram(this.getClass(), batch.size(), tableName.getNameAsString(), "batchSize");
+        try (Timer.Context ignored = timerContext(this.getClass(), tableName.getNameAsString(), "flush", "latency")) {
+            bufferedMutator.mutate(mutations);
+            bufferedMutator.flush();
+            batch.forEach(pendingMutation -> pendingMutation.getFuture().complete(null));
+        } catch (RetriesExhaustedWithDetailsException e) {
+            Map<Row, Throwable> failures = new IdentityHashMap<>();
+            for (int i = 0; i < e.getNumExceptions(); i++) {
+                failures.put(e.getRow(i), e.getCause(i));
+            }
+            for (PendingMutation pendingMutation : batch) {
+                Throwable failure = failures.get(pendingMutation.getMutation());
+                if (failure == null) {
+                    pendingMutation.getFuture().complete(null);
+                } else {
+                    fail(pendingMutation, failure);
+                }
+            }
+        } catch (Exception e) {
+            batch.forEach(pendingMutation -> fail(pendingMutation, e));
+        }
+    }
+
+    private void failQueued() {
+        PendingMutation pendingMutation;
+        while ((pendingMutation = queue.poll()) != null) {
+            fail(pendingMutation, new IOException("Write-behind buffer of " + tableName + " is closed"));
+        }
+    }
+
+    private void fail(PendingMutation pendingMutation, Throwable failure) {
+        markMeter(this.getClass(), tableName.getNameAsString(), "mutations", "failed");
+        log.error("Write-behind mutation of {} failed for row {}", tableName, pendingMutation.getMutation(), failure);
+        for (BiConsumer<Mutation, Throwable> failureListener : failureListeners) {
+            try {
+                failureListener.accept(pendingMutation.getMutation(), failure);
+            } catch (Exception e) {
+                log.warn("Write-behind failure listener of {} failed", tableName, e);
+            }
+        }
+        pendingMutation.getFuture().completeExceptionally(failure);
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class PendingMutation {
+        private final Mutation mutation;
+        private final CompletableFuture<Void> future;
+    }
+}
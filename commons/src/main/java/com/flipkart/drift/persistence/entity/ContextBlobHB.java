@@ -0,0 +1,32 @@
+package com.flipkart.drift.persistence.entity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.flipkart.hbaseobjectmapper.Family;
+import com.flipkart.hbaseobjectmapper.HBColumn;
+import com.flipkart.hbaseobjectmapper.HBRecord;
+import com.flipkart.hbaseobjectmapper.HBTable;
+import lombok.Data;
+
+/**
+ * A large context value stored apart from its workflow context, which only keeps a reference to it. Blobs are
+ * written once under a key of their own and never updated.
+ */
+@Data
+@HBTable(name = "WorkflowContextBlobHB", families = {@Family(name = "main")})
+public class ContextBlobHB implements HBRecord<String> {
+    private String blobKey;
+    @HBColumn(family = "main", column = "workflowId")
+    private String workflowId;
+    @HBColumn(family = "main", column = "value")
+    private JsonNode value;
+
+    @Override
+    public String composeRowKey() {
+        return blobKey;
+    }
+
+    @Override
+    public void parseRowKey(String rowKey) {
+        blobKey = rowKey;
+    }
+}
@@ -6,6 +6,8 @@ import com.flipkart.hbaseobjectmapper.HBColumn;
 import com.flipkart.hbaseobjectmapper.HBRecord;
 import com.flipkart.hbaseobjectmapper.HBTable;
 import com.flipkart.drift.persistence.annotations.PrimaryKey;
+import com.flipkart.drift.persistence.annotations.Version;
+import com.flipkart.drift.persistence.dao.RowKeySalt;
 import lombok.Data;
 
 import java.util.Date;
@@ -23,6 +25,16 @@ public class WorkflowContextHB implements HBRecord<String> {
     private Date createdAt;
     @HBColumn(family = "main", column = "updatedBy")
     private Date updatedAt;
+    // Changes on every write, lets a worker check whether its cached copy of the context is still current
+    @HBColumn(family = "main", column = "stamp")
+    private Long stamp;
+    // Incremented by every checked write, a write expecting another version conflicts. Null on rows never written since
+    @Version
+    @HBColumn(family = "main", column = "version")
+    private Long version;
+    // Epoch millis the workflow reached a terminal status at, archival moves the row to the cold tier some time after
+    @HBColumn(family = "main", column = "completedAt")
+    private Long completedAt;
 
     @Override
     public String composeRowKey() {
@@ -31,7 +43,7 @@ public class WorkflowContextHB implements HBRecord<String> {
 
     @Override
     public void parseRowKey(String rowKey) {
-        id = rowKey;
+        id = RowKeySalt.unsalt(rowKey);
     }
 }
 
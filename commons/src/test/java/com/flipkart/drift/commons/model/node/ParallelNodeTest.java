@@ -0,0 +1,50 @@
+package com.flipkart.drift.commons.model.node;
+
+import com.flipkart.drift.commons.model.enums.BranchFailurePolicy;
+import com.flipkart.drift.commons.model.enums.JoinType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ParallelNodeTest {
+
+    @Test
+    void requiredBranchesByJoinType() {
+        assertEquals(3, parallelNode(JoinType.ALL, null).requiredBranches());
+        assertEquals(1, parallelNode(JoinType.ANY, null).requiredBranches());
+        assertEquals(2, parallelNode(JoinType.QUORUM, 2).requiredBranches());
+    }
+
+    @Test
+    void quorumJoinWithoutQuorumFailsDescriptively() {
+        ParallelNode parallelNode = parallelNode(JoinType.QUORUM, null);
+
+        IllegalStateException e = assertThrows(IllegalStateException.class, parallelNode::requiredBranches);
+        assertEquals("Parallel node fanout has quorum null, it should be between 1 and the number of branches 3", e.getMessage());
+    }
+
+    @Test
+    void quorumLargerThanBranchesFails() {
+        assertThrows(IllegalStateException.class, parallelNode(JoinType.QUORUM, 4)::requiredBranches);
+    }
+
+    @Test
+    void missingJoinTypeFails() {
+        assertThrows(IllegalStateException.class, parallelNode(null, null)::requiredBranches);
+    }
+
+    private static ParallelNode parallelNode(JoinType joinType, Integer quorum) {
+        ParallelNode parallelNode = new ParallelNode();
+        parallelNode.setId("fanout");
+        parallelNode.setJoinType(joinType);
+        parallelNode.setQuorum(quorum);
+        parallelNode.setBranches(List.of(
+                new ParallelBranch("a", "a1", BranchFailurePolicy.FAIL),
+                new ParallelBranch("b", "b1", BranchFailurePolicy.FAIL),
+                new ParallelBranch("c", "c1", BranchFailurePolicy.IGNORE)));
+        return parallelNode;
+    }
+}
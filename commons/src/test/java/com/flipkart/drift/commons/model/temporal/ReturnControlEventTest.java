@@ -0,0 +1,56 @@
+package com.flipkart.drift.commons.model.temporal;
+
+import com.flipkart.drift.sdk.model.enums.WorkflowStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ReturnControlEventTest {
+
+    @Test
+    void stateOfTheAwaitedRequestIsDecoded() {
+        String message = ReturnControlEvent.encode(state("a"), Integer.MAX_VALUE);
+
+        assertEquals("a", ReturnControlEvent.awaitIdOf(message));
+        WorkflowState decoded = ReturnControlEvent.decode(message, "a").orElseThrow();
+        assertEquals("wf-1", decoded.getWorkflowId());
+        assertEquals(WorkflowStatus.WAITING, decoded.getStatus());
+    }
+
+    @Test
+    void stateOfAnotherRequestIsNotDecoded() {
+        String message = ReturnControlEvent.encode(state("a"), Integer.MAX_VALUE);
+
+        assertFalse(ReturnControlEvent.decode(message, "b").isPresent());
+        assertFalse(ReturnControlEvent.decode(message, null).isPresent());
+    }
+
+    @Test
+    void oversizedEventKeepsItsAwaitId() {
+        String message = ReturnControlEvent.encode(state("a"), 16);
+
+        assertEquals("a", ReturnControlEvent.awaitIdOf(message));
+        assertFalse(ReturnControlEvent.decode(message, "a").isPresent());
+    }
+
+    @Test
+    void eventWithoutAwaitId() {
+        String message = ReturnControlEvent.encode(state(null), Integer.MAX_VALUE);
+
+        assertNull(ReturnControlEvent.awaitIdOf(message));
+        assertTrue(ReturnControlEvent.decode(message, null).isPresent());
+        assertEquals(ReturnControlEvent.LEGACY_MESSAGE, ReturnControlEvent.encode(state(null), 16));
+        assertNull(ReturnControlEvent.awaitIdOf(ReturnControlEvent.LEGACY_MESSAGE));
+    }
+
+    private static WorkflowState state(String awaitId) {
+        WorkflowState workflowState = new WorkflowState();
+        workflowState.setWorkflowId("wf-1");
+        workflowState.setStatus(WorkflowStatus.WAITING);
+        workflowState.setAwaitId(awaitId);
+        return workflowState;
+    }
+}
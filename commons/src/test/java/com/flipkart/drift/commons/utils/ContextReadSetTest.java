@@ -0,0 +1,45 @@
+package com.flipkart.drift.commons.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.drift.commons.model.componentDetail.ScriptedComponentDetail;
+import com.flipkart.drift.commons.model.node.GroovyNode;
+import com.flipkart.drift.commons.model.value.StringValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ContextReadSetTest {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    @Test
+    void topLevelKeysOfKeysAndJsonPaths() {
+        assertEquals(Set.of("order", "params"), ContextReadSet.topLevelKeys(List.of("order", "$.params.incidentId", "$.order.items[0]")));
+        assertNull(ContextReadSet.topLevelKeys(List.of("order", "$..items")));
+        assertNull(ContextReadSet.topLevelKeys(List.of("$.*")));
+    }
+
+    @Test
+    void undeclaredReadsOfTheScripts() {
+        JsonNode groovyNode = groovyNode("_global.order?.items.size() + _global['params'].id + _global.nodeParameters.x + _global.customer");
+
+        assertEquals(Set.of("customer", "params"), ContextReadSet.undeclaredReads(groovyNode, Set.of("order")));
+        assertEquals(Set.of(), ContextReadSet.undeclaredReads(groovyNode, Set.of("order", "params", "customer")));
+    }
+
+    @Test
+    void computedKeysCantBeChecked() {
+        assertNull(ContextReadSet.undeclaredReads(groovyNode("def key = 'order'; _global[key]"), Set.of("order")));
+    }
+
+    private static JsonNode groovyNode(String script) {
+        GroovyNode groovyNode = new GroovyNode();
+        groovyNode.setId("node");
+        groovyNode.setTransformer(new ScriptedComponentDetail(new StringValue(script)));
+        return OBJECT_MAPPER.valueToTree(groovyNode);
+    }
+}
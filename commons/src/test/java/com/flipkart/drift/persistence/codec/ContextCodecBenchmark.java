@@ -0,0 +1,72 @@
+package com.flipkart.drift.persistence.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encode and decode time of a context per format and compression, {@code JSON}/{@code NONE} being the layout
+ * written before the codec. The encoded size of every combination is printed at setup.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.flipkart.drift.persistence.codec.ContextCodecBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ContextCodecBenchmark {
+    @Param({"JSON", "SMILE", "CBOR"})
+    public ContextFormat format;
+
+    @Param({"NONE", "LZ4", "ZSTD"})
+    public ContextCompression compression;
+
+    // About 100 bytes of JSON per node
+    @Param({"100", "1000"})
+    public int nodes;
+
+    private ContextCodec contextCodec;
+    private JsonNode context;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        contextCodec = ContextCodecTest.contextCodec(format, compression);
+        context = ContextCodecTest.context(nodes);
+        encoded = contextCodec.encode(context);
+        System.out.printf("%n%s/%s nodes=%d: %d bytes, %d as plain JSON%n", format, compression, nodes, encoded.length,
+                ContextCodecTest.contextCodec(ContextFormat.JSON, ContextCompression.NONE).encode(context).length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return contextCodec.encode(context);
+    }
+
+    @Benchmark
+    public JsonNode decode() throws IOException {
+        return contextCodec.decode(encoded);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ContextCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,101 @@
+package com.flipkart.drift.persistence.codec;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.persistence.bootstrap.ContextCodecConfig;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContextCodecTest {
+    private static final int COMPRESSION_THRESHOLD_BYTES = 4096;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void everyFormatAndCompressionRoundTrips() throws IOException {
+        for (ContextFormat format : ContextFormat.values()) {
+            for (ContextCompression compression : ContextCompression.values()) {
+                ContextCodec contextCodec = contextCodec(format, compression);
+                for (JsonNode context : new JsonNode[]{context(1), context(1000)}) {
+                    assertEquals(context, contextCodec.decode(contextCodec.encode(context)), format + "/" + compression);
+                }
+            }
+        }
+    }
+
+    @Test
+    void uncompressedJsonKeepsTheLegacyLayout() throws IOException {
+        ObjectNode context = context(10);
+
+        assertArrayEquals(objectMapper.writeValueAsBytes(context), contextCodec(ContextFormat.JSON, ContextCompression.NONE).encode(context));
+        assertArrayEquals(objectMapper.writeValueAsBytes(context), contextCodec(ContextFormat.JSON, ContextCompression.ZSTD).encode(context));
+    }
+
+    @Test
+    void legacyJsonIsReadByEveryConfiguration() throws IOException {
+        ObjectNode context = context(1000);
+        byte[] legacy = objectMapper.writeValueAsBytes(context);
+
+        for (ContextFormat format : ContextFormat.values()) {
+            assertEquals(context, contextCodec(format, ContextCompression.LZ4).decode(legacy));
+        }
+    }
+
+    @Test
+    void contextsBelowTheThresholdAreNotCompressed() throws IOException {
+        ContextCodec contextCodec = contextCodec(ContextFormat.SMILE, ContextCompression.ZSTD);
+
+        assertEquals(ContextCompression.NONE.getId(), contextCodec.encode(context(1))[4]);
+        assertEquals(ContextCompression.ZSTD.getId(), contextCodec.encode(context(1000))[4]);
+    }
+
+    @Test
+    void binaryCompressedContextsAreSmaller() throws IOException {
+        ObjectNode context = context(1000);
+        int jsonBytes = objectMapper.writeValueAsBytes(context).length;
+
+        for (ContextCompression compression : new ContextCompression[]{ContextCompression.LZ4, ContextCompression.ZSTD}) {
+            int encodedBytes = contextCodec(ContextFormat.SMILE, compression).encode(context).length;
+            assertTrue(encodedBytes * 2 < jsonBytes, compression + ": " + encodedBytes + " of " + jsonBytes + " bytes");
+        }
+    }
+
+    @Test
+    void unknownEncodingVersionFails() throws IOException {
+        ContextCodec contextCodec = contextCodec(ContextFormat.CBOR, ContextCompression.NONE);
+        byte[] encoded = contextCodec.encode(context(1));
+        encoded[2] = 99;
+
+        assertThrows(IOException.class, () -> contextCodec.decode(encoded));
+    }
+
+    static ContextCodec contextCodec(ContextFormat format, ContextCompression compression) {
+        ContextCodecConfig contextCodecConfig = new ContextCodecConfig();
+        contextCodecConfig.setFormat(format);
+        contextCodecConfig.setCompression(compression);
+        contextCodecConfig.setCompressionThresholdBytes(COMPRESSION_THRESHOLD_BYTES);
+        contextCodecConfig.setZstdLevel(3);
+        return new ContextCodec(new ObjectMapper(), contextCodecConfig);
+    }
+
+    // Node responses of a few fields each, about 100 bytes of JSON per node
+    static ObjectNode context(int nodes) {
+        ObjectMapper objectMapper = new ObjectMapper();
+        ObjectNode context = objectMapper.createObjectNode();
+        for (int node = 0; node < nodes; node++) {
+            ObjectNode response = context.putObject("node" + node);
+            response.put("status", node % 3 == 0 ? "SUCCESS" : "PENDING");
+            response.put("amount", node * 100.5);
+            response.put("attempts", node % 5);
+            response.putArray("tags").add("retail").add("node-" + node);
+        }
+        return context;
+    }
+}
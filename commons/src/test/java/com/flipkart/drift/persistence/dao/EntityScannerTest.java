@@ -0,0 +1,124 @@
+package com.flipkart.drift.persistence.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.flipkart.drift.persistence.bootstrap.ContextCodecConfig;
+import com.flipkart.drift.persistence.bootstrap.RowKeySaltConfig;
+import com.flipkart.drift.persistence.bootstrap.WriteBehindConfig;
+import com.flipkart.drift.persistence.codec.ContextCompression;
+import com.flipkart.drift.persistence.codec.ContextFormat;
+import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class EntityScannerTest {
+    private static final byte[] MAIN_FAMILY = Bytes.toBytes("main");
+
+    private InMemoryTable hotTable;
+    private WorkflowContextHBDao workflowContextHBDao;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        InMemoryConnectionProvider connectionProvider = new InMemoryConnectionProvider();
+        hotTable = connectionProvider.table(ConnectionType.HOT, "WorkflowContextHB");
+        ContextCodecConfig contextCodecConfig = new ContextCodecConfig();
+        contextCodecConfig.setFormat(ContextFormat.JSON);
+        contextCodecConfig.setCompression(ContextCompression.NONE);
+        contextCodecConfig.setCompressionThresholdBytes(Integer.MAX_VALUE);
+        contextCodecConfig.setZstdLevel(3);
+        RowKeySaltConfig rowKeySaltConfig = new RowKeySaltConfig();
+        rowKeySaltConfig.setBuckets(0);
+        WriteBehindConfig writeBehindConfig = new WriteBehindConfig();
+        writeBehindConfig.setEnabled(false);
+        workflowContextHBDao = new WorkflowContextHBDao(connectionProvider, new ObjectMapper(), contextCodecConfig,
+                rowKeySaltConfig, writeBehindConfig, MoreExecutors.newDirectExecutorService());
+        for (String workflowId : List.of("wf-3", "wf-1", "other-1", "wf-2", "wf-4")) {
+            WorkflowContextHB workflowContextHB = new WorkflowContextHB();
+            workflowContextHB.setWorkflowId(workflowId);
+            workflowContextHB.setStamp(System.nanoTime());
+            workflowContextHB.setContext(JsonNodeFactory.instance.objectNode().put("id", workflowId));
+            workflowContextHBDao.upsert(workflowContextHB, ConnectionType.HOT);
+        }
+    }
+
+    @Test
+    void scansStreamRowsInKeyOrderWithinThePrefixAndLimit() throws IOException {
+        ScanOptions scanOptions = ScanOptions.builder().rowKeyPrefix("wf-").limit(3).build();
+
+        try (EntityScanner<WorkflowContextHB> scanner = workflowContextHBDao.scan(scanOptions, ConnectionType.HOT)) {
+            assertEquals(List.of("wf-1", "wf-2", "wf-3"), scanner.stream()
+                    .map(workflowContextHB -> workflowContextHB.getContext().get("id").asText())
+                    .collect(Collectors.toList()));
+            assertEquals(3, scanner.getScannedRows());
+        }
+    }
+
+    @Test
+    void rowsAreFetchedAsTheyAreConsumed() throws IOException {
+        try (EntityScanner<WorkflowContextHB> scanner = workflowContextHBDao.scan(ScanOptions.builder().build(), ConnectionType.HOT)) {
+            assertEquals("other-1", scanner.next().getWorkflowId());
+            assertEquals(1, scanner.getScannedRows());
+        }
+    }
+
+    @Test
+    void unreadableRowsFailTheScanUnlessSkipped() throws IOException {
+        hotTable.put(new Put(Bytes.toBytes("wf-bad"))
+                .addColumn(MAIN_FAMILY, Bytes.toBytes("workflowId"), Bytes.toBytes("\"wf-bad\""))
+                .addColumn(MAIN_FAMILY, Bytes.toBytes("n:a"), Bytes.toBytes("{not json")));
+        ScanOptions failing = ScanOptions.builder().rowKeyPrefix("wf-").build();
+        ScanOptions skipping = ScanOptions.builder().rowKeyPrefix("wf-").skipUnreadable(true).build();
+
+        try (EntityScanner<WorkflowContextHB> scanner = workflowContextHBDao.scan(failing, ConnectionType.HOT)) {
+            assertThrows(UncheckedIOException.class, () -> scanner.forEachRemaining(workflowContextHB -> {
+            }));
+        }
+        try (EntityScanner<WorkflowContextHB> scanner = workflowContextHBDao.scan(skipping, ConnectionType.HOT)) {
+            assertEquals(4, scanner.stream().count());
+            assertEquals(5, scanner.getScannedRows());
+            assertEquals(1, scanner.getSkippedRows());
+        }
+    }
+
+    @Test
+    void closingTheStreamClosesTheScanOnce() throws IOException {
+        Table table = mock(Table.class);
+        EntityScanner<String> scanner = new EntityScanner<>("WorkflowContextHB", table, hotTable.getScanner(new Scan()),
+                result -> Bytes.toString(result.getRow()), false);
+
+        try (Stream<String> rows = scanner.stream()) {
+            assertEquals(Optional.of("other-1"), rows.findFirst());
+        }
+        scanner.close();
+
+        verify(table, times(1)).close();
+        assertFalse(scanner.hasNext());
+    }
+
+    @Test
+    void findAllReadsEveryRowUnderThePrefix() throws IOException {
+        assertEquals(List.of("wf-1", "wf-2", "wf-3", "wf-4"), workflowContextHBDao.findAll("main", Optional.of("wf-"), ConnectionType.HOT)
+                .stream()
+                .map(WorkflowContextHB::getWorkflowId)
+                .collect(Collectors.toList()));
+    }
+}
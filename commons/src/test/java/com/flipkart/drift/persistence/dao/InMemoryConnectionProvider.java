@@ -0,0 +1,95 @@
+package com.flipkart.drift.persistence.dao;
+
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.AsyncConnection;
+import org.apache.hadoop.hbase.client.AsyncTable;
+import org.apache.hadoop.hbase.client.Connection;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.ScanResultConsumer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Connections whose tables are {@link InMemoryTable}s, one per namespace and table name. There is no async
+ * connection unless {@link #enableAsync enabled}, so the async methods of the DAOs take their blocking fallback.
+ */
+class InMemoryConnectionProvider implements IConnectionProvider {
+    private final Map<TableName, InMemoryTable> tables = new ConcurrentHashMap<>();
+    private final Map<ConnectionType, Connection> connections = new EnumMap<>(ConnectionType.class);
+    private final Map<ConnectionType, AsyncConnection> asyncConnections = new EnumMap<>(ConnectionType.class);
+    // By table name and callback executor
+    private final Map<List<Object>, AsyncTable<ScanResultConsumer>> asyncTables = new ConcurrentHashMap<>();
+
+    InMemoryConnectionProvider() {
+        for (ConnectionType connectionType : ConnectionType.values()) {
+            // Stub only, as benchmarks read through them for long
+            Connection connection = mock(Connection.class, withSettings().stubOnly());
+            try {
+                when(connection.getTable(any(TableName.class))).thenAnswer(invocation -> table(invocation.getArgument(0)));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            connections.put(connectionType, connection);
+        }
+    }
+
+    /**
+     * Provides async connections whose reads are served on {@code rpcExecutor} and complete on the executor the
+     * table was opened with, as HBase does.
+     */
+    void enableAsync(ExecutorService rpcExecutor) {
+        for (ConnectionType connectionType : ConnectionType.values()) {
+            AsyncConnection asyncConnection = mock(AsyncConnection.class, withSettings().stubOnly());
+            when(asyncConnection.getTable(any(TableName.class), any(ExecutorService.class))).thenAnswer(invocation -> asyncTables.computeIfAbsent(
+                    List.of(invocation.getArgument(0), invocation.getArgument(1)),
+                    ignored -> asyncTable(table(invocation.getArgument(0)), rpcExecutor, invocation.getArgument(1))));
+            asyncConnections.put(connectionType, asyncConnection);
+        }
+    }
+
+    InMemoryTable table(ConnectionType connectionType, String tableName) {
+        return table(TableName.valueOf(connectionType.getNamespace() + ":" + tableName));
+    }
+
+    private InMemoryTable table(TableName tableName) {
+        return tables.computeIfAbsent(tableName, InMemoryTable::new);
+    }
+
+    @Override
+    public Connection getConnection(ConnectionType connectionType) {
+        return connections.get(connectionType);
+    }
+
+    @Override
+    public boolean isDegraded() {
+        return false;
+    }
+
+    @Override
+    public Optional<AsyncConnection> getAsyncConnection(ConnectionType connectionType) {
+        return Optional.ofNullable(asyncConnections.get(connectionType));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AsyncTable<ScanResultConsumer> asyncTable(InMemoryTable table, ExecutorService rpcExecutor, ExecutorService executor) {
+        AsyncTable<ScanResultConsumer> asyncTable = mock(AsyncTable.class, withSettings().stubOnly());
+        when(asyncTable.get(any(Get.class))).thenAnswer(invocation -> CompletableFuture
+                .supplyAsync(() -> table.get(invocation.<Get>getArgument(0)), rpcExecutor)
+                .thenApplyAsync(Function.identity(), executor));
+        return asyncTable;
+    }
+}
@@ -0,0 +1,366 @@
+package com.flipkart.drift.persistence.dao;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.CompareOperator;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Get;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.client.ResultScanner;
+import org.apache.hadoop.hbase.client.RetriesExhaustedWithDetailsException;
+import org.apache.hadoop.hbase.client.Row;
+import org.apache.hadoop.hbase.client.RowMutations;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.client.Table;
+import org.apache.hadoop.hbase.client.TableDescriptor;
+import org.apache.hadoop.hbase.client.metrics.ScanMetrics;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.io.TimeRange;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Single version, in-memory {@link Table} for DAO tests. Cells are written at {@link #setTimestamp the current
+ * timestamp} unless the mutation sets one, so that writes can share a timestamp like writes in the same millisecond
+ * do. Scans apply the row range, columns, limit and filter of the {@link Scan}.
+ */
+class InMemoryTable implements Table {
+    private final TableName tableName;
+    // row -> family -> qualifier -> cell
+    private final NavigableMap<byte[], NavigableMap<byte[], NavigableMap<byte[], Cell>>> rows = new TreeMap<>(Bytes.BYTES_COMPARATOR);
+    private final Set<byte[]> failingRows = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    private final AtomicInteger batches = new AtomicInteger();
+    private final AtomicInteger gets = new AtomicInteger();
+    private final AtomicInteger scannedRows = new AtomicInteger();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private volatile long timestamp = 1L;
+
+    InMemoryTable(TableName tableName) {
+        this.tableName = tableName;
+    }
+
+    void setTimestamp(long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    // Batched actions on the row fail, as if its region were unavailable
+    void failRow(byte[] row) {
+        failingRows.add(row);
+    }
+
+    int getBatches() {
+        return batches.get();
+    }
+
+    int getGets() {
+        return gets.get();
+    }
+
+    int getScannedRows() {
+        return scannedRows.get();
+    }
+
+    // Serialized size of every cell put so far
+    long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    synchronized Set<byte[]> rowKeys() {
+        return new TreeSet<>(rows.navigableKeySet());
+    }
+
+    synchronized byte[] getValue(byte[] row, byte[] family, byte[] qualifier) {
+        Cell cell = cell(row, family, qualifier);
+        return cell == null ? null : CellUtil.cloneValue(cell);
+    }
+
+    @Override
+    public TableName getName() {
+        return tableName;
+    }
+
+    @Override
+    public Configuration getConfiguration() {
+        return null;
+    }
+
+    @Override
+    public TableDescriptor getDescriptor() {
+        return null;
+    }
+
+    @Override
+    public synchronized Result get(Get get) {
+        gets.incrementAndGet();
+        return project(get.getRow(), get.getFamilyMap());
+    }
+
+    @Override
+    public synchronized Result[] get(List<Get> gets) {
+        Result[] results = new Result[gets.size()];
+        for (int i = 0; i < gets.size(); i++) {
+            results[i] = get(gets.get(i));
+        }
+        return results;
+    }
+
+    @Override
+    public synchronized boolean exists(Get get) {
+        return !get(get).isEmpty();
+    }
+
+    @Override
+    public synchronized void put(Put put) {
+        apply(put);
+    }
+
+    @Override
+    public synchronized void put(List<Put> puts) {
+        puts.forEach(this::apply);
+    }
+
+    @Override
+    public synchronized void delete(Delete delete) {
+        apply(delete);
+    }
+
+    @Override
+    public synchronized void delete(List<Delete> deletes) {
+        deletes.forEach(this::apply);
+    }
+
+    @Override
+    public synchronized void mutateRow(RowMutations rowMutations) {
+        rowMutations.getMutations().forEach(this::apply);
+    }
+
+    @Override
+    public synchronized void batch(List<? extends Row> actions, Object[] results) throws IOException {
+        batches.incrementAndGet();
+        List<Throwable> failures = new ArrayList<>();
+        List<Row> failedActions = new ArrayList<>();
+        for (int i = 0; i < actions.size(); i++) {
+            Row action = actions.get(i);
+            if (failingRows.contains(action.getRow())) {
+                IOException failure = new IOException("Region of row " + Bytes.toStringBinary(action.getRow()) + " is unavailable");
+                results[i] = failure;
+                failures.add(failure);
+                failedActions.add(action);
+            } else if (action instanceof Get) {
+                results[i] = get((Get) action);
+            } else if (action instanceof Mutation) {
+                apply((Mutation) action);
+                results[i] = Result.EMPTY_RESULT;
+            } else {
+                throw new UnsupportedOperationException("Unsupported batch action " + action);
+            }
+        }
+        if (!failures.isEmpty()) {
+            throw new RetriesExhaustedWithDetailsException(failures, failedActions, new ArrayList<>(failures.size()));
+        }
+    }
+
+    @Override
+    public CheckAndMutateBuilder checkAndMutate(byte[] row, byte[] family) {
+        return new CheckAndMutateBuilder() {
+            private byte[] qualifier;
+            private byte[] expected;
+            private boolean ifNotExists;
+
+            @Override
+            public CheckAndMutateBuilder qualifier(byte[] qualifier) {
+                this.qualifier = qualifier;
+                return this;
+            }
+
+            @Override
+            public CheckAndMutateBuilder timeRange(TimeRange timeRange) {
+                throw new UnsupportedOperationException("Time ranges aren't supported");
+            }
+
+            @Override
+            public CheckAndMutateBuilder ifNotExists() {
+                this.ifNotExists = true;
+                return this;
+            }
+
+            @Override
+            public CheckAndMutateBuilder ifMatches(CompareOperator compareOperator, byte[] value) {
+                if (compareOperator != CompareOperator.EQUAL) {
+                    throw new UnsupportedOperationException("Only EQUAL is supported");
+                }
+                this.expected = value;
+                return this;
+            }
+
+            @Override
+            public boolean thenPut(Put put) {
+                return thenMutate(List.of(put));
+            }
+
+            @Override
+            public boolean thenDelete(Delete delete) {
+                return thenMutate(List.of(delete));
+            }
+
+            @Override
+            public boolean thenMutate(RowMutations rowMutations) {
+                return thenMutate(rowMutations.getMutations());
+            }
+
+            private boolean thenMutate(List<Mutation> mutations) {
+                synchronized (InMemoryTable.this) {
+                    Cell cell = cell(row, family, qualifier);
+                    boolean matches = ifNotExists ? cell == null : cell != null && Arrays.equals(CellUtil.cloneValue(cell), expected);
+                    if (matches) {
+                        mutations.forEach(InMemoryTable.this::apply);
+                    }
+                    return matches;
+                }
+            }
+        };
+    }
+
+    @Override
+    public synchronized ResultScanner getScanner(Scan scan) throws IOException {
+        List<Result> results = new ArrayList<>();
+        NavigableMap<byte[], NavigableMap<byte[], NavigableMap<byte[], Cell>>> range = rows;
+        if (scan.getStartRow().length > 0) {
+            range = range.tailMap(scan.getStartRow(), scan.includeStartRow());
+        }
+        if (scan.getStopRow().length > 0) {
+            range = range.headMap(scan.getStopRow(), scan.includeStopRow());
+        }
+        for (byte[] row : range.keySet()) {
+            if (scan.getLimit() > 0 && results.size() >= scan.getLimit()) {
+                break;
+            }
+            Result result = project(row, scan.getFamilyMap());
+            if (!result.isEmpty() && (scan.getFilter() == null || (result = filter(scan.getFilter(), result)) != null)) {
+                results.add(result);
+            }
+        }
+        scannedRows.addAndGet(results.size());
+        Iterator<Result> iterator = results.iterator();
+        return new ResultScanner() {
+            @Override
+            public Result next() {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+
+            @Override
+            public void close() {
+            }
+
+            @Override
+            public boolean renewLease() {
+                return true;
+            }
+
+            @Override
+            public ScanMetrics getScanMetrics() {
+                return null;
+            }
+        };
+    }
+
+    @Override
+    public void close() {
+    }
+
+    // Evaluates the filter the way a region scanner does, null if it filters out the row
+    private static Result filter(Filter filter, Result result) throws IOException {
+        filter.reset();
+        if (filter.filterAllRemaining() || filter.filterRowKey(result.rawCells()[0])) {
+            return null;
+        }
+        List<Cell> included = new ArrayList<>();
+        for (Cell cell : result.rawCells()) {
+            Filter.ReturnCode returnCode = filter.filterCell(cell);
+            if (returnCode == Filter.ReturnCode.INCLUDE || returnCode == Filter.ReturnCode.INCLUDE_AND_NEXT_COL
+                    || returnCode == Filter.ReturnCode.INCLUDE_AND_SEEK_NEXT_ROW) {
+                included.add(filter.transformCell(cell));
+            } else if (returnCode == Filter.ReturnCode.NEXT_ROW) {
+                break;
+            }
+        }
+        filter.filterRowCells(included);
+        if (filter.filterRow() || included.isEmpty()) {
+            return null;
+        }
+        return Result.create(included);
+    }
+
+    private Result project(byte[] row, Map<byte[], NavigableSet<byte[]>> columns) {
+        NavigableMap<byte[], NavigableMap<byte[], Cell>> families = rows.get(row);
+        if (families == null) {
+            return Result.EMPTY_RESULT;
+        }
+        List<Cell> cells = new ArrayList<>();
+        for (Map.Entry<byte[], NavigableMap<byte[], Cell>> family : families.entrySet()) {
+            if (!columns.isEmpty() && !columns.containsKey(family.getKey())) {
+                continue;
+            }
+            NavigableSet<byte[]> qualifiers = columns.get(family.getKey());
+            for (Map.Entry<byte[], Cell> column : family.getValue().entrySet()) {
+                if (qualifiers == null || qualifiers.isEmpty() || qualifiers.contains(column.getKey())) {
+                    cells.add(column.getValue());
+                }
+            }
+        }
+        return Result.create(cells);
+    }
+
+    private Cell cell(byte[] row, byte[] family, byte[] qualifier) {
+        NavigableMap<byte[], NavigableMap<byte[], Cell>> families = rows.get(row);
+        NavigableMap<byte[], Cell> columns = families == null ? null : families.get(family);
+        return columns == null ? null : columns.get(qualifier);
+    }
+
+    private void apply(Mutation mutation) {
+        byte[] row = mutation.getRow();
+        if (mutation instanceof Delete && mutation.getFamilyCellMap().isEmpty()) {
+            rows.remove(row);
+            return;
+        }
+        NavigableMap<byte[], NavigableMap<byte[], Cell>> families = rows.computeIfAbsent(row, ignored -> new TreeMap<>(Bytes.BYTES_COMPARATOR));
+        for (List<Cell> cells : mutation.getFamilyCellMap().values()) {
+            for (Cell cell : cells) {
+                byte[] family = CellUtil.cloneFamily(cell);
+                if (mutation instanceof Put) {
+                    long cellTimestamp = cell.getTimestamp() == HConstants.LATEST_TIMESTAMP ? timestamp : cell.getTimestamp();
+                    KeyValue keyValue = new KeyValue(row, family, CellUtil.cloneQualifier(cell), cellTimestamp, CellUtil.cloneValue(cell));
+                    families.computeIfAbsent(family, ignored -> new TreeMap<>(Bytes.BYTES_COMPARATOR)).put(CellUtil.cloneQualifier(cell), keyValue);
+                    bytesWritten.addAndGet(keyValue.getLength());
+                } else if (cell.getType() == Cell.Type.DeleteFamily) {
+                    families.remove(family);
+                } else if (families.containsKey(family)) {
+                    families.get(family).remove(CellUtil.cloneQualifier(cell));
+                }
+            }
+        }
+        families.values().removeIf(Map::isEmpty);
+        if (families.isEmpty()) {
+            rows.remove(row);
+        }
+    }
+}
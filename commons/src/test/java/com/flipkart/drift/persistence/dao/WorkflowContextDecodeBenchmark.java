@@ -0,0 +1,150 @@
+package com.flipkart.drift.persistence.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.persistence.bootstrap.ContextCodecConfig;
+import com.flipkart.drift.persistence.bootstrap.RowKeySaltConfig;
+import com.flipkart.drift.persistence.bootstrap.WriteBehindConfig;
+import com.flipkart.drift.persistence.codec.ContextCompression;
+import com.flipkart.drift.persistence.codec.ContextFormat;
+import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.MoreExecutors;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Async context reads per second by where they are decoded: on the few RPC threads that complete them
+ * ({@code rpc}), on the common pool ({@code commonPool}, as before the dedicated pool) or on a pool sized like the
+ * worker's {@code contextAsyncExecutorServiceConfig} ({@code dedicated}). Reads are served from memory, so decoding
+ * is all the work there is.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.flipkart.drift.persistence.dao.WorkflowContextDecodeBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(64)
+public class WorkflowContextDecodeBenchmark {
+    private static final int RPC_THREADS = 4;
+    private static final int WORKFLOWS = 64;
+
+    @State(Scope.Benchmark)
+    public static class Contexts {
+        @Param({"rpc", "commonPool", "dedicated"})
+        public String decodedOn;
+
+        // About 100 bytes of JSON per node
+        @Param({"100", "1000"})
+        public int nodes;
+
+        private ExecutorService rpcExecutor;
+        private ExecutorService asyncExecutor;
+        private WorkflowContextHBDao workflowContextHBDao;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            rpcExecutor = Executors.newFixedThreadPool(RPC_THREADS);
+            switch (decodedOn) {
+                case "rpc":
+                    asyncExecutor = MoreExecutors.newDirectExecutorService();
+                    break;
+                case "commonPool":
+                    asyncExecutor = ForkJoinPool.commonPool();
+                    break;
+                default:
+                    asyncExecutor = new ThreadPoolExecutor(8, 16, 5L, TimeUnit.SECONDS, new LinkedBlockingQueue<>(1000),
+                            new ThreadPoolExecutor.CallerRunsPolicy());
+            }
+            InMemoryConnectionProvider connectionProvider = new InMemoryConnectionProvider();
+            connectionProvider.enableAsync(rpcExecutor);
+            workflowContextHBDao = new WorkflowContextHBDao(connectionProvider, new ObjectMapper(), contextCodecConfig(),
+                    rowKeySaltConfig(), writeBehindConfig(), asyncExecutor);
+            for (int workflow = 0; workflow < WORKFLOWS; workflow++) {
+                WorkflowContextHB workflowContextHB = context("wf-" + workflow, nodes);
+                workflowContextHBDao.putNodeColumns(workflowContextHB, ImmutableList.copyOf(workflowContextHB.getContext().fieldNames()),
+                        true, ConnectionType.HOT);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            rpcExecutor.shutdownNow();
+            if (asyncExecutor != ForkJoinPool.commonPool()) {
+                asyncExecutor.shutdownNow();
+            }
+        }
+    }
+
+    @Benchmark
+    public WorkflowContextHB getAssembledAsync(Contexts contexts) {
+        String workflowId = "wf-" + ThreadLocalRandom.current().nextInt(WORKFLOWS);
+        return contexts.workflowContextHBDao.getAssembledAsync(workflowId, ConnectionType.HOT).join();
+    }
+
+    private static WorkflowContextHB context(String workflowId, int nodes) {
+        ObjectNode context = JsonNodeFactory.instance.objectNode();
+        for (int node = 0; node < nodes; node++) {
+            ObjectNode response = context.putObject("node" + node);
+            response.put("status", node % 3 == 0 ? "SUCCESS" : "PENDING");
+            response.put("amount", node * 100.5);
+            response.putArray("tags").add("retail").add("node-" + node);
+        }
+        WorkflowContextHB workflowContextHB = new WorkflowContextHB();
+        workflowContextHB.setWorkflowId(workflowId);
+        workflowContextHB.setStamp(System.nanoTime());
+        workflowContextHB.setContext(context);
+        return workflowContextHB;
+    }
+
+    private static ContextCodecConfig contextCodecConfig() {
+        ContextCodecConfig contextCodecConfig = new ContextCodecConfig();
+        contextCodecConfig.setFormat(ContextFormat.JSON);
+        contextCodecConfig.setCompression(ContextCompression.NONE);
+        contextCodecConfig.setCompressionThresholdBytes(Integer.MAX_VALUE);
+        contextCodecConfig.setZstdLevel(3);
+        return contextCodecConfig;
+    }
+
+    private static RowKeySaltConfig rowKeySaltConfig() {
+        RowKeySaltConfig rowKeySaltConfig = new RowKeySaltConfig();
+        rowKeySaltConfig.setBuckets(0);
+        rowKeySaltConfig.setSaltWrites(false);
+        return rowKeySaltConfig;
+    }
+
+    private static WriteBehindConfig writeBehindConfig() {
+        WriteBehindConfig writeBehindConfig = new WriteBehindConfig();
+        writeBehindConfig.setEnabled(false);
+        return writeBehindConfig;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(WorkflowContextDecodeBenchmark.class.getSimpleName()).build()).run();
+    }
+}
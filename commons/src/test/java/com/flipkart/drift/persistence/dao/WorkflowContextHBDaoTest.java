@@ -0,0 +1,264 @@
+package com.flipkart.drift.persistence.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.commons.exception.VersionConflictException;
+import com.flipkart.drift.persistence.bootstrap.ContextCodecConfig;
+import com.flipkart.drift.persistence.bootstrap.RowKeySaltConfig;
+import com.flipkart.drift.persistence.bootstrap.WriteBehindConfig;
+import com.flipkart.drift.persistence.codec.ContextCompression;
+import com.flipkart.drift.persistence.codec.ContextFormat;
+import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WorkflowContextHBDaoTest {
+    private static final byte[] MAIN_FAMILY = Bytes.toBytes("main");
+    private static final int NODES = 20;
+
+    private InMemoryConnectionProvider connectionProvider;
+    private InMemoryTable hotTable;
+    private WorkflowContextHBDao workflowContextHBDao;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        connectionProvider = new InMemoryConnectionProvider();
+        hotTable = connectionProvider.table(ConnectionType.HOT, "WorkflowContextHB");
+        workflowContextHBDao = dao(0, false, MoreExecutors.newDirectExecutorService());
+    }
+
+    @Test
+    void nodeColumnsWrittenAtALaterVersionOverrideTheContextColumn() throws IOException {
+        // Every write lands in the same millisecond, only the versions order them
+        workflowContextHBDao.putNodeColumns(entity("wf-1", 2L, "a", "node"), List.of("a"), true, ConnectionType.HOT);
+        workflowContextHBDao.upsert(entity("wf-1", 3L, "a", "context", "b", "context", "c", "context"), ConnectionType.HOT);
+        workflowContextHBDao.putNodeColumns(entity("wf-1", 4L, "b", "node"), List.of("b"), true, ConnectionType.HOT);
+        workflowContextHBDao.putNodeColumns(entity("wf-1", 5L), List.of("c"), true, ConnectionType.HOT);
+
+        WorkflowContextHB workflowContextHB = workflowContextHBDao.getAssembled("wf-1", ConnectionType.HOT);
+
+        assertEquals(context("a", "context", "b", "node"), workflowContextHB.getContext());
+        assertEquals(5L, workflowContextHB.getVersion());
+    }
+
+    @Test
+    void nodeColumnsWithoutVersionAreOrderedByTimestamp() throws IOException {
+        hotTable.setTimestamp(5);
+        workflowContextHBDao.putNodeColumns(entity("wf-1", null, "a", "node"), List.of("a"), true, ConnectionType.HOT);
+        hotTable.setTimestamp(10);
+        workflowContextHBDao.upsert(entity("wf-1", null, "a", "context", "b", "context"), ConnectionType.HOT);
+        hotTable.setTimestamp(20);
+        workflowContextHBDao.putNodeColumns(entity("wf-1", null, "b", "node"), List.of("b"), true, ConnectionType.HOT);
+
+        assertEquals(context("a", "context", "b", "node"), workflowContextHBDao.getAssembled("wf-1", ConnectionType.HOT).getContext());
+    }
+
+    @Test
+    void removedKeysAreWrittenAsEmptyNodeColumns() throws IOException {
+        workflowContextHBDao.putNodeColumns(entity("wf-1", 1L, "a", "node", "b", "node"), List.of("a", "b"), true, ConnectionType.HOT);
+
+        WorkflowContextHB workflowContextHB = entity("wf-1", 1L, "a", "node");
+        assertTrue(workflowContextHBDao.putNodeColumns(workflowContextHB, List.of("b"), false, ConnectionType.HOT));
+
+        byte[] rowKey = Bytes.toBytes("wf-1");
+        assertArrayEquals(new byte[0], hotTable.getValue(rowKey, MAIN_FAMILY, Bytes.toBytes("n:b")));
+        assertArrayEquals(Bytes.toBytes(2L), hotTable.getValue(rowKey, MAIN_FAMILY, Bytes.toBytes("nv:b")));
+        assertEquals(context("a", "node"), workflowContextHBDao.getAssembled("wf-1", ConnectionType.HOT).getContext());
+    }
+
+    @Test
+    void staleWritesConflict() throws IOException {
+        workflowContextHBDao.putNodeColumns(entity("wf-1", 1L, "a", "first"), List.of("a"), true, ConnectionType.HOT);
+        WorkflowContextHB current = entity("wf-1", 1L, "a", "second");
+        assertTrue(workflowContextHBDao.putNodeColumns(current, List.of("a"), false, ConnectionType.HOT));
+        assertEquals(2L, current.getVersion());
+
+        WorkflowContextHB stale = entity("wf-1", 1L, "a", "stale");
+        VersionConflictException e = assertThrows(VersionConflictException.class,
+                () -> workflowContextHBDao.putNodeColumns(stale, List.of("a"), false, ConnectionType.HOT));
+
+        assertEquals(2L, e.getActualVersion());
+        assertEquals(1L, stale.getVersion());
+        assertEquals(context("a", "second"), workflowContextHBDao.getAssembled("wf-1", ConnectionType.HOT).getContext());
+    }
+
+    @Test
+    void nodeColumnWritesDontGrowWithTheContext() throws IOException {
+        long contextColumnBytes = bytesWrittenByLastStep(false);
+        long nodeColumnBytes = bytesWrittenByLastStep(true);
+
+        // The last of NODES equal responses rewrites all of them with the context column
+        assertTrue(nodeColumnBytes * NODES / 2 < contextColumnBytes,
+                "node columns: " + nodeColumnBytes + " bytes, context column: " + contextColumnBytes + " bytes");
+    }
+
+    @Test
+    void migrationToNodeColumnsKeepsTheContext() throws IOException {
+        workflowContextHBDao.upsert(entity("wf-1", 3L, "a", "context", "b", "context"), ConnectionType.HOT);
+        workflowContextHBDao.putNodeColumns(entity("wf-1", 4L, "b", "node"), List.of("b"), true, ConnectionType.HOT);
+
+        assertTrue(workflowContextHBDao.migrateToNodeColumns("wf-1", ConnectionType.HOT));
+
+        byte[] rowKey = Bytes.toBytes("wf-1");
+        assertNull(hotTable.getValue(rowKey, MAIN_FAMILY, Bytes.toBytes("context")));
+        assertEquals(context("a", "context", "b", "node"), workflowContextHBDao.getAssembled("wf-1", ConnectionType.HOT).getContext());
+        assertFalse(workflowContextHBDao.migrateToNodeColumns("wf-1", ConnectionType.HOT));
+    }
+
+    @Test
+    void batchGetReportsFoundMissingAndFailedRows() throws IOException {
+        workflowContextHBDao.upsert(entity("wf-1", 1L, "a", "1"), ConnectionType.HOT);
+        workflowContextHBDao.putNodeColumns(entity("wf-2", 1L, "a", "2"), List.of("a"), true, ConnectionType.HOT);
+        workflowContextHBDao.upsert(entity("wf-3", 1L, "a", "3"), ConnectionType.HOT);
+        hotTable.failRow(Bytes.toBytes("wf-3"));
+
+        BatchGetResult<String, WorkflowContextHB> batchGetResult = workflowContextHBDao.batchGetAssembled(
+                List.of("wf-1", "wf-2", "wf-3", "wf-4", "wf-1"), ConnectionType.HOT);
+
+        assertEquals(context("a", "1"), batchGetResult.getFound().get("wf-1").getContext());
+        assertEquals(context("a", "2"), batchGetResult.getFound().get("wf-2").getContext());
+        assertEquals(Set.of("wf-3"), batchGetResult.getFailed().keySet());
+        assertEquals(List.of("wf-4"), batchGetResult.getMissing());
+        assertEquals(1, hotTable.getBatches());
+    }
+
+    @Test
+    void batchGetFallsBackToUnsaltedRows() throws IOException {
+        workflowContextHBDao.upsert(entity("wf-legacy", 1L, "a", "legacy"), ConnectionType.HOT);
+        WorkflowContextHBDao saltingDao = dao(8, true, MoreExecutors.newDirectExecutorService());
+        saltingDao.upsert(entity("wf-salted", 1L, "a", "salted"), ConnectionType.HOT);
+
+        BatchGetResult<String, WorkflowContextHB> batchGetResult = saltingDao.batchGetAssembled(
+                List.of("wf-legacy", "wf-salted", "wf-missing"), ConnectionType.HOT);
+
+        assertEquals(context("a", "legacy"), batchGetResult.getFound().get("wf-legacy").getContext());
+        assertEquals(context("a", "salted"), batchGetResult.getFound().get("wf-salted").getContext());
+        assertEquals(List.of("wf-missing"), batchGetResult.getMissing());
+        // Only the rows the salted batch missed are looked up again
+        assertEquals(2, hotTable.getBatches());
+        assertFalse(hotTable.rowKeys().contains(Bytes.toBytes("wf-salted")));
+    }
+
+    @Test
+    void completedContextsMoveToTheColdTier() throws IOException {
+        WorkflowContextHB completed = entity("wf-1", 1L, "a", "context");
+        completed.setCompletedAt(100L);
+        workflowContextHBDao.upsert(completed, ConnectionType.HOT);
+        workflowContextHBDao.putNodeColumns(entity("wf-1", 2L, "b", "node"), List.of("b"), true, ConnectionType.HOT);
+        WorkflowContextHB running = entity("wf-2", 1L, "a", "context");
+        workflowContextHBDao.upsert(running, ConnectionType.HOT);
+
+        ArchivalResult archivalResult = workflowContextHBDao.archiveCompletedBefore(200L, 10, ConnectionType.HOT, ConnectionType.COLD);
+
+        assertEquals(1, archivalResult.getArchived());
+        assertFalse(workflowContextHBDao.exists("wf-1", ConnectionType.HOT));
+        assertTrue(workflowContextHBDao.exists("wf-2", ConnectionType.HOT));
+        WorkflowContextHB archived = workflowContextHBDao.getAssembled("wf-1", ConnectionType.COLD);
+        assertEquals(context("a", "context", "b", "node"), archived.getContext());
+        assertEquals(100L, archived.getCompletedAt());
+    }
+
+    @Test
+    void asyncReadsBlockWithoutAnAsyncConnection() throws Exception {
+        workflowContextHBDao.upsert(entity("wf-1", 1L, "a", "context"), ConnectionType.HOT);
+
+        CompletableFuture<WorkflowContextHB> read = workflowContextHBDao.getAssembledAsync("wf-1", ConnectionType.HOT);
+
+        assertTrue(read.isDone());
+        assertEquals(context("a", "context"), read.get().getContext());
+        assertNull(workflowContextHBDao.getAssembledAsync("wf-2", ConnectionType.HOT).get());
+    }
+
+    @Test
+    void asyncReadsAreDecodedOnTheAsyncExecutor() throws Exception {
+        ExecutorService rpcExecutor = Executors.newSingleThreadExecutor();
+        ExecutorService asyncExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("context-decode").build());
+        try {
+            connectionProvider.enableAsync(rpcExecutor);
+            WorkflowContextHBDao asyncDao = dao(0, false, asyncExecutor);
+            asyncDao.upsert(entity("wf-1", 1L, "a", "context"), ConnectionType.HOT);
+            // Holds the read back until the callback below is registered
+            CountDownLatch registered = new CountDownLatch(1);
+            rpcExecutor.submit(() -> registered.await(5, TimeUnit.SECONDS));
+
+            CompletableFuture<WorkflowContextHB> read = asyncDao.getAssembledAsync("wf-1", ConnectionType.HOT);
+            CompletableFuture<String> decodedOn = read.thenApply(ignored -> Thread.currentThread().getName());
+            registered.countDown();
+
+            assertEquals("context-decode", decodedOn.get(5, TimeUnit.SECONDS));
+            assertEquals(context("a", "context"), read.get().getContext());
+        } finally {
+            rpcExecutor.shutdownNow();
+            asyncExecutor.shutdownNow();
+        }
+    }
+
+    // Bytes put by the last of NODES steps that each add a response of the same size
+    private long bytesWrittenByLastStep(boolean nodeColumns) throws IOException {
+        WorkflowContextHB workflowContextHB = entity(nodeColumns ? "wf-node-columns" : "wf-context-column", null);
+        long before = 0;
+        for (int node = 0; node < NODES; node++) {
+            String key = "node" + node;
+            workflowContextHB.getContext().put(key, "x".repeat(1024));
+            before = hotTable.getBytesWritten();
+            if (nodeColumns) {
+                workflowContextHBDao.putNodeColumns(workflowContextHB, List.of(key), node == 0, ConnectionType.HOT);
+            } else {
+                workflowContextHBDao.upsert(workflowContextHB, ConnectionType.HOT);
+            }
+        }
+        return hotTable.getBytesWritten() - before;
+    }
+
+    private WorkflowContextHBDao dao(int saltBuckets, boolean saltWrites, ExecutorService asyncExecutor) throws IOException {
+        ContextCodecConfig contextCodecConfig = new ContextCodecConfig();
+        contextCodecConfig.setFormat(ContextFormat.JSON);
+        contextCodecConfig.setCompression(ContextCompression.NONE);
+        contextCodecConfig.setCompressionThresholdBytes(Integer.MAX_VALUE);
+        contextCodecConfig.setZstdLevel(3);
+        RowKeySaltConfig rowKeySaltConfig = new RowKeySaltConfig();
+        rowKeySaltConfig.setBuckets(saltBuckets);
+        rowKeySaltConfig.setSaltWrites(saltWrites);
+        WriteBehindConfig writeBehindConfig = new WriteBehindConfig();
+        writeBehindConfig.setEnabled(false);
+        return new WorkflowContextHBDao(connectionProvider, new ObjectMapper(), contextCodecConfig, rowKeySaltConfig,
+                writeBehindConfig, asyncExecutor);
+    }
+
+    private static WorkflowContextHB entity(String workflowId, Long version, String... keysAndValues) {
+        WorkflowContextHB workflowContextHB = new WorkflowContextHB();
+        workflowContextHB.setWorkflowId(workflowId);
+        workflowContextHB.setVersion(version);
+        workflowContextHB.setStamp(System.nanoTime());
+        workflowContextHB.setContext(context(keysAndValues));
+        return workflowContextHB;
+    }
+
+    private static ObjectNode context(String... keysAndValues) {
+        ObjectNode context = JsonNodeFactory.instance.objectNode();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            context.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return context;
+    }
+}
@@ -0,0 +1,79 @@
+package com.flipkart.drift.persistence.dao;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.flipkart.drift.persistence.bootstrap.ContextCodecConfig;
+import com.flipkart.drift.persistence.bootstrap.RowKeySaltConfig;
+import com.flipkart.drift.persistence.bootstrap.WriteBehindConfig;
+import com.flipkart.drift.persistence.codec.ContextCompression;
+import com.flipkart.drift.persistence.codec.ContextFormat;
+import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Bytes written to the context row over a whole workflow, when every node rewrites the {@code context} column and
+ * when it writes only its own node column. Each node adds a response of {@code responseBytes}.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.flipkart.drift.persistence.dao.WorkflowContextWriteBytesBenchmark [responseBytes]}.
+ */
+public class WorkflowContextWriteBytesBenchmark {
+    private static final int[] NODES = {10, 50, 100};
+
+    public static void main(String[] args) throws IOException {
+        int responseBytes = args.length > 0 ? Integer.parseInt(args[0]) : 1024;
+        for (int nodes : NODES) {
+            long contextColumnBytes = bytesWritten(nodes, responseBytes, false);
+            long nodeColumnBytes = bytesWritten(nodes, responseBytes, true);
+            System.out.printf("nodes=%d responseBytes=%d context column: %d bytes, node columns: %d bytes (%.1fx less)%n",
+                    nodes, responseBytes, contextColumnBytes, nodeColumnBytes, (double) contextColumnBytes / nodeColumnBytes);
+        }
+    }
+
+    private static long bytesWritten(int nodes, int responseBytes, boolean nodeColumns) throws IOException {
+        InMemoryConnectionProvider connectionProvider = new InMemoryConnectionProvider();
+        WorkflowContextHBDao workflowContextHBDao = new WorkflowContextHBDao(connectionProvider, new ObjectMapper(),
+                contextCodecConfig(), rowKeySaltConfig(), writeBehindConfig(), MoreExecutors.newDirectExecutorService());
+        WorkflowContextHB workflowContextHB = new WorkflowContextHB();
+        workflowContextHB.setWorkflowId("wf-1");
+        workflowContextHB.setContext(JsonNodeFactory.instance.objectNode());
+        String response = "x".repeat(responseBytes);
+        for (int node = 0; node < nodes; node++) {
+            String key = "node" + node;
+            workflowContextHB.getContext().put(key, response);
+            workflowContextHB.setStamp(System.nanoTime());
+            if (nodeColumns) {
+                workflowContextHBDao.putNodeColumns(workflowContextHB, List.of(key), node == 0, ConnectionType.HOT);
+            } else if (node == 0) {
+                workflowContextHBDao.upsert(workflowContextHB, ConnectionType.HOT);
+            } else {
+                workflowContextHBDao.update(workflowContextHB, workflowContextHB.getWorkflowId(), ConnectionType.HOT);
+            }
+        }
+        return connectionProvider.table(ConnectionType.HOT, "WorkflowContextHB").getBytesWritten();
+    }
+
+    private static ContextCodecConfig contextCodecConfig() {
+        ContextCodecConfig contextCodecConfig = new ContextCodecConfig();
+        contextCodecConfig.setFormat(ContextFormat.JSON);
+        contextCodecConfig.setCompression(ContextCompression.NONE);
+        contextCodecConfig.setCompressionThresholdBytes(Integer.MAX_VALUE);
+        contextCodecConfig.setZstdLevel(3);
+        return contextCodecConfig;
+    }
+
+    private static RowKeySaltConfig rowKeySaltConfig() {
+        RowKeySaltConfig rowKeySaltConfig = new RowKeySaltConfig();
+        rowKeySaltConfig.setBuckets(0);
+        rowKeySaltConfig.setSaltWrites(false);
+        return rowKeySaltConfig;
+    }
+
+    private static WriteBehindConfig writeBehindConfig() {
+        WriteBehindConfig writeBehindConfig = new WriteBehindConfig();
+        writeBehindConfig.setEnabled(false);
+        return writeBehindConfig;
+    }
+}
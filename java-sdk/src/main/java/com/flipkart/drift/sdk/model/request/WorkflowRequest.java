@@ -17,4 +17,6 @@ public abstract class WorkflowRequest {
     private String parentWorkflowId;
     private Map<String, String> threadContext;
     private Map<String, Object> params;
+    // Set by the API, echoed on the return-control event so that a waiter only accepts the event of its own request
+    private String awaitId;
 }
@@ -28,4 +28,6 @@ public class WorkflowStartRequest extends WorkflowRequest {
     @Deprecated
     private Set<OrderDetail> orderDetails;
     private Map<String, Object> config;
+    // Number of parent workflows above this one, set by the worker when it starts a child workflow
+    private Integer nestingDepth;
 }
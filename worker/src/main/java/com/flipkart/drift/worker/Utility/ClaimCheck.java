@@ -0,0 +1,154 @@
+package com.flipkart.drift.worker.Utility;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.primitives.Bytes;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import static com.flipkart.drift.commons.utils.Constants.MAPPER;
+
+/**
+ * Large top level context values are stored as separate blobs and replaced in the context by a reference:
+ * <pre>
+ *   {"$claimCheck": {"key": "&lt;blob key&gt;", "bytes": 5242880, "array": false}}
+ * </pre>
+ * References are resolved only where a value is actually read, through the resolver registered by the service that
+ * writes the blobs. Scripts are bound to views that fetch the blob on first access, see
+ * {@link com.flipkart.drift.worker.translator.JsonNodeMap}.
+ */
+public class ClaimCheck {
+    public static final String MARKER = "$claimCheck";
+    private static final String KEY = "key";
+    private static final String BYTES = "bytes";
+    private static final String ARRAY = "array";
+    private static final byte[] MARKER_BYTES = ("\"" + MARKER + "\"").getBytes(StandardCharsets.UTF_8);
+
+    private static volatile Function<String, JsonNode> resolver;
+
+    public static void setResolver(Function<String, JsonNode> blobResolver) {
+        resolver = blobResolver;
+    }
+
+    public static ObjectNode reference(String blobKey, long bytes, boolean array) {
+        ObjectNode reference = MAPPER.createObjectNode();
+        reference.putObject(MARKER)
+                .put(KEY, blobKey)
+                .put(BYTES, bytes)
+                .put(ARRAY, array);
+        return reference;
+    }
+
+    public static boolean isReference(JsonNode node) {
+        return node != null && node.isObject() && node.size() == 1 && node.path(MARKER).isObject();
+    }
+
+    /**
+     * @return the key of the referenced blob, or null when the node isn't a reference
+     */
+    public static String blobKey(JsonNode node) {
+        return isReference(node) ? node.get(MARKER).path(KEY).asText() : null;
+    }
+
+    /**
+     * @return whether serialized JSON may hold a reference, false only when it surely doesn't
+     */
+    public static boolean mayHoldReferences(byte[] json) {
+        return Bytes.indexOf(json, MARKER_BYTES) >= 0;
+    }
+
+    public static boolean isArrayReference(JsonNode node) {
+        return isReference(node) && node.get(MARKER).path(ARRAY).asBoolean();
+    }
+
+    /**
+     * @return whether the tree holds a reference anywhere, without allocating
+     */
+    public static boolean hasReferences(JsonNode node) {
+        return node != null && node.isContainerNode() && node.findValue(MARKER) != null;
+    }
+
+    /**
+     * @return the referenced blob, or the node itself when it isn't a reference
+     */
+    public static JsonNode resolve(JsonNode node) {
+        if (!isReference(node)) {
+            return node;
+        }
+        Function<String, JsonNode> blobResolver = resolver;
+        String blobKey = blobKey(node);
+        if (blobResolver == null) {
+            throw new IllegalStateException("No claim check resolver registered, can't resolve blob " + blobKey);
+        }
+        return blobResolver.apply(blobKey);
+    }
+
+    /**
+     * Resolves the top level key a JSON pointer starts with before following it.
+     */
+    public static JsonNode at(ObjectNode context, String pointer) {
+        int keyEnd = pointer.indexOf('/', 1);
+        String key = keyEnd < 0 ? pointer.substring(1) : pointer.substring(1, keyEnd);
+        JsonNode value = context.get(key.replace("~1", "/").replace("~0", "~"));
+        if (!isReference(value)) {
+            return context.at(pointer);
+        }
+        return keyEnd < 0 ? resolve(value) : resolve(value).at(pointer.substring(keyEnd));
+    }
+
+    /**
+     * @return a copy of the context with the given top level keys resolved, or the context itself when none of them
+     * is a reference
+     */
+    public static ObjectNode resolveKeys(ObjectNode context, Set<String> keys) {
+        ObjectNode resolved = null;
+        for (String key : keys) {
+            JsonNode value = context.get(key);
+            if (isReference(value)) {
+                if (resolved == null) {
+                    resolved = MAPPER.createObjectNode();
+                    resolved.setAll(context);
+                }
+                resolved.set(key, resolve(value));
+            }
+        }
+        return resolved != null ? resolved : context;
+    }
+
+    /**
+     * @return a copy of the tree with every reference resolved, or the tree itself when it has none
+     */
+    public static JsonNode resolveAll(JsonNode node) {
+        if (!hasReferences(node)) {
+            return node;
+        }
+        if (isReference(node)) {
+            return resolve(node);
+        }
+        JsonNode resolved = node.deepCopy();
+        resolveInPlace(resolved);
+        return resolved;
+    }
+
+    private static void resolveInPlace(JsonNode node) {
+        if (node.isObject()) {
+            Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+            while (fields.hasNext()) {
+                Map.Entry<String, JsonNode> field = fields.next();
+                if (isReference(field.getValue())) {
+                    field.setValue(resolve(field.getValue()));
+                } else if (hasReferences(field.getValue())) {
+                    resolveInPlace(field.getValue());
+                }
+            }
+        } else if (node.isArray()) {
+            for (JsonNode element : node) {
+                resolveInPlace(element);
+            }
+        }
+    }
+}
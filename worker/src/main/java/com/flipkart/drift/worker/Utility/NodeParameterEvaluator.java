@@ -1,7 +1,12 @@
 package com.flipkart.drift.worker.Utility;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.commons.utils.ContextReadSet;
+import com.jayway.jsonpath.DocumentContext;
 import com.jayway.jsonpath.JsonPath;
 import lombok.extern.slf4j.Slf4j;
 
@@ -14,7 +19,8 @@ public class NodeParameterEvaluator {
         if (context == null || parameters == null || context.isEmpty() || parameters.isEmpty()) {
             return result;
         }
-        String contextString = context.toString();
+        // Parsed once for all parameters, with only the claim checked keys the paths touch resolved
+        DocumentContext document = JsonPath.parse(resolveTouchedKeys(context, parameters).toString());
 
         for (Map.Entry<String, String> entry : parameters.entrySet()) {
             String paramName = entry.getKey();
@@ -22,7 +28,7 @@ public class NodeParameterEvaluator {
 
             try {
                 if (valueOrJsonPath.startsWith("$.")) { // Treat as JSONPath
-                    Object value = JsonPath.read(contextString, valueOrJsonPath);
+                    Object value = document.read(valueOrJsonPath);
                     result.set(paramName, MAPPER.valueToTree(value));
                 } else { // Treat as a static value
                     result.put(paramName, valueOrJsonPath);
@@ -35,4 +41,23 @@ public class NodeParameterEvaluator {
 
         return result;
     }
+
+    private static JsonNode resolveTouchedKeys(ObjectNode context, Map<String, String> parameters) {
+        if (!ClaimCheck.hasReferences(context)) {
+            return context;
+        }
+        Set<String> keys = new HashSet<>();
+        for (String valueOrJsonPath : parameters.values()) {
+            if (!valueOrJsonPath.startsWith("$.")) {
+                continue;
+            }
+            String key = ContextReadSet.topLevelKey(valueOrJsonPath);
+            if (key == null) {
+                // Deep scans and wildcards may touch any key
+                return ClaimCheck.resolveAll(context);
+            }
+            keys.add(key);
+        }
+        return ClaimCheck.resolveKeys(context, keys);
+    }
 }
@@ -1,6 +1,7 @@
 package com.flipkart.drift.worker.Utility;
 
 import com.flipkart.drift.sdk.model.request.WorkflowStartRequest;
+import com.netflix.config.DynamicProperty;
 import lombok.extern.slf4j.Slf4j;
 
 import java.util.Map;
@@ -10,6 +11,10 @@ import static org.apache.commons.lang3.BooleanUtils.TRUE;
 
 @Slf4j
 public class WorkerUtility {
+    private static final String LOCAL_RETURN_CONTROL_PROPERTY = "returnControl.localActivity.enabled";
+    private static final String SEGMENT_EXECUTION_PROPERTY = "segment.enabled";
+    private static final String CHILD_MAX_NESTING_DEPTH_PROPERTY = "child.maxNestingDepth";
+    private static final int DEFAULT_CHILD_MAX_NESTING_DEPTH = 3;
 
     public static boolean shouldAddPerfFlags(Map<String, String> threadContext) {
         if (threadContext == null) {
@@ -24,4 +29,37 @@ public class WorkerUtility {
     public static String generateChildWfId(WorkflowStartRequest workflowStartRequest) {
         return "CH-" + workflowStartRequest.getWorkflowId();
     }
+
+    // One child per node instance, so a workflow can run several children
+    public static String generateChildWfId(WorkflowStartRequest workflowStartRequest, String instanceName) {
+        return "CH-" + workflowStartRequest.getWorkflowId() + ":" + instanceName;
+    }
+
+    public static int getNestingDepth(WorkflowStartRequest workflowStartRequest) {
+        if (workflowStartRequest.getNestingDepth() != null) {
+            return workflowStartRequest.getNestingDepth();
+        }
+        return workflowStartRequest.getParentWorkflowId() != null ? 1 : 0;
+    }
+
+    /**
+     * Deepest level a child workflow can be started at. Read by workflows through a side effect only.
+     */
+    public static int getChildMaxNestingDepth() {
+        return DynamicProperty.getInstance(CHILD_MAX_NESTING_DEPTH_PROPERTY).getInteger(DEFAULT_CHILD_MAX_NESTING_DEPTH);
+    }
+
+    /**
+     * Opt-in for publishing return control from a local activity. Read by workflows through a side effect only.
+     */
+    public static boolean isLocalReturnControlEnabled() {
+        return DynamicProperty.getInstance(LOCAL_RETURN_CONTROL_PROPERTY).getBoolean(false);
+    }
+
+    /**
+     * Opt-in for running chains of local nodes as one segment. Read by workflows through a side effect only.
+     */
+    public static boolean isSegmentExecutionEnabled() {
+        return DynamicProperty.getInstance(SEGMENT_EXECUTION_PROPERTY).getBoolean(false);
+    }
 }
\ No newline at end of file
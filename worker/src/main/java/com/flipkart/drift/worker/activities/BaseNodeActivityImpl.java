@@ -1,10 +1,12 @@
 package com.flipkart.drift.worker.activities;
 
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.commons.utils.ContextReadSet;
 import com.flipkart.drift.worker.Utility.NodeParameterEvaluator;
 import com.flipkart.drift.worker.model.activity.ActivityThinRequest;
 import com.flipkart.drift.worker.model.activity.ActivityThinResponse;
 import com.flipkart.drift.sdk.model.request.WorkflowUtilityRequest;
+import com.flipkart.drift.sdk.model.enums.WorkflowStatus;
 import com.flipkart.drift.sdk.model.response.View;
 import com.flipkart.drift.commons.model.enums.NodeType;
 import com.flipkart.drift.commons.model.node.WorkflowNode;
@@ -13,37 +15,71 @@ import com.flipkart.drift.persistence.entity.WorkflowContextHB;
 import com.flipkart.drift.commons.model.node.NodeDefinition;
 import com.flipkart.drift.worker.model.activity.ActivityRequest;
 import com.flipkart.drift.worker.model.activity.ActivityResponse;
-import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
 import com.flipkart.drift.commons.utils.ObjectMapperUtil;
+import com.google.common.collect.Sets;
 import io.temporal.activity.Activity;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Slf4j
 public abstract class BaseNodeActivityImpl<T extends NodeDefinition> implements INodeActivity<T> {
+    static final String NODE_PARAMETERS = ContextReadSet.NODE_PARAMETERS;
 
-    private final WorkflowContextHBService workflowContextHBService;
+    private final ContextStore contextStore;
 
-    protected BaseNodeActivityImpl(WorkflowContextHBService workflowContextHBService) {
-        this.workflowContextHBService = workflowContextHBService;
+    protected BaseNodeActivityImpl(ContextStore contextStore) {
+        this.contextStore = contextStore;
     }
 
     // Wrapper method for context management
     public final ActivityThinResponse execute(ActivityThinRequest<T> activityThinRequest) {
         // Execute common steps 1-3
         ActivityResponse response = executeWithContextManagement(activityThinRequest);
+        return toThinResponse(activityThinRequest.getWorkflowId(), activityThinRequest.getNodeDefinition(), response);
+    }
+
+    // Fat response wrapper method that returns complete ActivityResponse
+    public final ActivityResponse executeWithFatResponse(ActivityThinRequest<T> activityThinRequest) {
+        // Execute common steps 1-5 and return fat response
+        return executeWithContextManagement(activityThinRequest);
+    }
 
+    /**
+     * Runs the node against an already loaded context and records its response in it, without persisting.
+     * Used by segments, which load and persist the context once for a chain of nodes.
+     */
+    public final ActivityResponse executeOnContext(String workflowId, ObjectNode context, WorkflowNode workflowNode,
+                                                   Map<String, String> threadContext) {
+        @SuppressWarnings("unchecked")
+        T nodeDefinition = (T) workflowNode.getNodeDefinition();
+        ActivityRequest<T> activityRequest = new ActivityRequest<>();
+        activityRequest.setIsTerminal(workflowNode.isEnd());
+        activityRequest.setWorkflowId(workflowId);
+        activityRequest.setThreadContext(threadContext);
+        updateContextWithNodeParameters(context, workflowNode.getParameters());
+        activityRequest.setContext(context);
+        activityRequest.setNodeDefinition(nodeDefinition);
+        ActivityResponse response = executeNode(activityRequest);
+        context.putPOJO(generateNodeIdentifier(workflowNode), response.getNodeResponse());
+        return response;
+    }
+
+    public final ActivityThinResponse toThinResponse(String workflowId, NodeDefinition nodeDefinition, ActivityResponse response) {
         // Step 6: Handle special response types
         View currentView = null;
         String disposition = null;
-        if (NodeType.INSTRUCTION.equals(activityThinRequest.getNodeDefinition().getType())) {
+        if (NodeType.INSTRUCTION.equals(nodeDefinition.getType())) {
             try {
                 currentView = ObjectMapperUtil.INSTANCE.getObj(response.getNodeResponse().toString(), View.class);
                 disposition = response.getDisposition();
             } catch (IOException e) {
-                throw Activity.wrap(new RuntimeException("Error while creating response view for workflowId: " + activityThinRequest.getWorkflowId() + " Node id: " + activityThinRequest.getNodeDefinition().getId()));
+                throw Activity.wrap(new RuntimeException("Error while creating response view for workflowId: " + workflowId + " Node id: " + nodeDefinition.getId()));
             }
         }
 
@@ -56,18 +92,18 @@ public abstract class BaseNodeActivityImpl<T extends NodeDefinition> implements
                 .build();
     }
 
-    // Fat response wrapper method that returns complete ActivityResponse
-    public final ActivityResponse executeWithFatResponse(ActivityThinRequest<T> activityThinRequest) {
-        // Execute common steps 1-5 and return fat response
-        return executeWithContextManagement(activityThinRequest);
-    }
-
     // Private helper method containing common steps 1-3
     private ActivityResponse executeWithContextManagement(ActivityThinRequest<T> activityThinRequest) {
         String workflowId = activityThinRequest.getWorkflowId();
 
-        // Step 1: Fetch context from HBase
-        WorkflowContextHB context = workflowContextHBService.getEntityById(workflowId, activityThinRequest.getThreadContext());
+        // Step 1: Fetch context from HBase, preparing the node while the read is in flight. Nodes that declare a read
+        // set get only those keys
+        Set<String> readKeys = ContextReadSet.readKeys(activityThinRequest.getWorkflowNode(), activityThinRequest.getNodeDefinition());
+        CompletableFuture<WorkflowContextHB> contextFuture = readKeys == null
+                ? contextStore.getAsync(workflowId, activityThinRequest.getThreadContext())
+                : contextStore.getAsync(workflowId, readKeys, activityThinRequest.getThreadContext());
+        prepareNode(activityThinRequest.getNodeDefinition());
+        WorkflowContextHB context = awaitContext(contextFuture);
         if (context == null) {
             throw Activity.wrap(new RuntimeException("Workflow context not found for ID: " + workflowId));
         }
@@ -76,27 +112,58 @@ public abstract class BaseNodeActivityImpl<T extends NodeDefinition> implements
         activityRequest.setIsTerminal(activityThinRequest.getWorkflowNode().isEnd());
         activityRequest.setWorkflowId(workflowId);
         activityRequest.setThreadContext(activityThinRequest.getThreadContext());
+        if (activityThinRequest.getContextOverlay() != null) {
+            context.getContext().setAll(activityThinRequest.getContextOverlay());
+        }
         updateContextWithNodeParameters(context.getContext(), activityThinRequest.getWorkflowNode().getParameters());
         activityRequest.setContext(context.getContext());
         activityRequest.setNodeDefinition(activityThinRequest.getNodeDefinition());
         // Step 2: Execute the actual logic
         ActivityResponse response = executeNode(activityRequest);
         // Step 3: Persist updated context
-        workflowContextHBService.updateEntity(WorkflowContext.builder()
+        if (activityThinRequest.isDeferContextUpdate()) {
+            return response;
+        }
+        String nodeIdentifier = generateNodeIdentifier(activityThinRequest.getWorkflowNode());
+        contextStore.update(WorkflowContext.builder()
                 .workflowId(workflowId)
-                .context(context.getContext().putPOJO(generateNodeIdentifier(activityThinRequest.getWorkflowNode()), response.getNodeResponse()))
+                .context(context.getContext().putPOJO(nodeIdentifier, response.getNodeResponse()))
+                .updatedKeys(Sets.newHashSet(nodeIdentifier, NODE_PARAMETERS))
+                .completedAt(completedAt(response.getWorkflowStatus()))
+                .partial(readKeys != null)
+                .expectedVersion(context.getVersion())
                 .build(), activityThinRequest.getThreadContext());
 
         return response;
     }
 
+    /**
+     * Runs while the context is being read, for work of the node that doesn't depend on the context.
+     */
+    protected void prepareNode(T nodeDefinition) {
+    }
+
+    private static WorkflowContextHB awaitContext(CompletableFuture<WorkflowContextHB> contextFuture) {
+        try {
+            return contextFuture.join();
+        } catch (CompletionException e) {
+            throw Activity.wrap(e.getCause());
+        }
+    }
+
     private void updateContextWithNodeParameters(ObjectNode context,
                                                  Map<String, String> parameters) {
         ObjectNode nodeParameters = NodeParameterEvaluator.evaluateNodeParameters(context, parameters);
-        context.set("nodeParameters", nodeParameters);
+        context.set(NODE_PARAMETERS, nodeParameters);
+    }
+
+    // Contexts of completed workflows are archived after a while, see ContextTieringConfig
+    static Long completedAt(WorkflowStatus workflowStatus) {
+        return workflowStatus == WorkflowStatus.COMPLETED || workflowStatus == WorkflowStatus.FAILED
+                ? System.currentTimeMillis() : null;
     }
 
-    private String generateNodeIdentifier(WorkflowNode currentNode) {
+    static String generateNodeIdentifier(WorkflowNode currentNode) {
         if (currentNode.getContextOverrideKey() != null) {
             return currentNode.getContextOverrideKey();
         }
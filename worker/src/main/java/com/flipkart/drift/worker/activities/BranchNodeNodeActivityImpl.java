@@ -7,7 +7,7 @@ import com.flipkart.drift.commons.model.node.BranchNode;
 import com.flipkart.drift.commons.model.resolvedDetails.BranchDetails;
 import com.flipkart.drift.worker.model.activity.ActivityRequest;
 import com.flipkart.drift.worker.model.activity.ActivityResponse;
-import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
 import com.flipkart.drift.worker.translator.ClientResolvedDetailBuilder;
 import com.google.inject.Inject;
 import io.temporal.activity.Activity;
@@ -20,8 +20,8 @@ import static com.flipkart.drift.commons.utils.Constants.Workflow.GLOBAL;
 public class BranchNodeNodeActivityImpl extends BaseNodeActivityImpl<BranchNode> implements BranchNodeNodeActivity {
 
     @Inject
-    public BranchNodeNodeActivityImpl(WorkflowContextHBService workflowContextHBService) {
-        super(workflowContextHBService);
+    public BranchNodeNodeActivityImpl(ContextStore contextStore) {
+        super(contextStore);
     }
 
     @Override
@@ -31,7 +31,7 @@ public class BranchNodeNodeActivityImpl extends BaseNodeActivityImpl<BranchNode>
             for (BranchComponents choice : activityRequest.getNodeDefinition().getChoices()) {
                 ObjectNode contextWrapper = MAPPER.createObjectNode();
                 BranchDetails branchDetails = ClientResolvedDetailBuilder
-                        .evaluateGroovy(choice, activityRequest.getNodeDefinition().getVersion(), contextWrapper.set(GLOBAL, activityRequest.getContext()), BranchDetails.class);
+                        .evaluateGroovy(choice, activityRequest.getNodeDefinition(), contextWrapper.set(GLOBAL, activityRequest.getContext()), BranchDetails.class);
                 branchResponse.put("nextNode", branchDetails.getNextNode());
                 if (branchDetails.getRule()) {
                     return ActivityResponse.builder()
@@ -4,7 +4,7 @@ import com.flipkart.drift.sdk.model.enums.WorkflowStatus;
 import com.flipkart.drift.commons.model.node.FailureNode;
 import com.flipkart.drift.worker.model.activity.ActivityRequest;
 import com.flipkart.drift.worker.model.activity.ActivityResponse;
-import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
 import com.google.inject.Inject;
 
 import static com.flipkart.drift.commons.utils.Constants.MAPPER;
@@ -12,8 +12,8 @@ import static com.flipkart.drift.commons.utils.Constants.MAPPER;
 public class FailureNodeNodeActivityImpl extends BaseNodeActivityImpl<FailureNode> implements FailureNodeNodeActivity {
 
     @Inject
-    public FailureNodeNodeActivityImpl(WorkflowContextHBService workflowContextHBService) {
-        super(workflowContextHBService);
+    public FailureNodeNodeActivityImpl(ContextStore contextStore) {
+        super(contextStore);
     }
 
     @Override
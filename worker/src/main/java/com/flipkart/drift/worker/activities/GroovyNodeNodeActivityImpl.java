@@ -9,7 +9,7 @@ import com.flipkart.drift.commons.model.resolvedDetails.TransformerDetails;
 import com.flipkart.drift.worker.model.activity.ActivityRequest;
 import com.flipkart.drift.worker.model.activity.ActivityResponse;
 import com.flipkart.drift.worker.service.WorkflowConfigStoreService;
-import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
 import com.flipkart.drift.worker.translator.ClientResolvedDetailBuilder;
 import com.google.inject.Inject;
 import io.temporal.activity.Activity;
@@ -23,11 +23,21 @@ public class GroovyNodeNodeActivityImpl extends BaseNodeActivityImpl<GroovyNode>
 
     private final WorkflowConfigStoreService workflowConfigStoreService;
     @Inject
-    public GroovyNodeNodeActivityImpl(WorkflowContextHBService workflowContextHBService, WorkflowConfigStoreService workflowConfigStoreService) {
-        super(workflowContextHBService);
+    public GroovyNodeNodeActivityImpl(ContextStore contextStore, WorkflowConfigStoreService workflowConfigStoreService) {
+        super(contextStore);
         this.workflowConfigStoreService = workflowConfigStoreService;
     }
 
+    @Override
+    protected void prepareNode(GroovyNode nodeDefinition) {
+        try {
+            ClientResolvedDetailBuilder.precompileGroovy(new TransformerComponents(nodeDefinition.getTransformer()), nodeDefinition);
+        } catch (Exception e) {
+            // Surfaces again, with the node's error handling, once the node executes
+            log.warn("Unable to precompile groovy node {}: {}", nodeDefinition.getId(), e.getMessage());
+        }
+    }
+
     @Override
     public ActivityResponse executeNode(ActivityRequest<GroovyNode> activityRequest) {
         try {
@@ -35,7 +45,7 @@ public class GroovyNodeNodeActivityImpl extends BaseNodeActivityImpl<GroovyNode>
             ObjectNode contextWrapper = MAPPER.createObjectNode();
             contextWrapper.set(ENUM_STORE, MAPPER.valueToTree(workflowConfigStoreService.getEnumMapping()));
             TransformerDetails transformerDetails = ClientResolvedDetailBuilder
-                    .evaluateGroovy(components, activityRequest.getNodeDefinition().getVersion(), contextWrapper.set(GLOBAL, activityRequest.getContext()), TransformerDetails.class);
+                    .evaluateGroovy(components, activityRequest.getNodeDefinition(), contextWrapper.set(GLOBAL, activityRequest.getContext()), TransformerDetails.class);
             JsonNode groovyResponse = transformerDetails.getTransformedResponse();
             return ActivityResponse.builder()
                     .nodeResponse(groovyResponse)
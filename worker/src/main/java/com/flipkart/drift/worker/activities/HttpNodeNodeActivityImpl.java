@@ -12,7 +12,7 @@ import com.flipkart.drift.commons.model.resolvedDetails.TransformerDetails;
 import com.flipkart.drift.worker.model.activity.ActivityRequest;
 import com.flipkart.drift.worker.model.activity.ActivityResponse;
 import com.flipkart.drift.worker.service.WorkflowConfigStoreService;
-import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
 import com.flipkart.drift.worker.translator.ClientResolvedDetailBuilder;
 import com.google.inject.Inject;
 import io.temporal.activity.Activity;
@@ -35,24 +35,23 @@ public class HttpNodeNodeActivityImpl extends BaseNodeActivityImpl<HttpNode> imp
     private final WorkflowConfigStoreService workflowConfigStoreService;
 
     @Inject
-    public HttpNodeNodeActivityImpl(WorkflowContextHBService workflowContextHBService, WorkflowConfigStoreService workflowConfigStoreService) {
-        super(workflowContextHBService);
+    public HttpNodeNodeActivityImpl(ContextStore contextStore, WorkflowConfigStoreService workflowConfigStoreService) {
+        super(contextStore);
         this.workflowConfigStoreService = workflowConfigStoreService;
     }
 
     @Override
     public ActivityResponse executeNode(ActivityRequest<HttpNode> activityRequest) {
         try {
-            JsonNode httpResponse = executeHttp(activityRequest.getNodeDefinition().getHttpComponents(),
-                    activityRequest.getNodeDefinition().getVersion(),
+            JsonNode httpResponse = executeHttp(activityRequest.getNodeDefinition(),
                     activityRequest.getContext(),
-                    activityRequest.getNodeDefinition().getId(), activityRequest.getThreadContext());
+                    activityRequest.getThreadContext());
             ObjectNode contextWrapper = MAPPER.createObjectNode();
             contextWrapper.set(GLOBAL, activityRequest.getContext());
             contextWrapper.set(ENUM_STORE, MAPPER.valueToTree(workflowConfigStoreService.getEnumMapping()));
             TransformerDetails transformerDetails = ClientResolvedDetailBuilder
                     .evaluateGroovy(activityRequest.getNodeDefinition().getTransformerComponents(),
-                            activityRequest.getNodeDefinition().getVersion(),
+                            activityRequest.getNodeDefinition(),
                             contextWrapper.set(HTTP_RESPONSE, httpResponse),
                             TransformerDetails.class);
             return ActivityResponse.builder()
@@ -64,12 +63,13 @@ public class HttpNodeNodeActivityImpl extends BaseNodeActivityImpl<HttpNode> imp
         }
     }
 
-    private JsonNode executeHttp(HttpComponents components, String componentVersion, JsonNode workflowContext, String apiIdentifier,
-                                 Map<String, String> threadContext) throws IOException {
+    private JsonNode executeHttp(HttpNode httpNode, JsonNode workflowContext, Map<String, String> threadContext) throws IOException {
+        HttpComponents components = httpNode.getHttpComponents();
+        String apiIdentifier = httpNode.getId();
         try {
             ObjectNode contextWrapper = MAPPER.createObjectNode();
             contextWrapper.set(ENUM_STORE, MAPPER.valueToTree(workflowConfigStoreService.getEnumMapping()));
-            HttpDetails httpDetails = ClientResolvedDetailBuilder.evaluateGroovy(components, componentVersion,
+            HttpDetails httpDetails = ClientResolvedDetailBuilder.evaluateGroovy(components, httpNode,
                     contextWrapper.set(GLOBAL, workflowContext),
                     HttpDetails.class);
             if (WorkerUtility.shouldAddPerfFlags(threadContext)) {
@@ -7,10 +7,11 @@ import com.flipkart.drift.commons.model.clientComponent.VariableAttributeCompone
 import com.flipkart.drift.sdk.model.enums.WorkflowStatus;
 import com.flipkart.drift.sdk.model.instruction.Option;
 import com.flipkart.drift.commons.model.node.InstructionNode;
+import com.flipkart.drift.worker.Utility.ClaimCheck;
 import com.flipkart.drift.worker.model.activity.ActivityRequest;
 import com.flipkart.drift.worker.model.activity.ActivityResponse;
 import com.flipkart.drift.commons.model.resolvedDetails.AttributeDetails;
-import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
 import com.flipkart.drift.worker.stringResolver.StringResolver;
 import com.flipkart.drift.worker.translator.ClientResolvedDetailBuilder;
 import com.google.inject.Inject;
@@ -33,9 +34,9 @@ public class InstructionNodeActivityImpl extends BaseNodeActivityImpl<Instructio
     private final WorkflowConfigStoreService workflowConfigStoreService;
 
     @Inject
-    public InstructionNodeActivityImpl(StringResolver stringResolver, WorkflowContextHBService workflowContextHBService,
+    public InstructionNodeActivityImpl(StringResolver stringResolver, ContextStore contextStore,
                                        WorkflowConfigStoreService workflowConfigStoreService) {
-        super(workflowContextHBService);
+        super(contextStore);
         this.workflowConfigStoreService = workflowConfigStoreService;
     }
 
@@ -48,7 +49,7 @@ public class InstructionNodeActivityImpl extends BaseNodeActivityImpl<Instructio
             if (Optional.ofNullable(activityRequest.getNodeDefinition().getDisposition()).isPresent()) {
                 attributeDetails = resolveAttributeDetails(activityRequest.getNodeDefinition().getDisposition(),
                         activityRequest.getContext(),
-                        activityRequest.getNodeDefinition().getVersion(),
+                        activityRequest.getNodeDefinition(),
                         true);
             }
             //resolving workflowStatus
@@ -56,7 +57,7 @@ public class InstructionNodeActivityImpl extends BaseNodeActivityImpl<Instructio
             if (Optional.ofNullable(activityRequest.getNodeDefinition().getWorkflowStatus()).isPresent()) {
                 workflowAttributeDetails = resolveAttributeDetails(activityRequest.getNodeDefinition().getWorkflowStatus(),
                         activityRequest.getContext(),
-                        activityRequest.getNodeDefinition().getVersion(),
+                        activityRequest.getNodeDefinition(),
                         false);
             }
 
@@ -77,7 +78,7 @@ public class InstructionNodeActivityImpl extends BaseNodeActivityImpl<Instructio
         }
     }
 
-    private AttributeDetails resolveAttributeDetails(VariableAttributeComponent variableAttributeComponent, JsonNode context, String version, Boolean includeEnumMap) {
+    private AttributeDetails resolveAttributeDetails(VariableAttributeComponent variableAttributeComponent, JsonNode context, InstructionNode nodeDefinition, Boolean includeEnumMap) {
         AttributeDetails attributeDetails = null;
         ObjectNode contextWrapper = MAPPER.createObjectNode();
         contextWrapper.set(GLOBAL,context);
@@ -86,7 +87,7 @@ public class InstructionNodeActivityImpl extends BaseNodeActivityImpl<Instructio
         }
         attributeDetails = ClientResolvedDetailBuilder
                 .evaluateGroovy(variableAttributeComponent,
-                        version,
+                        nodeDefinition,
                         contextWrapper.set(GLOBAL, context), AttributeDetails.class);
         return attributeDetails;
     }
@@ -103,7 +104,7 @@ public class InstructionNodeActivityImpl extends BaseNodeActivityImpl<Instructio
         if (Optional.ofNullable(activityRequest.getNodeDefinition().getLayoutId()).isPresent()) {
             layoutAttributeDetails = resolveAttributeDetails(activityRequest.getNodeDefinition().getLayoutId(),
                     activityRequest.getContext(),
-                    activityRequest.getNodeDefinition().getVersion(),
+                    activityRequest.getNodeDefinition(),
                     false);
         }
 
@@ -135,7 +136,7 @@ public class InstructionNodeActivityImpl extends BaseNodeActivityImpl<Instructio
             // Split by dots and traverse the nested structure
             String[] fields = dynamicValueField.split("\\.");
             for (String field : fields) {
-                currentNode = currentNode.get(field);
+                currentNode = ClaimCheck.resolve(currentNode.get(field));
                 if (currentNode == null) {
                     return new ArrayList<>();  // Return empty list if path doesn't exist
                 }
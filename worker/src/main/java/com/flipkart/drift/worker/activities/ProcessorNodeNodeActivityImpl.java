@@ -5,9 +5,10 @@ import com.flipkart.drift.sdk.model.response.ViewResponse;
 import com.flipkart.drift.sdk.model.response.View;
 import com.flipkart.drift.sdk.model.enums.WorkflowStatus;
 import com.flipkart.drift.commons.model.node.ProcessorNode;
+import com.flipkart.drift.worker.Utility.ClaimCheck;
 import com.flipkart.drift.worker.model.activity.ActivityRequest;
 import com.flipkart.drift.worker.model.activity.ActivityResponse;
-import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
 import com.flipkart.drift.commons.utils.ObjectMapperUtil;
 import com.google.inject.Inject;
 import io.temporal.activity.Activity;
@@ -19,15 +20,15 @@ import static com.flipkart.drift.commons.utils.Constants.MAPPER;
 public class ProcessorNodeNodeActivityImpl extends BaseNodeActivityImpl<ProcessorNode> implements ProcessorNodeNodeActivity {
 
     @Inject
-    public ProcessorNodeNodeActivityImpl(WorkflowContextHBService workflowContextHBService) {
-        super(workflowContextHBService);
+    public ProcessorNodeNodeActivityImpl(ContextStore contextStore) {
+        super(contextStore);
     }
 
     @Override
     public ActivityResponse executeNode(ActivityRequest<ProcessorNode> activityRequest) {
         try {
-            View view = ObjectMapperUtil.INSTANCE.getObj(activityRequest.getContext().get(activityRequest.getNodeDefinition().getInstructionNodeRef()), View.class);
-            ViewResponse viewResponse = ObjectMapperUtil.INSTANCE.getObj(activityRequest.getContext().get(activityRequest.getNodeDefinition().getInstructionNodeRef() + ":viewResponse"), ViewResponse.class);
+            View view = ObjectMapperUtil.INSTANCE.getObj(ClaimCheck.resolve(activityRequest.getContext().get(activityRequest.getNodeDefinition().getInstructionNodeRef())), View.class);
+            ViewResponse viewResponse = ObjectMapperUtil.INSTANCE.getObj(ClaimCheck.resolve(activityRequest.getContext().get(activityRequest.getNodeDefinition().getInstructionNodeRef() + ":viewResponse")), ViewResponse.class);
             ObjectNode processorResponse = MAPPER.createObjectNode();
             processorResponse.put("isValidResponse", view.getInputOptions().size() == viewResponse.getSelectedOptions().size());
             return ActivityResponse.builder()
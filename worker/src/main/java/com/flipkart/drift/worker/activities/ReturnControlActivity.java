@@ -1,8 +1,9 @@
 package com.flipkart.drift.worker.activities;
 
+import com.flipkart.drift.commons.model.temporal.WorkflowState;
 import io.temporal.activity.ActivityInterface;
 
 @ActivityInterface(namePrefix = "returnControlActivity")
 public interface ReturnControlActivity {
-    Long exec(String workflowId);
+    Long exec(String workflowId, WorkflowState workflowState);
 }
@@ -1,7 +1,10 @@
 package com.flipkart.drift.worker.activities;
 
+import com.flipkart.drift.commons.model.temporal.ReturnControlEvent;
+import com.flipkart.drift.commons.model.temporal.WorkflowState;
 import com.flipkart.drift.worker.config.RedisConfiguration;
 import com.google.inject.Inject;
+import com.netflix.config.DynamicProperty;
 import lombok.extern.slf4j.Slf4j;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPoolAbstract;
@@ -10,6 +13,8 @@ import static com.flipkart.drift.commons.utils.Constants.Workflow.ASYNC_AWAIT_CH
 
 @Slf4j
 public class ReturnControlActivityImpl implements ReturnControlActivity {
+    private static final String PAYLOAD_MAX_BYTES_PROPERTY = "returnControl.payload.maxBytes";
+    private static final int DEFAULT_PAYLOAD_MAX_BYTES = 32 * 1024;
     private final RedisConfiguration redisConfiguration;
     private final JedisPoolAbstract jedisSentinelPool;
 
@@ -23,10 +28,12 @@ public class ReturnControlActivityImpl implements ReturnControlActivity {
         return redisConfiguration.getPrefix() + ":" + key;
     }
 
-    public Long exec(String workflowId) {
+    public Long exec(String workflowId, WorkflowState workflowState) {
+        String message = ReturnControlEvent.encode(workflowState,
+                DynamicProperty.getInstance(PAYLOAD_MAX_BYTES_PROPERTY).getInteger(DEFAULT_PAYLOAD_MAX_BYTES));
         Jedis jedis = jedisSentinelPool.getResource();
         log.info("Publishing redis event to {}", ASYNC_AWAIT_CHANNEL + workflowId);
-        Long status = jedis.publish(ASYNC_AWAIT_CHANNEL + workflowId, "return");
+        Long status = jedis.publish(ASYNC_AWAIT_CHANNEL + workflowId, message);
         jedis.close();
         return status;
     }
@@ -0,0 +1,10 @@
+package com.flipkart.drift.worker.activities;
+
+import com.flipkart.drift.worker.model.activity.ActivityThinResponse;
+import com.flipkart.drift.worker.model.activity.SegmentActivityRequest;
+import io.temporal.activity.ActivityInterface;
+
+@ActivityInterface(namePrefix = "segment")
+public interface SegmentActivity {
+    ActivityThinResponse execute(SegmentActivityRequest segmentActivityRequest);
+}
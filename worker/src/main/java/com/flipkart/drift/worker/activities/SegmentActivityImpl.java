@@ -0,0 +1,114 @@
+package com.flipkart.drift.worker.activities;
+
+import com.codahale.metrics.Timer;
+import com.flipkart.drift.commons.model.enums.NodeType;
+import com.flipkart.drift.commons.model.node.WorkflowNode;
+import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.flipkart.drift.sdk.model.enums.WorkflowStatus;
+import com.flipkart.drift.worker.model.activity.ActivityResponse;
+import com.flipkart.drift.worker.model.activity.ActivityThinResponse;
+import com.flipkart.drift.worker.model.activity.SegmentActivityRequest;
+import com.flipkart.drift.worker.model.workflow.WorkflowContext;
+import com.flipkart.drift.worker.store.ContextStore;
+import com.google.common.collect.Sets;
+import com.google.inject.Inject;
+import com.netflix.config.DynamicProperty;
+import io.temporal.activity.Activity;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.flipkart.drift.commons.utils.MetricsRegistry.histogram;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.timerContext;
+
+/**
+ * Runs a chain of local nodes against a single context read and write. The chain starts at the requested node and
+ * continues while the workflow keeps RUNNING and the next node can run in a segment.
+ */
+@Slf4j
+public class SegmentActivityImpl implements SegmentActivity {
+    private static final String MAX_NODES_PROPERTY = "segment.maxNodes";
+    private static final int DEFAULT_MAX_NODES = 20;
+    private static final Set<NodeType> SEGMENT_NODE_TYPES = EnumSet.of(NodeType.INSTRUCTION, NodeType.BRANCH,
+            NodeType.GROOVY, NodeType.SUCCESS, NodeType.FAILURE);
+
+    private final ContextStore contextStore;
+    private final Map<NodeType, BaseNodeActivityImpl<?>> segmentNodeActivities = new EnumMap<>(NodeType.class);
+
+    @Inject
+    public SegmentActivityImpl(ContextStore contextStore,
+                               InstructionNodeActivityImpl instructionNodeActivity,
+                               BranchNodeNodeActivityImpl branchNodeActivity,
+                               GroovyNodeNodeActivityImpl groovyNodeActivity,
+                               SuccessNodeNodeActivityImpl successNodeActivity,
+                               FailureNodeNodeActivityImpl failureNodeActivity) {
+        this.contextStore = contextStore;
+        segmentNodeActivities.put(NodeType.INSTRUCTION, instructionNodeActivity);
+        segmentNodeActivities.put(NodeType.BRANCH, branchNodeActivity);
+        segmentNodeActivities.put(NodeType.GROOVY, groovyNodeActivity);
+        segmentNodeActivities.put(NodeType.SUCCESS, successNodeActivity);
+        segmentNodeActivities.put(NodeType.FAILURE, failureNodeActivity);
+    }
+
+    public static boolean canRunInSegment(WorkflowNode workflowNode) {
+        return workflowNode != null && workflowNode.getNodeDefinition() != null
+                && SEGMENT_NODE_TYPES.contains(workflowNode.getNodeDefinition().getType());
+    }
+
+    @Override
+    public ActivityThinResponse execute(SegmentActivityRequest request) {
+        String workflowId = request.getWorkflowId();
+        WorkflowContextHB context = contextStore.get(workflowId, request.getThreadContext());
+        if (context == null) {
+            throw Activity.wrap(new RuntimeException("Workflow context not found for ID: " + workflowId));
+        }
+
+        int maxNodes = DynamicProperty.getInstance(MAX_NODES_PROPERTY).getInteger(DEFAULT_MAX_NODES);
+        String nodeRef = request.getStartNode();
+        ActivityThinResponse lastResponse;
+        int executedNodes = 0;
+        Set<String> updatedKeys = Sets.newHashSet(BaseNodeActivityImpl.NODE_PARAMETERS);
+        try (Timer.Context ignored = timerContext(this.getClass(), "latency")) {
+            while (true) {
+                WorkflowNode workflowNode = request.getStates().get(nodeRef);
+                BaseNodeActivityImpl<?> nodeActivity = segmentNodeActivities.get(workflowNode.getNodeDefinition().getType());
+                ActivityResponse response;
+                try (Timer.Context ignoredNodeTimer = timerContext(this.getClass(), "node", workflowNode.getNodeDefinition().getType().name().toLowerCase())) {
+                    response = nodeActivity.executeOnContext(workflowId, context.getContext(), workflowNode, request.getThreadContext());
+                }
+                executedNodes++;
+                updatedKeys.add(BaseNodeActivityImpl.generateNodeIdentifier(workflowNode));
+                lastResponse = nodeActivity.toThinResponse(workflowId, workflowNode.getNodeDefinition(), response);
+
+                String nextNode = response.getNextNode() != null ? response.getNextNode() : workflowNode.getNextNode();
+                if (response.getWorkflowStatus() != WorkflowStatus.RUNNING || nextNode == null
+                        || !canRunInSegment(request.getStates().get(nextNode)) || executedNodes >= maxNodes) {
+                    break;
+                }
+                nodeRef = nextNode;
+            }
+            // Persist once for the whole chain
+            contextStore.update(WorkflowContext.builder()
+                    .workflowId(workflowId)
+                    .context(context.getContext())
+                    .updatedKeys(updatedKeys)
+                    .expectedVersion(context.getVersion())
+                    .completedAt(BaseNodeActivityImpl.completedAt(lastResponse.getWorkflowStatus()))
+                    .build(), request.getThreadContext());
+        }
+        histogram(this.getClass(), executedNodes, "nodes");
+        log.info("Executed segment of {} nodes for workflowId: {} from {} to {}", executedNodes, workflowId, request.getStartNode(), nodeRef);
+
+        return ActivityThinResponse.builder()
+                .workflowStatus(lastResponse.getWorkflowStatus())
+                .nextNode(lastResponse.getNextNode())
+                .errorResponse(lastResponse.getErrorResponse())
+                .view(lastResponse.getView())
+                .disposition(lastResponse.getDisposition())
+                .segmentTail(nodeRef)
+                .build();
+    }
+}
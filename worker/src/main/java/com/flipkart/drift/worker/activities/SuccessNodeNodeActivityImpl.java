@@ -5,7 +5,7 @@ import com.flipkart.drift.sdk.model.enums.WorkflowStatus;
 import com.flipkart.drift.commons.model.node.SuccessNode;
 import com.flipkart.drift.worker.model.activity.ActivityRequest;
 import com.flipkart.drift.worker.model.activity.ActivityResponse;
-import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
 import com.google.inject.Inject;
 
 import static com.flipkart.drift.commons.utils.Constants.MAPPER;
@@ -13,8 +13,8 @@ import static com.flipkart.drift.commons.utils.Constants.MAPPER;
 public class SuccessNodeNodeActivityImpl extends BaseNodeActivityImpl<SuccessNode> implements SuccessNodeNodeActivity {
 
     @Inject
-    public SuccessNodeNodeActivityImpl(WorkflowContextHBService workflowContextHBService) {
-        super(workflowContextHBService);
+    public SuccessNodeNodeActivityImpl(ContextStore contextStore) {
+        super(contextStore);
     }
 
     @Override
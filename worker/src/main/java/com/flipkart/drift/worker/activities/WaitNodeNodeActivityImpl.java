@@ -6,7 +6,7 @@ import com.flipkart.drift.commons.model.node.WaitNode;
 import com.flipkart.drift.worker.executor.WaitTypeExecutor.WaitTypeExecutor;
 import com.flipkart.drift.worker.model.activity.ActivityRequest;
 import com.flipkart.drift.worker.model.activity.ActivityResponse;
-import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
 import com.google.inject.Inject;
 import io.temporal.activity.Activity;
 import lombok.extern.slf4j.Slf4j;
@@ -20,8 +20,8 @@ public class WaitNodeNodeActivityImpl extends BaseNodeActivityImpl<WaitNode> imp
     private final Map<WaitType, WaitTypeExecutor> waitTypeExecutorMap;
 
     @Inject
-    public WaitNodeNodeActivityImpl(WorkflowContextHBService workflowContextHBService, Map<WaitType, WaitTypeExecutor> waitTypeExecutorMap) {
-        super(workflowContextHBService);
+    public WaitNodeNodeActivityImpl(ContextStore contextStore, Map<WaitType, WaitTypeExecutor> waitTypeExecutorMap) {
+        super(contextStore);
         this.waitTypeExecutorMap = waitTypeExecutorMap;
     }
 
@@ -1,10 +1,13 @@
 package com.flipkart.drift.worker.activities;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.flipkart.drift.sdk.model.request.WorkflowResumeRequest;
 import com.flipkart.drift.sdk.model.request.WorkflowStartRequest;
 import com.flipkart.drift.sdk.model.request.WorkflowUtilityRequest;
 import io.temporal.activity.ActivityInterface;
 
+import java.util.Map;
+
 @ActivityInterface(namePrefix = "workflowContextManager")
 public interface WorkflowContextManagerActivity {
     void persistWorkflowState(WorkflowStartRequest workflowStartRequest, String workflowId);
@@ -12,4 +15,8 @@ public interface WorkflowContextManagerActivity {
     void resumeWorkflowState(WorkflowResumeRequest workflowState, String currentNodeRef);
 
     void disconnectedNodeState(WorkflowUtilityRequest workflowUtilityRequest, String workflowId);
+
+    JsonNode projectChildContext(String childWorkflowId, Map<String, String> resultProjection, Map<String, String> threadContext);
+
+    void mergeNodeResponses(String workflowId, Map<String, JsonNode> nodeResponses, Map<String, String> threadContext);
 }
\ No newline at end of file
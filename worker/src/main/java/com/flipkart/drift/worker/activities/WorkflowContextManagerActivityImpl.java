@@ -2,18 +2,21 @@ package com.flipkart.drift.worker.activities;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.worker.Utility.ClaimCheck;
 import com.flipkart.drift.worker.util.Constants;
 import com.flipkart.drift.sdk.model.request.WorkflowResumeRequest;
 import com.flipkart.drift.sdk.model.request.WorkflowStartRequest;
 import com.flipkart.drift.sdk.model.request.WorkflowUtilityRequest;
 import com.flipkart.drift.worker.model.workflow.WorkflowContext;
 import com.flipkart.drift.persistence.entity.WorkflowContextHB;
-import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
 import com.flipkart.drift.commons.utils.ObjectMapperUtil;
+import com.google.common.collect.Sets;
 import com.google.inject.Inject;
 import groovy.util.logging.Slf4j;
 import io.temporal.activity.Activity;
 
+import java.util.HashSet;
 import java.util.Map;
 
 import static com.flipkart.drift.commons.utils.Constants.MAPPER;
@@ -21,11 +24,11 @@ import static com.flipkart.drift.commons.utils.Constants.MAPPER;
 @Slf4j
 public class WorkflowContextManagerActivityImpl implements WorkflowContextManagerActivity {
 
-    private final WorkflowContextHBService workflowContextHBService;
+    private final ContextStore contextStore;
 
     @Inject
-    public WorkflowContextManagerActivityImpl(WorkflowContextHBService workflowContextHBService) {
-        this.workflowContextHBService = workflowContextHBService;
+    public WorkflowContextManagerActivityImpl(ContextStore contextStore) {
+        this.contextStore = contextStore;
     }
 
     @Override
@@ -36,7 +39,7 @@ public class WorkflowContextManagerActivityImpl implements WorkflowContextManage
                 workflowStartRequest.getParams()
         );
         objectNode.set(Constants.GLOBAL_PARAMS, globalParams);
-        workflowContextHBService.createEntity(WorkflowContext.builder()
+        contextStore.create(WorkflowContext.builder()
                 .context(objectNode)
                 .workflowId(workflowId)
                 .build(), workflowStartRequest.getThreadContext());
@@ -44,7 +47,7 @@ public class WorkflowContextManagerActivityImpl implements WorkflowContextManage
 
     @Override
     public void resumeWorkflowState(WorkflowResumeRequest workflowResumeRequest, String currentNodeRef) {
-        WorkflowContextHB workflowContextHB = workflowContextHBService.getEntityById(workflowResumeRequest.getWorkflowId(), workflowResumeRequest.getThreadContext());
+        WorkflowContextHB workflowContextHB = contextStore.get(workflowResumeRequest.getWorkflowId(), workflowResumeRequest.getThreadContext());
         if (workflowContextHB == null) {
             throw Activity.wrap(new RuntimeException("Workflow context not found for workflowId: " + workflowResumeRequest.getWorkflowId()));
         }
@@ -57,9 +60,11 @@ public class WorkflowContextManagerActivityImpl implements WorkflowContextManage
                 workflowResumeRequest.getParams()
         );
         contextNode.set(Constants.GLOBAL_PARAMS, globalParams);
-        workflowContextHBService.updateEntity(WorkflowContext.builder()
+        contextStore.update(WorkflowContext.builder()
                 .context(contextNode)
                 .workflowId(workflowResumeRequest.getWorkflowId())
+                .updatedKeys(Sets.newHashSet(viewResponseKey, Constants.GLOBAL_PARAMS))
+                .expectedVersion(workflowContextHB.getVersion())
                 .build(), workflowResumeRequest.getThreadContext());
     }
 
@@ -81,15 +86,48 @@ public class WorkflowContextManagerActivityImpl implements WorkflowContextManage
 
     @Override
     public void disconnectedNodeState(WorkflowUtilityRequest workflowUtilityRequest, String workflowId) {
-        WorkflowContextHB workflowContextHB = workflowContextHBService.getEntityById(workflowId, workflowUtilityRequest.getThreadContext());
+        WorkflowContextHB workflowContextHB = contextStore.get(workflowId, workflowUtilityRequest.getThreadContext());
         if (workflowContextHB == null) {
             throw Activity.wrap(new RuntimeException("Workflow context not found for workflowId: " + workflowId));
         }
         ObjectNode contextWrapper = workflowUtilityRequest.getParameters() != null ?
                 MAPPER.valueToTree(workflowUtilityRequest.getParameters()) : MAPPER.createObjectNode();
-        workflowContextHBService.updateEntity(WorkflowContext.builder()
+        contextStore.update(WorkflowContext.builder()
                 .context(workflowContextHB.getContext().set(workflowUtilityRequest.getNode(), contextWrapper))
                 .workflowId(workflowId)
+                .updatedKeys(Sets.newHashSet(workflowUtilityRequest.getNode()))
+                .expectedVersion(workflowContextHB.getVersion())
                 .build(), workflowUtilityRequest.getThreadContext());
     }
-}
\ No newline at end of file
+
+    @Override
+    public void mergeNodeResponses(String workflowId, Map<String, JsonNode> nodeResponses, Map<String, String> threadContext) {
+        WorkflowContextHB workflowContextHB = contextStore.get(workflowId, threadContext);
+        if (workflowContextHB == null) {
+            throw Activity.wrap(new RuntimeException("Workflow context not found for workflowId: " + workflowId));
+        }
+        workflowContextHB.getContext().setAll(nodeResponses);
+        contextStore.update(WorkflowContext.builder()
+                .context(workflowContextHB.getContext())
+                .workflowId(workflowId)
+                .updatedKeys(new HashSet<>(nodeResponses.keySet()))
+                .expectedVersion(workflowContextHB.getVersion())
+                .build(), threadContext);
+    }
+
+    @Override
+    public JsonNode projectChildContext(String childWorkflowId, Map<String, String> resultProjection, Map<String, String> threadContext) {
+        WorkflowContextHB childContextHB = contextStore.get(childWorkflowId, threadContext);
+        if (childContextHB == null) {
+            throw Activity.wrap(new RuntimeException("Workflow context not found for child workflowId: " + childWorkflowId));
+        }
+        ObjectNode projection = MAPPER.createObjectNode();
+        resultProjection.forEach((field, pointer) -> {
+            JsonNode value = ClaimCheck.at(childContextHB.getContext(), pointer);
+            if (!value.isMissingNode()) {
+                projection.set(field, value);
+            }
+        });
+        return projection;
+    }
+}
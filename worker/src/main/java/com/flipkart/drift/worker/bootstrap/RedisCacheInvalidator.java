@@ -3,6 +3,7 @@ package com.flipkart.drift.worker.bootstrap;
 import com.flipkart.drift.persistence.cache.EntityVersionedCache;
 import com.flipkart.drift.persistence.cache.NodeDefinitionCache;
 import com.flipkart.drift.persistence.cache.WorkflowCache;
+import com.flipkart.drift.worker.translator.ScriptWarmUp;
 import io.dropwizard.lifecycle.Managed;
 import lombok.extern.slf4j.Slf4j;
 import redis.clients.jedis.Jedis;
@@ -25,16 +26,19 @@ public class RedisCacheInvalidator implements Managed {
     private final NodeDefinitionCache nodeDefinitionCache;
     private final WorkflowCache workflowCache;
     private final JedisPoolAbstract jedisPool;
+    private final ScriptWarmUp scriptWarmUp;
     private final ExecutorService executorService;
     private volatile boolean running = false;  
     
     @Inject
     public RedisCacheInvalidator(NodeDefinitionCache nodeDefinitionCache,
                                  WorkflowCache workflowCache,
-                                 JedisPoolAbstract jedisPool) {
+                                 JedisPoolAbstract jedisPool,
+                                 ScriptWarmUp scriptWarmUp) {
         this.nodeDefinitionCache = nodeDefinitionCache;
         this.workflowCache = workflowCache;
         this.jedisPool = jedisPool;
+        this.scriptWarmUp = scriptWarmUp;
         this.executorService = Executors.newSingleThreadExecutor(
                 new ThreadFactoryBuilder()
                         .setNameFormat("redis-subscriber-%d")
@@ -67,6 +71,10 @@ public class RedisCacheInvalidator implements Managed {
                                             cache.invalidateAll();
                                         } else {
                                             cache.invalidate(parts[1]);
+                                            if (cache == workflowCache) {
+                                                // Reloads the published version with its scripts compiled
+                                                scriptWarmUp.warmUpAsync(parts[1]);
+                                            }
                                         }
                                     } else {
                                         log.warn("Unknown cache type: {}, ignoring msg {}", parts[0], message);
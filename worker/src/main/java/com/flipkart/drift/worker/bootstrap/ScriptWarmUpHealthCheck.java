@@ -0,0 +1,27 @@
+package com.flipkart.drift.worker.bootstrap;
+
+import com.codahale.metrics.health.HealthCheck;
+import com.flipkart.drift.worker.translator.ScriptWarmUp;
+import com.netflix.config.DynamicProperty;
+
+/**
+ * Reports unhealthy until {@link ScriptWarmUp} compiled the scripts of the cached workflow versions, so a readiness
+ * probe on the health checks holds traffic back until then. Always healthy unless the gate is enabled.
+ */
+public class ScriptWarmUpHealthCheck extends HealthCheck {
+    private static final String READINESS_GATE_PROPERTY = "groovy.warmUp.readinessGate";
+
+    private final ScriptWarmUp scriptWarmUp;
+
+    public ScriptWarmUpHealthCheck(ScriptWarmUp scriptWarmUp) {
+        this.scriptWarmUp = scriptWarmUp;
+    }
+
+    @Override
+    protected Result check() {
+        if (!DynamicProperty.getInstance(READINESS_GATE_PROPERTY).getBoolean(false) || scriptWarmUp.isWarmedUp()) {
+            return Result.healthy();
+        }
+        return Result.unhealthy("Script warm up in progress");
+    }
+}
@@ -1,6 +1,11 @@
 package com.flipkart.drift.worker.bootstrap;
 
 import com.flipkart.drift.persistence.bootstrap.DriftEntityModule;
+import com.flipkart.drift.worker.service.ClaimCheckService;
+import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.flipkart.drift.worker.store.ContextStore;
+import com.flipkart.drift.worker.translator.ScriptGroupReleaser;
+import com.flipkart.drift.worker.translator.ScriptWarmUp;
 import com.flipkart.drift.worker.util.AuthNTokenGenerator;
 import com.flipkart.drift.worker.config.DriftWorkerConfiguration;
 import com.flipkart.drift.worker.resources.DriftWorkerResource;
@@ -16,6 +21,7 @@ import com.uber.m3.tally.Scope;
 import io.dropwizard.Application;
 import io.dropwizard.configuration.EnvironmentVariableSubstitutor;
 import io.dropwizard.configuration.SubstitutingSourceProvider;
+import io.dropwizard.lifecycle.Managed;
 import io.dropwizard.setup.Bootstrap;
 import io.dropwizard.setup.Environment;
 import io.micrometer.prometheus.PrometheusConfig;
@@ -89,6 +95,25 @@ public class WorkerApplication extends Application<DriftWorkerConfiguration> {
     private void init(DriftWorkerConfiguration driftWorkerConfiguration, Environment environment, Scope metricsScope) {
         Injector injector;
         injector = Guice.createInjector(new WorkerModule(driftWorkerConfiguration), new DriftEntityModule());
+        // Stopped in reverse order, i.e. after the worker factory
+        environment.lifecycle().manage(injector.getInstance(ClaimCheckService.class));
+        environment.lifecycle().manage(injector.getInstance(WorkflowContextHBService.class));
+        ContextStore contextStore = injector.getInstance(ContextStore.class);
+        environment.lifecycle().manage(new Managed() {
+            @Override
+            public void start() {
+            }
+
+            @Override
+            public void stop() {
+                contextStore.close();
+            }
+        });
+        environment.lifecycle().manage(injector.getInstance(ScriptGroupReleaser.class));
+        // Started ahead of the worker factory, so the start warm up overlaps with it
+        ScriptWarmUp scriptWarmUp = injector.getInstance(ScriptWarmUp.class);
+        environment.lifecycle().manage(scriptWarmUp);
+        environment.healthChecks().register("scriptWarmUp", new ScriptWarmUpHealthCheck(scriptWarmUp));
         // Register worker factory as a managed component for graceful shutdown
         environment.lifecycle().manage(new TemporalWorkerManaged(injector, driftWorkerConfiguration, metricsScope));
         environment.lifecycle().manage(injector.getInstance(RedisCacheInvalidator.class));
@@ -3,9 +3,13 @@ package com.flipkart.drift.worker.bootstrap;
 import com.codahale.metrics.InstrumentedExecutorService;
 import com.flipkart.drift.commons.model.enums.WaitType;
 import com.flipkart.drift.persistence.bootstrap.CacheMaxEntriesConfig;
+import com.flipkart.drift.persistence.bootstrap.ContextCodecConfig;
+import com.flipkart.drift.persistence.bootstrap.RowKeySaltConfig;
 import com.flipkart.drift.persistence.bootstrap.StaticCacheRefreshConfig;
+import com.flipkart.drift.persistence.bootstrap.WriteBehindConfig;
 import com.flipkart.drift.persistence.dao.ConnectionType;
 import com.flipkart.drift.persistence.dao.IConnectionProvider;
+import com.flipkart.drift.persistence.dao.WorkflowContextHBDao;
 import com.flipkart.drift.worker.Utility.ABServiceInitializer;
 import com.flipkart.drift.worker.Utility.SchedulerInitializer;
 import com.flipkart.drift.worker.config.*;
@@ -14,11 +18,14 @@ import com.flipkart.drift.worker.executor.WaitTypeExecutor.AbsoluteWaitExecutor;
 import com.flipkart.drift.worker.executor.WaitTypeExecutor.OnEventExecutor;
 import com.flipkart.drift.worker.executor.WaitTypeExecutor.SchedulerWaitExecutor;
 import com.flipkart.drift.worker.executor.WaitTypeExecutor.WaitTypeExecutor;
+import com.flipkart.drift.worker.store.ContextStore;
+import com.flipkart.drift.worker.store.ContextStoreFactory;
 import com.flipkart.drift.worker.stringResolver.MustacheStringResolver;
 import com.flipkart.drift.worker.stringResolver.StringResolver;
 import com.flipkart.drift.commons.utils.MetricsRegistry;
 import com.google.inject.*;
 import com.google.inject.multibindings.MapBinder;
+import com.google.inject.name.Named;
 import com.google.inject.name.Names;
 import com.netflix.config.DynamicProperty;
 import lombok.extern.slf4j.Slf4j;
@@ -27,6 +34,7 @@ import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.client.AsyncConnection;
 import org.apache.hadoop.hbase.client.Connection;
 import org.apache.hadoop.hbase.client.ConnectionFactory;
 import org.apache.hadoop.security.UserGroupInformation;
@@ -91,6 +99,11 @@ public class WorkerModule extends AbstractModule {
             return injector.getInstance(Key.get(Connection.class, Names.named(connectionType.name())));
         }
 
+        @Override
+        public Optional<AsyncConnection> getAsyncConnection(ConnectionType connectionType) {
+            return Optional.of(injector.getInstance(Key.get(AsyncConnection.class, Names.named(connectionType.name()))));
+        }
+
         @Override
         public boolean isDegraded() {
             return false;
@@ -107,31 +120,123 @@ public class WorkerModule extends AbstractModule {
 
         @Override
         public Connection get() {
-            String zkQuorum;
             try {
-                zkQuorum = DynamicProperty.getInstance("zookeeper.quorum.hot").getString();
+                return ConnectionFactory.createConnection(createHBaseConfiguration(driftWorkerConfiguration, hotQuorum()));
             } catch (Exception e) {
-                throw new RuntimeException("Failed to fetch zookeeperQuorumHot from config", e);
+                log.error("Error while creating connection to HBase", e);
+                throw new RuntimeException("Failed to create HBase connection", e);
             }
+        }
+    }
+
+    public static class AsyncConnectionProviderWorker implements Provider<AsyncConnection> {
+        private final DriftWorkerConfiguration driftWorkerConfiguration;
 
-            if (StringUtils.isEmpty(zkQuorum)) {
-                log.error("ZOOKEEPER_QUORUM_WORKER not found in config service property");
-                throw new RuntimeException("ZOOKEEPER_QUORUM_WORKER not found in config service property");
+        @Inject
+        public AsyncConnectionProviderWorker(DriftWorkerConfiguration driftWorkerConfiguration) {
+            this.driftWorkerConfiguration = driftWorkerConfiguration;
+        }
+
+        @Override
+        public AsyncConnection get() {
+            try {
+                return ConnectionFactory.createAsyncConnection(createHBaseConfiguration(driftWorkerConfiguration, hotQuorum())).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while creating async HBase connection", e);
+            } catch (Exception e) {
+                log.error("Error while creating async connection to HBase", e);
+                throw new RuntimeException("Failed to create async HBase connection", e);
             }
-            Configuration configuration = HBaseConfiguration.create();
-            configuration.set(HConstants.ZOOKEEPER_QUORUM, zkQuorum);
-            applyHadoopIdentity(driftWorkerConfiguration);
-            populateBasicFields(configuration);
+        }
+    }
 
+    /**
+     * The cold tier lives in its own namespace, on its own cluster only if {@code zookeeper.quorum.cold} is set.
+     * Otherwise it shares the connection of the hot tier.
+     */
+    public static class ColdConnectionProviderWorker implements Provider<Connection> {
+        private final DriftWorkerConfiguration driftWorkerConfiguration;
+        private final Provider<Connection> hotConnectionProvider;
+
+        @Inject
+        public ColdConnectionProviderWorker(DriftWorkerConfiguration driftWorkerConfiguration,
+                                            @Named("HOT") Provider<Connection> hotConnectionProvider) {
+            this.driftWorkerConfiguration = driftWorkerConfiguration;
+            this.hotConnectionProvider = hotConnectionProvider;
+        }
+
+        @Override
+        public Connection get() {
+            String coldQuorum = coldQuorum();
+            if (StringUtils.isBlank(coldQuorum)) {
+                return hotConnectionProvider.get();
+            }
             try {
-                return ConnectionFactory.createConnection(configuration);
+                return ConnectionFactory.createConnection(createHBaseConfiguration(driftWorkerConfiguration, coldQuorum));
             } catch (Exception e) {
-                log.error("Error while creating connection to HBase", e);
-                throw new RuntimeException("Failed to create HBase connection", e);
+                log.error("Error while creating connection to cold HBase", e);
+                throw new RuntimeException("Failed to create cold HBase connection", e);
+            }
+        }
+    }
+
+    public static class ColdAsyncConnectionProviderWorker implements Provider<AsyncConnection> {
+        private final DriftWorkerConfiguration driftWorkerConfiguration;
+        private final Provider<AsyncConnection> hotAsyncConnectionProvider;
+
+        @Inject
+        public ColdAsyncConnectionProviderWorker(DriftWorkerConfiguration driftWorkerConfiguration,
+                                                 @Named("HOT") Provider<AsyncConnection> hotAsyncConnectionProvider) {
+            this.driftWorkerConfiguration = driftWorkerConfiguration;
+            this.hotAsyncConnectionProvider = hotAsyncConnectionProvider;
+        }
+
+        @Override
+        public AsyncConnection get() {
+            String coldQuorum = coldQuorum();
+            if (StringUtils.isBlank(coldQuorum)) {
+                return hotAsyncConnectionProvider.get();
+            }
+            try {
+                return ConnectionFactory.createAsyncConnection(createHBaseConfiguration(driftWorkerConfiguration, coldQuorum)).get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while creating async cold HBase connection", e);
+            } catch (Exception e) {
+                log.error("Error while creating async connection to cold HBase", e);
+                throw new RuntimeException("Failed to create async cold HBase connection", e);
             }
         }
     }
 
+    private static String hotQuorum() {
+        String zkQuorum;
+        try {
+            zkQuorum = DynamicProperty.getInstance("zookeeper.quorum.hot").getString();
+        } catch (Exception e) {
+            throw new RuntimeException("Failed to fetch zookeeperQuorumHot from config", e);
+        }
+
+        if (StringUtils.isEmpty(zkQuorum)) {
+            log.error("ZOOKEEPER_QUORUM_WORKER not found in config service property");
+            throw new RuntimeException("ZOOKEEPER_QUORUM_WORKER not found in config service property");
+        }
+        return zkQuorum;
+    }
+
+    private static String coldQuorum() {
+        return DynamicProperty.getInstance("zookeeper.quorum.cold").getString();
+    }
+
+    private static Configuration createHBaseConfiguration(DriftWorkerConfiguration driftWorkerConfiguration, String zkQuorum) {
+        Configuration configuration = HBaseConfiguration.create();
+        configuration.set(HConstants.ZOOKEEPER_QUORUM, zkQuorum);
+        applyHadoopIdentity(driftWorkerConfiguration);
+        populateBasicFields(configuration);
+        return configuration;
+    }
+
     private static void populateBasicFields(Configuration configuration) {
         configuration.set("hbase.zookeeper.property.clientPort", "2181");
         configuration.set(HConstants.ZK_SESSION_TIMEOUT, "60000");
@@ -169,6 +274,10 @@ public class WorkerModule extends AbstractModule {
         bind(DriftWorkerConfiguration.class).toInstance(driftWorkerConfiguration);
         bind(StringResolver.class).to(MustacheStringResolver.class);
         bind(Connection.class).annotatedWith(Names.named(ConnectionType.HOT.name())).toProvider(ConnectionProviderWorker.class).asEagerSingleton();
+        bind(AsyncConnection.class).annotatedWith(Names.named(ConnectionType.HOT.name())).toProvider(AsyncConnectionProviderWorker.class).asEagerSingleton();
+        // Only connected once a cold read or archival needs it
+        bind(Connection.class).annotatedWith(Names.named(ConnectionType.COLD.name())).toProvider(ColdConnectionProviderWorker.class).in(Singleton.class);
+        bind(AsyncConnection.class).annotatedWith(Names.named(ConnectionType.COLD.name())).toProvider(ColdAsyncConnectionProviderWorker.class).in(Singleton.class);
         bind(IConnectionProvider.class).to(ConnectionProvider.class).asEagerSingleton();
 
         MapBinder<WaitType, WaitTypeExecutor> waitTypeExecutorMapBinder = MapBinder.newMapBinder(binder(),
@@ -196,6 +305,23 @@ public class WorkerModule extends AbstractModule {
         return new InstrumentedExecutorService(executorService, MetricsRegistry.INSTANCE.getRegistry(), "ScanThreadPool");
     }
 
+    @Provides
+    @Singleton
+    @Named(WorkflowContextHBDao.ASYNC_EXECUTOR)
+    private ExecutorService provideContextAsyncThreadPool() {
+        ExecutorServiceConfig executorServiceConfig = driftWorkerConfiguration.getContextAsyncExecutorServiceConfig();
+
+        // A full queue runs callbacks on the HBase RPC thread that completed the read, slowing further reads down
+        ExecutorService executorService = new ThreadPoolExecutor(executorServiceConfig.getMinThreads(),
+                executorServiceConfig.getMaxThreads(),
+                5L,
+                TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(executorServiceConfig.getQueueSize()),
+                new ThreadPoolExecutor.CallerRunsPolicy()
+        );
+        return new InstrumentedExecutorService(executorService, MetricsRegistry.INSTANCE.getRegistry(), "ContextAsyncThreadPool");
+    }
+
     @Provides
     @Singleton
     private StaticCacheRefreshConfig provideCacheRefreshConfig() {
@@ -208,6 +334,52 @@ public class WorkerModule extends AbstractModule {
         return driftWorkerConfiguration.getCacheMaxEntriesConfig();
     }
 
+    @Provides
+    @Singleton
+    private ContextCacheConfig provideContextCacheConfig() {
+        return driftWorkerConfiguration.getContextCacheConfig();
+    }
+
+    @Provides
+    @Singleton
+    private ContextCodecConfig provideContextCodecConfig() {
+        return driftWorkerConfiguration.getContextCodecConfig();
+    }
+
+    @Provides
+    @Singleton
+    private RowKeySaltConfig provideContextRowKeySaltConfig() {
+        return driftWorkerConfiguration.getContextRowKeySaltConfig();
+    }
+
+    @Provides
+    @Singleton
+    private WriteBehindConfig provideContextWriteBehindConfig() {
+        return driftWorkerConfiguration.getContextWriteBehindConfig();
+    }
+
+    @Provides
+    @Singleton
+    private ContextTieringConfig provideContextTieringConfig() {
+        return driftWorkerConfiguration.getContextTieringConfig();
+    }
+
+    /**
+     * The store is created by the service loader, so its dependencies are injected into the instance.
+     */
+    @Provides
+    @Singleton
+    public ContextStore provideContextStore(Injector injector) {
+        ContextStore contextStore = ContextStoreFactory.getInstance();
+        injector.injectMembers(contextStore);
+        log.info("Initializing context store: {}", contextStore.getName());
+        contextStore.init();
+        if (!contextStore.isInitialized()) {
+            throw new RuntimeException("Context store initialization failed: " + contextStore.getName());
+        }
+        return contextStore;
+    }
+
     /**
      * Provide ABServiceInitializer as a singleton.
      * ABServiceInitializer is completely agnostic of provider implementations.
@@ -0,0 +1,16 @@
+package com.flipkart.drift.worker.config;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+public class ContextCacheConfig {
+    @NotNull
+    private Boolean enabled;
+    // Upper bound on the serialized size of all cached contexts
+    @NotNull
+    private Long maxWeightBytes;
+    @NotNull
+    private Long expireAfterAccessSeconds;
+}
@@ -0,0 +1,22 @@
+package com.flipkart.drift.worker.config;
+
+import lombok.Data;
+
+import javax.validation.constraints.NotNull;
+
+@Data
+public class ContextTieringConfig {
+    // Contexts missing in the hot tier are read from the cold tier
+    @NotNull
+    private Boolean coldReads;
+    // Periodically moves contexts of completed workflows to the cold tier, needs coldReads
+    @NotNull
+    private Boolean archivalEnabled;
+    @NotNull
+    private Integer archiveAfterDays;
+    // Most contexts moved per run
+    @NotNull
+    private Integer archivalBatchSize;
+    @NotNull
+    private Integer archivalIntervalMinutes;
+}
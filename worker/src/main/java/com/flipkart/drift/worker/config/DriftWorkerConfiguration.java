@@ -2,6 +2,9 @@ package com.flipkart.drift.worker.config;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.flipkart.drift.persistence.bootstrap.CacheMaxEntriesConfig;
+import com.flipkart.drift.persistence.bootstrap.ContextCodecConfig;
+import com.flipkart.drift.persistence.bootstrap.RowKeySaltConfig;
+import com.flipkart.drift.persistence.bootstrap.WriteBehindConfig;
 import com.flipkart.drift.persistence.bootstrap.StaticCacheRefreshConfig;
 import io.dropwizard.Configuration;
 import lombok.Getter;
@@ -18,6 +21,8 @@ public class DriftWorkerConfiguration extends Configuration {
     @NotNull
     private ExecutorServiceConfig cacheRefreshExecutorServiceConfig;
     @NotNull
+    private ExecutorServiceConfig contextAsyncExecutorServiceConfig;
+    @NotNull
     private StaticCacheRefreshConfig staticCacheRefreshConfig;
     @NotNull
     private CacheMaxEntriesConfig cacheMaxEntriesConfig;
@@ -35,6 +40,16 @@ public class DriftWorkerConfiguration extends Configuration {
     private Long awaitTerminationTimeoutInSec;
     @NotNull
     private WorkerDynamicOptions workerDynamicOptions;
+    @NotNull
+    private ContextCacheConfig contextCacheConfig;
+    @NotNull
+    private ContextCodecConfig contextCodecConfig;
+    @NotNull
+    private RowKeySaltConfig contextRowKeySaltConfig;
+    @NotNull
+    private WriteBehindConfig contextWriteBehindConfig;
+    @NotNull
+    private ContextTieringConfig contextTieringConfig;
 
     private String temporalTaskQueue;
 
@@ -1,5 +1,6 @@
 package com.flipkart.drift.worker.model.activity;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.flipkart.drift.commons.model.node.NodeDefinition;
 import com.flipkart.drift.commons.model.node.WorkflowNode;
 import lombok.AllArgsConstructor;
@@ -18,4 +19,8 @@ public class ActivityThinRequest<T extends NodeDefinition> {
     private WorkflowNode workflowNode;
     private T nodeDefinition;
     private Map<String, String> threadContext;
+    // Responses of earlier nodes of the same parallel branch, not yet persisted in the context
+    private Map<String, JsonNode> contextOverlay;
+    // Parallel branch nodes leave persistence to the join, which merges all branch responses in one write
+    private boolean deferContextUpdate;
 }
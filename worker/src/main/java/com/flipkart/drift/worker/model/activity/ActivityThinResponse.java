@@ -20,4 +20,6 @@ public class ActivityThinResponse implements Serializable {
     private JsonNode errorResponse;
     private View view;
     private String disposition;
+    // Set by segments: instance name of the last node run, the workflow continues from its next node
+    private String segmentTail;
 }
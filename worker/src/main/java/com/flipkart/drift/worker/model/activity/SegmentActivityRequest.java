@@ -0,0 +1,20 @@
+package com.flipkart.drift.worker.model.activity;
+
+import com.flipkart.drift.commons.model.node.WorkflowNode;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+public class SegmentActivityRequest {
+    private String workflowId;
+    private String startNode;
+    private Map<String, WorkflowNode> states;
+    private Map<String, String> threadContext;
+}
@@ -6,6 +6,7 @@ import com.flipkart.drift.sdk.model.enums.WorkflowStatus;
 import lombok.*;
 
 import java.io.Serializable;
+import java.util.Set;
 
 @AllArgsConstructor
 @NoArgsConstructor
@@ -14,4 +15,12 @@ import java.io.Serializable;
 public class WorkflowContext implements Serializable {
     private String workflowId;
     private ObjectNode context;
+    // Top level keys changed since the context was read, null when unknown. Lets node column storage write only these
+    private Set<String> updatedKeys;
+    // Set by the write that ends the workflow, epoch millis
+    private Long completedAt;
+    // The context was read projected to a read set, so only updatedKeys may be written
+    private boolean partial;
+    // Version of the stored context when it was read, null to write unchecked
+    private Long expectedVersion;
 }
@@ -2,13 +2,21 @@ package com.flipkart.drift.worker.resources;
 
 import com.codahale.metrics.annotation.ExceptionMetered;
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.persistence.dao.ArchivalResult;
+import com.flipkart.drift.persistence.dao.BatchGetResult;
+import com.flipkart.drift.persistence.dao.RowKeyMigrationResult;
 import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.flipkart.drift.worker.Utility.ClaimCheck;
 import com.flipkart.drift.worker.service.WorkflowContextHBService;
 import com.google.inject.Inject;
 
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 @Path("/v3")
@@ -33,6 +41,73 @@ public class DriftWorkerResource {
         threadContext.put("tenant", "cs");
         threadContext.put("userName", "ims-worker-context-api");
         threadContext.put("perfFlag", "false");
-        return workflowContextHBService.getEntityById(workflowId, threadContext);
+        WorkflowContextHB workflowContextHB = workflowContextHBService.getEntityById(workflowId, threadContext);
+        // Claim checked values are returned in full
+        if (workflowContextHB != null && workflowContextHB.getContext() != null) {
+            workflowContextHB.setContext((ObjectNode) ClaimCheck.resolveAll(workflowContextHB.getContext()));
+        }
+        return workflowContextHB;
+    }
+
+    /**
+     * Contexts of up to {@code context.batchGet.maxIds} workflows, split into found, missing and failed ids. Claim
+     * checked values are returned in full, a blob that can't be resolved fails only its own id.
+     */
+    @POST
+    @Timed
+    @Path("/workflow/context/batch")
+    @ExceptionMetered
+    public BatchGetResult<String, WorkflowContextHB> getWorkflowContexts(List<String> workflowIds) {
+        BatchGetResult<String, WorkflowContextHB> batchGetResult = workflowContextHBService.getEntitiesByIds(workflowIds);
+        Iterator<Map.Entry<String, WorkflowContextHB>> found = batchGetResult.getFound().entrySet().iterator();
+        while (found.hasNext()) {
+            Map.Entry<String, WorkflowContextHB> entry = found.next();
+            if (entry.getValue().getContext() == null) {
+                continue;
+            }
+            try {
+                entry.getValue().setContext((ObjectNode) ClaimCheck.resolveAll(entry.getValue().getContext()));
+            } catch (IllegalStateException e) {
+                found.remove();
+                batchGetResult.getFailed().put(entry.getKey(), e.getMessage());
+            }
+        }
+        return batchGetResult;
+    }
+
+    /**
+     * Moves a batch of contexts of completed workflows to the cold tier, as the periodic archival does.
+     */
+    @POST
+    @Timed
+    @Path("/workflow/context/archive")
+    @ExceptionMetered
+    public ArchivalResult archiveCompletedContexts(@QueryParam("limit") @DefaultValue("1000") int limit) {
+        return workflowContextHBService.archiveCompleted(limit);
+    }
+
+    @POST
+    @Timed
+    @Path("/workflow/context/{workflowId}/migrate")
+    @ExceptionMetered
+    public Map<String, Boolean> migrateWorkflowContext(@PathParam("workflowId") String workflowId) {
+        return Collections.singletonMap("migrated", workflowContextHBService.migrateToNodeColumns(workflowId));
+    }
+
+    @POST
+    @Timed
+    @Path("/workflow/context/rowkey/migrate")
+    @ExceptionMetered
+    public RowKeyMigrationResult migrateWorkflowContextRowKeys(@QueryParam("startRow") String startRow,
+                                                               @QueryParam("limit") @DefaultValue("1000") int limit) {
+        return workflowContextHBService.migrateToSaltedRowKeys(startRow, limit);
+    }
+
+    @POST
+    @Timed
+    @Path("/workflow/context/rowkey/split")
+    @ExceptionMetered
+    public Map<String, Integer> splitWorkflowContextTable() {
+        return Collections.singletonMap("requested", workflowContextHBService.preSplit());
     }
 }
@@ -0,0 +1,188 @@
+package com.flipkart.drift.worker.service;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.POJONode;
+import com.flipkart.drift.commons.utils.ObjectMapperUtil;
+import com.flipkart.drift.persistence.dao.ConnectionType;
+import com.flipkart.drift.persistence.dao.ContextBlobHBDao;
+import com.flipkart.drift.persistence.entity.ContextBlobHB;
+import com.flipkart.drift.worker.Utility.ClaimCheck;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.config.DynamicProperty;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static com.flipkart.drift.commons.utils.MetricsRegistry.histogram;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.markMeter;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.registerGauge;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.timerContext;
+
+/**
+ * Offloads top level context values larger than {@code context.claimCheck.thresholdBytes} to blobs before the
+ * context is written, see {@link ClaimCheck}. Blobs never change, so resolved ones are cached by their key.
+ * <p>
+ * A blob is superseded once a context write replaces the reference to it. It is deleted
+ * {@code context.claimCheck.deleteSupersededAfterSeconds} later, as readers of the previous context may still
+ * resolve it meanwhile. Deletions pending when the worker stops are dropped, and those blobs are kept.
+ */
+@Slf4j
+@Singleton
+public class ClaimCheckService implements Managed {
+    // 0 disables offloading, references already written are still resolved
+    private static final String THRESHOLD_BYTES_PROPERTY = "context.claimCheck.thresholdBytes";
+    // 0 keeps superseded blobs
+    private static final String DELETE_SUPERSEDED_AFTER_SECONDS_PROPERTY = "context.claimCheck.deleteSupersededAfterSeconds";
+    private static final long DEFAULT_DELETE_SUPERSEDED_AFTER_SECONDS = 600;
+    private static final long BLOB_CACHE_MAX_ENTRIES = 256;
+
+    private final ContextBlobHBDao contextBlobHBDao;
+    private final Cache<String, JsonNode> blobCache;
+    private final ScheduledExecutorService deleteExecutor;
+
+    @Inject
+    public ClaimCheckService(ContextBlobHBDao contextBlobHBDao) {
+        this.contextBlobHBDao = contextBlobHBDao;
+        this.blobCache = CacheBuilder.newBuilder()
+                .maximumSize(BLOB_CACHE_MAX_ENTRIES)
+                .softValues()
+                .build();
+        this.deleteExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "claim-check-delete");
+            thread.setDaemon(true);
+            return thread;
+        });
+        registerGauge(this.getClass(), (Gauge<Long>) blobCache::size, "blobCache", "size");
+        ClaimCheck.setResolver(this::resolve);
+    }
+
+    @Override
+    public void start() {
+    }
+
+    @Override
+    public void stop() {
+        deleteExecutor.shutdownNow();
+    }
+
+    /**
+     * Writes the given keys' values that exceed the threshold as blobs.
+     *
+     * @return a shallow copy of the context with those values replaced by references, or the context itself when
+     * nothing was offloaded
+     */
+    public ObjectNode offload(String workflowId, ObjectNode context, Collection<String> keys, long stamp) throws IOException {
+        long thresholdBytes = DynamicProperty.getInstance(THRESHOLD_BYTES_PROPERTY).getLong(0L);
+        if (thresholdBytes <= 0 || context == null) {
+            return context;
+        }
+        ObjectNode offloaded = null;
+        for (String key : keys) {
+            JsonNode value = context.get(key);
+            // Node responses are put as POJOs
+            if (value == null || !(value.isContainerNode() || value.isPojo()) || ClaimCheck.isReference(value)) {
+                continue;
+            }
+            int bytes = ObjectMapperUtil.INSTANCE.getMapper().writeValueAsBytes(value).length;
+            if (bytes < thresholdBytes) {
+                continue;
+            }
+            if (value.isPojo()) {
+                value = ObjectMapperUtil.INSTANCE.getMapper().valueToTree(((POJONode) value).getPojo());
+                if (!value.isContainerNode()) {
+                    continue;
+                }
+            }
+            ContextBlobHB contextBlobHB = new ContextBlobHB();
+            contextBlobHB.setBlobKey(blobKey(workflowId, key, stamp));
+            contextBlobHB.setWorkflowId(workflowId);
+            contextBlobHB.setValue(value);
+            try (Timer.Context ignored = timerContext(this.getClass(), "offload", "latency")) {
+                contextBlobHBDao.persist(contextBlobHB, ConnectionType.HOT);
+            }
+            if (offloaded == null) {
+                offloaded = ObjectMapperUtil.INSTANCE.getMapper().createObjectNode();
+                offloaded.setAll(context);
+            }
+            offloaded.set(key, ClaimCheck.reference(contextBlobHB.getBlobKey(), bytes, value.isArray()));
+            markMeter(this.getClass(), "offloaded");
+            histogram(this.getClass(), bytes, "offloadedBytes");
+            log.info("Offloaded {} bytes of key {} of workflowId: {}", bytes, key, workflowId);
+        }
+        return offloaded != null ? offloaded : context;
+    }
+
+    /**
+     * @return the blob, shared with other readers of the same key, so it must not be modified
+     */
+    public JsonNode resolve(String blobKey) {
+        markMeter(this.getClass(), "resolutions");
+        try {
+            return blobCache.get(blobKey, () -> {
+                markMeter(this.getClass(), "blobCache", "miss");
+                try (Timer.Context ignored = timerContext(this.getClass(), "resolve", "latency")) {
+                    ContextBlobHB contextBlobHB = contextBlobHBDao.get(blobKey, ConnectionType.HOT);
+                    if (contextBlobHB == null || contextBlobHB.getValue() == null) {
+                        throw new IllegalStateException("Claim checked blob not found: " + blobKey);
+                    }
+                    return contextBlobHB.getValue();
+                }
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            log.error("Error while resolving claim checked blob: {}", blobKey, e.getCause());
+            throw new IllegalStateException("Error while resolving claim checked blob: " + blobKey, e.getCause());
+        }
+    }
+
+    /**
+     * Schedules the deletion of the blobs that the previous context referenced at the given keys and the written
+     * one no longer does. Call only once the written context is stored.
+     */
+    public void deleteSuperseded(String workflowId, JsonNode previous, JsonNode written, Collection<String> keys) {
+        long delaySeconds = DynamicProperty.getInstance(DELETE_SUPERSEDED_AFTER_SECONDS_PROPERTY).getLong(DEFAULT_DELETE_SUPERSEDED_AFTER_SECONDS);
+        if (delaySeconds <= 0 || previous == null || written == null) {
+            return;
+        }
+        ArrayList<String> blobKeys = new ArrayList<>();
+        for (String key : keys) {
+            String blobKey = ClaimCheck.blobKey(previous.get(key));
+            if (blobKey != null && !blobKey.equals(ClaimCheck.blobKey(written.get(key)))) {
+                blobKeys.add(blobKey);
+            }
+        }
+        if (blobKeys.isEmpty() || deleteExecutor.isShutdown()) {
+            return;
+        }
+        deleteExecutor.schedule(() -> delete(workflowId, blobKeys), delaySeconds, TimeUnit.SECONDS);
+    }
+
+    private void delete(String workflowId, ArrayList<String> blobKeys) {
+        try {
+            contextBlobHBDao.delete(blobKeys, ConnectionType.HOT);
+            blobKeys.forEach(blobCache::invalidate);
+            markMeter(this.getClass(), blobKeys.size(), "superseded", "deleted");
+        } catch (IOException e) {
+            markMeter(this.getClass(), blobKeys.size(), "superseded", "failed");
+            log.warn("Unable to delete superseded blobs {} of workflowId: {}", blobKeys, workflowId, e);
+        }
+    }
+
+    // Led by the stamp, so that blobs are spread over the table rather than following the workflow ids
+    private static String blobKey(String workflowId, String key, long stamp) {
+        return String.format("%016x_%s_%s", stamp, workflowId, key);
+    }
+}
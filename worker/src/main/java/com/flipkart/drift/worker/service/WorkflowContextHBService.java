@@ -1,29 +1,106 @@
 package com.flipkart.drift.worker.service;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.persistence.dao.ArchivalResult;
+import com.flipkart.drift.persistence.dao.BatchGetResult;
 import com.flipkart.drift.persistence.dao.ConnectionType;
+import com.flipkart.drift.persistence.dao.RowKeyMigrationResult;
 import com.flipkart.drift.persistence.dao.WorkflowContextHBDao;
 import com.flipkart.drift.commons.exception.ApiException;
+import com.flipkart.drift.commons.exception.VersionConflictException;
+import com.flipkart.drift.worker.Utility.ClaimCheck;
+import com.flipkart.drift.worker.config.ContextCacheConfig;
+import com.flipkart.drift.worker.config.ContextTieringConfig;
 import com.flipkart.drift.worker.model.workflow.WorkflowContext;
 import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.flipkart.drift.commons.utils.ObjectMapperUtil;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.config.DynamicProperty;
 import com.uber.m3.tally.Scope;
 import com.uber.m3.tally.Stopwatch;
+import io.dropwizard.lifecycle.Managed;
 import io.temporal.activity.Activity;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
 import javax.ws.rs.core.Response;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 
+import static com.flipkart.drift.commons.utils.MetricsRegistry.histogram;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.markMeter;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.registerGauge;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.timerContext;
+
+/**
+ * Reads and writes workflow contexts. Sticky task queues keep a workflow on one worker, so the context written by the
+ * last node is cached here, along with the stamp it was written with. A read only fetches the stamp column, and the
+ * full row is loaded only when the stamp changed, i.e. another worker wrote the context since.
+ * <p>
+ * Contexts of completed workflows are moved to the cold tier after {@link ContextTieringConfig#getArchiveAfterDays()}.
+ * Reads that miss the hot tier fall through to the cold one, and a write to an archived context brings it back.
+ * <p>
+ * Large node responses are offloaded by {@link ClaimCheckService} on write, so the stored and cached context only
+ * holds references to them. Blobs the write replaced a reference to are deleted by it too.
+ * <p>
+ * Writes are checked against the version the context was read with, see {@link WorkflowContext#getExpectedVersion()}.
+ * On a conflict the updated keys are applied again on top of the stored context, up to
+ * {@code context.write.maxMergeRetries} times.
+ */
 @Slf4j
-public class WorkflowContextHBService {
+@Singleton
+public class WorkflowContextHBService implements Managed {
+    // Readers handle both storages, so this can be switched at any time
+    private static final String NODE_COLUMN_STORAGE_PROPERTY = "context.storage.nodeColumns.enabled";
+    private static final String BATCH_GET_MAX_IDS_PROPERTY = "context.batchGet.maxIds";
+    private static final int DEFAULT_BATCH_GET_MAX_IDS = 100;
+    private static final String MAX_MERGE_RETRIES_PROPERTY = "context.write.maxMergeRetries";
+    private static final int DEFAULT_MAX_MERGE_RETRIES = 3;
     private final WorkflowContextHBDao workflowContextHBDao;
-
+    private final ClaimCheckService claimCheckService;
+    private final ContextTieringConfig contextTieringConfig;
+    private final boolean cacheEnabled;
+    // Contexts are cached serialized, which bounds memory by weight and hands every reader its own copy
+    private final Cache<String, CachedContext> contextCache;
+    private ScheduledExecutorService archivalExecutor;
 
     @Inject
-    public WorkflowContextHBService(WorkflowContextHBDao workflowContextHBDao) {
+    public WorkflowContextHBService(WorkflowContextHBDao workflowContextHBDao, ClaimCheckService claimCheckService,
+                                    ContextCacheConfig contextCacheConfig, ContextTieringConfig contextTieringConfig) {
         this.workflowContextHBDao = workflowContextHBDao;
+        this.claimCheckService = claimCheckService;
+        this.contextTieringConfig = contextTieringConfig;
+        this.cacheEnabled = contextCacheConfig.getEnabled();
+        this.contextCache = CacheBuilder.newBuilder()
+                .maximumWeight(contextCacheConfig.getMaxWeightBytes())
+                .weigher((String workflowId, CachedContext cachedContext) -> cachedContext.getContext().length)
+                .expireAfterAccess(contextCacheConfig.getExpireAfterAccessSeconds(), TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+        registerGauge(this.getClass(), (Gauge<Long>) contextCache::size, "contextCache", "size");
+        registerGauge(this.getClass(), (Gauge<Long>) () -> contextCache.stats().evictionCount(), "contextCache", "evictions");
     }
 
     public void createEntity(WorkflowContext workflowContext, Map<String, String> threadContext) {
@@ -31,10 +108,21 @@ public class WorkflowContextHBService {
             try {
                 WorkflowContextHB workflowContextHB = new WorkflowContextHB();
                 workflowContextHB.setWorkflowId(workflowContext.getWorkflowId());
-                workflowContextHB.setContext(workflowContext.getContext());
-                workflowContextHBDao.upsert(workflowContextHB, ConnectionType.HOT);
+                workflowContextHB.setStamp(nextStamp());
+                workflowContextHB.setVersion(WorkflowContextHBDao.nextVersion(null));
+                workflowContextHB.setContext(claimCheckService.offload(workflowContext.getWorkflowId(), workflowContext.getContext(),
+                        allKeys(workflowContext.getContext()), workflowContextHB.getStamp()));
+                if (workflowContextHBDao.isWriteBehindEnabled()) {
+                    createBuffered(workflowContextHB);
+                } else if (isNodeColumnStorage()) {
+                    workflowContextHBDao.putNodeColumns(workflowContextHB, allKeys(workflowContextHB.getContext()), true, ConnectionType.HOT);
+                } else {
+                    workflowContextHBDao.upsert(workflowContextHB, ConnectionType.HOT);
+                }
+                cacheContext(workflowContextHB);
                 return null;
             } catch (IOException e) {
+                contextCache.invalidate(workflowContext.getWorkflowId());
                 log.error("Error while creating workflow context for workflowId: {}", workflowContext.getWorkflowId(), e);
                 throw new ApiException(e.getCause().getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e);
             }
@@ -46,10 +134,40 @@ public class WorkflowContextHBService {
             try {
                 WorkflowContextHB workflowContextHB = new WorkflowContextHB();
                 workflowContextHB.setWorkflowId(workflowContext.getWorkflowId());
-                workflowContextHB.setContext(workflowContext.getContext());
-                workflowContextHBDao.update(workflowContextHB, workflowContextHB.getWorkflowId(), ConnectionType.HOT);
+                workflowContextHB.setStamp(nextStamp());
+                Collection<String> keys = workflowContext.getUpdatedKeys() != null ? workflowContext.getUpdatedKeys() : allKeys(workflowContext.getContext());
+                workflowContextHB.setContext(claimCheckService.offload(workflowContext.getWorkflowId(), workflowContext.getContext(),
+                        keys, workflowContextHB.getStamp()));
+                workflowContextHB.setCompletedAt(workflowContext.getCompletedAt());
+                workflowContextHB.setVersion(workflowContext.getExpectedVersion());
+                if (workflowContext.isPartial() && workflowContext.getUpdatedKeys() == null) {
+                    throw new IllegalArgumentException("A partial context can only be written with its updated keys");
+                }
+                CachedContext previous = cacheEnabled ? contextCache.getIfPresent(workflowContext.getWorkflowId()) : null;
+                WriteOutcome outcome = writeMerging(workflowContextHB, workflowContext.getUpdatedKeys(), workflowContext.isPartial());
+                if (outcome == WriteOutcome.NOT_FOUND) {
+                    if (restoreFromCold(workflowContextHB, workflowContext.isPartial() ? workflowContext.getUpdatedKeys() : null)) {
+                        outcome = WriteOutcome.WRITTEN;
+                    } else {
+                        markMeter(this.getClass(), "update", "missing");
+                        log.warn("Not updating missing workflow context for workflowId: {}", workflowContext.getWorkflowId());
+                    }
+                }
+                if (outcome == WriteOutcome.WRITTEN) {
+                    deleteSupersededBlobs(workflowContextHB, workflowContext.getUpdatedKeys(), previous);
+                }
+                // A partial context would be taken for the whole one, a merged one may miss the keys it was merged with
+                if (outcome == WriteOutcome.WRITTEN && !workflowContext.isPartial()) {
+                    cacheContext(workflowContextHB);
+                } else {
+                    contextCache.invalidate(workflowContext.getWorkflowId());
+                }
                 return null;
+            } catch (VersionConflictException e) {
+                contextCache.invalidate(workflowContext.getWorkflowId());
+                throw e;
             } catch (IOException e) {
+                contextCache.invalidate(workflowContext.getWorkflowId());
                 log.error("Error while updating workflow context for workflowId: {}", workflowContext.getWorkflowId(), e);
                 throw new ApiException(e.getCause().getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e);
             }
@@ -57,16 +175,429 @@ public class WorkflowContextHBService {
     }
 
     public WorkflowContextHB getEntityById(String workflowId, Map<String, String> threadContext) {
-        return executeWithMetrics("workflow_context_get", () -> {
+        try {
+            return getEntityByIdAsync(workflowId, threadContext).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ApiException) {
+                throw (ApiException) e.getCause();
+            }
+            throw new ApiException(e.getCause().getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e.getCause());
+        }
+    }
+
+    /**
+     * Reads the context without blocking the caller, so that it can prepare the work that needs the context meanwhile.
+     */
+    public CompletableFuture<WorkflowContextHB> getEntityByIdAsync(String workflowId, Map<String, String> threadContext) {
+        return executeAsyncWithMetrics("workflow_context_get", () -> {
+            if (!cacheEnabled) {
+                return readTiersAsync(workflowId, null, false);
+            }
+            CachedContext cachedContext = contextCache.getIfPresent(workflowId);
+            if (cachedContext == null) {
+                markMeter(this.getClass(), "contextCache", "miss");
+                return loadAsync(workflowId);
+            }
+            return workflowContextHBDao.getStampAsync(workflowId, ConnectionType.HOT).thenCompose(stamp -> {
+                if (Objects.equals(cachedContext.getStamp(), stamp)) {
+                    markMeter(this.getClass(), "contextCache", "hit");
+                    return CompletableFuture.completedFuture(toEntity(workflowId, cachedContext));
+                }
+                // Written elsewhere since, e.g. the workflow ran on another worker in between
+                markMeter(this.getClass(), "contextCache", "stale");
+                contextCache.invalidate(workflowId);
+                return loadAsync(workflowId);
+            });
+        }).whenComplete((workflowContextHB, throwable) -> {
+            if (throwable != null) {
+                log.error("Error while fetching workflow context for workflowId: {}", workflowId, throwable);
+            }
+        });
+    }
+
+    /**
+     * Reads only the given top level keys of the context, for nodes that declare a read set. The result may hold
+     * more keys, and must be written back with {@link WorkflowContext#isPartial()} set. A valid cached context is
+     * projected without parsing the other keys, otherwise only the keys' node columns are read. Partial contexts
+     * aren't cached. Contexts stored in a single column are read in full.
+     */
+    public CompletableFuture<WorkflowContextHB> getProjectedEntityByIdAsync(String workflowId, Set<String> keys, Map<String, String> threadContext) {
+        if (!isNodeColumnStorage()) {
+            return getEntityByIdAsync(workflowId, threadContext);
+        }
+        return executeAsyncWithMetrics("workflow_context_get_projected", () -> {
+            histogram(this.getClass(), keys.size(), "projection", "keys");
+            CachedContext cachedContext = cacheEnabled ? contextCache.getIfPresent(workflowId) : null;
+            if (cachedContext == null) {
+                markMeter(this.getClass(), "projection", "read");
+                return readTiersAsync(workflowId, keys, false);
+            }
+            return workflowContextHBDao.getStampAsync(workflowId, ConnectionType.HOT).thenCompose(stamp -> {
+                if (Objects.equals(cachedContext.getStamp(), stamp)) {
+                    markMeter(this.getClass(), "projection", "cached");
+                    return CompletableFuture.completedFuture(toEntity(workflowId, cachedContext, keys));
+                }
+                markMeter(this.getClass(), "projection", "read");
+                contextCache.invalidate(workflowId);
+                return readTiersAsync(workflowId, keys, false);
+            });
+        }).whenComplete((workflowContextHB, throwable) -> {
+            if (throwable != null) {
+                log.error("Error while fetching workflow context keys {} for workflowId: {}", keys, workflowId, throwable);
+            }
+        });
+    }
+
+    /**
+     * Reads the contexts of many workflows in one batch, straight from HBase so the cache isn't churned by bulk reads.
+     * Ids missing from the hot tier are looked up in the cold one in a second batch.
+     */
+    public BatchGetResult<String, WorkflowContextHB> getEntitiesByIds(List<String> workflowIds) {
+        int maxIds = DynamicProperty.getInstance(BATCH_GET_MAX_IDS_PROPERTY).getInteger(DEFAULT_BATCH_GET_MAX_IDS);
+        if (workflowIds == null || workflowIds.isEmpty() || workflowIds.size() > maxIds) {
+            throw new ApiException(Response.Status.BAD_REQUEST, "workflowIds should have between 1 and " + maxIds + " ids");
+        }
+        return executeWithMetrics("workflow_context_batch_get", () -> {
+            try {
+                BatchGetResult<String, WorkflowContextHB> batchGetResult = workflowContextHBDao.batchGetAssembled(workflowIds, ConnectionType.HOT);
+                if (contextTieringConfig.getColdReads() && !batchGetResult.getMissing().isEmpty()) {
+                    BatchGetResult<String, WorkflowContextHB> cold = workflowContextHBDao.batchGetAssembled(batchGetResult.getMissing(), ConnectionType.COLD);
+                    histogram(this.getClass(), cold.getFound().size(), "batchGet", "cold");
+                    batchGetResult.getMissing().clear();
+                    batchGetResult.getMissing().addAll(cold.getMissing());
+                    batchGetResult.getFound().putAll(cold.getFound());
+                    batchGetResult.getFailed().putAll(cold.getFailed());
+                }
+                histogram(this.getClass(), workflowIds.size(), "batchGet", "ids");
+                histogram(this.getClass(), batchGetResult.getFailed().size(), "batchGet", "failed");
+                return batchGetResult;
+            } catch (IOException e) {
+                log.error("Error while batch fetching {} workflow contexts", workflowIds.size(), e);
+                throw new ApiException(e.getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e);
+            }
+        });
+    }
+
+    // Cold contexts aren't cached, their stamps can't be checked against the hot tier
+    private CompletableFuture<WorkflowContextHB> loadAsync(String workflowId) {
+        return readTiersAsync(workflowId, null, true);
+    }
+
+    // Null keys read the whole context
+    private CompletableFuture<WorkflowContextHB> readTiersAsync(String workflowId, Set<String> keys, boolean cacheHot) {
+        return read(workflowId, keys, ConnectionType.HOT).thenCompose(hot -> {
+            if (hot != null) {
+                markMeter(this.getClass(), "tier", "hot", "hit");
+                if (cacheHot) {
+                    cacheContext(hot);
+                }
+                return CompletableFuture.completedFuture(hot);
+            }
+            if (!contextTieringConfig.getColdReads()) {
+                markMeter(this.getClass(), "tier", "miss");
+                return CompletableFuture.completedFuture(null);
+            }
+            return read(workflowId, keys, ConnectionType.COLD).thenApply(cold -> {
+                if (cold != null) {
+                    markMeter(this.getClass(), "tier", "cold", "hit");
+                } else {
+                    markMeter(this.getClass(), "tier", "miss");
+                }
+                return cold;
+            });
+        });
+    }
+
+    private CompletableFuture<WorkflowContextHB> read(String workflowId, Set<String> keys, ConnectionType connectionType) {
+        return keys == null
+                ? workflowContextHBDao.getAssembledAsync(workflowId, connectionType)
+                : workflowContextHBDao.getProjectedAsync(workflowId, keys, connectionType);
+    }
+
+    /**
+     * Moves a batch of contexts of workflows completed more than {@code archiveAfterDays} ago to the cold tier.
+     */
+    public ArchivalResult archiveCompleted(int limit) {
+        if (!contextTieringConfig.getColdReads()) {
+            throw new ApiException(Response.Status.BAD_REQUEST, "Cold reads are disabled, archived contexts wouldn't be found");
+        }
+        long completedBefore = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(contextTieringConfig.getArchiveAfterDays());
+        try (Timer.Context ignored = timerContext(this.getClass(), "archival", "latency")) {
+            ArchivalResult archivalResult = workflowContextHBDao.archiveCompletedBefore(completedBefore, limit, ConnectionType.HOT, ConnectionType.COLD);
+            markMeter(this.getClass(), archivalResult.getArchived(), "archival", "archived");
+            markMeter(this.getClass(), archivalResult.getSkipped(), "archival", "skipped");
+            markMeter(this.getClass(), archivalResult.getFailed(), "archival", "failed");
+            return archivalResult;
+        } catch (IOException e) {
+            log.error("Error while archiving completed workflow contexts", e);
+            throw new ApiException(e.getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e);
+        }
+    }
+
+    // The workflow was written again after its context was archived, e.g. by a post completion node
+    private boolean restoreFromCold(WorkflowContextHB workflowContextHB, Set<String> partialKeys) throws IOException {
+        if (!contextTieringConfig.getColdReads() || !workflowContextHBDao.exists(workflowContextHB.getWorkflowId(), ConnectionType.COLD)) {
+            return false;
+        }
+        if (partialKeys != null) {
+            // Only the updated keys were read, the others come from the archived context
+            WorkflowContextHB cold = workflowContextHBDao.getAssembled(workflowContextHB.getWorkflowId(), ConnectionType.COLD);
+            for (String key : partialKeys) {
+                cold.getContext().set(key, workflowContextHB.getContext().get(key));
+            }
+            workflowContextHB.setContext(cold.getContext());
+            workflowContextHB.setVersion(cold.getVersion());
+        }
+        // Continues from the archived version, the context was read from there
+        workflowContextHB.setVersion(WorkflowContextHBDao.nextVersion(workflowContextHB.getVersion()));
+        // The context was read in full, so it is written in full
+        workflowContextHBDao.upsert(workflowContextHB, ConnectionType.HOT);
+        markMeter(this.getClass(), "tier", "cold", "restored");
+        return true;
+    }
+
+    /**
+     * Moves a context stored in a single column to node columns. Rows are also readable without migrating, this
+     * only stops their next reads from fetching the old column.
+     */
+    public boolean migrateToNodeColumns(String workflowId) {
+        return executeWithMetrics("workflow_context_migrate", () -> {
             try {
-                return workflowContextHBDao.get(workflowId, ConnectionType.HOT);
+                contextCache.invalidate(workflowId);
+                return workflowContextHBDao.migrateToNodeColumns(workflowId, ConnectionType.HOT);
             } catch (IOException e) {
-                log.error("Error while fetching workflow context for workflowId: {}", workflowId, e);
+                log.error("Error while migrating workflow context for workflowId: {}", workflowId, e);
                 throw new ApiException(e.getCause().getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e);
             }
         });
     }
 
+    /**
+     * Moves a batch of rows keyed by the bare workflow id to salted row keys, see {@link WorkflowContextHBDao#migrateToSaltedRowKeys}.
+     * Contexts and their stamps don't change, so cached copies stay valid.
+     */
+    public RowKeyMigrationResult migrateToSaltedRowKeys(String startRow, int limit) {
+        return executeWithMetrics("workflow_context_salt_migrate", () -> {
+            try {
+                return workflowContextHBDao.migrateToSaltedRowKeys(startRow, limit, ConnectionType.HOT);
+            } catch (IOException e) {
+                log.error("Error while migrating workflow contexts to salted row keys after row: {}", startRow, e);
+                throw new ApiException(e.getCause().getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e);
+            }
+        });
+    }
+
+    /**
+     * Splits the context table at the salt buckets, see {@link WorkflowContextHBDao#preSplit}.
+     */
+    public int preSplit() {
+        try {
+            return workflowContextHBDao.preSplit(ConnectionType.HOT);
+        } catch (IOException e) {
+            log.error("Error while pre-splitting workflow context table", e);
+            throw new ApiException(e.getCause().getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e);
+        }
+    }
+
+    // Batched with the creates of concurrently starting workflows, but still durable once this returns
+    private void createBuffered(WorkflowContextHB workflowContextHB) throws IOException {
+        CompletableFuture<Void> write = isNodeColumnStorage()
+                ? workflowContextHBDao.createNodeColumnsBuffered(workflowContextHB, allKeys(workflowContextHB.getContext()), ConnectionType.HOT)
+                : workflowContextHBDao.upsertBuffered(workflowContextHB, ConnectionType.HOT);
+        try {
+            write.join();
+        } catch (CompletionException e) {
+            throw new IOException(e.getCause());
+        }
+    }
+
+    @Override
+    public void start() {
+        if (!contextTieringConfig.getArchivalEnabled()) {
+            return;
+        }
+        archivalExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "context-archival");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMinutes = contextTieringConfig.getArchivalIntervalMinutes();
+        // Spread the workers' runs over the interval, they would otherwise race for the same rows
+        long initialDelayMinutes = ThreadLocalRandom.current().nextLong(intervalMinutes) + 1;
+        archivalExecutor.scheduleWithFixedDelay(this::runArchival, initialDelayMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    /**
+     * Writes out buffered creates, registered ahead of the temporal worker so that this runs once it drained.
+     */
+    @Override
+    public void stop() {
+        if (archivalExecutor != null) {
+            archivalExecutor.shutdownNow();
+        }
+        workflowContextHBDao.closeBuffered();
+    }
+
+    private void runArchival() {
+        try {
+            ArchivalResult archivalResult = archiveCompleted(contextTieringConfig.getArchivalBatchSize());
+            log.info("Archival run done: {}", archivalResult);
+        } catch (Exception e) {
+            log.error("Archival run failed", e);
+        }
+    }
+
+    /**
+     * Writes the context, and on a version conflict applies the updated keys again on top of the stored context. Node
+     * columns hold one key each, so there only the version is moved on. Contexts without updated keys can't be merged.
+     *
+     * @throws VersionConflictException if merging failed, or the row disappeared while merging
+     */
+    private WriteOutcome writeMerging(WorkflowContextHB workflowContextHB, Set<String> updatedKeys, boolean partial) throws IOException {
+        int maxMergeRetries = DynamicProperty.getInstance(MAX_MERGE_RETRIES_PROPERTY).getInteger(DEFAULT_MAX_MERGE_RETRIES);
+        VersionConflictException conflict = null;
+        for (int retry = 0; ; retry++) {
+            boolean written;
+            try {
+                written = write(workflowContextHB, updatedKeys, partial);
+            } catch (VersionConflictException e) {
+                markMeter(this.getClass(), "version", "conflict");
+                if (updatedKeys == null || retry >= maxMergeRetries) {
+                    markMeter(this.getClass(), "version", "conflictFailed");
+                    log.warn("Giving up on writing workflow context for workflowId: {} after {} retries", workflowContextHB.getWorkflowId(), retry, e);
+                    throw e;
+                }
+                if (partial || isNodeColumnStorage()) {
+                    workflowContextHB.setVersion(e.getActualVersion());
+                } else {
+                    WorkflowContextHB stored = workflowContextHBDao.getAssembled(workflowContextHB.getWorkflowId(), ConnectionType.HOT);
+                    if (stored == null) {
+                        markMeter(this.getClass(), "version", "conflictFailed");
+                        throw e;
+                    }
+                    for (String key : updatedKeys) {
+                        JsonNode value = workflowContextHB.getContext().get(key);
+                        if (value == null) {
+                            stored.getContext().remove(key);
+                        } else {
+                            stored.getContext().set(key, value);
+                        }
+                    }
+                    workflowContextHB.setContext(stored.getContext());
+                    workflowContextHB.setVersion(stored.getVersion());
+                }
+                conflict = e;
+                log.info("Merging workflow context for workflowId: {} onto version {}", workflowContextHB.getWorkflowId(), workflowContextHB.getVersion());
+                continue;
+            }
+            if (written) {
+                if (conflict == null) {
+                    return WriteOutcome.WRITTEN;
+                }
+                markMeter(this.getClass(), "version", "merged");
+                return WriteOutcome.MERGED;
+            }
+            if (conflict != null) {
+                // Archived or deleted since the conflict, the context it was read from is gone
+                markMeter(this.getClass(), "version", "conflictFailed");
+                throw conflict;
+            }
+            return WriteOutcome.NOT_FOUND;
+        }
+    }
+
+    // Node column storage writes only the changed keys, the single column storage rewrites the whole context.
+    // Partial contexts always go to node columns, storage may have been switched since they were read
+    private boolean write(WorkflowContextHB workflowContextHB, Set<String> updatedKeys, boolean partial) throws IOException {
+        if (partial || isNodeColumnStorage()) {
+            Collection<String> keys = updatedKeys != null ? updatedKeys : allKeys(workflowContextHB.getContext());
+            histogram(this.getClass(), keys.size(), "nodeColumns", "keysWritten");
+            return workflowContextHBDao.putNodeColumns(workflowContextHB, keys, false, ConnectionType.HOT);
+        }
+        return workflowContextHBDao.update(workflowContextHB, workflowContextHB.getWorkflowId(), ConnectionType.HOT);
+    }
+
+    private static boolean isNodeColumnStorage() {
+        return DynamicProperty.getInstance(NODE_COLUMN_STORAGE_PROPERTY).getBoolean(false);
+    }
+
+    private static Collection<String> allKeys(ObjectNode context) {
+        List<String> keys = new ArrayList<>();
+        context.fieldNames().forEachRemaining(keys::add);
+        return keys;
+    }
+
+    // Only blobs of a cached previous context are found, those of contexts written elsewhere are kept
+    private void deleteSupersededBlobs(WorkflowContextHB written, Set<String> updatedKeys, CachedContext previous) {
+        if (previous == null || !ClaimCheck.mayHoldReferences(previous.getContext())) {
+            return;
+        }
+        try {
+            ObjectNode previousContext = (ObjectNode) ObjectMapperUtil.INSTANCE.getMapper().readTree(previous.getContext());
+            claimCheckService.deleteSuperseded(written.getWorkflowId(), previousContext, written.getContext(),
+                    updatedKeys != null ? updatedKeys : allKeys(previousContext));
+        } catch (IOException e) {
+            log.warn("Unable to read the previous context of workflowId: {} for superseded blobs", written.getWorkflowId(), e);
+        }
+    }
+
+    private void cacheContext(WorkflowContextHB workflowContextHB) {
+        // Rows written before stamps existed can't be validated, they're cached from their next write on
+        if (!cacheEnabled || workflowContextHB == null || workflowContextHB.getStamp() == null || workflowContextHB.getContext() == null) {
+            return;
+        }
+        try {
+            contextCache.put(workflowContextHB.getWorkflowId(), new CachedContext(workflowContextHB.getStamp(), workflowContextHB.getVersion(),
+                    ObjectMapperUtil.INSTANCE.getMapper().writeValueAsBytes(workflowContextHB.getContext())));
+        } catch (IOException e) {
+            contextCache.invalidate(workflowContextHB.getWorkflowId());
+            log.warn("Unable to cache workflow context for workflowId: {}", workflowContextHB.getWorkflowId(), e);
+        }
+    }
+
+    private WorkflowContextHB toEntity(String workflowId, CachedContext cachedContext) {
+        WorkflowContextHB workflowContextHB = new WorkflowContextHB();
+        workflowContextHB.setWorkflowId(workflowId);
+        workflowContextHB.setStamp(cachedContext.getStamp());
+        workflowContextHB.setVersion(cachedContext.getVersion());
+        try {
+            workflowContextHB.setContext((ObjectNode) ObjectMapperUtil.INSTANCE.getMapper().readTree(cachedContext.getContext()));
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        return workflowContextHB;
+    }
+
+    // Skips the values of the other keys without building their trees
+    private WorkflowContextHB toEntity(String workflowId, CachedContext cachedContext, Set<String> keys) {
+        WorkflowContextHB workflowContextHB = new WorkflowContextHB();
+        workflowContextHB.setWorkflowId(workflowId);
+        workflowContextHB.setStamp(cachedContext.getStamp());
+        workflowContextHB.setVersion(cachedContext.getVersion());
+        ObjectMapper mapper = ObjectMapperUtil.INSTANCE.getMapper();
+        ObjectNode context = mapper.createObjectNode();
+        try (JsonParser parser = mapper.getFactory().createParser(cachedContext.getContext())) {
+            parser.nextToken();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                parser.nextToken();
+                if (keys.contains(key)) {
+                    context.set(key, mapper.readTree(parser));
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            throw new CompletionException(e);
+        }
+        workflowContextHB.setContext(context);
+        return workflowContextHB;
+    }
+
+    private static long nextStamp() {
+        return ThreadLocalRandom.current().nextLong();
+    }
+
     private <T> T executeWithMetrics(String metricName, Supplier<T> operation) {
         Scope metricsScope;
         Stopwatch stopwatch = null;
@@ -89,4 +620,44 @@ public class WorkflowContextHBService {
             }
         }
     }
-}
\ No newline at end of file
+
+    private <T> CompletableFuture<T> executeAsyncWithMetrics(String metricName, Supplier<CompletableFuture<T>> operation) {
+        Stopwatch stopwatch = null;
+        try {
+            if (Activity.getExecutionContext() != null) {
+                Scope metricsScope = Activity.getExecutionContext().getMetricsScope();
+                if (metricsScope != null) {
+                    stopwatch = metricsScope.timer(metricName).start();
+                }
+            }
+        } catch (IllegalStateException e) {
+            // Not in an activity context, so just continue without metrics
+        }
+        CompletableFuture<T> result;
+        try {
+            result = operation.get();
+        } catch (RuntimeException e) {
+            result = CompletableFuture.failedFuture(e);
+        }
+        if (stopwatch == null) {
+            return result;
+        }
+        Stopwatch startedStopwatch = stopwatch;
+        return result.whenComplete((ignored, throwable) -> startedStopwatch.stop());
+    }
+
+    // Only a context written as it was read is whole and current, and can be cached
+    private enum WriteOutcome {
+        WRITTEN,
+        MERGED,
+        NOT_FOUND
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static class CachedContext {
+        private final Long stamp;
+        private final Long version;
+        private final byte[] context;
+    }
+}
@@ -0,0 +1,60 @@
+package com.flipkart.drift.worker.store;
+
+import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.flipkart.drift.worker.model.workflow.WorkflowContext;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Where activities read and write workflow contexts. Implementations are discovered via SPI, see
+ * {@link ContextStoreFactory}, and the one named by the {@code context.store} property is used.
+ * <p>
+ * Every read returns a copy that the caller may change.
+ */
+public interface ContextStore {
+    // Matched against the context.store property
+    String getName();
+
+    void init();
+
+    boolean isInitialized();
+
+    void create(WorkflowContext workflowContext, Map<String, String> threadContext);
+
+    /**
+     * Writes the context if the stored one is still at {@link WorkflowContext#getExpectedVersion()}, or the expected
+     * version is null. If it was written since, the updated keys are applied on top of the stored context instead.
+     * Contexts that don't exist aren't created, the write is dropped.
+     *
+     * @throws com.flipkart.drift.commons.exception.VersionConflictException if the context was written since and
+     *                                                                      can't be merged, e.g. has no updated keys
+     */
+    void update(WorkflowContext workflowContext, Map<String, String> threadContext);
+
+    // Null when the context doesn't exist
+    WorkflowContextHB get(String workflowId, Map<String, String> threadContext);
+
+    /**
+     * Reads without blocking the caller, for stores with remote reads.
+     */
+    default CompletableFuture<WorkflowContextHB> getAsync(String workflowId, Map<String, String> threadContext) {
+        try {
+            return CompletableFuture.completedFuture(get(workflowId, threadContext));
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Reads at least the given top level keys of the context, for nodes that declare a read set. Writes of such a
+     * context set {@link WorkflowContext#isPartial()}. Stores without projected reads return the whole context.
+     */
+    default CompletableFuture<WorkflowContextHB> getAsync(String workflowId, Set<String> keys, Map<String, String> threadContext) {
+        return getAsync(workflowId, threadContext);
+    }
+
+    default void close() {
+    }
+}
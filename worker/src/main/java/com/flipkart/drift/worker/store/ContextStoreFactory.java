@@ -0,0 +1,43 @@
+package com.flipkart.drift.worker.store;
+
+import com.netflix.config.DynamicProperty;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ServiceLoader;
+
+@Slf4j
+public class ContextStoreFactory {
+    private static final String CONTEXT_STORE_PROPERTY = "context.store";
+    private static volatile ContextStore store;
+
+    /**
+     * Manually set a ContextStore (optional, overrides SPI discovery).
+     * This is useful for testing, e.g. with an {@link InMemoryContextStore}.
+     */
+    public static synchronized void setStore(ContextStore store) {
+        if (store == null) {
+            throw new IllegalArgumentException("ContextStore cannot be null");
+        }
+        ContextStoreFactory.store = store;
+        log.info("ContextStoreFactory: Manually set store to " + store.getClass().getName());
+    }
+
+    /**
+     * Get the manually set ContextStore, or the one discovered via SPI that the {@code context.store} property names.
+     * Note: The store may not be initialized yet. Call store.init() if needed.
+     */
+    public static synchronized ContextStore getInstance() {
+        if (store != null) {
+            return store;
+        }
+        String name = DynamicProperty.getInstance(CONTEXT_STORE_PROPERTY).getString(HBaseContextStore.NAME);
+        for (ContextStore discovered : ServiceLoader.load(ContextStore.class)) {
+            if (discovered.getName().equals(name)) {
+                store = discovered;
+                log.info("ContextStoreFactory: Discovered {} via SPI (not yet initialized)", discovered.getClass().getName());
+                return store;
+            }
+        }
+        throw new IllegalStateException("No ContextStore named " + name + " found via SPI");
+    }
+}
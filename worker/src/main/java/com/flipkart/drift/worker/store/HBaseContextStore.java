@@ -0,0 +1,71 @@
+package com.flipkart.drift.worker.store;
+
+import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.flipkart.drift.worker.model.workflow.WorkflowContext;
+import com.flipkart.drift.worker.service.WorkflowContextHBService;
+import com.google.inject.Inject;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The default store, {@link WorkflowContextHBService} with its cache and tiers. Created by the service loader, so the
+ * service is injected into the instance afterwards.
+ */
+@Slf4j
+public class HBaseContextStore implements ContextStore {
+    public static final String NAME = "hbase";
+
+    private WorkflowContextHBService workflowContextHBService;
+    private boolean initialized = false;
+
+    @Inject
+    public void setWorkflowContextHBService(WorkflowContextHBService workflowContextHBService) {
+        this.workflowContextHBService = workflowContextHBService;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void init() {
+        if (workflowContextHBService == null) {
+            throw new IllegalStateException("WorkflowContextHBService wasn't injected");
+        }
+        initialized = true;
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    @Override
+    public void create(WorkflowContext workflowContext, Map<String, String> threadContext) {
+        workflowContextHBService.createEntity(workflowContext, threadContext);
+    }
+
+    @Override
+    public void update(WorkflowContext workflowContext, Map<String, String> threadContext) {
+        workflowContextHBService.updateEntity(workflowContext, threadContext);
+    }
+
+    @Override
+    public WorkflowContextHB get(String workflowId, Map<String, String> threadContext) {
+        return workflowContextHBService.getEntityById(workflowId, threadContext);
+    }
+
+    @Override
+    public CompletableFuture<WorkflowContextHB> getAsync(String workflowId, Map<String, String> threadContext) {
+        return workflowContextHBService.getEntityByIdAsync(workflowId, threadContext);
+    }
+
+    @Override
+    public CompletableFuture<WorkflowContextHB> getAsync(String workflowId, Set<String> keys, Map<String, String> threadContext) {
+        return workflowContextHBService.getProjectedEntityByIdAsync(workflowId, keys, threadContext);
+    }
+}
@@ -0,0 +1,57 @@
+package com.flipkart.drift.worker.store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps contexts on heap, for tests, benchmarks and local runs. Contexts are lost on restart.
+ */
+public class InMemoryContextStore extends KeyValueContextStore {
+    public static final String NAME = "memory";
+
+    private final Map<String, byte[]> contexts = new ConcurrentHashMap<>();
+    private boolean initialized = false;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void init() {
+        initialized = true;
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    @Override
+    protected byte[] read(String workflowId) {
+        return contexts.get(workflowId);
+    }
+
+    @Override
+    protected void compute(String workflowId, ValueFunction function) throws IOException {
+        try {
+            contexts.compute(workflowId, (key, value) -> {
+                try {
+                    byte[] computed = function.apply(value);
+                    return computed != null ? computed : value;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    @Override
+    public void close() {
+        contexts.clear();
+    }
+}
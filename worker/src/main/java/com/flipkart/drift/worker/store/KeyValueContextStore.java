@@ -0,0 +1,125 @@
+package com.flipkart.drift.worker.store;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.flipkart.drift.commons.exception.ApiException;
+import com.flipkart.drift.commons.exception.VersionConflictException;
+import com.flipkart.drift.commons.utils.ObjectMapperUtil;
+import com.flipkart.drift.persistence.dao.AbstractEntityDao;
+import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.flipkart.drift.worker.model.workflow.WorkflowContext;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.flipkart.drift.commons.utils.MetricsRegistry.markMeter;
+
+/**
+ * Keeps every context as one serialized value under its workflow id, for stores local to the worker. A value is
+ * rewritten in full on every write, as writes are as cheap as reads here.
+ * <p>
+ * Parallel branches of a workflow update its context concurrently, so updates read, merge and write the value in one
+ * {@link #compute} and are version checked like {@link HBaseContextStore} ones.
+ */
+@Slf4j
+public abstract class KeyValueContextStore implements ContextStore {
+
+    protected abstract byte[] read(String workflowId) throws IOException;
+
+    /**
+     * Replaces the value of the workflow id with the one computed from it, atomically with respect to other computes
+     * of the same workflow id.
+     */
+    protected abstract void compute(String workflowId, ValueFunction function) throws IOException;
+
+    @Override
+    public void create(WorkflowContext workflowContext, Map<String, String> threadContext) {
+        WorkflowContextHB workflowContextHB = new WorkflowContextHB();
+        workflowContextHB.setWorkflowId(workflowContext.getWorkflowId());
+        workflowContextHB.setContext(workflowContext.getContext());
+        workflowContextHB.setCreatedAt(new Date());
+        workflowContextHB.setCompletedAt(workflowContext.getCompletedAt());
+        workflowContextHB.setVersion(AbstractEntityDao.nextVersion(null));
+        try {
+            byte[] value = ObjectMapperUtil.INSTANCE.getMapper().writeValueAsBytes(workflowContextHB);
+            compute(workflowContext.getWorkflowId(), stored -> value);
+        } catch (IOException e) {
+            log.error("Error while creating workflow context for workflowId: {}", workflowContext.getWorkflowId(), e);
+            throw new ApiException(e.getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e);
+        }
+    }
+
+    /**
+     * @throws VersionConflictException if the context was written since it was read and has no updated keys to merge
+     */
+    @Override
+    public void update(WorkflowContext workflowContext, Map<String, String> threadContext) {
+        if (workflowContext.isPartial() && workflowContext.getUpdatedKeys() == null) {
+            throw new IllegalArgumentException("A partial context can only be written with its updated keys");
+        }
+        String workflowId = workflowContext.getWorkflowId();
+        try {
+            compute(workflowId, value -> {
+                WorkflowContextHB workflowContextHB = deserialize(value);
+                if (workflowContextHB == null) {
+                    markMeter(KeyValueContextStore.class, "update", "missing");
+                    log.warn("Not updating missing workflow context for workflowId: {}", workflowId);
+                    return null;
+                }
+                Long expectedVersion = workflowContext.getExpectedVersion();
+                boolean conflict = expectedVersion != null && !Objects.equals(expectedVersion, workflowContextHB.getVersion());
+                if (conflict && workflowContext.getUpdatedKeys() == null) {
+                    markMeter(KeyValueContextStore.class, "version", "conflictFailed");
+                    throw new VersionConflictException(workflowId, expectedVersion, workflowContextHB.getVersion());
+                }
+                if (conflict || workflowContext.isPartial()) {
+                    for (String key : workflowContext.getUpdatedKeys()) {
+                        JsonNode keyValue = workflowContext.getContext().get(key);
+                        if (keyValue == null) {
+                            workflowContextHB.getContext().remove(key);
+                        } else {
+                            workflowContextHB.getContext().set(key, keyValue);
+                        }
+                    }
+                    if (conflict) {
+                        markMeter(KeyValueContextStore.class, "version", "merged");
+                    }
+                } else {
+                    workflowContextHB.setContext(workflowContext.getContext());
+                }
+                workflowContextHB.setUpdatedAt(new Date());
+                workflowContextHB.setVersion(AbstractEntityDao.nextVersion(workflowContextHB.getVersion()));
+                if (workflowContext.getCompletedAt() != null) {
+                    workflowContextHB.setCompletedAt(workflowContext.getCompletedAt());
+                }
+                return ObjectMapperUtil.INSTANCE.getMapper().writeValueAsBytes(workflowContextHB);
+            });
+        } catch (IOException e) {
+            log.error("Error while updating workflow context for workflowId: {}", workflowId, e);
+            throw new ApiException(e.getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e);
+        }
+    }
+
+    @Override
+    public WorkflowContextHB get(String workflowId, Map<String, String> threadContext) {
+        try {
+            return deserialize(read(workflowId));
+        } catch (IOException e) {
+            log.error("Error while fetching workflow context for workflowId: {}", workflowId, e);
+            throw new ApiException(e.getMessage(), Response.Status.INTERNAL_SERVER_ERROR, e);
+        }
+    }
+
+    private static WorkflowContextHB deserialize(byte[] value) throws IOException {
+        return value == null ? null : ObjectMapperUtil.INSTANCE.getMapper().readValue(value, WorkflowContextHB.class);
+    }
+
+    @FunctionalInterface
+    protected interface ValueFunction {
+        // Gets null for a missing value, and returns null to leave the value as it is
+        byte[] apply(byte[] value) throws IOException;
+    }
+}
@@ -0,0 +1,97 @@
+package com.flipkart.drift.worker.store;
+
+import com.codahale.metrics.Timer;
+import com.google.common.util.concurrent.Striped;
+import com.netflix.config.DynamicProperty;
+import lombok.extern.slf4j.Slf4j;
+import org.rocksdb.CompressionType;
+import org.rocksdb.Options;
+import org.rocksdb.RocksDB;
+import org.rocksdb.RocksDBException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.Lock;
+
+import static com.flipkart.drift.commons.utils.MetricsRegistry.timerContext;
+
+/**
+ * Keeps contexts in an embedded RocksDB at {@code context.store.rocksdb.path}, for single node deployments that
+ * shouldn't pay a remote read and write per node. Contexts are only visible to the worker that holds the database.
+ */
+@Slf4j
+public class RocksDBContextStore extends KeyValueContextStore {
+    public static final String NAME = "rocksdb";
+    private static final String PATH_PROPERTY = "context.store.rocksdb.path";
+    private static final String DEFAULT_PATH = "/var/lib/drift-worker/contexts";
+    private static final int LOCK_STRIPES = 256;
+
+    private final Striped<Lock> locks = Striped.lock(LOCK_STRIPES);
+    private Options options;
+    private RocksDB rocksDB;
+    private boolean initialized = false;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void init() {
+        String path = DynamicProperty.getInstance(PATH_PROPERTY).getString(DEFAULT_PATH);
+        RocksDB.loadLibrary();
+        options = new Options()
+                .setCreateIfMissing(true)
+                .setCompressionType(CompressionType.LZ4_COMPRESSION);
+        try {
+            rocksDB = RocksDB.open(options, path);
+        } catch (RocksDBException e) {
+            options.close();
+            throw new RuntimeException("Unable to open RocksDB context store at " + path, e);
+        }
+        initialized = true;
+        log.info("Opened RocksDB context store at {}", path);
+    }
+
+    @Override
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    @Override
+    protected byte[] read(String workflowId) throws IOException {
+        try (Timer.Context ignored = timerContext(this.getClass(), "get", "latency")) {
+            return rocksDB.get(workflowId.getBytes(StandardCharsets.UTF_8));
+        } catch (RocksDBException e) {
+            throw new IOException(e);
+        }
+    }
+
+    // RocksDB has no read-modify-write, so computes of a workflow id are serialized by a lock of its stripe
+    @Override
+    protected void compute(String workflowId, ValueFunction function) throws IOException {
+        Lock lock = locks.get(workflowId);
+        lock.lock();
+        try {
+            byte[] computed = function.apply(read(workflowId));
+            if (computed == null) {
+                return;
+            }
+            try (Timer.Context ignored = timerContext(this.getClass(), "put", "latency")) {
+                rocksDB.put(workflowId.getBytes(StandardCharsets.UTF_8), computed);
+            } catch (RocksDBException e) {
+                throw new IOException(e);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        if (rocksDB != null) {
+            rocksDB.close();
+            options.close();
+        }
+    }
+}
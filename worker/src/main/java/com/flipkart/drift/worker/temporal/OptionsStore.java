@@ -37,6 +37,18 @@ public class OptionsStore {
             .setRetryOptions(activityRetryOptionsV1)
             .build();
 
+    // Return control only publishes to redis, so it can run in the workflow task instead of a task queue round trip
+    public static final LocalActivityOptions returnControlLocalActivityOptions = LocalActivityOptions.newBuilder()
+            .setStartToCloseTimeout(Duration.ofSeconds(10))
+            .setRetryOptions(activityRetryOptions)
+            .build();
+
+    // A segment runs several local nodes back to back, so it gets more time than a single one
+    public static final LocalActivityOptions segmentLocalActivityOptions = LocalActivityOptions.newBuilder()
+            .setStartToCloseTimeout(Duration.ofSeconds(30))
+            .setRetryOptions(activityRetryOptionsV1)
+            .build();
+
     private OptionsStore() {
     }
 }
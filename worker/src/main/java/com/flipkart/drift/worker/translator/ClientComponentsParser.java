@@ -95,7 +95,6 @@ public class ClientComponentsParser {
             charArray[0] = Character.toLowerCase(charArray[0]);
             String variableName = new String(charArray);
 
-            clientExecutableScriptBuilder.append(GROOVY_BUILDER_METHOD_PREFIX);
             generateGroovyMapVariable(variableName, data, clientExecutableScriptBuilder);
         } catch (Exception e) {
             log.error("Failed to generate method caller for components: {}", components.getClass().getName(), e);
@@ -241,7 +240,9 @@ public class ClientComponentsParser {
     private void generateGroovyMapVariable(String variablePrefix, Map<String, Object> data, StringBuilder clientExecutableScriptBuilder) {
         try {
             String variableName = variablePrefix + GROOVY_BUILDER_MAP_VARIABLE_NAME;
-            clientExecutableScriptBuilder.append(variableName)
+            // Declared local, undeclared variables go to the binding and don't compile statically
+            clientExecutableScriptBuilder.append(GROOVY_BUILDER_VARIABLE_PREFIX)
+                                       .append(variableName)
                                        .append(GROOVY_BUILDER_ASSIGN_OPERATOR)
                                        .append(GROOVY_BUILDER_MAP_DEFINE_SYNTAX);
             
@@ -2,6 +2,7 @@ package com.flipkart.drift.worker.translator;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.flipkart.drift.commons.model.clientComponent.ClientComponents;
+import com.flipkart.drift.commons.model.node.NodeDefinition;
 import com.flipkart.drift.commons.utils.ObjectMapperUtil;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
@@ -20,24 +21,13 @@ public class ClientResolvedDetailBuilder {
 
     private static final ClientComponentsParser clientComponentsParser = new ClientComponentsParser();
 
-    public static <T> T evaluateGroovy(ClientComponents components, String componentVersion, JsonNode context, Class<T> clazz) {
+    /**
+     * Runs the script of components of the node definition, compiled in the node definition version's script group.
+     */
+    public static <T> T evaluateGroovy(ClientComponents components, NodeDefinition nodeDefinition, JsonNode context, Class<T> clazz) {
         try {
-            // Generate cache key based on component type and content
-            String cacheKey = generateCacheKey(components, componentVersion);
-            String clientExecutionScript;
-            try {
-                clientExecutionScript = parsedComponentsCache.get(cacheKey, () -> {
-                    try {
-                        return clientComponentsParser.generateClientExecutableScript(components);
-                    } catch (IllegalAccessException e) {
-                        log.error("Failed to generate client executable script for components: {}", components.getClass().getName(), e);
-                        throw new RuntimeException(e);
-                    }
-                });
-            } catch (ExecutionException e) {
-                throw new RuntimeException("Failed to load client execution script from cache", e);
-            }
-            Object actionDetails = GroovyTranslator.translate(clientExecutionScript, context);
+            String clientExecutionScript = getClientExecutionScript(components, nodeDefinition.getVersion());
+            Object actionDetails = GroovyTranslator.translate(GroovyTranslator.scriptGroup(nodeDefinition), clientExecutionScript, context);
             return ObjectMapperUtil.INSTANCE.getMapper().convertValue(actionDetails, clazz);
         } catch (Exception e) {
             log.error("Failed to evaluate Groovy script for components: {}", components.getClass().getName(), e);
@@ -45,6 +35,30 @@ public class ClientResolvedDetailBuilder {
         }
     }
 
+    /**
+     * Generates and compiles the script of the components ahead of {@link #evaluateGroovy}, which then finds both cached.
+     */
+    public static void precompileGroovy(ClientComponents components, NodeDefinition nodeDefinition) {
+        GroovyTranslator.compile(GroovyTranslator.scriptGroup(nodeDefinition), getClientExecutionScript(components, nodeDefinition.getVersion()));
+    }
+
+    private static String getClientExecutionScript(ClientComponents components, String componentVersion) {
+        // Generate cache key based on component type and content
+        String cacheKey = generateCacheKey(components, componentVersion);
+        try {
+            return parsedComponentsCache.get(cacheKey, () -> {
+                try {
+                    return clientComponentsParser.generateClientExecutableScript(components);
+                } catch (IllegalAccessException e) {
+                    log.error("Failed to generate client executable script for components: {}", components.getClass().getName(), e);
+                    throw new RuntimeException(e);
+                }
+            });
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Failed to load client execution script from cache", e);
+        }
+    }
+
     /**
      * Generates cache key for components
      * @return Generated cache key
@@ -1,23 +1,44 @@
 package com.flipkart.drift.worker.translator;
 
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.codahale.metrics.Gauge;
 import com.fasterxml.jackson.databind.JsonNode;
+import com.flipkart.drift.commons.model.node.NodeDefinition;
 import com.flipkart.drift.worker.exception.GroovyException;
 import com.flipkart.drift.commons.utils.Utility;
 import com.google.common.base.Charsets;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.netflix.config.DynamicProperty;
 import groovy.lang.*;
+import groovy.transform.CompileStatic;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+import org.codehaus.groovy.runtime.InvokerHelper;
 
+import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
 import java.net.URLEncoder;
 import java.security.AccessController;
 import java.security.PrivilegedAction;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import static com.flipkart.drift.commons.utils.Constants.MAPPER;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.markMeter;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.registerGauge;
 import static groovy.lang.GroovyShell.DEFAULT_CODE_BASE;
 
 @Slf4j
@@ -25,14 +46,89 @@ public class GroovyTranslator {
     /**
      * Note: Below class has been imported from journey code base as it is.
      */
-    private static final GroovyClassLoader groovyClassLoader = new GroovyClassLoader();
+    // Scripts not owned by a node definition, never released
+    public static final String DEFAULT_SCRIPT_GROUP = "default";
+    private static final String METASPACE_POOL = "Metaspace";
+    private static final CompilerConfiguration staticCompilerConfiguration = staticCompilerConfiguration();
+    // Every group has its own class loaders, so that its classes can be unloaded once it is released
+    private static final ConcurrentMap<String, ScriptGroup> scriptGroups = new ConcurrentHashMap<>();
     private static final String GROOVY_CLASS_FORMAT = "K-%s";
     private static final int MAX_CACHE_SIZE = 1000;
-    private static final Cache<String, Class<?>> groovyClassCache = CacheBuilder.newBuilder()
+    private static final String CUSTOM_EVALUATE = "customEvaluate";
+    // Scripts are compiled statically when they type check, dynamically otherwise (read per compilation)
+    private static final String STATIC_COMPILATION_PROPERTY = "groovy.staticCompilation.enabled";
+    // Idle instances kept per script class, 0 creates an instance per run (read when the class is compiled)
+    private static final String SCRIPT_POOL_MAX_IDLE_PROPERTY = "groovy.scriptPool.maxIdle";
+    private static final int DEFAULT_SCRIPT_POOL_MAX_IDLE = 8;
+    // Keyed by script group and file name
+    private static final Cache<String, ScriptPool> groovyClassCache = CacheBuilder.newBuilder()
             .maximumSize(MAX_CACHE_SIZE)  // Uses LRU (Least Recently Used) eviction policy by default
             .removalListener(notification -> log.warn("Groovy class cache evicting entry: {}", notification.getKey()))
             .build();
 
+    static {
+        registerGauge(GroovyTranslator.class, (Gauge<Long>) () -> groovyClassCache.asMap().values().stream()
+                .filter(ScriptPool::isStaticallyCompiled).count(), "staticCompilation", "classes");
+        registerGauge(GroovyTranslator.class, (Gauge<Integer>) scriptGroups::size, "scriptGroups", "size");
+        ClassLoadingMXBean classLoadingMXBean = ManagementFactory.getClassLoadingMXBean();
+        registerGauge(GroovyTranslator.class, (Gauge<Integer>) classLoadingMXBean::getLoadedClassCount, "classes", "loaded");
+        registerGauge(GroovyTranslator.class, (Gauge<Long>) classLoadingMXBean::getUnloadedClassCount, "classes", "unloaded");
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(memoryPoolMXBean -> METASPACE_POOL.equals(memoryPoolMXBean.getName()))
+                .findFirst()
+                .ifPresent(metaspace -> registerGauge(GroovyTranslator.class,
+                        (Gauge<Long>) () -> metaspace.getUsage().getUsed(), "metaspace", "used"));
+    }
+
+    /**
+     * @return the group of the scripts of a node definition version, see {@link #release}
+     */
+    public static String scriptGroup(NodeDefinition nodeDefinition) {
+        return nodeDefinition.getId() + ":" + nodeDefinition.getVersion();
+    }
+
+    /**
+     * Drops the compiled scripts of the groups along with their class loaders, so their classes can be unloaded once
+     * running scripts finish. Scripts of a released group are compiled again when next run.
+     */
+    public static void release(Collection<String> groups) {
+        for (String group : groups) {
+            if (DEFAULT_SCRIPT_GROUP.equals(group)) {
+                continue;
+            }
+            // Removed first, so that scripts compiled from here on get a new group. Ones the old group compiles
+            // meanwhile are dropped when looked up, see createGroovyClass
+            ScriptGroup scriptGroup = scriptGroups.remove(group);
+            groovyClassCache.asMap().keySet().removeIf(key -> key.startsWith(group + "/"));
+            if (scriptGroup != null) {
+                scriptGroup.close();
+                markMeter(GroovyTranslator.class, "scriptGroups", "released");
+                log.info("Released groovy script group: {}", group);
+            }
+        }
+    }
+
+    /**
+     * @return the groups, but the default one, none of whose scripts was looked up in the last {@code idleMillis}
+     */
+    public static Set<String> idleScriptGroups(long idleMillis) {
+        long usedBefore = System.currentTimeMillis() - idleMillis;
+        Set<String> idle = new HashSet<>();
+        scriptGroups.forEach((group, scriptGroup) -> {
+            if (!DEFAULT_SCRIPT_GROUP.equals(group) && scriptGroup.getLastUsedMillis() <= usedBefore) {
+                idle.add(group);
+            }
+        });
+        return idle;
+    }
+
+    private static CompilerConfiguration staticCompilerConfiguration() {
+        CompilerConfiguration compilerConfiguration = new CompilerConfiguration();
+        compilerConfiguration.setScriptBaseClass(TypedScript.class.getName());
+        compilerConfiguration.addCompilationCustomizers(new ASTTransformationCustomizer(CompileStatic.class));
+        return compilerConfiguration;
+    }
+
     /**
      * @param groovyScript The script content
      * @return Unique filename that follows Java class naming conventions
@@ -49,18 +145,38 @@ public class GroovyTranslator {
 
     /**
      * @param groovyScript The script to compile
-     * @return Compiled Groovy class
+     * @return Pool of instances of the compiled Groovy class
      * @throws GroovyException If compilation fails
      */
-    private static Class createGroovyClass(String groovyScript) throws GroovyException {
+    private static ScriptPool createGroovyClass(String group, String groovyScript) throws GroovyException {
         try {
             String fileName = getFileName(groovyScript);
-            return groovyClassCache.get(fileName, () -> {
-                log.info("groovyClassCache miss: {}", fileName);
-                GroovyCodeSource gcs = AccessController.doPrivileged((PrivilegedAction<GroovyCodeSource>)
-                        () -> new GroovyCodeSource(groovyScript, fileName, DEFAULT_CODE_BASE));
-                return groovyClassLoader.parseClass(gcs);
-            });
+            String key = group + "/" + fileName;
+            while (true) {
+                ScriptPool scriptPool = groovyClassCache.get(key, () -> {
+                    log.info("groovyClassCache miss: {} in group {}", fileName, group);
+                    ScriptGroup scriptGroup = scriptGroups.computeIfAbsent(group, ignored -> new ScriptGroup());
+                    int maxIdle = DynamicProperty.getInstance(SCRIPT_POOL_MAX_IDLE_PROPERTY).getInteger(DEFAULT_SCRIPT_POOL_MAX_IDLE);
+                    if (DynamicProperty.getInstance(STATIC_COMPILATION_PROPERTY).getBoolean(false)) {
+                        try {
+                            Class<?> staticClass = scriptGroup.getStaticClassLoader().parseClass(codeSource(groovyScript, fileName));
+                            markMeter(GroovyTranslator.class, "staticCompilation", "static");
+                            log.info("Compiled groovy script {} statically", fileName);
+                            return new ScriptPool(group, scriptGroup, staticClass, maxIdle, true);
+                        } catch (CompilationFailedException e) {
+                            markMeter(GroovyTranslator.class, "staticCompilation", "fallback");
+                            log.info("Compiling groovy script {} dynamically, it doesn't type check: {}", fileName, e.getMessage());
+                        }
+                    }
+                    return new ScriptPool(group, scriptGroup, scriptGroup.getClassLoader().parseClass(codeSource(groovyScript, fileName)), maxIdle, false);
+                });
+                if (!scriptPool.getScriptGroup().isClosed()) {
+                    scriptPool.getScriptGroup().markUsed();
+                    return scriptPool;
+                }
+                // Compiled by a group released meanwhile, its loaders are closed
+                groovyClassCache.asMap().remove(key, scriptPool);
+            }
         } catch (UnsupportedEncodingException e) {
             log.error("Failed to generate filename for Groovy script", e);
             throw new GroovyException("Failed to generate filename for Groovy script", e);
@@ -70,42 +186,199 @@ public class GroovyTranslator {
         }
     }
 
+    private static GroovyCodeSource codeSource(String groovyScript, String fileName) {
+        return AccessController.doPrivileged((PrivilegedAction<GroovyCodeSource>)
+                () -> new GroovyCodeSource(groovyScript, fileName, DEFAULT_CODE_BASE));
+    }
+
+    /**
+     * @return whether the script was compiled statically, null if it isn't compiled
+     */
+    public static Boolean isStaticallyCompiled(String group, String groovyScript) throws UnsupportedEncodingException {
+        ScriptPool scriptPool = groovyClassCache.getIfPresent(group + "/" + getFileName(groovyScript));
+        return scriptPool == null ? null : scriptPool.isStaticallyCompiled();
+    }
+
+    /**
+     * Compiles the script into the class cache without running it.
+     *
+     * @param group        The group the script belongs to, see {@link #scriptGroup}
+     * @param groovyScript The script to compile
+     * @throws GroovyException If compilation fails
+     */
+    public static void compile(String group, String groovyScript) throws GroovyException {
+        createGroovyClass(group, groovyScript);
+    }
+
     /**
+     * @param group        The group the script belongs to, see {@link #scriptGroup}
      * @param groovyScript The script to execute
      * @param data         The input data
      * @return The script execution result
      * @throws GroovyException If translation fails
      */
-    public static Object translate(String groovyScript, JsonNode data) throws GroovyException {
+    public static Object translate(String group, String groovyScript, JsonNode data) throws GroovyException {
         try {
-            Class groovyClass = createGroovyClass(groovyScript);
-            Map<String, Object> dataMap = MAPPER.convertValue(data, new TypeReference<HashMap<String, Object>>() {
-            });
-            Script script = (Script) groovyClass.newInstance();
-            Binding binding = new Binding(dataMap);
-            
-            // Add customEvaluate method that uses caching to avoid compilation in runtime
-            binding.setVariable("customEvaluate", new groovy.lang.Closure(script) {
-                @Override
-                public Object call(Object scriptContent) {
+            // Converted as the script reads it, scripts that don't read a value, claim checked or not, never pay for it
+            return createGroovyClass(group, groovyScript).run(new JsonNodeMap(data));
+        } catch (Throwable e) {
+            log.error("Error while transformation using groovy for groovyScript: {}", groovyScript, e);
+            throw new GroovyException("Error while transformation using groovy for groovyScript", e);
+        }
+    }
+
+    /**
+     * Instances of a script class, each with its binding and {@code customEvaluate} closure, reused across runs. A run
+     * takes an idle instance or creates one, so runs on the same class, including nested ones, never share an
+     * instance. Classes that declare fields, e.g. with {@code @Field}, get an instance per run, so that no state
+     * carries over from one run to the next, and so does a run after one that threw.
+     */
+    private static class ScriptPool {
+        private final String group;
+        @Getter
+        private final ScriptGroup scriptGroup;
+        private final Class<?> scriptClass;
+        private final BlockingQueue<PooledScript> idle;
+        @Getter
+        private final boolean staticallyCompiled;
+
+        private ScriptPool(String group, ScriptGroup scriptGroup, Class<?> scriptClass, int maxIdle, boolean staticallyCompiled) {
+            this.group = group;
+            this.scriptGroup = scriptGroup;
+            this.scriptClass = scriptClass;
+            this.idle = maxIdle > 0 && isStateless(scriptClass) ? new ArrayBlockingQueue<>(maxIdle) : null;
+            this.staticallyCompiled = staticallyCompiled;
+        }
+
+        // Groovy only adds synthetic fields of its own, e.g. call site caches
+        private static boolean isStateless(Class<?> scriptClass) {
+            return Arrays.stream(scriptClass.getDeclaredFields()).allMatch(Field::isSynthetic);
+        }
+
+        private Object run(Map<String, Object> variables) throws ReflectiveOperationException {
+            PooledScript pooledScript = idle != null ? idle.poll() : null;
+            if (pooledScript == null) {
+                markMeter(GroovyTranslator.class, "scriptPool", "miss");
+                pooledScript = new PooledScript(group, (Script) scriptClass.getDeclaredConstructor().newInstance());
+            }
+            Object result = pooledScript.run(variables);
+            if (idle != null) {
+                idle.offer(pooledScript);
+            }
+            return result;
+        }
+    }
+
+    private static class PooledScript {
+        private final Script script;
+        private final PooledBinding binding;
+
+        private PooledScript(String group, Script script) {
+            this.script = script;
+            this.binding = new PooledBinding(new Closure(script) {
+                // Evaluates a script against the variables of the run that calls it, without compiling at runtime.
+                // Groovy invokes closures through doCall, call(Object) is only reached from Java
+                public Object doCall(Object scriptContent) {
                     try {
                         String scriptString = scriptContent.toString();
                         log.info("Executing dynamic script via custom evaluate method, script length: {}", scriptString.length());
-                        Script dynamicScript = (Script) createGroovyClass(scriptString).newInstance();
-                        dynamicScript.setBinding(binding);
-                        return dynamicScript.run();
+                        return createGroovyClass(group, scriptString).run(PooledScript.this.binding.getVariables());
                     } catch (Exception e) {
                         log.error("Error in custom evaluate method", e);
                         throw new GroovyException("Error in custom evaluate method", e);
                     }
                 }
             });
-            
             script.setBinding(binding);
-            return script.run();
-        } catch (Throwable e) {
-            log.error("Error while transformation using groovy for groovyScript: {}", groovyScript, e);
-            throw new GroovyException("Error while transformation using groovy for groovyScript", e);
+        }
+
+        private Object run(Map<String, Object> variables) {
+            binding.reset(variables);
+            try {
+                return script.run();
+            } finally {
+                // Idle instances shouldn't keep contexts reachable
+                binding.reset(null);
+            }
+        }
+    }
+
+    @Getter
+    private static class ScriptGroup {
+        // Coarse, so that runs don't all write it
+        private static final long MARK_USED_GRANULARITY_MILLIS = 1000;
+
+        private final GroovyClassLoader classLoader = new GroovyClassLoader(GroovyTranslator.class.getClassLoader());
+        private final GroovyClassLoader staticClassLoader = new GroovyClassLoader(GroovyTranslator.class.getClassLoader(),
+                staticCompilerConfiguration);
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+        private volatile boolean closed = false;
+
+        private void markUsed() {
+            long now = System.currentTimeMillis();
+            if (now - lastUsedMillis >= MARK_USED_GRANULARITY_MILLIS) {
+                lastUsedMillis = now;
+            }
+        }
+
+        // Groovy keeps meta classes and class infos of loaded classes, which would keep the loaders reachable
+        private void close() {
+            closed = true;
+            for (GroovyClassLoader groovyClassLoader : List.of(classLoader, staticClassLoader)) {
+                for (Class<?> loadedClass : groovyClassLoader.getLoadedClasses()) {
+                    InvokerHelper.removeClass(loadedClass);
+                }
+                groovyClassLoader.clearCache();
+                try {
+                    groovyClassLoader.close();
+                } catch (IOException e) {
+                    log.warn("Unable to close groovy class loader", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A binding whose variables are replaced on every run. {@code customEvaluate} is served without being put into
+     * the variables, which would copy a lazy {@link JsonNodeMap}.
+     */
+    private static class PooledBinding extends Binding {
+        private final Closure customEvaluate;
+        private Map variables;
+
+        private PooledBinding(Closure customEvaluate) {
+            this.customEvaluate = customEvaluate;
+        }
+
+        private void reset(Map variables) {
+            this.variables = variables;
+        }
+
+        @Override
+        public Object getVariable(String name) {
+            Object result = variables.get(name);
+            if (result == null && !variables.containsKey(name)) {
+                if (CUSTOM_EVALUATE.equals(name)) {
+                    return customEvaluate;
+                }
+                throw new MissingPropertyException(name, this.getClass());
+            }
+            return result;
+        }
+
+        @Override
+        public void setVariable(String name, Object value) {
+            variables.put(name, value);
+        }
+
+        @Override
+        public boolean hasVariable(String name) {
+            return variables.containsKey(name) || CUSTOM_EVALUATE.equals(name);
+        }
+
+        @Override
+        public Map getVariables() {
+            return variables;
         }
     }
-}
\ No newline at end of file
+}
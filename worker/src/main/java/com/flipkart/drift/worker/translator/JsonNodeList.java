@@ -0,0 +1,96 @@
+package com.flipkart.drift.worker.translator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.flipkart.drift.worker.Utility.ClaimCheck;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A {@link List} view of an {@link ArrayNode}, converting elements on first access like {@link JsonNodeMap}. The
+ * first write copies the elements into a list that takes all later operations.
+ */
+public class JsonNodeList extends AbstractList<Object> implements RandomAccess {
+    private static final Object NOT_CONVERTED = new Object();
+
+    private final JsonNode source;
+    private ArrayNode node;
+    private Object[] converted;
+    // Set by the first write
+    private List<Object> written;
+
+    /**
+     * @param source an array, or a claim check reference to one
+     */
+    public JsonNodeList(JsonNode source) {
+        this.source = source;
+    }
+
+    @Override
+    public Object get(int index) {
+        if (written != null) {
+            return written.get(index);
+        }
+        ArrayNode array = node();
+        if (index < 0 || index >= array.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + array.size());
+        }
+        if (converted == null) {
+            converted = new Object[array.size()];
+            Arrays.fill(converted, NOT_CONVERTED);
+        }
+        if (converted[index] == NOT_CONVERTED) {
+            converted[index] = JsonNodeMap.toValue(array.get(index));
+        }
+        return converted[index];
+    }
+
+    @Override
+    public int size() {
+        return written != null ? written.size() : node().size();
+    }
+
+    @Override
+    public Object set(int index, Object element) {
+        return written().set(index, element);
+    }
+
+    @Override
+    public void add(int index, Object element) {
+        modCount++;
+        written().add(index, element);
+    }
+
+    @Override
+    public Object remove(int index) {
+        modCount++;
+        return written().remove(index);
+    }
+
+    private ArrayNode node() {
+        if (node == null) {
+            JsonNode resolved = ClaimCheck.resolve(source);
+            if (!resolved.isArray()) {
+                throw new IllegalStateException("Expected an array, found " + resolved.getNodeType());
+            }
+            node = (ArrayNode) resolved;
+        }
+        return node;
+    }
+
+    private List<Object> written() {
+        if (written == null) {
+            List<Object> elements = new ArrayList<>(size());
+            for (int i = 0; i < size(); i++) {
+                elements.add(get(i));
+            }
+            written = elements;
+            converted = null;
+        }
+        return written;
+    }
+}
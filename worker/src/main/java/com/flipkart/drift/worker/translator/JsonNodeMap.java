@@ -0,0 +1,203 @@
+package com.flipkart.drift.worker.translator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.worker.Utility.ClaimCheck;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.flipkart.drift.commons.utils.Constants.MAPPER;
+
+/**
+ * A {@link Map} view of an {@link ObjectNode} that scripts are bound to, in place of converting the whole tree per
+ * run. Values are converted on first access and kept, objects and arrays become views themselves, so a script pays
+ * only for what it reads. Claim checked values are resolved on first access too.
+ * <p>
+ * The tree is never modified: the first write, including one through an entry or an iterator, copies the entries,
+ * as views, into a map that takes all later operations. Views aren't thread safe, every script run gets its own.
+ */
+public class JsonNodeMap extends AbstractMap<String, Object> {
+    private final JsonNode source;
+    private ObjectNode node;
+    private Map<String, Object> converted;
+    // Set by the first write
+    private Map<String, Object> written;
+
+    /**
+     * @param source an object, or a claim check reference to one
+     */
+    public JsonNodeMap(JsonNode source) {
+        this.source = source;
+    }
+
+    /**
+     * Converts a value the way {@code ObjectMapper.convertValue(node, Object.class)} would, but with views for
+     * objects and arrays.
+     */
+    static Object toValue(JsonNode value) {
+        if (value == null || value.isNull() || value.isMissingNode()) {
+            return null;
+        }
+        if (ClaimCheck.isReference(value)) {
+            return ClaimCheck.isArrayReference(value) ? new JsonNodeList(value) : new JsonNodeMap(value);
+        }
+        if (value.isObject()) {
+            return new JsonNodeMap(value);
+        }
+        if (value.isArray()) {
+            return new JsonNodeList(value);
+        }
+        if (value.isTextual()) {
+            return value.textValue();
+        }
+        if (value.isBoolean()) {
+            return value.booleanValue();
+        }
+        if (value.isNumber()) {
+            return value.numberValue();
+        }
+        // Binary and POJO values, e.g. node responses put on the context
+        return MAPPER.convertValue(value, Object.class);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (written != null) {
+            return written.get(key);
+        }
+        if (!(key instanceof String)) {
+            return null;
+        }
+        if (converted != null && converted.containsKey(key)) {
+            return converted.get(key);
+        }
+        JsonNode value = node().get((String) key);
+        if (value == null) {
+            return null;
+        }
+        Object convertedValue = toValue(value);
+        if (converted == null) {
+            converted = new HashMap<>();
+        }
+        converted.put((String) key, convertedValue);
+        return convertedValue;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (written != null) {
+            return written.containsKey(key);
+        }
+        return key instanceof String && node().has((String) key);
+    }
+
+    @Override
+    public int size() {
+        return written != null ? written.size() : node().size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        return written().put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        return written().remove(key);
+    }
+
+    @Override
+    public void clear() {
+        written().clear();
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+        if (written != null) {
+            return written.entrySet();
+        }
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, Object>> iterator() {
+                if (written != null) {
+                    return written.entrySet().iterator();
+                }
+                Iterator<String> keys = node().fieldNames();
+                return new Iterator<>() {
+                    private String lastKey;
+
+                    @Override
+                    public boolean hasNext() {
+                        return keys.hasNext();
+                    }
+
+                    @Override
+                    public Entry<String, Object> next() {
+                        lastKey = keys.next();
+                        return new ViewEntry(lastKey, get(lastKey));
+                    }
+
+                    // Iterates on over the tree's keys, the tree doesn't change
+                    @Override
+                    public void remove() {
+                        if (lastKey == null) {
+                            throw new IllegalStateException();
+                        }
+                        JsonNodeMap.this.remove(lastKey);
+                        lastKey = null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return JsonNodeMap.this.size();
+            }
+        };
+    }
+
+    // Writes through to the map like a HashMap entry, e.g. for {@code each { it.value = ... }}
+    private class ViewEntry extends SimpleEntry<String, Object> {
+        private ViewEntry(String key, Object value) {
+            super(key, value);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    private ObjectNode node() {
+        if (node == null) {
+            JsonNode resolved = ClaimCheck.resolve(source);
+            if (!resolved.isObject()) {
+                throw new IllegalStateException("Expected an object, found " + resolved.getNodeType());
+            }
+            node = (ObjectNode) resolved;
+        }
+        return node;
+    }
+
+    private Map<String, Object> written() {
+        if (written == null) {
+            Map<String, Object> entries = new LinkedHashMap<>();
+            node().fieldNames().forEachRemaining(key -> entries.put(key, get(key)));
+            written = entries;
+            converted = null;
+        }
+        return written;
+    }
+}
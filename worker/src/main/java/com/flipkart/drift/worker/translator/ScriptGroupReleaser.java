@@ -0,0 +1,90 @@
+package com.flipkart.drift.worker.translator;
+
+import com.flipkart.drift.commons.model.node.NodeDefinition;
+import com.flipkart.drift.persistence.cache.NodeDefinitionCache;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.config.DynamicProperty;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Releases script groups, see {@link GroovyTranslator#release}, that no node definition in {@link NodeDefinitionCache}
+ * has and that weren't used for {@code groovy.scriptGroup.idleMinutes}. The cache is preloaded with all node
+ * definitions, so a group without one belongs to a node version that was republished, or replaced under an alias,
+ * since. Running workflows may still compile such a group again, it is then released once idle again.
+ * <p>
+ * Groups are checked when a node definition leaves the cache, and every few minutes.
+ */
+@Slf4j
+@Singleton
+public class ScriptGroupReleaser implements Managed {
+    private static final String IDLE_MINUTES_PROPERTY = "groovy.scriptGroup.idleMinutes";
+    private static final int DEFAULT_IDLE_MINUTES = 30;
+    private static final long SWEEP_INTERVAL_MINUTES = 5;
+
+    private final NodeDefinitionCache nodeDefinitionCache;
+    private final ScheduledExecutorService releaseExecutor;
+
+    @Inject
+    public ScriptGroupReleaser(NodeDefinitionCache nodeDefinitionCache) {
+        this.nodeDefinitionCache = nodeDefinitionCache;
+        this.releaseExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "script-group-releaser");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Off the thread that evicted or refreshed the entry
+        nodeDefinitionCache.addRemovalListener((rowKey, nodeDefinition) -> {
+            if (!releaseExecutor.isShutdown()) {
+                releaseExecutor.execute(this::releaseUnused);
+            }
+        });
+    }
+
+    @Override
+    public void start() {
+        releaseExecutor.scheduleWithFixedDelay(this::releaseUnused, SWEEP_INTERVAL_MINUTES, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public void stop() {
+        releaseExecutor.shutdownNow();
+    }
+
+    /**
+     * @return the released groups
+     */
+    public Set<String> releaseUnused() {
+        try {
+            long idleMillis = TimeUnit.MINUTES.toMillis(DynamicProperty.getInstance(IDLE_MINUTES_PROPERTY).getInteger(DEFAULT_IDLE_MINUTES));
+            Set<String> groups = GroovyTranslator.idleScriptGroups(idleMillis);
+            if (groups.isEmpty()) {
+                return groups;
+            }
+            groups.removeAll(cachedScriptGroups());
+            if (!groups.isEmpty()) {
+                log.info("Releasing {} unused script groups: {}", groups.size(), groups);
+                GroovyTranslator.release(groups);
+            }
+            return groups;
+        } catch (Exception e) {
+            log.error("Releasing unused script groups failed", e);
+            return Set.of();
+        }
+    }
+
+    private Set<String> cachedScriptGroups() {
+        Set<String> groups = new HashSet<>();
+        for (NodeDefinition nodeDefinition : nodeDefinitionCache.getCache().asMap().values()) {
+            groups.add(GroovyTranslator.scriptGroup(nodeDefinition));
+        }
+        return groups;
+    }
+}
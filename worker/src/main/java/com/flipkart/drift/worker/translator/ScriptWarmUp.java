@@ -0,0 +1,201 @@
+package com.flipkart.drift.worker.translator;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Timer;
+import com.flipkart.drift.commons.model.clientComponent.ClientComponents;
+import com.flipkart.drift.commons.model.clientComponent.TransformerComponents;
+import com.flipkart.drift.commons.model.enums.Version;
+import com.flipkart.drift.commons.model.node.BranchNode;
+import com.flipkart.drift.commons.model.node.GroovyNode;
+import com.flipkart.drift.commons.model.node.HttpNode;
+import com.flipkart.drift.commons.model.node.InstructionNode;
+import com.flipkart.drift.commons.model.node.NodeDefinition;
+import com.flipkart.drift.commons.model.node.Workflow;
+import com.flipkart.drift.commons.model.node.WorkflowNode;
+import com.flipkart.drift.persistence.cache.NodeDefinitionCache;
+import com.flipkart.drift.persistence.cache.WorkflowCache;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import com.google.inject.Singleton;
+import com.netflix.config.DynamicProperty;
+import io.dropwizard.lifecycle.Managed;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static com.flipkart.drift.commons.utils.MetricsRegistry.histogram;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.markMeter;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.registerGauge;
+import static com.flipkart.drift.commons.utils.MetricsRegistry.timerContext;
+
+/**
+ * Compiles the scripts of workflow versions ahead of their first node execution: at start, for the ACTIVE and LATEST
+ * versions preloaded into {@link WorkflowCache}, and on publish, for the version reloaded after its invalidation.
+ * Failures are only logged, they surface again once the node executes.
+ * <p>
+ * Warm-ups run one at a time off the caller's thread. {@link #isWarmedUp()} turns true once the start warm-up is
+ * done, see {@code ScriptWarmUpHealthCheck}.
+ */
+@Slf4j
+@Singleton
+public class ScriptWarmUp implements Managed {
+    private static final String ENABLED_PROPERTY = "groovy.warmUp.enabled";
+
+    private final WorkflowCache workflowCache;
+    private final NodeDefinitionCache nodeDefinitionCache;
+    private final ExecutorService executorService;
+    private volatile boolean warmedUp = false;
+
+    @Inject
+    public ScriptWarmUp(WorkflowCache workflowCache, NodeDefinitionCache nodeDefinitionCache) {
+        this.workflowCache = workflowCache;
+        this.nodeDefinitionCache = nodeDefinitionCache;
+        this.executorService = Executors.newSingleThreadExecutor(
+                new ThreadFactoryBuilder()
+                        .setNameFormat("script-warm-up-%d")
+                        .setDaemon(true)
+                        .build()
+        );
+        registerGauge(ScriptWarmUp.class, (Gauge<Integer>) () -> warmedUp ? 1 : 0, "warmedUp");
+    }
+
+    @Override
+    public void start() {
+        if (!isEnabled()) {
+            warmedUp = true;
+            return;
+        }
+        executorService.submit(this::warmUpCachedVersions);
+    }
+
+    @Override
+    public void stop() throws Exception {
+        executorService.shutdownNow();
+        if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("Script warm up didn't terminate in 5 seconds");
+        }
+    }
+
+    public boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    /**
+     * Loads the workflow version of the row key into {@link WorkflowCache}, e.g. after a publish invalidated it, and
+     * compiles its scripts.
+     */
+    public void warmUpAsync(String rowKey) {
+        if (!isEnabled()) {
+            return;
+        }
+        executorService.submit(() -> {
+            try {
+                warmUp(rowKey, workflowCache.getCache().get(rowKey));
+            } catch (Exception e) {
+                log.warn("Unable to warm up scripts of workflow {}: {}", rowKey, e.getMessage());
+            }
+        });
+    }
+
+    private void warmUpCachedVersions() {
+        int workflows = 0;
+        int scripts = 0;
+        try (Timer.Context ignored = timerContext(ScriptWarmUp.class, "start", "latency")) {
+            for (Map.Entry<String, Workflow> entry : new ArrayList<>(workflowCache.getCache().asMap().entrySet())) {
+                if (Thread.currentThread().isInterrupted()) {
+                    return;
+                }
+                if (isWarmedVersion(entry.getKey())) {
+                    scripts += warmUp(entry.getKey(), entry.getValue());
+                    workflows++;
+                }
+            }
+            log.info("Warmed up {} scripts of {} workflows", scripts, workflows);
+        } catch (Exception e) {
+            log.error("Script warm up failed after {} workflows", workflows, e);
+        } finally {
+            warmedUp = true;
+        }
+    }
+
+    private int warmUp(String rowKey, Workflow workflow) {
+        int scripts = 0;
+        try (Timer.Context ignored = timerContext(ScriptWarmUp.class, "workflow", "latency")) {
+            if (workflow.getStates() != null) {
+                for (WorkflowNode workflowNode : workflow.getStates().values()) {
+                    // Cached versions have no tenant, and row keys of node definitions don't include one
+                    Optional<NodeDefinition> nodeDefinition = nodeDefinitionCache.get(workflowNode.getResourceId(),
+                            workflowNode.getResourceVersion(), null);
+                    if (nodeDefinition.isEmpty()) {
+                        markMeter(ScriptWarmUp.class, "scripts", "failed");
+                        continue;
+                    }
+                    scripts += precompile(nodeDefinition.get());
+                }
+            }
+        }
+        histogram(ScriptWarmUp.class, scripts, "workflow", "scripts");
+        log.debug("Warmed up {} scripts of workflow {}", scripts, rowKey);
+        return scripts;
+    }
+
+    private static int precompile(NodeDefinition nodeDefinition) {
+        int compiled = 0;
+        for (ClientComponents components : scriptedComponents(nodeDefinition)) {
+            try {
+                ClientResolvedDetailBuilder.precompileGroovy(components, nodeDefinition);
+                compiled++;
+            } catch (Exception e) {
+                log.warn("Unable to precompile {} of node {}: {}", components.getClass().getSimpleName(),
+                        nodeDefinition.getId(), e.getMessage());
+                markMeter(ScriptWarmUp.class, "scripts", "failed");
+            }
+        }
+        markMeter(ScriptWarmUp.class, compiled, "scripts", "compiled");
+        return compiled;
+    }
+
+    /**
+     * The components each node activity evaluates.
+     */
+    private static List<ClientComponents> scriptedComponents(NodeDefinition nodeDefinition) {
+        List<ClientComponents> components = new ArrayList<>();
+        if (nodeDefinition instanceof GroovyNode) {
+            GroovyNode groovyNode = (GroovyNode) nodeDefinition;
+            if (groovyNode.getTransformer() != null) {
+                components.add(new TransformerComponents(groovyNode.getTransformer()));
+            }
+        } else if (nodeDefinition instanceof HttpNode) {
+            HttpNode httpNode = (HttpNode) nodeDefinition;
+            components.add(httpNode.getHttpComponents());
+            components.add(httpNode.getTransformerComponents());
+        } else if (nodeDefinition instanceof BranchNode) {
+            BranchNode branchNode = (BranchNode) nodeDefinition;
+            if (branchNode.getChoices() != null) {
+                components.addAll(branchNode.getChoices());
+            }
+        } else if (nodeDefinition instanceof InstructionNode) {
+            InstructionNode instructionNode = (InstructionNode) nodeDefinition;
+            components.add(instructionNode.getDisposition());
+            components.add(instructionNode.getWorkflowStatus());
+            components.add(instructionNode.getLayoutId());
+        }
+        components.removeIf(Objects::isNull);
+        return components;
+    }
+
+    private static boolean isWarmedVersion(String rowKey) {
+        return rowKey.endsWith("_" + Version.ACTIVE) || rowKey.endsWith("_" + Version.LATEST);
+    }
+
+    private static boolean isEnabled() {
+        return DynamicProperty.getInstance(ENABLED_PROPERTY).getBoolean(true);
+    }
+}
@@ -0,0 +1,36 @@
+package com.flipkart.drift.worker.translator;
+
+import groovy.lang.Closure;
+import groovy.lang.Script;
+
+import java.util.Map;
+
+import static com.flipkart.drift.commons.utils.Constants.Workflow.ENUM_STORE;
+import static com.flipkart.drift.commons.utils.Constants.Workflow.GLOBAL;
+import static com.flipkart.drift.commons.utils.Constants.Workflow.HTTP_RESPONSE;
+
+/**
+ * Base class of statically compiled scripts. Static compilation rejects undeclared variables, so the variables
+ * scripts are bound to are declared here as typed properties, e.g. {@code _global.x == 'y'} compiles to a map lookup.
+ */
+public abstract class TypedScript extends Script {
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> get_global() {
+        return (Map<String, Object>) getBinding().getVariable(GLOBAL);
+    }
+
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> get_enum_store() {
+        return (Map<String, Object>) getBinding().getVariable(ENUM_STORE);
+    }
+
+    // Any JSON value, unlike the other two
+    public Object get_response() {
+        return getBinding().getVariable(HTTP_RESPONSE);
+    }
+
+    public Object customEvaluate(Object scriptContent) {
+        return ((Closure<?>) getBinding().getVariable("customEvaluate")).call(scriptContent);
+    }
+}
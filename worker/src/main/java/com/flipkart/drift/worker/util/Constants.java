@@ -7,4 +7,12 @@ public class Constants {
     public static final String PARAMS = "params";
     public static final String WORKFLOW_ID = "workflowId";
     public static final String VERSION = "version";
+    public static final String LOCAL_RETURN_CONTROL_CHANGE_ID = "localReturnControl";
+    public static final String CHILD_WORKFLOW_CHANGE_ID = "syncChildWorkflow";
+    public static final String SEGMENT_EXECUTION_CHANGE_ID = "segmentExecution";
+    public static final String PARALLEL_BRANCH_STATUS = "status";
+    public static final String PARALLEL_BRANCH_ERROR = "error";
+    public static final String PARALLEL_BRANCH_COMPLETED = "COMPLETED";
+    public static final String PARALLEL_BRANCH_FAILED = "FAILED";
+    public static final String PARALLEL_BRANCH_CANCELLED = "CANCELLED";
 }
\ No newline at end of file
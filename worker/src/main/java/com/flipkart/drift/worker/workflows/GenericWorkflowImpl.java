@@ -75,6 +75,7 @@ public class GenericWorkflowImpl implements com.flipkart.drift.workflows.Generic
     @Timed(name = "workflow.resume.duration")
     public void resumeWorkflow(WorkflowResumeRequest workflowResumeRequest) {
         try {
+            this.workflowState.setAwaitId(workflowResumeRequest.getAwaitId());
             io.temporal.workflow.Workflow.newActivityStub(WorkflowContextManagerActivity.class, OptionsStore.activityOptions)
                     .resumeWorkflowState(workflowResumeRequest, this.workflowState.getCurrentNodeRef());
             this.workflowState.setStatus(WorkflowStatus.RUNNING);
@@ -105,7 +106,7 @@ public class GenericWorkflowImpl implements com.flipkart.drift.workflows.Generic
             ActivityThinResponse activityThinResponse;
             try {
                 logger.info("WfId : {} Running node: {}", workflowId, currentNode.getInstanceName());
-                activityThinResponse = nodeExecutor.executeNode(currentNode, threadContext, workflowStartRequest);
+                activityThinResponse = nodeExecutor.executeNode(currentNode, workflow, threadContext, workflowStartRequest);
             } catch (Exception e) {
                 currentNode = nodeExecutor.handleNodeExecutionError(e, workflow);
                 continue;
@@ -113,7 +114,7 @@ public class GenericWorkflowImpl implements com.flipkart.drift.workflows.Generic
             if (activityThinResponse != null) {
                 nodeExecutor.handleNodeResponseStatus(workflowId, activityThinResponse, workflow, threadContext);
             }
-            currentNode = workflow.getStates().get(currentNode.getNextNode());
+            currentNode = workflow.getStates().get(nodeExecutor.getLastExecutedNode(currentNode, activityThinResponse, workflow).getNextNode());
         }
     }
 
@@ -122,6 +123,7 @@ public class GenericWorkflowImpl implements com.flipkart.drift.workflows.Generic
         this.workflowState.setWorkflowId(io.temporal.workflow.Workflow.getInfo().getWorkflowId());
         this.workflowState.setStatus(WorkflowStatus.CREATED);
         this.workflowState.setIssueDetail(workflowStartRequest.getIssueDetail());
+        this.workflowState.setAwaitId(workflowStartRequest.getAwaitId());
         io.temporal.workflow.Workflow.newActivityStub(WorkflowContextManagerActivity.class, OptionsStore.activityOptions)
                 .persistWorkflowState(workflowStartRequest, io.temporal.workflow.Workflow.getInfo().getWorkflowId());
     }
@@ -1,13 +1,22 @@
 package com.flipkart.drift.worker.workflows;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.commons.model.enums.BranchFailurePolicy;
 import com.flipkart.drift.commons.model.enums.ExecutionMode;
+import com.flipkart.drift.commons.model.enums.JoinType;
 import com.flipkart.drift.commons.model.node.ChildNode;
+import com.flipkart.drift.commons.model.node.ParallelBranch;
+import com.flipkart.drift.commons.model.node.ParallelNode;
+import com.flipkart.drift.commons.utils.ObjectMapperUtil;
 import com.flipkart.drift.sdk.model.request.WorkflowStartRequest;
 import com.flipkart.drift.worker.activities.ReturnControlActivity;
+import com.flipkart.drift.worker.activities.SegmentActivity;
 import com.flipkart.drift.worker.activities.WorkflowContextManagerActivity;
 import com.flipkart.drift.worker.model.activity.ActivityResponse;
 import com.flipkart.drift.worker.model.activity.ActivityThinRequest;
 import com.flipkart.drift.worker.model.activity.ActivityThinResponse;
+import com.flipkart.drift.worker.model.activity.SegmentActivityRequest;
 import com.flipkart.drift.sdk.model.request.WorkflowUtilityRequest;
 import com.flipkart.drift.sdk.model.response.WorkflowUtilityResponse;
 import com.flipkart.drift.commons.model.enums.NodeType;
@@ -17,6 +26,7 @@ import com.flipkart.drift.commons.model.node.NodeDefinition;
 import com.flipkart.drift.commons.model.node.Workflow;
 import com.flipkart.drift.commons.model.node.WorkflowNode;
 import com.flipkart.drift.commons.model.temporal.WorkflowState;
+import com.flipkart.drift.worker.Utility.WorkerUtility;
 import com.flipkart.drift.worker.temporal.OptionsStore;
 import com.flipkart.drift.workflows.GenericWorkflow;
 import com.google.common.collect.Sets;
@@ -25,6 +35,7 @@ import io.temporal.api.enums.v1.ParentClosePolicy;
 import io.temporal.failure.ApplicationFailure;
 import io.temporal.workflow.ActivityStub;
 import io.temporal.workflow.Async;
+import io.temporal.workflow.CancellationScope;
 import io.temporal.workflow.ChildWorkflowOptions;
 import io.temporal.workflow.Promise;
 import lombok.extern.slf4j.Slf4j;
@@ -33,6 +44,15 @@ import org.slf4j.Logger;
 import java.util.*;
 
 import static com.flipkart.drift.worker.Utility.WorkerUtility.generateChildWfId;
+import static com.flipkart.drift.worker.Utility.WorkerUtility.getNestingDepth;
+import static com.flipkart.drift.worker.util.Constants.CHILD_WORKFLOW_CHANGE_ID;
+import static com.flipkart.drift.worker.util.Constants.LOCAL_RETURN_CONTROL_CHANGE_ID;
+import static com.flipkart.drift.worker.util.Constants.PARALLEL_BRANCH_CANCELLED;
+import static com.flipkart.drift.worker.util.Constants.PARALLEL_BRANCH_COMPLETED;
+import static com.flipkart.drift.worker.util.Constants.PARALLEL_BRANCH_ERROR;
+import static com.flipkart.drift.worker.util.Constants.PARALLEL_BRANCH_FAILED;
+import static com.flipkart.drift.worker.util.Constants.PARALLEL_BRANCH_STATUS;
+import static com.flipkart.drift.worker.util.Constants.SEGMENT_EXECUTION_CHANGE_ID;
 import static com.flipkart.drift.worker.util.Constants.VERSION;
 import static com.flipkart.drift.worker.util.Constants.WORKFLOW_ID;
 
@@ -40,24 +60,49 @@ import static com.flipkart.drift.worker.util.Constants.WORKFLOW_ID;
 public class WorkflowNodeExecutor {
     private final Logger logger = io.temporal.workflow.Workflow.getLogger(WorkflowNodeExecutor.class);
     private final WorkflowState workflowState;
+    private Boolean localReturnControl;
+    private Boolean segmentExecution;
     private final Set<NodeType> localActivityTypes = Sets.newHashSet(NodeType.INSTRUCTION, NodeType. BRANCH,
             NodeType.GROOVY, NodeType.SUCCESS, NodeType.FAILURE);
+    // Branch states can't pause, end or fork the workflow
+    private final Set<NodeType> parallelBranchNodeTypes = Sets.newHashSet(NodeType.HTTP, NodeType.GROOVY,
+            NodeType.BRANCH, NodeType.PROCESSOR, NodeType.CHILD);
 
     public WorkflowNodeExecutor(WorkflowState workflowState) {
         this.workflowState = workflowState;
     }
 
-    public ActivityThinResponse executeNode(WorkflowNode currentNode, Map<String, String> threadContext, WorkflowStartRequest workflowStartRequest) {
+    public ActivityThinResponse executeNode(WorkflowNode currentNode, Workflow workflow, Map<String, String> threadContext, WorkflowStartRequest workflowStartRequest) {
         if (currentNode.getNodeDefinition().getType() == NodeType.CHILD) {
-            if (workflowStartRequest.getParentWorkflowId() != null) {
-                throw ApplicationFailure.newNonRetryableFailure("Child node cannot be nested inside another child workflow: " + currentNode.getInstanceName(), "INVALID_CHILD_NODE");
+            JsonNode childResult = invokeChild(workflowStartRequest, currentNode);
+            if (childResult != null) {
+                io.temporal.workflow.Workflow.newActivityStub(WorkflowContextManagerActivity.class, OptionsStore.activityOptions)
+                        .mergeNodeResponses(workflowState.getWorkflowId(),
+                                Collections.singletonMap(generateNodeIdentifier(currentNode), childResult), threadContext);
             }
-            invokeChild(workflowStartRequest, currentNode);
             return null;
         }
+        if (currentNode.getNodeDefinition().getType() == NodeType.PARALLEL) {
+            ActivityThinResponse response = executeParallel(currentNode, workflow, threadContext, workflowStartRequest);
+            updateWorkflowState(response, currentNode);
+            return response;
+        }
+        if (localActivityTypes.contains(currentNode.getNodeDefinition().getType()) && isSegmentExecution()) {
+            return executeSegment(currentNode, workflow, threadContext);
+        }
         return executeNode(currentNode, threadContext, true);
     }
 
+    /**
+     * @return the node the workflow continues from, which is the last node of the segment when one ran
+     */
+    public WorkflowNode getLastExecutedNode(WorkflowNode currentNode, ActivityThinResponse response, Workflow workflow) {
+        if (response == null || response.getSegmentTail() == null) {
+            return currentNode;
+        }
+        return workflow.getStates().get(response.getSegmentTail());
+    }
+
     public void executeNodeWithoutStatusUpdate(WorkflowNode currentNode, Map<String, String> threadContext) {
         executeNode(currentNode, threadContext, false);
     }
@@ -113,6 +158,168 @@ public class WorkflowNodeExecutor {
         }
     }
 
+    // Runs this node and the local nodes following it in one local activity, with one context read and write
+    private ActivityThinResponse executeSegment(WorkflowNode currentNode, Workflow workflow, Map<String, String> threadContext) {
+        logger.info("Executing segment from node: {}", currentNode.getInstanceName());
+        SegmentActivity segmentActivity = io.temporal.workflow.Workflow.newLocalActivityStub(SegmentActivity.class, OptionsStore.segmentLocalActivityOptions);
+        ActivityThinResponse response = segmentActivity.execute(SegmentActivityRequest.builder()
+                .workflowId(workflowState.getWorkflowId())
+                .startNode(currentNode.getInstanceName())
+                .states(workflow.getStates())
+                .threadContext(threadContext)
+                .build());
+        if (response == null) {
+            throw ApplicationFailure.newNonRetryableFailure(
+                    "Null response from segment execution: " + currentNode.getInstanceName(),
+                    "ACTIVITY_RESPONSE_NULL"
+            );
+        }
+        updateWorkflowState(response, getLastExecutedNode(currentNode, response, workflow));
+        return response;
+    }
+
+    private ActivityThinResponse executeParallel(WorkflowNode currentNode, Workflow workflow, Map<String, String> threadContext,
+                                                 WorkflowStartRequest workflowStartRequest) {
+        ParallelNode parallelNode = (ParallelNode) currentNode.getNodeDefinition();
+        try {
+            parallelNode.requiredBranches();
+        } catch (IllegalStateException e) {
+            // Definitions stored before validation, fail before fanning out rather than while joining
+            throw ApplicationFailure.newNonRetryableFailure(e.getMessage(), "INVALID_PARALLEL_NODE");
+        }
+        List<ParallelBranch> branches = parallelNode.getBranches();
+        logger.info("Executing parallel node: {} with {} branches, join: {}", currentNode.getInstanceName(), branches.size(), parallelNode.getJoinType());
+
+        Map<String, Promise<Map<String, JsonNode>>> branchResults = new LinkedHashMap<>();
+        CancellationScope branchScope = io.temporal.workflow.Workflow.newCancellationScope(() -> {
+            for (ParallelBranch branch : branches) {
+                branchResults.put(branch.getName(), Async.function(this::executeParallelBranch, branch, workflow, threadContext, workflowStartRequest));
+            }
+        });
+        branchScope.run();
+        io.temporal.workflow.Workflow.await(() -> isJoinResolved(parallelNode, branchResults));
+        // Branches still running are no longer needed once the join resolves
+        branchScope.cancel();
+
+        Map<String, JsonNode> nodeResponses = new LinkedHashMap<>();
+        ObjectNode branchSummary = ObjectMapperUtil.INSTANCE.getMapper().createObjectNode();
+        int succeeded = 0;
+        for (ParallelBranch branch : branches) {
+            Promise<Map<String, JsonNode>> result = branchResults.get(branch.getName());
+            ObjectNode branchStatus = branchSummary.putObject(branch.getName());
+            if (!result.isCompleted()) {
+                branchStatus.put(PARALLEL_BRANCH_STATUS, PARALLEL_BRANCH_CANCELLED);
+            } else if (result.getFailure() != null) {
+                branchStatus.put(PARALLEL_BRANCH_STATUS, PARALLEL_BRANCH_FAILED);
+                branchStatus.put(PARALLEL_BRANCH_ERROR, result.getFailure().getMessage());
+                if (branch.getFailurePolicy() != BranchFailurePolicy.IGNORE) {
+                    throw ApplicationFailure.newNonRetryableFailureWithCause(
+                            "Branch " + branch.getName() + " of parallel node " + currentNode.getInstanceName() + " failed: " + result.getFailure().getMessage(),
+                            "PARALLEL_BRANCH_FAILED", result.getFailure());
+                }
+                logger.warn("Ignoring failed branch {} of parallel node {}", branch.getName(), currentNode.getInstanceName());
+            } else {
+                branchStatus.put(PARALLEL_BRANCH_STATUS, PARALLEL_BRANCH_COMPLETED);
+                nodeResponses.putAll(result.get());
+                succeeded++;
+            }
+        }
+        if (parallelNode.getJoinType() != JoinType.ALL && succeeded < parallelNode.requiredBranches()) {
+            throw ApplicationFailure.newNonRetryableFailure(
+                    "Parallel node " + currentNode.getInstanceName() + " needs " + parallelNode.requiredBranches() + " successful branches, got " + succeeded,
+                    "PARALLEL_JOIN_FAILED");
+        }
+
+        nodeResponses.put(generateNodeIdentifier(currentNode), branchSummary);
+        io.temporal.workflow.Workflow.newActivityStub(WorkflowContextManagerActivity.class, OptionsStore.activityOptions)
+                .mergeNodeResponses(workflowState.getWorkflowId(), nodeResponses, threadContext);
+        return ActivityThinResponse.builder()
+                .workflowStatus(WorkflowStatus.RUNNING)
+                .build();
+    }
+
+    /**
+     * ALL waits for every branch. ANY and QUORUM resolve as soon as enough branches succeeded, or once that is no
+     * longer possible. A failed branch with the FAIL policy resolves the join straight away.
+     */
+    private boolean isJoinResolved(ParallelNode parallelNode, Map<String, Promise<Map<String, JsonNode>>> branchResults) {
+        int succeeded = 0;
+        int pending = 0;
+        for (ParallelBranch branch : parallelNode.getBranches()) {
+            Promise<Map<String, JsonNode>> result = branchResults.get(branch.getName());
+            if (!result.isCompleted()) {
+                pending++;
+            } else if (result.getFailure() == null) {
+                succeeded++;
+            } else if (branch.getFailurePolicy() != BranchFailurePolicy.IGNORE) {
+                return true;
+            }
+        }
+        if (parallelNode.getJoinType() == JoinType.ALL) {
+            return pending == 0;
+        }
+        int required = parallelNode.requiredBranches();
+        return succeeded >= required || succeeded + pending < required;
+    }
+
+    // Runs the states of a branch in order, each one seeing the responses of the ones before it
+    private Map<String, JsonNode> executeParallelBranch(ParallelBranch branch, Workflow workflow, Map<String, String> threadContext,
+                                                        WorkflowStartRequest workflowStartRequest) {
+        Map<String, JsonNode> branchResponses = new LinkedHashMap<>();
+        WorkflowNode branchNode = workflow.getStates().get(branch.getStartNode());
+        if (branchNode == null) {
+            throw ApplicationFailure.newNonRetryableFailure(
+                    "Start node " + branch.getStartNode() + " of branch " + branch.getName() + " not found in workflow",
+                    "PARALLEL_BRANCH_NODE_NOT_FOUND");
+        }
+        int executedNodes = 0;
+        while (branchNode != null) {
+            NodeType nodeType = branchNode.getNodeDefinition().getType();
+            if (!parallelBranchNodeTypes.contains(nodeType)) {
+                throw ApplicationFailure.newNonRetryableFailure(
+                        "Node " + branchNode.getInstanceName() + " of type " + nodeType + " can't run inside a parallel branch",
+                        "INVALID_PARALLEL_BRANCH_NODE");
+            }
+            if (++executedNodes > workflow.getStates().size()) {
+                throw ApplicationFailure.newNonRetryableFailure(
+                        "Branch " + branch.getName() + " doesn't terminate, check nextNode of its states",
+                        "PARALLEL_BRANCH_CYCLE");
+            }
+            logger.info("Executing node: {} of branch: {}", branchNode.getInstanceName(), branch.getName());
+            if (nodeType == NodeType.CHILD) {
+                // Sync children of different branches run concurrently
+                branchResponses.put(generateNodeIdentifier(branchNode), invokeChild(workflowStartRequest, branchNode));
+                branchNode = branchNode.getNextNode() == null ? null : workflow.getStates().get(branchNode.getNextNode());
+                continue;
+            }
+            ActivityStub activityStub = localActivityTypes.contains(nodeType) ?
+                    io.temporal.workflow.Workflow.newUntypedLocalActivityStub(OptionsStore.localActivityOptions) :
+                    io.temporal.workflow.Workflow.newUntypedActivityStub(OptionsStore.activityOptionsV1);
+            ActivityResponse response = activityStub.execute(
+                    nodeType.name().toLowerCase() + "ExecuteWithFatResponse",
+                    ActivityResponse.class,
+                    ActivityThinRequest.builder()
+                            .workflowId(workflowState.getWorkflowId())
+                            .nodeDefinition(branchNode.getNodeDefinition())
+                            .workflowNode(branchNode)
+                            .threadContext(threadContext)
+                            .contextOverlay(new LinkedHashMap<>(branchResponses))
+                            .deferContextUpdate(true)
+                            .build()
+            );
+            if (response == null) {
+                throw ApplicationFailure.newNonRetryableFailure(
+                        "Null response from node execution: " + branchNode.getInstanceName(),
+                        "ACTIVITY_RESPONSE_NULL"
+                );
+            }
+            branchResponses.put(generateNodeIdentifier(branchNode), response.getNodeResponse());
+            String nextNode = response.getNextNode() != null ? response.getNextNode() : branchNode.getNextNode();
+            branchNode = nextNode == null ? null : workflow.getStates().get(nextNode);
+        }
+        return branchResponses;
+    }
+
     public void handleNodeResponseStatus(String workflowId, ActivityThinResponse activityThinResponse, Workflow workflow, Map<String, String> threadContext) {
         switch (this.workflowState.getStatus()) {
             case WAITING:
@@ -184,7 +391,7 @@ public class WorkflowNodeExecutor {
 
     private void handleWaitingState(String workflowId, ActivityThinResponse activityThinResponse) {
         this.workflowState.setView(activityThinResponse.getView());
-        io.temporal.workflow.Workflow.newActivityStub(ReturnControlActivity.class, OptionsStore.activityOptions).exec(workflowId);
+        returnControl(workflowId);
         io.temporal.workflow.Workflow.await(() -> {
             WorkflowStatus status = this.workflowState.getStatus();
             return !(status.equals(WorkflowStatus.WAITING) || status.equals(WorkflowStatus.TERMINATED));
@@ -211,7 +418,7 @@ public class WorkflowNodeExecutor {
         if (activityThinResponse.getErrorResponse() != null) {
             this.workflowState.setErrorMessage(activityThinResponse.getErrorResponse().asText());
         }
-        io.temporal.workflow.Workflow.newActivityStub(ReturnControlActivity.class, OptionsStore.activityOptions).exec(workflowId);
+        returnControl(workflowId);
         throw ApplicationFailure.newNonRetryableFailure(
                 "Encountered a failure node",
                 "FAILURE_NODE"
@@ -221,7 +428,7 @@ public class WorkflowNodeExecutor {
     private void handleCompletedState(String workflowId, ActivityThinResponse activityThinResponse, Workflow workflow, Map<String, String> threadContext) {
         this.workflowState.setView(activityThinResponse.getView());
         this.workflowState.setDisposition(activityThinResponse.getDisposition());
-        io.temporal.workflow.Workflow.newActivityStub(ReturnControlActivity.class, OptionsStore.activityOptions).exec(workflowId);
+        returnControl(workflowId);
 
         // Execute post-workflow completion nodes if they exist
         if (workflow != null && workflow.getPostWorkflowCompletionNodes() != null && !workflow.getPostWorkflowCompletionNodes().isEmpty()) {
@@ -248,8 +455,34 @@ public class WorkflowNodeExecutor {
     }
 
     private void handleDelegatedState(String workflowId, ActivityThinResponse activityThinResponse) {
-        io.temporal.workflow.Workflow.newActivityStub(ReturnControlActivity.class, OptionsStore.activityOptions)
-                .exec(workflowId);
+        returnControl(workflowId);
+    }
+
+    private void returnControl(String workflowId) {
+        ReturnControlActivity returnControlActivity = isLocalReturnControl() ?
+                io.temporal.workflow.Workflow.newLocalActivityStub(ReturnControlActivity.class, OptionsStore.returnControlLocalActivityOptions) :
+                io.temporal.workflow.Workflow.newActivityStub(ReturnControlActivity.class, OptionsStore.activityOptions);
+        returnControlActivity.exec(workflowId, workflowState);
+    }
+
+    // Resolved once per workflow and recorded in history, so toggling the property never breaks replay
+    private boolean isLocalReturnControl() {
+        if (localReturnControl == null) {
+            int version = io.temporal.workflow.Workflow.getVersion(LOCAL_RETURN_CONTROL_CHANGE_ID, io.temporal.workflow.Workflow.DEFAULT_VERSION, 1);
+            localReturnControl = version != io.temporal.workflow.Workflow.DEFAULT_VERSION
+                    && io.temporal.workflow.Workflow.sideEffect(Boolean.class, WorkerUtility::isLocalReturnControlEnabled);
+        }
+        return localReturnControl;
+    }
+
+    // Resolved once per workflow and recorded in history, so toggling the property never breaks replay
+    private boolean isSegmentExecution() {
+        if (segmentExecution == null) {
+            int version = io.temporal.workflow.Workflow.getVersion(SEGMENT_EXECUTION_CHANGE_ID, io.temporal.workflow.Workflow.DEFAULT_VERSION, 1);
+            segmentExecution = version != io.temporal.workflow.Workflow.DEFAULT_VERSION
+                    && io.temporal.workflow.Workflow.sideEffect(Boolean.class, WorkerUtility::isSegmentExecutionEnabled);
+        }
+        return segmentExecution;
     }
 
     private void updateWorkflowState(ActivityThinResponse response, WorkflowNode currentNode) {
@@ -280,26 +513,54 @@ public class WorkflowNodeExecutor {
                 .build();
     }
 
-    public void invokeChild(WorkflowStartRequest workflowStartRequest, WorkflowNode currentNode) {
-
+    /**
+     * Starts the child workflow of the node. In SYNC mode waits for the child to complete and returns the projection
+     * of its context, if the node declares one.
+     */
+    public JsonNode invokeChild(WorkflowStartRequest workflowStartRequest, WorkflowNode currentNode) {
         ChildNode childNode = (ChildNode) currentNode.getNodeDefinition();
-        WorkflowStartRequest childStartRequest = buildChildWorkflowStartRequest(workflowStartRequest, childNode);
+        int version = io.temporal.workflow.Workflow.getVersion(CHILD_WORKFLOW_CHANGE_ID, io.temporal.workflow.Workflow.DEFAULT_VERSION, 1);
+        if (version == io.temporal.workflow.Workflow.DEFAULT_VERSION) {
+            if (workflowStartRequest.getParentWorkflowId() != null) {
+                throw ApplicationFailure.newNonRetryableFailure("Child node cannot be nested inside another child workflow: " + currentNode.getInstanceName(), "INVALID_CHILD_NODE");
+            }
+            if (childNode.getExecutionMode() != ExecutionMode.ASYNC) {
+                throw ApplicationFailure.newNonRetryableFailure("Sync mode for child workflow invocation is not yet implemented", "SYNC_MODE_NOT_IMPLEMENTED");
+            }
+            invokeChildDontWaitForResults(buildChildWorkflowStartRequest(workflowStartRequest, childNode, generateChildWfId(workflowStartRequest)));
+            return null;
+        }
+
+        int childDepth = getNestingDepth(workflowStartRequest) + 1;
+        int maxDepth = io.temporal.workflow.Workflow.sideEffect(Integer.class, WorkerUtility::getChildMaxNestingDepth);
+        if (childDepth > maxDepth) {
+            throw ApplicationFailure.newNonRetryableFailure(
+                    "Child node " + currentNode.getInstanceName() + " exceeds the max nesting depth of " + maxDepth,
+                    "CHILD_NESTING_DEPTH_EXCEEDED");
+        }
+        WorkflowStartRequest childStartRequest = buildChildWorkflowStartRequest(workflowStartRequest, childNode,
+                generateChildWfId(workflowStartRequest, currentNode.getInstanceName()));
+        childStartRequest.setNestingDepth(childDepth);
         if (childNode.getExecutionMode() == ExecutionMode.ASYNC) {
             invokeChildDontWaitForResults(childStartRequest);
-        } else {
-            // TODO: Implement synchronous child workflow invocation
-            throw ApplicationFailure.newNonRetryableFailure("Sync mode for child workflow invocation is not yet implemented", "SYNC_MODE_NOT_IMPLEMENTED");
+            return null;
+        }
+        invokeChildAndWaitForResults(childStartRequest);
+        if (childNode.getResultProjection() == null || childNode.getResultProjection().isEmpty()) {
+            return null;
         }
+        return io.temporal.workflow.Workflow.newActivityStub(WorkflowContextManagerActivity.class, OptionsStore.activityOptions)
+                .projectChildContext(childStartRequest.getWorkflowId(), childNode.getResultProjection(), childStartRequest.getThreadContext());
     }
 
-    private WorkflowStartRequest buildChildWorkflowStartRequest(WorkflowStartRequest parentStartRequest, ChildNode childNode) {
+    private WorkflowStartRequest buildChildWorkflowStartRequest(WorkflowStartRequest parentStartRequest, ChildNode childNode, String childWorkflowId) {
         WorkflowStartRequest childStartRequest = new WorkflowStartRequest();
 
         Map<String, Object> params = new HashMap<>();
         params.put(WORKFLOW_ID, childNode.getChildWorkflowId());
         params.put(VERSION, childNode.getChildWorkflowVersion());
 
-        childStartRequest.setWorkflowId(generateChildWfId(parentStartRequest));
+        childStartRequest.setWorkflowId(childWorkflowId);
         childStartRequest.setParams(params);
         childStartRequest.setParentWorkflowId(parentStartRequest.getWorkflowId());
         childStartRequest.setIncidentId(parentStartRequest.getIncidentId());
@@ -311,6 +572,15 @@ public class WorkflowNodeExecutor {
 
     }
 
+    private void invokeChildAndWaitForResults(WorkflowStartRequest childStartRequest) {
+        // Parent waits on the child, so the child must not outlive it
+        ChildWorkflowOptions childWorkflowOptions = ChildWorkflowOptions.newBuilder().setWorkflowId(childStartRequest.getWorkflowId()).setParentClosePolicy(ParentClosePolicy.PARENT_CLOSE_POLICY_TERMINATE).build();
+
+        GenericWorkflow childWorkflow = io.temporal.workflow.Workflow.newChildWorkflowStub(GenericWorkflow.class, childWorkflowOptions);
+        Promise<Void> childResult = Async.procedure(childWorkflow::startWorkflow, childStartRequest);
+        childResult.get();
+    }
+
     private void invokeChildDontWaitForResults(WorkflowStartRequest childStartRequest) {
         ChildWorkflowOptions childWorkflowOptions = ChildWorkflowOptions.newBuilder().setWorkflowId(childStartRequest.getWorkflowId()).setParentClosePolicy(ParentClosePolicy.PARENT_CLOSE_POLICY_ABANDON).build();
 
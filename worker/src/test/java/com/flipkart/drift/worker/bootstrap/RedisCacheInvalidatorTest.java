@@ -0,0 +1,104 @@
+package com.flipkart.drift.worker.bootstrap;
+
+import com.flipkart.drift.persistence.cache.NodeDefinitionCache;
+import com.flipkart.drift.persistence.cache.WorkflowCache;
+import com.flipkart.drift.worker.translator.ScriptWarmUp;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPoolAbstract;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static com.flipkart.drift.commons.utils.Constants.Workflow.DSL_UPDATE_CHANNEL;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Publishes invalidate the cached versions on every worker, and published workflow versions are warmed up again.
+ */
+class RedisCacheInvalidatorTest {
+    private NodeDefinitionCache nodeDefinitionCache;
+    private WorkflowCache workflowCache;
+    private ScriptWarmUp scriptWarmUp;
+    private Jedis jedis;
+    private RedisCacheInvalidator redisCacheInvalidator;
+    // Counted down once the messages are handled, the subscription then blocks until stopped
+    private final CountDownLatch handled = new CountDownLatch(1);
+    private final CountDownLatch stopped = new CountDownLatch(1);
+
+    @BeforeEach
+    void setUp() {
+        nodeDefinitionCache = mock(NodeDefinitionCache.class);
+        workflowCache = mock(WorkflowCache.class);
+        scriptWarmUp = mock(ScriptWarmUp.class);
+        jedis = mock(Jedis.class);
+        JedisPoolAbstract jedisPool = mock(JedisPoolAbstract.class);
+        when(jedisPool.getResource()).thenReturn(jedis);
+        redisCacheInvalidator = new RedisCacheInvalidator(nodeDefinitionCache, workflowCache, jedisPool, scriptWarmUp);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        stopped.countDown();
+        redisCacheInvalidator.stop();
+    }
+
+    @Test
+    void publishedVersionsAreInvalidatedAndWarmedUp() throws Exception {
+        publish("NODE node_1", "WORKFLOW workflow_LATEST");
+
+        verify(nodeDefinitionCache).invalidate("node_1");
+        verify(workflowCache).invalidate("workflow_LATEST");
+        verify(scriptWarmUp).warmUpAsync("workflow_LATEST");
+        verify(scriptWarmUp, never()).warmUpAsync("node_1");
+    }
+
+    @Test
+    void invalidatingAllVersionsWarmsNothingUp() throws Exception {
+        publish("WORKFLOW ALL", "NODE ALL");
+
+        verify(workflowCache).invalidateAll();
+        verify(nodeDefinitionCache).invalidateAll();
+        verify(scriptWarmUp, never()).warmUpAsync(anyString());
+    }
+
+    @Test
+    void messagesOfUnknownCachesAndMalformedOnesAreIgnored() throws Exception {
+        publish("TEMPLATE template_1", "WORKFLOW", "WORKFLOW workflow_1");
+
+        // Handled after the ignored ones
+        verify(workflowCache).invalidate("workflow_1");
+        verify(scriptWarmUp).warmUpAsync("workflow_1");
+    }
+
+    // Delivers the messages to the subscription of a started invalidator
+    private void publish(String... messages) throws Exception {
+        doAnswer(invocation -> {
+            JedisPubSub jedisPubSub = invocation.getArgument(0);
+            if (handled.getCount() > 0) {
+                for (String message : List.of(messages)) {
+                    jedisPubSub.onMessage(DSL_UPDATE_CHANNEL, message);
+                }
+                handled.countDown();
+            }
+            stopped.await();
+            return null;
+        }).when(jedis).subscribe(any(JedisPubSub.class), eq(DSL_UPDATE_CHANNEL));
+
+        redisCacheInvalidator.start();
+
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,132 @@
+package com.flipkart.drift.worker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.persistence.dao.ConnectionType;
+import com.flipkart.drift.persistence.dao.ContextBlobHBDao;
+import com.flipkart.drift.persistence.entity.ContextBlobHB;
+import com.flipkart.drift.worker.Utility.ClaimCheck;
+import com.netflix.config.ConfigurationManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentMatchers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Blobs round trip through a DAO backed by a map.
+ */
+class ClaimCheckServiceTest {
+    private static final String WORKFLOW_ID = "workflow-1";
+    private static final String THRESHOLD_BYTES_PROPERTY = "context.claimCheck.thresholdBytes";
+    private static final String DELETE_SUPERSEDED_AFTER_SECONDS_PROPERTY = "context.claimCheck.deleteSupersededAfterSeconds";
+
+    private final Map<String, ContextBlobHB> blobs = new ConcurrentHashMap<>();
+    private ContextBlobHBDao contextBlobHBDao;
+    private ClaimCheckService claimCheckService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        ConfigurationManager.getConfigInstance().setProperty(THRESHOLD_BYTES_PROPERTY, 100);
+        contextBlobHBDao = mock(ContextBlobHBDao.class);
+        when(contextBlobHBDao.persist(any(ContextBlobHB.class), any())).thenAnswer(invocation -> {
+            ContextBlobHB contextBlobHB = invocation.getArgument(0);
+            blobs.put(contextBlobHB.getBlobKey(), contextBlobHB);
+            return contextBlobHB.getBlobKey();
+        });
+        when(contextBlobHBDao.get(anyString(), any(ConnectionType.class))).thenAnswer(invocation -> blobs.get(invocation.<String>getArgument(0)));
+        claimCheckService = new ClaimCheckService(contextBlobHBDao);
+    }
+
+    @AfterEach
+    void tearDown() {
+        claimCheckService.stop();
+        ConfigurationManager.getConfigInstance().clearProperty(THRESHOLD_BYTES_PROPERTY);
+        ConfigurationManager.getConfigInstance().clearProperty(DELETE_SUPERSEDED_AFTER_SECONDS_PROPERTY);
+    }
+
+    @Test
+    void offloadedValuesResolveToTheOriginalContext() throws IOException {
+        ObjectNode context = JsonNodeFactory.instance.objectNode().put("small", "s");
+        context.set("response", response("a"));
+        ObjectNode original = context.deepCopy();
+
+        ObjectNode offloaded = claimCheckService.offload(WORKFLOW_ID, context, List.of("small", "response"), 1L);
+
+        assertEquals(original, context);
+        assertTrue(ClaimCheck.isReference(offloaded.get("response")));
+        assertEquals("s", offloaded.get("small").textValue());
+        assertEquals(WORKFLOW_ID, blobs.get(ClaimCheck.blobKey(offloaded.get("response"))).getWorkflowId());
+        assertEquals(original, ClaimCheck.resolveAll(offloaded));
+        // Resolved blobs are cached
+        assertEquals(original.get("response"), ClaimCheck.resolve(offloaded.get("response")));
+        verify(contextBlobHBDao, times(1)).get(anyString(), any(ConnectionType.class));
+    }
+
+    @Test
+    void referencesAndSmallValuesAreNotOffloadedAgain() throws IOException {
+        ObjectNode context = JsonNodeFactory.instance.objectNode().put("small", "s");
+        context.set("response", response("a"));
+        ObjectNode offloaded = claimCheckService.offload(WORKFLOW_ID, context, List.of("small", "response"), 1L);
+
+        assertSame(offloaded, claimCheckService.offload(WORKFLOW_ID, offloaded, List.of("small", "response"), 2L));
+        verify(contextBlobHBDao, times(1)).persist(any(ContextBlobHB.class), any());
+    }
+
+    @Test
+    void supersededBlobsAreDeletedAfterTheDelay() throws IOException {
+        ConfigurationManager.getConfigInstance().setProperty(DELETE_SUPERSEDED_AFTER_SECONDS_PROPERTY, 1);
+        ObjectNode context = JsonNodeFactory.instance.objectNode();
+        context.set("replaced", response("a"));
+        context.set("kept", response("b"));
+        ObjectNode previous = claimCheckService.offload(WORKFLOW_ID, context, List.of("replaced", "kept"), 1L);
+        ObjectNode updated = previous.deepCopy();
+        updated.set("replaced", response("c"));
+        ObjectNode written = claimCheckService.offload(WORKFLOW_ID, updated, List.of("replaced"), 2L);
+        String replacedBlobKey = ClaimCheck.blobKey(previous.get("replaced"));
+        assertNotEquals(replacedBlobKey, ClaimCheck.blobKey(written.get("replaced")));
+
+        claimCheckService.deleteSuperseded(WORKFLOW_ID, previous, written, Set.of("replaced", "kept"));
+
+        verify(contextBlobHBDao, after(500).never()).delete(ArgumentMatchers.<ArrayList<String>>any(), any(ConnectionType.class));
+        verify(contextBlobHBDao, timeout(5000)).delete(new ArrayList<>(List.of(replacedBlobKey)), ConnectionType.HOT);
+    }
+
+    @Test
+    void supersededBlobsAreKeptWhenDeletionIsDisabled() throws IOException {
+        ConfigurationManager.getConfigInstance().setProperty(DELETE_SUPERSEDED_AFTER_SECONDS_PROPERTY, 0);
+        ObjectNode context = JsonNodeFactory.instance.objectNode();
+        context.set("replaced", response("a"));
+        ObjectNode previous = claimCheckService.offload(WORKFLOW_ID, context, List.of("replaced"), 1L);
+
+        claimCheckService.deleteSuperseded(WORKFLOW_ID, previous, JsonNodeFactory.instance.objectNode(), Set.of("replaced"));
+
+        verify(contextBlobHBDao, after(1500).never()).delete(ArgumentMatchers.<ArrayList<String>>any(), any(ConnectionType.class));
+    }
+
+    private static JsonNode response(String value) {
+        ObjectNode response = JsonNodeFactory.instance.objectNode();
+        response.put("body", value.repeat(200));
+        return response;
+    }
+}
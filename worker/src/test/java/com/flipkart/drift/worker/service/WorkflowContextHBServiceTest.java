@@ -0,0 +1,361 @@
+package com.flipkart.drift.worker.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.commons.exception.VersionConflictException;
+import com.flipkart.drift.persistence.dao.BatchGetResult;
+import com.flipkart.drift.persistence.dao.ConnectionType;
+import com.flipkart.drift.persistence.dao.WorkflowContextHBDao;
+import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.flipkart.drift.worker.Utility.ClaimCheck;
+import com.flipkart.drift.worker.config.ContextCacheConfig;
+import com.flipkart.drift.worker.config.ContextTieringConfig;
+import com.flipkart.drift.worker.model.workflow.WorkflowContext;
+import com.netflix.config.ConfigurationManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Two writers on one workflow, or one workflow moving between two workers, in both storages. The DAO is backed by a single in-memory row that checks and
+ * increments the version like {@link WorkflowContextHBDao} does.
+ */
+class WorkflowContextHBServiceTest {
+    private static final String WORKFLOW_ID = "workflow-1";
+    private static final String NODE_COLUMN_STORAGE_PROPERTY = "context.storage.nodeColumns.enabled";
+    private static final String MAX_MERGE_RETRIES_PROPERTY = "context.write.maxMergeRetries";
+
+    private final StoredRow row = new StoredRow();
+    private WorkflowContextHBDao workflowContextHBDao;
+    private ClaimCheckService claimCheckService;
+    private WorkflowContextHBService workflowContextHBService;
+
+    @AfterEach
+    void resetProperties() {
+        ConfigurationManager.getConfigInstance().clearProperty(NODE_COLUMN_STORAGE_PROPERTY);
+        ConfigurationManager.getConfigInstance().clearProperty(MAX_MERGE_RETRIES_PROPERTY);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void concurrentWriterKeysSurviveMergeAndCache(boolean nodeColumns) throws IOException {
+        setUp(nodeColumns);
+        create(context("start", "s"));
+        WorkflowContextHB first = workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap());
+        WorkflowContextHB second = workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap());
+
+        update(first, "a", "1");
+        // Read before the first writer's write, so it conflicts and is merged
+        update(second, "b", "2");
+
+        assertEquals(3L, row.version);
+        assertEquals(context("start", "s").put("a", "1").put("b", "2"), row.context);
+        // Served from the cache if the merged context had been cached, missing "a"
+        WorkflowContextHB read = workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap());
+        assertEquals(row.context, read.getContext());
+        assertEquals(3L, read.getVersion());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void concurrentWritersOfDistinctKeysAllLand(boolean nodeColumns) throws Exception {
+        setUp(nodeColumns);
+        ConfigurationManager.getConfigInstance().setProperty(MAX_MERGE_RETRIES_PROPERTY, 100);
+        create(context("start", "s"));
+        int writers = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(writers);
+        CountDownLatch ready = new CountDownLatch(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                String key = "key" + i;
+                futures.add(executorService.submit(() -> {
+                    WorkflowContextHB read = workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap());
+                    ready.countDown();
+                    ready.await();
+                    update(read, key, key);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        assertEquals(writers + 1L, row.version);
+        WorkflowContextHB read = workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap());
+        for (int i = 0; i < writers; i++) {
+            assertEquals("key" + i, read.getContext().get("key" + i).textValue());
+        }
+        assertEquals(writers + 1, read.getContext().size());
+    }
+
+    @Test
+    void rowRemovedWhileMergingIsNotRestored() throws IOException {
+        setUp(false);
+        create(context("start", "s"));
+        WorkflowContextHB stale = workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap());
+        update(workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap()), "a", "1");
+        // Archived between the conflict and the merge read
+        when(workflowContextHBDao.getAssembled(WORKFLOW_ID, ConnectionType.HOT)).thenReturn(null);
+        when(workflowContextHBDao.exists(WORKFLOW_ID, ConnectionType.COLD)).thenReturn(true);
+
+        assertThrows(VersionConflictException.class, () -> update(stale, "b", "2"));
+        // Only the create, the context isn't restored from the cold tier
+        verify(workflowContextHBDao, times(1)).upsert(any(), eq(ConnectionType.HOT));
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void workflowMovingBetweenWorkersReadsTheOtherWorkersWrite(boolean nodeColumns) throws IOException {
+        setUp(nodeColumns);
+        WorkflowContextHBService otherWorker = newWorker();
+        create(context("start", "s"));
+        update(workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap()), "a", "1");
+
+        // The next node runs on the other worker, then the workflow comes back
+        update(otherWorker, otherWorker.getEntityById(WORKFLOW_ID, Collections.emptyMap()), "b", "2");
+        WorkflowContextHB read = workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap());
+
+        assertEquals(context("start", "s").put("a", "1").put("b", "2"), read.getContext());
+        assertEquals(3L, read.getVersion());
+        update(read, "c", "3");
+        assertEquals(4L, row.version);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void unchangedContextIsReadFromTheCache(boolean nodeColumns) throws IOException {
+        setUp(nodeColumns);
+        create(context("start", "s"));
+        update(workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap()), "a", "1");
+        clearInvocations(workflowContextHBDao);
+
+        WorkflowContextHB read = workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap());
+
+        assertEquals(context("start", "s").put("a", "1"), read.getContext());
+        assertEquals(2L, read.getVersion());
+        // Only the stamp is read
+        verify(workflowContextHBDao).getStampAsync(WORKFLOW_ID, ConnectionType.HOT);
+        verify(workflowContextHBDao, never()).getAssembledAsync(anyString(), any());
+        verify(workflowContextHBDao, never()).getAssembled(anyString(), any());
+    }
+
+    @Test
+    void coldContextsAreReadButNotCached() throws IOException {
+        setUp(false);
+        WorkflowContextHB archived = new WorkflowContextHB();
+        archived.setWorkflowId(WORKFLOW_ID);
+        archived.setContext(context("start", "s"));
+        archived.setVersion(4L);
+        archived.setStamp(1L);
+        when(workflowContextHBDao.getAssembledAsync(WORKFLOW_ID, ConnectionType.COLD)).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(archived));
+
+        assertEquals(archived.getContext(), workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap()).getContext());
+        assertEquals(archived.getContext(), workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap()).getContext());
+
+        // A cached cold context would be validated against the hot stamp, which is missing
+        verify(workflowContextHBDao, times(2)).getAssembledAsync(WORKFLOW_ID, ConnectionType.COLD);
+        verify(workflowContextHBDao, never()).getStampAsync(anyString(), any());
+    }
+
+    @Test
+    void batchGetLooksUpHotMissesInTheColdTier() throws IOException {
+        setUp(false);
+        WorkflowContextHB hot = new WorkflowContextHB();
+        hot.setWorkflowId("workflow-1");
+        WorkflowContextHB cold = new WorkflowContextHB();
+        cold.setWorkflowId("workflow-2");
+        BatchGetResult<String, WorkflowContextHB> hotResult = new BatchGetResult<>();
+        hotResult.getFound().put("workflow-1", hot);
+        hotResult.getMissing().addAll(List.of("workflow-2", "workflow-3"));
+        hotResult.getFailed().put("workflow-4", "timeout");
+        BatchGetResult<String, WorkflowContextHB> coldResult = new BatchGetResult<>();
+        coldResult.getFound().put("workflow-2", cold);
+        coldResult.getMissing().add("workflow-3");
+        List<String> workflowIds = List.of("workflow-1", "workflow-2", "workflow-3", "workflow-4");
+        when(workflowContextHBDao.batchGetAssembled(workflowIds, ConnectionType.HOT)).thenReturn(hotResult);
+        when(workflowContextHBDao.batchGetAssembled(List.of("workflow-2", "workflow-3"), ConnectionType.COLD)).thenReturn(coldResult);
+
+        BatchGetResult<String, WorkflowContextHB> result = workflowContextHBService.getEntitiesByIds(workflowIds);
+
+        assertEquals(Map.of("workflow-1", hot, "workflow-2", cold), result.getFound());
+        assertEquals(List.of("workflow-3"), result.getMissing());
+        assertEquals(Map.of("workflow-4", "timeout"), result.getFailed());
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {false, true})
+    void blobsReplacedByAWriteAreDeleted(boolean nodeColumns) throws IOException {
+        setUp(nodeColumns);
+        ObjectNode created = context("start", "s");
+        created.set("response", ClaimCheck.reference("blob-1", 1000, false));
+        create(created);
+        WorkflowContextHB read = workflowContextHBService.getEntityById(WORKFLOW_ID, Collections.emptyMap());
+        ObjectNode updated = read.getContext().deepCopy();
+        updated.set("response", ClaimCheck.reference("blob-2", 1000, false));
+
+        workflowContextHBService.updateEntity(WorkflowContext.builder()
+                .workflowId(WORKFLOW_ID)
+                .context(updated)
+                .updatedKeys(Set.of("response"))
+                .expectedVersion(read.getVersion())
+                .build(), Collections.emptyMap());
+
+        // The previous context is read back from the cache
+        verify(claimCheckService).deleteSuperseded(eq(WORKFLOW_ID), argThat(previous -> "blob-1".equals(ClaimCheck.blobKey(previous.get("response")))),
+                eq(updated), eq(Set.of("response")));
+    }
+
+    private void setUp(boolean nodeColumns) throws IOException {
+        ConfigurationManager.getConfigInstance().setProperty(NODE_COLUMN_STORAGE_PROPERTY, nodeColumns);
+        workflowContextHBDao = mock(WorkflowContextHBDao.class);
+        when(workflowContextHBDao.update(any(), anyString(), any())).thenAnswer(invocation ->
+                row.write(invocation.getArgument(0), null));
+        when(workflowContextHBDao.putNodeColumns(any(), anyCollection(), eq(false), any())).thenAnswer(invocation ->
+                row.write(invocation.getArgument(0), invocation.getArgument(1)));
+        when(workflowContextHBDao.putNodeColumns(any(), anyCollection(), eq(true), any())).thenAnswer(invocation ->
+                row.create(invocation.getArgument(0)));
+        when(workflowContextHBDao.upsert(any(), any())).thenAnswer(invocation -> row.create(invocation.getArgument(0)));
+        when(workflowContextHBDao.getAssembled(WORKFLOW_ID, ConnectionType.HOT)).thenAnswer(invocation -> row.read());
+        when(workflowContextHBDao.getAssembledAsync(WORKFLOW_ID, ConnectionType.HOT)).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(row.read()));
+        when(workflowContextHBDao.getStampAsync(WORKFLOW_ID, ConnectionType.HOT)).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(row.stamp()));
+
+        claimCheckService = mock(ClaimCheckService.class);
+        when(claimCheckService.offload(anyString(), any(), any(), anyLong())).thenAnswer(invocation -> invocation.getArgument(1));
+
+        workflowContextHBService = newWorker();
+    }
+
+    // Workers share the row and the blobs, each has its own context cache
+    private WorkflowContextHBService newWorker() {
+        ContextCacheConfig contextCacheConfig = new ContextCacheConfig();
+        contextCacheConfig.setEnabled(true);
+        contextCacheConfig.setMaxWeightBytes(1L << 20);
+        contextCacheConfig.setExpireAfterAccessSeconds(60L);
+        ContextTieringConfig contextTieringConfig = new ContextTieringConfig();
+        contextTieringConfig.setColdReads(true);
+        contextTieringConfig.setArchivalEnabled(false);
+        contextTieringConfig.setArchiveAfterDays(30);
+        contextTieringConfig.setArchivalBatchSize(100);
+        contextTieringConfig.setArchivalIntervalMinutes(60);
+        return new WorkflowContextHBService(workflowContextHBDao, claimCheckService, contextCacheConfig, contextTieringConfig);
+    }
+
+    private void create(ObjectNode context) {
+        workflowContextHBService.createEntity(WorkflowContext.builder()
+                .workflowId(WORKFLOW_ID)
+                .context(context)
+                .build(), Collections.emptyMap());
+    }
+
+    private void update(WorkflowContextHB read, String key, String value) {
+        update(workflowContextHBService, read, key, value);
+    }
+
+    private static void update(WorkflowContextHBService worker, WorkflowContextHB read, String key, String value) {
+        ObjectNode context = read.getContext().deepCopy();
+        context.put(key, value);
+        worker.updateEntity(WorkflowContext.builder()
+                .workflowId(WORKFLOW_ID)
+                .context(context)
+                .updatedKeys(Set.of(key))
+                .expectedVersion(read.getVersion())
+                .build(), Collections.emptyMap());
+    }
+
+    private static ObjectNode context(String key, String value) {
+        return JsonNodeFactory.instance.objectNode().put(key, value);
+    }
+
+    private static class StoredRow {
+        private ObjectNode context;
+        private Long version;
+        private Long stamp;
+
+        synchronized boolean create(WorkflowContextHB entity) {
+            context = entity.getContext().deepCopy();
+            version = entity.getVersion() != null ? entity.getVersion() : 1L;
+            stamp = entity.getStamp();
+            return true;
+        }
+
+        // Null keys rewrite the whole context, like the context column
+        synchronized boolean write(WorkflowContextHB entity, Collection<String> keys) {
+            if (context == null) {
+                return false;
+            }
+            if (!version.equals(entity.getVersion())) {
+                throw new VersionConflictException(WORKFLOW_ID, entity.getVersion(), version);
+            }
+            if (keys == null) {
+                context = entity.getContext().deepCopy();
+            } else {
+                for (String key : keys) {
+                    JsonNode value = entity.getContext().get(key);
+                    if (value == null) {
+                        context.remove(key);
+                    } else {
+                        context.set(key, value.deepCopy());
+                    }
+                }
+            }
+            version = WorkflowContextHBDao.nextVersion(version);
+            entity.setVersion(version);
+            stamp = entity.getStamp();
+            return true;
+        }
+
+        synchronized WorkflowContextHB read() {
+            if (context == null) {
+                return null;
+            }
+            WorkflowContextHB workflowContextHB = new WorkflowContextHB();
+            workflowContextHB.setWorkflowId(WORKFLOW_ID);
+            workflowContextHB.setContext(context.deepCopy());
+            workflowContextHB.setVersion(version);
+            workflowContextHB.setStamp(stamp);
+            return workflowContextHB;
+        }
+
+        synchronized Long stamp() {
+            return stamp;
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.flipkart.drift.worker.store;
+
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.flipkart.drift.commons.exception.VersionConflictException;
+import com.flipkart.drift.persistence.entity.WorkflowContextHB;
+import com.flipkart.drift.worker.model.workflow.WorkflowContext;
+import com.netflix.config.ConfigurationManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class KeyValueContextStoreTest {
+    private static final String WORKFLOW_ID = "workflow-1";
+    private static final String PATH_PROPERTY = "context.store.rocksdb.path";
+
+    @TempDir
+    Path rocksDBPath;
+    private ContextStore contextStore;
+
+    @AfterEach
+    void close() {
+        if (contextStore != null) {
+            contextStore.close();
+        }
+        ConfigurationManager.getConfigInstance().clearProperty(PATH_PROPERTY);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {InMemoryContextStore.NAME, RocksDBContextStore.NAME})
+    void concurrentPartialUpdatesKeepEachOthersKeys(String store) throws Exception {
+        open(store);
+        contextStore.create(context("start", "s", null), Collections.emptyMap());
+        int writers = 8;
+        ExecutorService executorService = Executors.newFixedThreadPool(writers);
+        CountDownLatch ready = new CountDownLatch(writers);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < writers; i++) {
+                String key = "branch" + i;
+                futures.add(executorService.submit(() -> {
+                    Long version = contextStore.get(WORKFLOW_ID, Collections.emptyMap()).getVersion();
+                    ready.countDown();
+                    ready.await();
+                    contextStore.update(partial(key, key, version), Collections.emptyMap());
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        WorkflowContextHB stored = contextStore.get(WORKFLOW_ID, Collections.emptyMap());
+        for (int i = 0; i < writers; i++) {
+            assertEquals("branch" + i, stored.getContext().get("branch" + i).textValue());
+        }
+        assertEquals(writers + 1L, stored.getVersion());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {InMemoryContextStore.NAME, RocksDBContextStore.NAME})
+    void staleWriteWithoutUpdatedKeysConflicts(String store) {
+        open(store);
+        contextStore.create(context("start", "s", null), Collections.emptyMap());
+        contextStore.update(context("a", "1", 1L), Collections.emptyMap());
+
+        VersionConflictException e = assertThrows(VersionConflictException.class,
+                () -> contextStore.update(context("b", "2", 1L), Collections.emptyMap()));
+        assertEquals(2L, e.getActualVersion());
+        assertEquals("1", contextStore.get(WORKFLOW_ID, Collections.emptyMap()).getContext().get("a").textValue());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {InMemoryContextStore.NAME, RocksDBContextStore.NAME})
+    void missingContextIsNotCreated(String store) {
+        open(store);
+        contextStore.update(partial("a", "1", 1L), Collections.emptyMap());
+
+        assertNull(contextStore.get(WORKFLOW_ID, Collections.emptyMap()));
+    }
+
+    private void open(String store) {
+        if (RocksDBContextStore.NAME.equals(store)) {
+            ConfigurationManager.getConfigInstance().setProperty(PATH_PROPERTY, rocksDBPath.toString());
+            contextStore = new RocksDBContextStore();
+        } else {
+            contextStore = new InMemoryContextStore();
+        }
+        contextStore.init();
+    }
+
+    private static WorkflowContext context(String key, String value, Long expectedVersion) {
+        ObjectNode context = JsonNodeFactory.instance.objectNode().put(key, value);
+        return WorkflowContext.builder()
+                .workflowId(WORKFLOW_ID)
+                .context(context)
+                .expectedVersion(expectedVersion)
+                .build();
+    }
+
+    private static WorkflowContext partial(String key, String value, Long expectedVersion) {
+        ObjectNode context = JsonNodeFactory.instance.objectNode().put(key, value);
+        return WorkflowContext.builder()
+                .workflowId(WORKFLOW_ID)
+                .context(context)
+                .updatedKeys(Set.of(key))
+                .partial(true)
+                .expectedVersion(expectedVersion)
+                .build();
+    }
+}
@@ -0,0 +1,142 @@
+package com.flipkart.drift.worker.translator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.flipkart.drift.worker.exception.GroovyException;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.ref.WeakReference;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Script groups of node versions are released when the versions are republished, so that the metaspace of a worker
+ * doesn't grow with every publish.
+ */
+class GroovyTranslatorTest {
+    private static final String SCRIPT = "this.getClass()";
+    private static final ClassLoadingMXBean CLASS_LOADING = ManagementFactory.getClassLoadingMXBean();
+    private static final MemoryPoolMXBean METASPACE = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(memoryPoolMXBean -> "Metaspace".equals(memoryPoolMXBean.getName()))
+            .findFirst()
+            .orElseThrow();
+    private static final long AWAIT_UNLOADED_MILLIS = 30_000;
+    private static final int WARMUP_REPUBLISHES = 1_000;
+    private static final int REPUBLISHES = 10_000;
+    // Kept, the classes of the variants would take over 30MB
+    private static final long MAX_METASPACE_GROWTH_BYTES = 3 << 20;
+
+    @Test
+    void releasedGroupClassesAreUnloaded() throws InterruptedException {
+        WeakReference<Class<?>> scriptClass = new WeakReference<>(scriptClass("unloaded:1"));
+        WeakReference<ClassLoader> classLoader = new WeakReference<>(scriptClass.get().getClassLoader());
+        long unloadedClasses = CLASS_LOADING.getUnloadedClassCount();
+
+        GroovyTranslator.release(Set.of("unloaded:1"));
+        // Groovy keeps the class it compiled last reachable until it compiles another
+        scriptClass("unloaded:2");
+
+        awaitUnloadedClasses(unloadedClasses + 1);
+        assertNull(scriptClass.get());
+        assertNull(classLoader.get());
+    }
+
+    @Test
+    void republishedScriptsKeepMetaspaceFlat() throws InterruptedException {
+        republish(0, WARMUP_REPUBLISHES);
+        awaitUnloadedClasses(CLASS_LOADING.getUnloadedClassCount());
+        long metaspaceUsed = METASPACE.getUsage().getUsed();
+        long unloadedClasses = CLASS_LOADING.getUnloadedClassCount();
+
+        republish(WARMUP_REPUBLISHES, REPUBLISHES);
+        scriptClass("republished-variants:done");
+
+        awaitUnloadedClasses(unloadedClasses + REPUBLISHES - WARMUP_REPUBLISHES);
+        long grown = METASPACE.getUsage().getUsed() - metaspaceUsed;
+        assertTrue(grown < MAX_METASPACE_GROWTH_BYTES, "Metaspace grew by " + grown + " bytes");
+    }
+
+    @Test
+    void releasedGroupIsCompiledAgain() {
+        Class<?> released = scriptClass("republished:1");
+        GroovyTranslator.release(Set.of("republished:1"));
+
+        Class<?> compiled = scriptClass("republished:1");
+        assertNotSame(released, compiled);
+        assertNotSame(released.getClassLoader(), compiled.getClassLoader());
+        assertEquals(3, GroovyTranslator.translate("republished:1", "1 + 2", JsonNodeFactory.instance.objectNode()));
+    }
+
+    @Test
+    void otherGroupsAreKept() {
+        Class<?> kept = scriptClass("kept:1");
+        GroovyTranslator.release(Set.of("kept:2", GroovyTranslator.DEFAULT_SCRIPT_GROUP));
+
+        assertEquals(kept, scriptClass("kept:1"));
+    }
+
+    @Test
+    void idleScriptGroups() {
+        scriptClass("idle:1");
+
+        assertTrue(GroovyTranslator.idleScriptGroups(0).contains("idle:1"));
+        assertFalse(GroovyTranslator.idleScriptGroups(60_000).contains("idle:1"));
+        assertFalse(GroovyTranslator.idleScriptGroups(0).contains(GroovyTranslator.DEFAULT_SCRIPT_GROUP));
+    }
+
+    @Test
+    void instancesAreReusedUntilARunThrows() {
+        String script = "if (fail) throw new IllegalStateException(); this";
+        Object pooled = GroovyTranslator.translate("pooled:1", script, JsonNodeFactory.instance.objectNode().put("fail", false));
+        assertSame(pooled, GroovyTranslator.translate("pooled:1", script, JsonNodeFactory.instance.objectNode().put("fail", false)));
+
+        assertThrows(GroovyException.class, () ->
+                GroovyTranslator.translate("pooled:1", script, JsonNodeFactory.instance.objectNode().put("fail", true)));
+
+        assertNotSame(pooled, GroovyTranslator.translate("pooled:1", script, JsonNodeFactory.instance.objectNode().put("fail", false)));
+    }
+
+    @Test
+    void scriptsWithFieldsStartEveryRunAfresh() {
+        String script = "@groovy.transform.Field List seen = []; seen << value; seen.size()";
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(1, GroovyTranslator.translate("fields:1", script, JsonNodeFactory.instance.objectNode().put("value", i)));
+        }
+    }
+
+    private static Class<?> scriptClass(String group) {
+        return (Class<?>) GroovyTranslator.translate(group, SCRIPT, JsonNodeFactory.instance.objectNode());
+    }
+
+    // Every variant is a new version of a node, with its own group, that replaces the previous version
+    private static void republish(int from, int to) {
+        for (int version = from; version < to; version++) {
+            JsonNode data = JsonNodeFactory.instance.objectNode().set("_global", JsonNodeFactory.instance.objectNode().put("x", version));
+            assertEquals(true, GroovyTranslator.translate("variant:" + version, "_global.x == " + version, data));
+            GroovyTranslator.release(Set.of("variant:" + (version - 1)));
+        }
+        GroovyTranslator.release(Set.of("variant:" + (to - 1)));
+    }
+
+    // Classes are unloaded by a full collection once nothing references their loaders
+    private static void awaitUnloadedClasses(long unloadedClassCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + AWAIT_UNLOADED_MILLIS;
+        do {
+            System.gc();
+            Thread.sleep(50);
+        } while (CLASS_LOADING.getUnloadedClassCount() < unloadedClassCount && System.currentTimeMillis() < deadline);
+        assertTrue(CLASS_LOADING.getUnloadedClassCount() >= unloadedClassCount,
+                "Unloaded " + CLASS_LOADING.getUnloadedClassCount() + " classes, expected " + unloadedClassCount);
+    }
+}
@@ -0,0 +1,110 @@
+package com.flipkart.drift.worker.translator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static com.flipkart.drift.commons.utils.Constants.MAPPER;
+
+/**
+ * Binding time of a script that reads one value of the context, with the whole wrapper converted to a
+ * {@link HashMap} the way scripts were bound before {@link JsonNodeMap}, and with a view. {@code readAll} walks every
+ * value instead, the worst case for views. The size of every context is printed at setup.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.flipkart.drift.worker.translator.JsonNodeMapBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonNodeMapBenchmark {
+    // 10KB, 100KB and 1MB of JSON
+    @Param({"10240", "102400", "1048576"})
+    public int contextBytes;
+
+    @Param({"false", "true"})
+    public boolean readAll;
+
+    private JsonNode data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        data = context(contextBytes);
+        System.out.printf("%ncontextBytes=%d: %d bytes%n", contextBytes, MAPPER.writeValueAsBytes(data).length);
+    }
+
+    @Benchmark
+    public Object deepConvert() {
+        return read(MAPPER.convertValue(data, HashMap.class));
+    }
+
+    @Benchmark
+    public Object jsonNodeMap() {
+        return read(new JsonNodeMap(data));
+    }
+
+    private Object read(Map<?, ?> binding) {
+        if (readAll) {
+            return walk(binding);
+        }
+        Map<?, ?> order = (Map<?, ?>) ((Map<?, ?>) binding.get("_global")).get("node0");
+        return ((List<?>) order.get("items")).size() + (Integer) order.get("amount");
+    }
+
+    private static int walk(Object value) {
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).values().stream().mapToInt(JsonNodeMapBenchmark::walk).sum() + 1;
+        }
+        if (value instanceof List) {
+            return ((List<?>) value).stream().mapToInt(JsonNodeMapBenchmark::walk).sum() + 1;
+        }
+        return 1;
+    }
+
+    // Node responses of about 1KB under _global, and a small _enum_store, the way GroovyTranslator is called
+    static JsonNode context(int bytes) throws Exception {
+        ObjectNode global = JsonNodeFactory.instance.objectNode();
+        int nodes = 0;
+        while (MAPPER.writeValueAsBytes(global).length < bytes) {
+            ObjectNode response = global.putObject("node" + nodes++);
+            response.put("status", "SUCCESS");
+            response.put("amount", nodes * 100);
+            response.put("description", "x".repeat(400));
+            ArrayNode items = response.putArray("items");
+            for (int item = 0; item < 10; item++) {
+                items.addObject().put("id", "item-" + item).put("quantity", item).put("price", item * 9.99);
+            }
+        }
+        ObjectNode data = JsonNodeFactory.instance.objectNode();
+        data.set("_global", global);
+        data.putObject("_enum_store").put("STATUS", "SUCCESS");
+        return data;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JsonNodeMapBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,97 @@
+package com.flipkart.drift.worker.translator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Scripts were bound to maps converted by Jackson before {@link JsonNodeMap}, so idioms that worked on those, reads
+ * and writes alike, must work on the views too.
+ */
+class JsonNodeMapTest {
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String CONTEXT = "{\"_global\": {"
+            + "\"foo\": {\"bar\": \"baz\", \"qux\": \"quux\"},"
+            + "\"items\": [{\"name\": \"a\"}, {\"name\": \"b\"}],"
+            + "\"count\": 2,"
+            + "\"flag\": true}}";
+
+    private JsonNode data;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        data = MAPPER.readTree(CONTEXT);
+    }
+
+    @Test
+    void nestedPropertyRead() {
+        assertEquals("baz", run("_global.foo.bar"));
+        assertEquals(3, run("_global.count + 1"));
+        assertEquals(true, run("_global.flag"));
+        assertNull(run("_global.missing?.bar"));
+    }
+
+    @Test
+    void iteration() {
+        assertEquals(List.of("a", "b"), run("def names = []; _global.items.each { names << it.name }; names"));
+        assertEquals(List.of("bar=baz", "qux=quux"), run("_global.foo.collect { k, v -> k + '=' + v }"));
+        assertEquals(List.of("a"), run("_global.items.findAll { it.name == 'a' }.collect { it.name }"));
+    }
+
+    @Test
+    void entryValueWrite() {
+        assertEquals(Map.of("bar", "baz!", "qux", "quux!"), run("_global.foo.each { e -> e.value = e.value + '!' }; _global.foo"));
+        assertTreeUnchanged();
+    }
+
+    @Test
+    void removalWhileIterating() {
+        assertEquals(Map.of("qux", "quux"), run("_global.foo.removeAll { it.key == 'bar' }; _global.foo"));
+        assertEquals(Set.of("qux"), run("_global.foo.entrySet().removeIf { it.key == 'bar' }; _global.foo.keySet()"));
+        assertEquals(1, run("_global.foo.keySet().remove('bar'); _global.foo.size()"));
+        assertEquals(List.of("b"), run("_global.items.removeAll { it.name == 'a' }; _global.items.collect { it.name }"));
+        assertTreeUnchanged();
+    }
+
+    @Test
+    void putAndRemove() {
+        assertEquals(Map.of("bar", "baz", "qux", "quux", "added", 1), run("_global.foo.added = 1; _global.foo"));
+        assertEquals(Map.of("qux", "quux"), run("_global.foo.remove('bar'); _global.foo"));
+        assertEquals(List.of("a", "b", "c"), run("_global.items << [name: 'c']; _global.items.collect { it.name }"));
+        assertTreeUnchanged();
+    }
+
+    @Test
+    void iteratorRemoveAndSetValue() {
+        JsonNodeMap map = new JsonNodeMap(data.get("_global").get("foo"));
+        Iterator<Map.Entry<String, Object>> entries = map.entrySet().iterator();
+        Map.Entry<String, Object> bar = entries.next();
+        assertEquals("baz", bar.setValue("changed"));
+        entries.next();
+        entries.remove();
+
+        assertEquals(Map.of("bar", "changed"), map);
+        assertTreeUnchanged();
+    }
+
+    private Object run(String script) {
+        return GroovyTranslator.translate(GroovyTranslator.DEFAULT_SCRIPT_GROUP, script, data);
+    }
+
+    private void assertTreeUnchanged() {
+        try {
+            assertEquals(MAPPER.readTree(CONTEXT), data);
+        } catch (Exception e) {
+            throw new AssertionError(e);
+        }
+    }
+}
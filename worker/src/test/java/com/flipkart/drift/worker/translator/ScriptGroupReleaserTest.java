@@ -0,0 +1,111 @@
+package com.flipkart.drift.worker.translator;
+
+import com.codahale.metrics.InstrumentedExecutorService;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.flipkart.drift.commons.model.node.GroovyNode;
+import com.flipkart.drift.commons.model.node.NodeDefinition;
+import com.flipkart.drift.persistence.cache.NodeDefinitionCache;
+import com.flipkart.drift.persistence.dao.NodeDefinitionDao;
+import com.netflix.config.ConfigurationManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+class ScriptGroupReleaserTest {
+    private static final String IDLE_MINUTES_PROPERTY = "groovy.scriptGroup.idleMinutes";
+
+    private ExecutorService executorService;
+    private NodeDefinitionCache nodeDefinitionCache;
+    private ScriptGroupReleaser scriptGroupReleaser;
+
+    @BeforeEach
+    void setUp() {
+        ConfigurationManager.getConfigInstance().setProperty(IDLE_MINUTES_PROPERTY, 0);
+        executorService = Executors.newSingleThreadExecutor();
+        nodeDefinitionCache = new NodeDefinitionCache(60L, null,
+                new InstrumentedExecutorService(executorService, new MetricRegistry()),
+                new ObjectMapper(), mock(NodeDefinitionDao.class));
+        nodeDefinitionCache.init();
+        scriptGroupReleaser = new ScriptGroupReleaser(nodeDefinitionCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scriptGroupReleaser.stop();
+        executorService.shutdownNow();
+        ConfigurationManager.getConfigInstance().clearProperty(IDLE_MINUTES_PROPERTY);
+    }
+
+    @Test
+    void groupsOfCachedNodeDefinitionsAreKept() {
+        cache("cached_1", node("cached", "1"));
+        cache("cached_LATEST", node("cached", "2"));
+        run("cached:1");
+        run("cached:2");
+
+        Set<String> released = scriptGroupReleaser.releaseUnused();
+
+        assertFalse(released.contains("cached:1"));
+        assertFalse(released.contains("cached:2"));
+    }
+
+    @Test
+    void groupOfRepublishedVersionIsReleased() {
+        cache("republished_LATEST", node("republished", "1"));
+        run("republished:1");
+        // Replaced by a refresh once version 2 is published
+        cache("republished_LATEST", node("republished", "2"));
+        run("republished:2");
+
+        // The replacement may have released it already
+        scriptGroupReleaser.releaseUnused();
+
+        Set<String> groups = GroovyTranslator.idleScriptGroups(0);
+        assertFalse(groups.contains("republished:1"));
+        assertTrue(groups.contains("republished:2"));
+    }
+
+    @Test
+    void groupCompiledAgainAfterReleaseIsReleasedAgain() {
+        run("evicted:1");
+        assertTrue(scriptGroupReleaser.releaseUnused().contains("evicted:1"));
+
+        // A running workflow still on the version
+        run("evicted:1");
+
+        assertTrue(scriptGroupReleaser.releaseUnused().contains("evicted:1"));
+    }
+
+    @Test
+    void groupsInUseAreKept() {
+        ConfigurationManager.getConfigInstance().setProperty(IDLE_MINUTES_PROPERTY, 60);
+        run("used:1");
+
+        assertFalse(scriptGroupReleaser.releaseUnused().contains("used:1"));
+    }
+
+    private void cache(String rowKey, NodeDefinition nodeDefinition) {
+        nodeDefinitionCache.getCache().put(rowKey, nodeDefinition);
+    }
+
+    private static NodeDefinition node(String id, String version) {
+        GroovyNode groovyNode = new GroovyNode();
+        groovyNode.setId(id);
+        groovyNode.setVersion(version);
+        return groovyNode;
+    }
+
+    private static void run(String group) {
+        GroovyTranslator.translate(group, "1", JsonNodeFactory.instance.objectNode());
+    }
+}
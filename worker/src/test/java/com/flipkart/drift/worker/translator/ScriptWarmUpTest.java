@@ -0,0 +1,131 @@
+package com.flipkart.drift.worker.translator;
+
+import com.codahale.metrics.InstrumentedExecutorService;
+import com.codahale.metrics.MetricRegistry;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.flipkart.drift.commons.model.componentDetail.ScriptedComponentDetail;
+import com.flipkart.drift.commons.model.node.GroovyNode;
+import com.flipkart.drift.commons.model.node.Workflow;
+import com.flipkart.drift.commons.model.node.WorkflowNode;
+import com.flipkart.drift.commons.model.value.StringValue;
+import com.flipkart.drift.persistence.cache.NodeDefinitionCache;
+import com.flipkart.drift.persistence.cache.WorkflowCache;
+import com.flipkart.drift.persistence.dao.ConnectionType;
+import com.flipkart.drift.persistence.dao.NodeDefinitionDao;
+import com.flipkart.drift.persistence.dao.WorkflowDefinitionDao;
+import com.flipkart.drift.persistence.entity.WorkflowHB;
+import com.netflix.config.ConfigurationManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ScriptWarmUpTest {
+    private static final String ENABLED_PROPERTY = "groovy.warmUp.enabled";
+    private static final long AWAIT_MILLIS = 10_000;
+
+    private ExecutorService executorService;
+    private WorkflowDefinitionDao workflowDefinitionDao;
+    private WorkflowCache workflowCache;
+    private NodeDefinitionCache nodeDefinitionCache;
+    private ScriptWarmUp scriptWarmUp;
+
+    @BeforeEach
+    void setUp() {
+        executorService = Executors.newSingleThreadExecutor();
+        InstrumentedExecutorService instrumentedExecutorService = new InstrumentedExecutorService(executorService, new MetricRegistry());
+        workflowDefinitionDao = mock(WorkflowDefinitionDao.class);
+        workflowCache = new WorkflowCache(60L, null, instrumentedExecutorService, new ObjectMapper(), workflowDefinitionDao);
+        workflowCache.init();
+        nodeDefinitionCache = new NodeDefinitionCache(60L, null, instrumentedExecutorService, new ObjectMapper(),
+                mock(NodeDefinitionDao.class));
+        nodeDefinitionCache.init();
+        scriptWarmUp = new ScriptWarmUp(workflowCache, nodeDefinitionCache);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        scriptWarmUp.stop();
+        executorService.shutdownNow();
+        ConfigurationManager.getConfigInstance().clearProperty(ENABLED_PROPERTY);
+    }
+
+    @Test
+    void activeAndLatestVersionsAreWarmedUpAtStart() throws InterruptedException {
+        workflowCache.getCache().put("warm_ACTIVE", workflow("warm-active", "1"));
+        workflowCache.getCache().put("warm_LATEST", workflow("warm-latest", "2"));
+        workflowCache.getCache().put("warm_3", workflow("warm-pinned", "3"));
+
+        scriptWarmUp.start();
+
+        await(scriptWarmUp::isWarmedUp);
+        assertTrue(GroovyTranslator.idleScriptGroups(0).contains("warm-active:1"));
+        assertTrue(GroovyTranslator.idleScriptGroups(0).contains("warm-latest:2"));
+        assertFalse(GroovyTranslator.idleScriptGroups(0).contains("warm-pinned:3"));
+    }
+
+    @Test
+    void publishedVersionIsLoadedAndWarmedUp() throws Exception {
+        WorkflowHB workflowHB = new WorkflowHB();
+        workflowHB.setWorkflowData(workflow("published", "1"));
+        when(workflowDefinitionDao.get("published_LATEST", ConnectionType.HOT)).thenReturn(workflowHB);
+
+        scriptWarmUp.warmUpAsync("published_LATEST");
+
+        await(() -> GroovyTranslator.idleScriptGroups(0).contains("published:1"));
+        assertNotNull(workflowCache.getCache().getIfPresent("published_LATEST"));
+    }
+
+    @Test
+    void disabledWarmUpCompilesNothing() throws Exception {
+        ConfigurationManager.getConfigInstance().setProperty(ENABLED_PROPERTY, false);
+        workflowCache.getCache().put("disabled_ACTIVE", workflow("disabled", "1"));
+
+        scriptWarmUp.start();
+        scriptWarmUp.warmUpAsync("disabled_LATEST");
+
+        assertTrue(scriptWarmUp.isWarmedUp());
+        scriptWarmUp.stop();
+        assertFalse(GroovyTranslator.idleScriptGroups(0).contains("disabled:1"));
+        verify(workflowDefinitionDao, never()).get(anyString(), any(ConnectionType.class));
+    }
+
+    // A workflow of a single groovy node, cached under the node's id and version
+    private Workflow workflow(String nodeId, String nodeVersion) {
+        GroovyNode groovyNode = new GroovyNode();
+        groovyNode.setId(nodeId);
+        groovyNode.setVersion(nodeVersion);
+        groovyNode.setTransformer(new ScriptedComponentDetail(new StringValue("_global.order?.id")));
+        nodeDefinitionCache.getCache().put(nodeId + "_" + nodeVersion, groovyNode);
+        WorkflowNode workflowNode = new WorkflowNode();
+        workflowNode.setInstanceName(nodeId);
+        workflowNode.setResourceId(nodeId);
+        workflowNode.setResourceVersion(nodeVersion);
+        Workflow workflow = new Workflow();
+        workflow.setId(nodeId);
+        workflow.setStates(Map.of(nodeId, workflowNode));
+        return workflow;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + AWAIT_MILLIS;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
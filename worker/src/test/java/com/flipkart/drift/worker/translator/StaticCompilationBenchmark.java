@@ -0,0 +1,75 @@
+package com.flipkart.drift.worker.translator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.config.ConfigurationManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Script evaluations per second with scripts compiled dynamically and statically: a rule on context values, and a
+ * loop that does arithmetic on its own variables.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.flipkart.drift.worker.translator.StaticCompilationBenchmark}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StaticCompilationBenchmark {
+    private static final String STATIC_COMPILATION_PROPERTY = "groovy.staticCompilation.enabled";
+    private static final Map<String, String> SCRIPTS = Map.of(
+            "rule", "_global.status == _enum_store.SUCCESS && (_global.attempts as Integer) < 3",
+            "loop", "int total = 0; for (int i = 0; i < 100; i++) { total += i * i }; total");
+    private static final String CONTEXT = "{\"_global\": {\"status\": \"SUCCESS\", \"attempts\": 2},"
+            + "\"_enum_store\": {\"SUCCESS\": \"SUCCESS\"}}";
+
+    @Param({"rule", "loop"})
+    public String script;
+
+    @Param({"false", "true"})
+    public boolean staticCompilation;
+
+    private String group;
+    private String groovyScript;
+    private JsonNode data;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        group = "benchmark:" + staticCompilation;
+        groovyScript = SCRIPTS.get(script);
+        data = new ObjectMapper().readTree(CONTEXT);
+        ConfigurationManager.getConfigInstance().setProperty(STATIC_COMPILATION_PROPERTY, staticCompilation);
+        GroovyTranslator.compile(group, groovyScript);
+        if (GroovyTranslator.isStaticallyCompiled(group, groovyScript) != staticCompilation) {
+            throw new IllegalStateException("Script " + script + " wasn't compiled as expected");
+        }
+    }
+
+    @Benchmark
+    public Object evaluate() {
+        return GroovyTranslator.translate(group, groovyScript, data);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StaticCompilationBenchmark.class.getSimpleName()).build()).run();
+    }
+}
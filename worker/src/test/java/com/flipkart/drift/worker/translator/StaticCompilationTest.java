@@ -0,0 +1,62 @@
+package com.flipkart.drift.worker.translator;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.config.ConfigurationManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.params.provider.Arguments.arguments;
+
+/**
+ * Scripts run the same with static compilation on, compiled statically when they type check against
+ * {@link TypedScript} and dynamically otherwise.
+ */
+class StaticCompilationTest {
+    private static final String STATIC_COMPILATION_PROPERTY = "groovy.staticCompilation.enabled";
+    private static final String CONTEXT = "{\"_global\": {"
+            + "\"status\": \"SUCCESS\","
+            + "\"attempts\": 2,"
+            + "\"order\": {\"items\": [{\"name\": \"a\"}, {\"name\": \"b\"}]}},"
+            + "\"_enum_store\": {\"SUCCESS\": \"SUCCESS\"}}";
+    // Scripts are compiled once per group
+    private static final AtomicInteger GROUPS = new AtomicInteger();
+
+    static Stream<Arguments> scripts() {
+        return Stream.of(
+                arguments("_global.status == _enum_store.SUCCESS", true),
+                arguments("def attempts = [1, 2, 3]; attempts.sum()", true),
+                arguments("customEvaluate('1 + 1')", true),
+                // Properties of untyped values and undeclared variables only resolve dynamically
+                arguments("_global.order.items.collect { it.name }", false),
+                arguments("attempts = _global.attempts; attempts + 1", false));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ConfigurationManager.getConfigInstance().clearProperty(STATIC_COMPILATION_PROPERTY);
+    }
+
+    @ParameterizedTest
+    @MethodSource("scripts")
+    void scriptsRunTheSameCompiledStatically(String script, boolean typeChecks) throws Exception {
+        JsonNode data = new ObjectMapper().readTree(CONTEXT);
+        Object dynamic = GroovyTranslator.translate(nextGroup(), script, data);
+
+        ConfigurationManager.getConfigInstance().setProperty(STATIC_COMPILATION_PROPERTY, true);
+        String group = nextGroup();
+
+        assertEquals(dynamic, GroovyTranslator.translate(group, script, data));
+        assertEquals(typeChecks, GroovyTranslator.isStaticallyCompiled(group, script));
+    }
+
+    private static String nextGroup() {
+        return "static-compilation:" + GROUPS.incrementAndGet();
+    }
+}
@@ -0,0 +1,132 @@
+package com.flipkart.drift.worker.workflows;
+
+import com.flipkart.drift.commons.model.temporal.WorkflowState;
+import com.flipkart.drift.worker.activities.ReturnControlActivity;
+import com.flipkart.drift.worker.temporal.OptionsStore;
+import io.temporal.activity.ActivityInterface;
+import io.temporal.client.WorkflowClient;
+import io.temporal.client.WorkflowOptions;
+import io.temporal.testing.TestWorkflowEnvironment;
+import io.temporal.worker.Worker;
+import io.temporal.workflow.SignalMethod;
+import io.temporal.workflow.Workflow;
+import io.temporal.workflow.WorkflowInterface;
+import io.temporal.workflow.WorkflowMethod;
+
+import java.util.Arrays;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * p50/p99 latency of an interactive step, from the resume signal until the return-control event is published, with
+ * return control as a regular activity and as a local activity. A step runs one node activity and then returns
+ * control the way {@link WorkflowNodeExecutor} does, on the in-process Temporal test server.
+ * <p>
+ * Run with {@code java -cp <test classpath> com.flipkart.drift.worker.workflows.ReturnControlLatencyBenchmark [steps]}.
+ */
+public class ReturnControlLatencyBenchmark {
+    private static final String TASK_QUEUE = "return-control-benchmark";
+    private static final int WARMUP_STEPS = 50;
+
+    @WorkflowInterface
+    public interface StepWorkflow {
+        @WorkflowMethod
+        void run(int steps, boolean localReturnControl);
+
+        @SignalMethod
+        void resume();
+    }
+
+    @ActivityInterface(namePrefix = "benchmarkNode")
+    public interface NodeActivity {
+        void exec(int step);
+    }
+
+    public static class StepWorkflowImpl implements StepWorkflow {
+        private int resumed;
+
+        @Override
+        public void run(int steps, boolean localReturnControl) {
+            NodeActivity nodeActivity = Workflow.newActivityStub(NodeActivity.class, OptionsStore.activityOptions);
+            ReturnControlActivity returnControlActivity = localReturnControl ?
+                    Workflow.newLocalActivityStub(ReturnControlActivity.class, OptionsStore.returnControlLocalActivityOptions) :
+                    Workflow.newActivityStub(ReturnControlActivity.class, OptionsStore.activityOptions);
+            for (int step = 0; step < steps; step++) {
+                int awaited = step;
+                Workflow.await(() -> resumed > awaited);
+                nodeActivity.exec(step);
+                returnControlActivity.exec(Workflow.getInfo().getWorkflowId(), null);
+            }
+        }
+
+        @Override
+        public void resume() {
+            resumed++;
+        }
+    }
+
+    private static class NoOpNode implements NodeActivity {
+        @Override
+        public void exec(int step) {
+        }
+    }
+
+    private static class PublishedEvents implements ReturnControlActivity {
+        private final BlockingQueue<Long> publishedNanos = new LinkedBlockingQueue<>();
+
+        @Override
+        public Long exec(String workflowId, WorkflowState workflowState) {
+            publishedNanos.add(System.nanoTime());
+            return 1L;
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int steps = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        for (boolean localReturnControl : new boolean[]{false, true}) {
+            long[] latencies = measure(steps, localReturnControl);
+            Arrays.sort(latencies);
+            System.out.printf("%s return control: steps=%d p50=%.2fms p99=%.2fms%n",
+                    localReturnControl ? "local" : "regular", steps,
+                    percentile(latencies, 50), percentile(latencies, 99));
+        }
+    }
+
+    private static long[] measure(int steps, boolean localReturnControl) throws InterruptedException {
+        TestWorkflowEnvironment testEnvironment = TestWorkflowEnvironment.newInstance();
+        try {
+            PublishedEvents publishedEvents = new PublishedEvents();
+            Worker worker = testEnvironment.newWorker(TASK_QUEUE);
+            worker.registerWorkflowImplementationTypes(StepWorkflowImpl.class);
+            worker.registerActivitiesImplementations(new NoOpNode(), publishedEvents);
+            testEnvironment.start();
+
+            WorkflowClient client = testEnvironment.getWorkflowClient();
+            StepWorkflow workflow = client.newWorkflowStub(StepWorkflow.class,
+                    WorkflowOptions.newBuilder().setTaskQueue(TASK_QUEUE).build());
+            WorkflowClient.start(workflow::run, WARMUP_STEPS + steps, localReturnControl);
+
+            long[] latencies = new long[steps];
+            for (int step = 0; step < WARMUP_STEPS + steps; step++) {
+                long resumedNanos = System.nanoTime();
+                workflow.resume();
+                Long publishedNanos = publishedEvents.publishedNanos.poll(30, TimeUnit.SECONDS);
+                if (publishedNanos == null) {
+                    throw new IllegalStateException("No return control event for step " + step);
+                }
+                if (step >= WARMUP_STEPS) {
+                    latencies[step - WARMUP_STEPS] = publishedNanos - resumedNanos;
+                }
+            }
+            return latencies;
+        } finally {
+            testEnvironment.close();
+        }
+    }
+
+    private static double percentile(long[] sortedLatencies, int percentile) {
+        int index = (int) Math.ceil(percentile / 100.0 * sortedLatencies.length) - 1;
+        return sortedLatencies[Math.max(index, 0)] / 1_000_000.0;
+    }
+}